@@ -0,0 +1,84 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import com.example.demo.blockchain.selection.CoinSelectionEngine;
+import com.example.demo.blockchain.selection.SelectionResult;
+import com.example.demo.blockchain.service.FeeCalculator;
+import com.example.demo.blockchain.service.ScriptType;
+import com.example.demo.blockchain.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionService#selectCoins} across wallet sizes, paying about 1% of the balance.
+ * {@code selectFromUtxoSet} runs the same selection directly on a columnar {@link UtxoSet}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoinSelectionBenchmark {
+
+    private static final long FEE_RATE = 5;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int utxoCount;
+
+    private TransactionService transactionService;
+    private CoinSelectionEngine engine;
+    private List<UTXO> utxos;
+    private UtxoSet utxoSet;
+    private long amount;
+
+    @Setup
+    public void setUp() {
+        FeeCalculator feeCalculator = new FeeCalculator();
+        engine = new CoinSelectionEngine(feeCalculator, new SimpleMeterRegistry(), 2, 100_000, 2);
+        // selectCoins only touches the selection engine
+        transactionService = new TransactionService(null, feeCalculator, null, null, engine, null, null, null, null);
+
+        Random random = new Random(42);
+        utxos = new ArrayList<>(utxoCount);
+        long total = 0;
+        for (int i = 0; i < utxoCount; i++) {
+            UTXO utxo = new UTXO();
+            utxo.setTxid(String.format("%064x", i));
+            utxo.setVout(i % 4);
+            utxo.setAmount(5_000 + random.nextInt(2_000_000));
+            utxo.setConfirmations(1 + random.nextInt(1000));
+            utxos.add(utxo);
+            total += utxo.getAmount();
+        }
+        utxoSet = UtxoSet.of(utxos);
+        // Small wallets pay most of the balance so the selection still needs several inputs
+        amount = utxoCount <= 10 ? total / 2 : total / 100;
+    }
+
+    @Benchmark
+    public SelectionResult selectCoins() {
+        return transactionService.selectCoins(utxos, amount, FEE_RATE);
+    }
+
+    @Benchmark
+    public SelectionResult selectFromUtxoSet() {
+        return engine.select(utxoSet, amount, ScriptType.P2PKH, List.of(ScriptType.P2PKH), FEE_RATE);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.blockchain.service.FeeAccumulator;
+import com.example.demo.blockchain.service.FeeCalculator;
+import com.example.demo.blockchain.service.ScriptType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marginal fee of each input while a transaction grows to {@code inputs} inputs, the pattern
+ * of consolidation and selection loops. Run with {@code -prof gc}: both variants should report
+ * a {@code gc.alloc.rate.norm} of about 0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeeAccumulatorBenchmark {
+
+    @Param({"100", "10000"})
+    public int inputs;
+
+    public long feeRate = 5;
+    public ScriptType scriptType = ScriptType.P2WPKH;
+
+    private final FeeCalculator feeCalculator = new FeeCalculator();
+    private final FeeAccumulator accumulator = new FeeAccumulator();
+
+    @Benchmark
+    public long accumulator() {
+        FeeAccumulator size = accumulator.reset().addOutput(scriptType);
+        long marginal = 0;
+        long previous = size.fee(feeRate);
+        for (int i = 0; i < inputs; i++) {
+            long fee = size.addInput(scriptType).fee(feeRate);
+            marginal += fee - previous;
+            previous = fee;
+        }
+        return marginal;
+    }
+
+    @Benchmark
+    public long calculatorPerInput() {
+        long marginal = 0;
+        long previous = feeCalculator.calculateFee(scriptType, 0, scriptType, 1, feeRate);
+        for (int i = 1; i <= inputs; i++) {
+            long fee = feeCalculator.calculateFee(scriptType, i, scriptType, 1, feeRate);
+            marginal += fee - previous;
+            previous = fee;
+        }
+        return marginal;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.blockchain.service.FeeCalculator;
+import com.example.demo.blockchain.service.ScriptType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FeeCalculator} hot-path methods. Inputs live in state fields so the JIT cannot fold them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeeCalculatorBenchmark {
+
+    private final FeeCalculator feeCalculator = new FeeCalculator();
+
+    public int inputs = 3;
+    public int outputs = 2;
+    public long feeRate = 5;
+    public ScriptType scriptType = ScriptType.P2WPKH;
+
+    @Benchmark
+    public long calculateFee() {
+        return feeCalculator.calculateFee(inputs, outputs, feeRate);
+    }
+
+    @Benchmark
+    public int calculateTransactionSize() {
+        return feeCalculator.calculateTransactionSize(inputs, outputs);
+    }
+
+    @Benchmark
+    public int calculateVirtualSize() {
+        return feeCalculator.calculateVirtualSize(scriptType, inputs, scriptType, outputs);
+    }
+
+    @Benchmark
+    public long calculateFeePerInput() {
+        return feeCalculator.calculateFeePerInput(scriptType, feeRate);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.blockchain.model.DerivedAddress;
+import com.example.demo.blockchain.service.HdAccount;
+import com.example.demo.blockchain.service.KeyService;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.params.TestNet3Params;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link KeyService} operations on a fixed testnet key, and HD address derivation from a
+ * BIP84 account: single addresses cold and cached, and ranges of 1000 on the parallel path.
+ * Cold benchmarks move to indexes not derived before on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyServiceBenchmark {
+
+    private final KeyService keyService = new KeyService();
+
+    private String privateKeyWif;
+    private String address;
+    private String message;
+    private String accountId;
+    private int nextIndex;
+
+    @Setup
+    public void setUp() {
+        ECKey key = ECKey.fromPrivate(new BigInteger("5a1f7c3e9b2d4f6a8c0e1b3d5f7a9c2e4b6d8f0a1c3e5b7d9f2a4c6e8b0d1f3a", 16));
+        privateKeyWif = key.getPrivateKeyAsWiF(TestNet3Params.get());
+        address = LegacyAddress.fromKey(TestNet3Params.get(), key).toString();
+        message = "SatoshiVault benchmark message";
+        accountId = keyService.importAccount(keyService.generateMasterKey(KeyService.BIP84), null, 0).getId();
+        keyService.deriveAddress(accountId, HdAccount.EXTERNAL, 0);
+    }
+
+    @Benchmark
+    public String getAddressFromPrivateKey() {
+        return keyService.getAddressFromPrivateKey(privateKeyWif);
+    }
+
+    @Benchmark
+    public boolean isValidAddress() {
+        return keyService.isValidAddress(address);
+    }
+
+    @Benchmark
+    public String signMessage() {
+        return keyService.signMessage(message, privateKeyWif);
+    }
+
+    @Benchmark
+    public DerivedAddress deriveAddressCold() {
+        return keyService.deriveAddress(accountId, HdAccount.INTERNAL, nextIndex++);
+    }
+
+    @Benchmark
+    public DerivedAddress deriveAddressCached() {
+        return keyService.deriveAddress(accountId, HdAccount.EXTERNAL, 0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<DerivedAddress> deriveAddresses1000() {
+        int from = nextIndex;
+        nextIndex += 1000;
+        return keyService.deriveAddresses(accountId, HdAccount.EXTERNAL, from + 1, 1000);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import com.example.demo.blockchain.store.MappedUtxoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Lookups against a {@link MappedUtxoStore} holding {@code utxos} outputs spread over 10k
+ * addresses. The store lives in a temporary directory; run with a small heap
+ * (e.g. {@code -jvmArgs -Xmx256m}) to see that the outputs stay off-heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedUtxoStoreBenchmark {
+    private static final int ADDRESSES = 10_000;
+
+    @Param({"1000000"})
+    public int utxos;
+
+    private Path dir;
+    private MappedUtxoStore store;
+    private String[] txids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("utxo-store-bench");
+        store = new MappedUtxoStore(dir.toString(), false, 0.3, 10_000, new SimpleMeterRegistry());
+        store.open();
+
+        int perAddress = utxos / ADDRESSES;
+        txids = new String[utxos];
+        for (int a = 0; a < ADDRESSES; a++) {
+            List<UTXO> batch = new ArrayList<>(perAddress);
+            for (int i = 0; i < perAddress; i++) {
+                int n = a * perAddress + i;
+                txids[n] = String.format("%064x", n * 0x9E3779B97F4A7C15L);
+                UTXO utxo = new UTXO();
+                utxo.setTxid(txids[n]);
+                utxo.setVout(0);
+                utxo.setAmount(1_000 + n);
+                utxo.setBlockHeight(n % 100_000);
+                batch.add(utxo);
+            }
+            store.replaceAll(address(a), batch);
+        }
+        store.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long getBalance() {
+        return store.getBalance(address(ThreadLocalRandom.current().nextInt(ADDRESSES)));
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return store.contains(txids[ThreadLocalRandom.current().nextInt(txids.length)], 0);
+    }
+
+    @Benchmark
+    public UtxoSet getUtxoSet() {
+        return store.getUtxoSet(address(ThreadLocalRandom.current().nextInt(ADDRESSES)));
+    }
+
+    private static String address(int n) {
+        return "addr" + n;
+    }
+}
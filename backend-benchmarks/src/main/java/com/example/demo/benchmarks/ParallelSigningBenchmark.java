@@ -0,0 +1,94 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.service.KeyService;
+import com.example.demo.blockchain.tx.SignedTransaction;
+import com.example.demo.blockchain.tx.TransactionBuilder;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.script.Script;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential against fork-join signing of P2WPKH consolidation transactions.
+ * Setup fails if the two paths do not produce identical bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSigningBenchmark {
+
+    @Param({"1", "50", "500", "2000"})
+    public int inputCount;
+
+    private TransactionBuilder transactionBuilder;
+    private ECKey key;
+    private Transaction tx;
+
+    @Setup
+    public void setUp() {
+        KeyService keyService = new KeyService();
+        transactionBuilder = new TransactionBuilder(keyService, 32, 0);
+        key = ECKey.fromPrivate(new BigInteger("5a1f7c3e9b2d4f6a8c0e1b3d5f7a9c2e4b6d8f0a1c3e5b7d9f2a4c6e8b0d1f3a", 16));
+        String address = Address.fromKey(keyService.getNetworkParameters(), key, Script.ScriptType.P2WPKH).toString();
+
+        Random random = new Random(42);
+        List<UTXO> utxos = new ArrayList<>(inputCount);
+        long total = 0;
+        for (int i = 0; i < inputCount; i++) {
+            UTXO utxo = new UTXO();
+            utxo.setTxid(String.format("%016x%016x%016x%016x",
+                    random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()));
+            utxo.setVout(random.nextInt(4));
+            utxo.setAmount(20_000 + random.nextInt(1_000_000));
+            utxos.add(utxo);
+            total += utxo.getAmount();
+        }
+        tx = transactionBuilder.assemble(utxos, List.of(new TxOutput(address, total - 10_000L * inputCount)));
+
+        String sequential = sequential().getRawHex();
+        String parallel = parallel().getRawHex();
+        if (!sequential.equals(parallel)) {
+            throw new IllegalStateException("Parallel signing diverged from sequential signing");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        transactionBuilder.shutdown();
+    }
+
+    @Benchmark
+    public SignedTransaction sequential() {
+        transactionBuilder.signSequential(tx, key, Script.ScriptType.P2WPKH);
+        return transactionBuilder.serialize(tx);
+    }
+
+    @Benchmark
+    public SignedTransaction parallel() {
+        transactionBuilder.signParallel(tx, key, Script.ScriptType.P2WPKH);
+        return transactionBuilder.serialize(tx);
+    }
+}
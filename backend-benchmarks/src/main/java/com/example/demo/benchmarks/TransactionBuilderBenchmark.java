@@ -0,0 +1,80 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.service.KeyService;
+import com.example.demo.blockchain.tx.SignedTransaction;
+import com.example.demo.blockchain.tx.TransactionBuilder;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.script.Script;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionBuilder#buildAndSign} for a simple payment (1 input) and a
+ * consolidation (500 inputs into one output), for each supported input type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBuilderBenchmark {
+
+    @Param({"1", "500"})
+    public int inputCount;
+
+    @Param({"P2PKH", "P2WPKH"})
+    public String scriptType;
+
+    private TransactionBuilder transactionBuilder;
+    private ECKey key;
+    private String fromAddress;
+    private List<UTXO> utxos;
+    private List<TxOutput> outputs;
+
+    @Setup
+    public void setUp() {
+        KeyService keyService = new KeyService();
+        transactionBuilder = new TransactionBuilder(keyService, 32, 0);
+        key = ECKey.fromPrivate(new BigInteger("5a1f7c3e9b2d4f6a8c0e1b3d5f7a9c2e4b6d8f0a1c3e5b7d9f2a4c6e8b0d1f3a", 16));
+        fromAddress = Address.fromKey(keyService.getNetworkParameters(), key,
+                Script.ScriptType.valueOf(scriptType)).toString();
+
+        Random random = new Random(42);
+        utxos = new ArrayList<>(inputCount);
+        long total = 0;
+        for (int i = 0; i < inputCount; i++) {
+            UTXO utxo = new UTXO();
+            utxo.setTxid(String.format("%016x%016x%016x%016x",
+                    random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()));
+            utxo.setVout(random.nextInt(4));
+            utxo.setAmount(20_000 + random.nextInt(1_000_000));
+            utxos.add(utxo);
+            total += utxo.getAmount();
+        }
+        outputs = List.of(new TxOutput("mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn", total - 10_000L * inputCount));
+    }
+
+    @Benchmark
+    public SignedTransaction buildAndSign() {
+        return transactionBuilder.buildAndSign(utxos, outputs, key, fromAddress);
+    }
+}
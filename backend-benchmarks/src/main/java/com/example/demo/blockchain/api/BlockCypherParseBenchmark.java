@@ -0,0 +1,115 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson parsing of a recorded BlockCypher /addrs response: String + JsonObject tree
+ * against {@link BlockCypherStreamParser}. The recorded txrefs are repeated to reach
+ * {@code txrefs} entries. Lives in the parser's package because the parser is package-private.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockCypherParseBenchmark {
+
+    @Param({"3", "1000", "10000"})
+    public int txrefs;
+
+    private byte[] unspentPayload;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonObject recorded = JsonParser.parseString(
+                new String(resource("/blockcypher/addrs-unspent.json"), StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonArray recordedRefs = recorded.getAsJsonArray("txrefs");
+        JsonArray scaled = new JsonArray(txrefs);
+        for (int i = 0; i < txrefs; i++) {
+            JsonObject ref = recordedRefs.get(i % recordedRefs.size()).getAsJsonObject().deepCopy();
+            ref.addProperty("tx_hash", String.format("%064x", i));
+            scaled.add(ref);
+        }
+        recorded.add("txrefs", scaled);
+        unspentPayload = recorded.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<UTXO> utxosTree() {
+        // The pre-streaming BlockCypherClient path: whole body as a String, then a full tree
+        JsonObject jsonObject = JsonParser.parseString(new String(unspentPayload, StandardCharsets.UTF_8))
+                .getAsJsonObject();
+        List<UTXO> utxos = new ArrayList<>();
+        for (JsonElement element : jsonObject.getAsJsonArray("txrefs")) {
+            JsonObject tx = element.getAsJsonObject();
+            UTXO utxo = new UTXO();
+            utxo.setTxid(tx.get("tx_hash").getAsString());
+            utxo.setVout(tx.get("tx_output_n").getAsInt());
+            utxo.setAmount(tx.get("value").getAsLong());
+            utxo.setConfirmations(tx.get("confirmations").getAsInt());
+            utxos.add(utxo);
+        }
+        return utxos;
+    }
+
+    @Benchmark
+    public List<UTXO> utxosStreaming() throws IOException {
+        try (Reader reader = reader(unspentPayload)) {
+            return BlockCypherStreamParser.readUTXOs(reader);
+        }
+    }
+
+    @Benchmark
+    public long balanceTree() {
+        return JsonParser.parseString(new String(unspentPayload, StandardCharsets.UTF_8))
+                .getAsJsonObject().get("balance").getAsLong();
+    }
+
+    @Benchmark
+    public long balanceStreaming() throws IOException {
+        // Stops reading once "balance" is seen, however long the txrefs array is
+        try (Reader reader = reader(unspentPayload)) {
+            return BlockCypherStreamParser.readBalance(reader);
+        }
+    }
+
+    private static Reader reader(byte[] payload) {
+        return new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] resource(String path) throws IOException {
+        try (InputStream in = BlockCypherParseBenchmark.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IOException("Missing benchmark payload " + path);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
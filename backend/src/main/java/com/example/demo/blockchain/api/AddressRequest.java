@@ -0,0 +1,12 @@
+package com.example.demo.blockchain.api;
+
+/**
+ * Identifies a per-address provider lookup, used as the key by the caching
+ * and request-coalescing layers.
+ */
+record AddressRequest(Operation operation, String address) {
+
+    enum Operation {
+        BALANCE, UTXOS, HISTORY
+    }
+}
@@ -1,22 +1,34 @@
 package com.example.demo.blockchain.api;
 
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.FeeEstimates;
+import com.example.demo.blockchain.model.Outpoint;
 import com.example.demo.blockchain.model.Transaction;
-import com.example.demo.blockchain.model.TxInput;
-import com.example.demo.blockchain.model.TxOutput;
 import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.Webhook;
+import com.example.demo.blockchain.util.Futures;
 import com.example.demo.blockchain.util.HttpClientWrapper;
-import com.google.gson.JsonArray;
+import com.example.demo.blockchain.util.HttpStatusException;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import java.io.Reader;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
-@Primary
 public class BlockCypherClient implements BlockchainAPI {
 
     @Autowired
@@ -28,15 +40,44 @@ public class BlockCypherClient implements BlockchainAPI {
     @Value("${blockcypher.token:}")
     private String apiToken;
 
+    @Value("${blockcypher.ratelimit.rps:3}")
+    private double rateLimitPerSecond;
+
+    @Value("${blockcypher.ratelimit.burst:3}")
+    private int rateLimitBurst;
+
+    @Value("${blockcypher.batch.size:50}")
+    private int batchSize;
+
+    @Value("${blockcypher.batch.parallelism:4}")
+    private int batchParallelism;
+
+    @Value("${blockcypher.page.limit:2000}")
+    private int pageLimit;
+
+    @Value("${fee.oracle.default-rate:5}")
+    private long defaultFeeRate;
+
+    // Fee levels from the latest poll by FeeRateOracle, read by estimateFee without a request
+    private volatile FeeEstimates lastFeeEstimates;
+
+    @PostConstruct
+    public void registerRateLimit() {
+        httpClientWrapper.registerRateLimit(URI.create(apiUrl).getHost(), rateLimitPerSecond, rateLimitBurst);
+    }
+
     /**
      * Get balance for address
      */
     @Override
     public long getBalance(String address) throws Exception {
+        return Futures.await(getBalanceAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalanceAsync(String address) {
         String url = apiUrl + "/addrs/" + address + "?token=" + apiToken;
-        String response = httpClientWrapper.get(url);
-        JsonObject jsonObject = httpClientWrapper.parseJson(response);
-        return jsonObject.get("balance").getAsLong();
+        return httpClientWrapper.getStreamAsync(url, BlockCypherStreamParser::readBalance);
     }
 
     /**
@@ -44,24 +85,47 @@ public class BlockCypherClient implements BlockchainAPI {
      */
     @Override
     public List<UTXO> getUTXOs(String address) throws Exception {
-        String url = apiUrl + "/addrs/" + address + "?unspentOnly=true&token=" + apiToken;
-        String response = httpClientWrapper.get(url);
-        JsonObject jsonObject = httpClientWrapper.parseJson(response);
+        return Futures.await(getUTXOsAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAsync(String address) {
+        return fetchUTXOs(address, "", Long.MAX_VALUE, new LinkedHashMap<>());
+    }
+
+    /**
+     * Get UTXOs confirmed above a block height, filtered server-side with "after"
+     */
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAfterAsync(String address, long afterHeight) {
+        return fetchUTXOs(address, "&after=" + afterHeight, Long.MAX_VALUE, new LinkedHashMap<>());
+    }
 
-        List<UTXO> utxos = new ArrayList<>();
-        if (jsonObject.has("txrefs")) {
-            JsonArray txrefs = jsonObject.getAsJsonArray("txrefs");
-            for (int i = 0; i < txrefs.size(); i++) {
-                JsonObject tx = txrefs.get(i).getAsJsonObject();
-                UTXO utxo = new UTXO();
-                utxo.setTxid(tx.get("tx_hash").getAsString());
-                utxo.setVout(tx.get("tx_output_n").getAsInt());
-                utxo.setAmount(tx.get("output_value").getAsLong());
-                utxo.setConfirmations(tx.get("confirmations").getAsInt());
-                utxos.add(utxo);
+    /**
+     * Reads the unspent outputs of an address page by page. A response lists at most
+     * {@code blockcypher.page.limit} txrefs, newest block first, and sets "hasMore" when older
+     * ones were left out; those are requested with "before" the lowest height seen plus one,
+     * since that block's outputs may straddle two pages. Outpoints read twice are kept once.
+     */
+    private CompletableFuture<List<UTXO>> fetchUTXOs(String address, String filter, long before,
+                                                     Map<Outpoint, UTXO> collected) {
+        String url = apiUrl + "/addrs/" + address + "?unspentOnly=true&limit=" + pageLimit + filter
+                + (before == Long.MAX_VALUE ? "" : "&before=" + before) + "&token=" + apiToken;
+        return httpClientWrapper.getStreamAsync(url, BlockCypherStreamParser::readUTXOPage).thenCompose(page -> {
+            long lowest = Long.MAX_VALUE;
+            for (UTXO utxo : page.utxos) {
+                collected.putIfAbsent(Outpoint.of(utxo), utxo);
+                if (utxo.getBlockHeight() >= 0) {
+                    lowest = Math.min(lowest, utxo.getBlockHeight());
+                }
             }
-        }
-        return utxos;
+            if (!page.hasMore || lowest == Long.MAX_VALUE) {
+                return CompletableFuture.completedFuture(new ArrayList<>(collected.values()));
+            }
+            // A page holding nothing but one block moves past it, or paging would never end
+            long next = lowest + 1 < before ? lowest + 1 : lowest;
+            return fetchUTXOs(address, filter, next, collected);
+        });
     }
 
     /**
@@ -69,34 +133,127 @@ public class BlockCypherClient implements BlockchainAPI {
      */
     @Override
     public List<Transaction> getTransactionHistory(String address) throws Exception {
+        return Futures.await(getTransactionHistoryAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String address) {
         String url = apiUrl + "/addrs/" + address + "?token=" + apiToken;
-        String response = httpClientWrapper.get(url);
-        JsonObject jsonObject = httpClientWrapper.parseJson(response);
+        return httpClientWrapper.getStreamAsync(url, BlockCypherStreamParser::readTransactions);
+    }
 
-        List<Transaction> transactions = new ArrayList<>();
-        if (jsonObject.has("txs")) {
-            JsonArray txs = jsonObject.getAsJsonArray("txs");
-            for (int i = 0; i < txs.size(); i++) {
-                JsonObject tx = txs.get(i).getAsJsonObject();
-                Transaction transaction = new Transaction();
-                transaction.setTxid(tx.get("hash").getAsString());
-                transaction.setAmount(tx.get("total").getAsLong());
-                transaction.setConfirmations(tx.get("confirmations").getAsInt());
-                transactions.add(transaction);
-            }
+    /**
+     * Get balances for many addresses using the semicolon-batched /addrs endpoint
+     */
+    @Override
+    public CompletableFuture<BatchResult<Long>> getBalancesAsync(Collection<String> addresses) {
+        return fetchBatched(addresses, "", "", BlockCypherStreamParser::readBalanceBatch);
+    }
+
+    /**
+     * Get UTXOs for many addresses using the semicolon-batched /addrs endpoint
+     */
+    @Override
+    public CompletableFuture<BatchResult<List<UTXO>>> getUTXOsBatchAsync(Collection<String> addresses) {
+        return fetchBatched(addresses, "", "unspentOnly=true&", BlockCypherStreamParser::readUTXOBatch)
+                .thenCompose(batch -> {
+                    // Addresses with more outputs than a batch entry lists are paged one by one
+                    List<String> truncated = batch.getErrors().entrySet().stream()
+                            .filter(error -> BlockCypherStreamParser.TRUNCATED.equals(error.getValue()))
+                            .map(Map.Entry::getKey)
+                            .collect(Collectors.toList());
+                    if (truncated.isEmpty()) {
+                        return CompletableFuture.completedFuture(batch);
+                    }
+                    return BatchResult.collect(truncated, this::getUTXOsAsync).thenApply(batch::merge);
+                });
+    }
+
+    /**
+     * Get transaction counts (final_n_tx, unconfirmed included) for many addresses using the
+     * semicolon-batched /addrs/.../balance endpoint, which carries no transaction lists
+     */
+    @Override
+    public CompletableFuture<BatchResult<Long>> getTransactionCountsAsync(Collection<String> addresses) {
+        return fetchBatched(addresses, "/balance", "", BlockCypherStreamParser::readTxCountBatch);
+    }
+
+    /**
+     * Splits addresses into chunks of {@code blockcypher.batch.size}, fetches up to
+     * {@code blockcypher.batch.parallelism} chunks at a time and merges the results.
+     * A failed chunk marks each of its addresses as an error rather than failing the batch.
+     */
+    private <T> CompletableFuture<BatchResult<T>> fetchBatched(Collection<String> addresses, String path,
+                                                              String query, BatchParser<T> parser) {
+        List<String> unique = addresses.stream().distinct().collect(Collectors.toList());
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < unique.size(); i += batchSize) {
+            chunks.add(unique.subList(i, Math.min(i + batchSize, unique.size())));
         }
-        return transactions;
+
+        return Futures.mapBounded(chunks, batchParallelism, chunk -> {
+            String url = apiUrl + "/addrs/" + String.join(";", chunk) + path + "?" + query + "token=" + apiToken;
+            return httpClientWrapper.getStreamAsync(url, body -> parser.parse(body, chunk))
+                    .exceptionally(error -> {
+                        BatchResult<T> failed = new BatchResult<>();
+                        String message = Futures.unwrap(error).getMessage();
+                        chunk.forEach(address -> failed.addError(address, message));
+                        return failed;
+                    });
+        }).thenApply(results -> {
+            BatchResult<T> merged = new BatchResult<>();
+            results.forEach(merged::merge);
+            return merged;
+        });
     }
 
     /**
-     * Estimate transaction fee
+     * Estimate transaction fee at the medium fee level of the latest fee poll, or at
+     * {@code fee.oracle.default-rate} before the first poll. Never makes a request.
      */
     @Override
     public long estimateFee(int inputs, int outputs) throws Exception {
         // Rough estimation: ~250 bytes per input + 50 bytes per output
         int estimatedSize = (inputs * 250) + (outputs * 50);
-        long feeRate = 5; // satoshis per byte (testnet)
-        return estimatedSize * feeRate;
+        FeeEstimates estimates = lastFeeEstimates;
+        long feePerKb = estimates != null ? estimates.getMediumFeePerKb() : defaultFeeRate * 1000;
+        return (estimatedSize * feePerKb + 999) / 1000;
+    }
+
+    /**
+     * Get the high/medium/low fee levels from the chain endpoint, remembering them for {@link #estimateFee}
+     */
+    @Override
+    public CompletableFuture<FeeEstimates> getFeeEstimatesAsync() {
+        String url = apiUrl + "?token=" + apiToken;
+        return httpClientWrapper.getAsync(url).thenApply(response -> {
+            JsonObject chain = httpClientWrapper.parseJson(response);
+            return new FeeEstimates(
+                    chain.get("high_fee_per_kb").getAsLong(),
+                    chain.get("medium_fee_per_kb").getAsLong(),
+                    chain.get("low_fee_per_kb").getAsLong());
+        }).thenApply(estimates -> {
+            lastFeeEstimates = estimates;
+            return estimates;
+        });
+    }
+
+    /**
+     * Look a transaction up by id; 404 means BlockCypher has not seen it
+     */
+    @Override
+    public CompletableFuture<Boolean> isTransactionKnownAsync(String txid) {
+        String url = apiUrl + "/txs/" + txid + "?limit=1&token=" + apiToken;
+        return httpClientWrapper.getAsync(url).handle((response, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(true);
+            }
+            Throwable cause = Futures.unwrap(error);
+            if (cause instanceof HttpStatusException && ((HttpStatusException) cause).getStatusCode() == 404) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return CompletableFuture.<Boolean>failedFuture(cause);
+        }).thenCompose(Function.identity());
     }
 
     /**
@@ -113,6 +270,59 @@ public class BlockCypherClient implements BlockchainAPI {
         return jsonObject.get("tx").getAsJsonObject().get("hash").getAsString();
     }
 
+    /**
+     * Get current chain tip height
+     */
+    @Override
+    public long getBlockHeight() throws Exception {
+        String url = apiUrl + "?token=" + apiToken;
+        String response = httpClientWrapper.get(url);
+        return httpClientWrapper.parseJson(response).get("height").getAsLong();
+    }
+
+    /**
+     * Register a webhook. BlockCypher POSTs the transaction (or block) JSON to
+     * {@code callbackUrl} each time {@code event} fires.
+     *
+     * @param event       {@code unconfirmed-tx}, {@code confirmed-tx} or {@code new-block}
+     * @param address     Address to watch, or null for chain-wide events such as new blocks
+     * @param callbackUrl Publicly reachable URL of the receiver
+     * @return The registered hook, with the id BlockCypher assigned
+     */
+    public CompletableFuture<Webhook> registerWebhookAsync(String event, String address, String callbackUrl) {
+        String url = apiUrl + "/hooks?token=" + apiToken;
+        JsonObject payload = new JsonObject();
+        payload.addProperty("event", event);
+        payload.addProperty("url", callbackUrl);
+        if (address != null) {
+            payload.addProperty("address", address);
+        }
+        return httpClientWrapper.postAsync(url, payload.toString())
+                .thenApply(response -> toWebhook(httpClientWrapper.parseJson(response)));
+    }
+
+    /**
+     * List the webhooks registered under the API token
+     */
+    public CompletableFuture<List<Webhook>> listWebhooksAsync() {
+        String url = apiUrl + "/hooks?token=" + apiToken;
+        return httpClientWrapper.getAsync(url).thenApply(response -> {
+            List<Webhook> hooks = new ArrayList<>();
+            for (JsonElement hook : JsonParser.parseString(response).getAsJsonArray()) {
+                hooks.add(toWebhook(hook.getAsJsonObject()));
+            }
+            return hooks;
+        });
+    }
+
+    /**
+     * Delete a webhook by id
+     */
+    public CompletableFuture<Void> deleteWebhookAsync(String id) {
+        String url = apiUrl + "/hooks/" + id + "?token=" + apiToken;
+        return httpClientWrapper.deleteAsync(url);
+    }
+
     /**
      * Check if address is valid
      */
@@ -126,4 +336,17 @@ public class BlockCypherClient implements BlockchainAPI {
             return false;
         }
     }
+
+    private static Webhook toWebhook(JsonObject hook) {
+        return new Webhook(
+                hook.get("id").getAsString(),
+                hook.get("event").getAsString(),
+                hook.has("address") ? hook.get("address").getAsString() : null,
+                hook.get("url").getAsString());
+    }
+
+    @FunctionalInterface
+    private interface BatchParser<T> {
+        BatchResult<T> parse(Reader body, List<String> requested) throws Exception;
+    }
 }
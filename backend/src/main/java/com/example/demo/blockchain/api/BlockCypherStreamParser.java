@@ -0,0 +1,372 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.model.UTXO;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Streaming parser for BlockCypher address responses.
+ * Builds model objects directly from Gson tokens as they arrive, skipping every field
+ * we do not use, so large address payloads are never held as a String or JsonObject tree.
+ */
+final class BlockCypherStreamParser {
+
+    // Batch error for an address with more outputs than one response lists
+    static final String TRUNCATED = "UTXO listing truncated by the provider";
+
+    private BlockCypherStreamParser() {
+    }
+
+    /**
+     * Reads the "balance" field of an /addrs/{address} response.
+     */
+    static long readBalance(Reader body) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("balance".equals(reader.nextName())) {
+                // Remaining fields are irrelevant; the caller closes the stream
+                return reader.nextLong();
+            }
+            reader.skipValue();
+        }
+        throw new IOException("Response does not contain a balance field");
+    }
+
+    /**
+     * Reads the "unconfirmed_txrefs" and "txrefs" arrays of an /addrs/{address}?unspentOnly=true
+     * response into UTXOs.
+     */
+    static List<UTXO> readUTXOs(Reader body) throws IOException {
+        return readUTXOPage(body).utxos;
+    }
+
+    /**
+     * Reads one page of an /addrs/{address}?unspentOnly=true response, noting whether
+     * "hasMore" says older outputs were left out.
+     */
+    static UtxoPage readUTXOPage(Reader body) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        AddressEntry entry = readAddressEntry(reader, true);
+        if (entry.error != null) {
+            throw new IOException(entry.error);
+        }
+        return new UtxoPage(entry.utxos, entry.hasMore);
+    }
+
+    /**
+     * Reads a batched /addrs/a;b;c response into balances keyed by address.
+     * Entries without an "address" field (BlockCypher error objects) are matched by position.
+     */
+    static BatchResult<Long> readBalanceBatch(Reader body, List<String> requested) throws IOException {
+        BatchResult<Long> batch = new BatchResult<>();
+        readBatch(body, requested, false, (address, entry) -> batch.addResult(address, entry.balance), batch);
+        return batch;
+    }
+
+    /**
+     * Reads a batched /addrs/a;b;c/balance response into transaction counts (final_n_tx) keyed by address.
+     */
+    static BatchResult<Long> readTxCountBatch(Reader body, List<String> requested) throws IOException {
+        BatchResult<Long> batch = new BatchResult<>();
+        readBatch(body, requested, false, (address, entry) -> {
+            // Counting a missing field as zero would end discovery at an address that may be used
+            if (entry.txCount == null) {
+                batch.addError(address, "Transaction count missing from provider response");
+            } else {
+                batch.addResult(address, entry.txCount);
+            }
+        }, batch);
+        return batch;
+    }
+
+    /**
+     * Reads a batched /addrs/a;b;c?unspentOnly=true response into UTXO lists keyed by address.
+     * An address whose listing was cut short is recorded as {@link #TRUNCATED} for the caller
+     * to fetch page by page.
+     */
+    static BatchResult<List<UTXO>> readUTXOBatch(Reader body, List<String> requested) throws IOException {
+        BatchResult<List<UTXO>> batch = new BatchResult<>();
+        readBatch(body, requested, true, (address, entry) -> {
+            if (entry.hasMore) {
+                batch.addError(address, TRUNCATED);
+                return;
+            }
+            entry.utxos.forEach(utxo -> utxo.setAddress(address));
+            batch.addResult(address, entry.utxos);
+        }, batch);
+        return batch;
+    }
+
+    private static void readBatch(Reader body, List<String> requested, boolean withUtxos,
+                                  BiConsumer<String, AddressEntry> onEntry, BatchResult<?> batch) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        // A batch of one comes back as a bare object rather than an array
+        boolean array = reader.peek() == JsonToken.BEGIN_ARRAY;
+        if (array) {
+            reader.beginArray();
+        }
+
+        int position = 0;
+        while (!array || reader.hasNext()) {
+            AddressEntry entry = readAddressEntry(reader, withUtxos);
+            String address = entry.address != null ? entry.address
+                    : position < requested.size() ? requested.get(position) : null;
+            position++;
+            if (address != null) {
+                if (entry.error != null) {
+                    batch.addError(address, entry.error);
+                } else {
+                    onEntry.accept(address, entry);
+                }
+            }
+            if (!array) {
+                break;
+            }
+        }
+
+        if (array) {
+            reader.endArray();
+        }
+        for (String address : requested) {
+            if (!batch.getResults().containsKey(address) && !batch.getErrors().containsKey(address)) {
+                batch.addError(address, "Address missing from provider response");
+            }
+        }
+    }
+
+    private static AddressEntry readAddressEntry(JsonReader reader, boolean withUtxos) throws IOException {
+        AddressEntry entry = new AddressEntry();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "address":
+                    entry.address = reader.nextString();
+                    break;
+                case "balance":
+                    entry.balance = reader.nextLong();
+                    break;
+                case "final_n_tx":
+                    entry.txCount = reader.nextLong();
+                    break;
+                case "error":
+                    entry.error = reader.nextString();
+                    break;
+                case "hasMore":
+                    entry.hasMore = reader.nextBoolean();
+                    break;
+                case "txrefs":
+                case "unconfirmed_txrefs":
+                    if (!withUtxos) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        UTXO utxo = readTxref(reader);
+                        // Refs to inputs spending from the address carry tx_output_n -1
+                        if (utxo.getVout() >= 0) {
+                            entry.utxos.add(utxo);
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return entry;
+    }
+
+    /**
+     * Reads the recent transactions of an /addrs/{address} response. The plain endpoint lists
+     * them as "unconfirmed_txrefs" and "txrefs", one entry per input or output touching the
+     * address, which are merged per txid into the net amount the address received; "txs" of
+     * the /full variant is read as well.
+     */
+    static List<Transaction> readTransactions(Reader body) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        Map<String, Transaction> transactions = new LinkedHashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "txs":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Transaction transaction = readTx(reader);
+                        transactions.put(transaction.getTxid(), transaction);
+                    }
+                    reader.endArray();
+                    break;
+                case "txrefs":
+                case "unconfirmed_txrefs":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readHistoryRef(reader, transactions);
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new ArrayList<>(transactions.values());
+    }
+
+    /**
+     * Adds one txref to the transaction it belongs to: outputs to the address count as
+     * received, spent inputs as sent.
+     */
+    private static void readHistoryRef(JsonReader reader, Map<String, Transaction> transactions) throws IOException {
+        String txid = null;
+        boolean input = false;
+        long value = 0;
+        int confirmations = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "tx_hash":
+                    txid = reader.nextString();
+                    break;
+                case "tx_input_n":
+                    input = reader.nextInt() >= 0;
+                    break;
+                case "value":
+                    value = reader.nextLong();
+                    break;
+                case "confirmations":
+                    confirmations = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (txid == null) {
+            return;
+        }
+
+        Transaction transaction = transactions.computeIfAbsent(txid, key -> {
+            Transaction created = new Transaction();
+            created.setTxid(key);
+            return created;
+        });
+        transaction.setAmount(transaction.getAmount() + (input ? -value : value));
+        transaction.setConfirmations(confirmations);
+    }
+
+    private static UTXO readTxref(JsonReader reader) throws IOException {
+        UTXO utxo = new UTXO();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "tx_hash":
+                    utxo.setTxid(reader.nextString());
+                    break;
+                case "tx_output_n":
+                    utxo.setVout(reader.nextInt());
+                    break;
+                case "value":
+                case "output_value":
+                    // Address txrefs carry "value"; "output_value" is kept for older payloads
+                    utxo.setAmount(reader.nextLong());
+                    break;
+                case "confirmations":
+                    utxo.setConfirmations(reader.nextInt());
+                    break;
+                case "block_height":
+                    utxo.setBlockHeight(reader.nextLong());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return utxo;
+    }
+
+    private static Transaction readTx(JsonReader reader) throws IOException {
+        Transaction transaction = new Transaction();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "hash":
+                    transaction.setTxid(reader.nextString());
+                    break;
+                case "total":
+                    transaction.setAmount(reader.nextLong());
+                    break;
+                case "confirmations":
+                    transaction.setConfirmations(reader.nextInt());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return transaction;
+    }
+
+    /**
+     * Fields of one address object that any of the readers care about.
+     */
+    private static class AddressEntry {
+        String address;
+        long balance;
+        Long txCount;
+        String error;
+        boolean hasMore;
+        final List<UTXO> utxos = new ArrayList<>();
+    }
+
+    /**
+     * Unspent outputs from one response; {@code hasMore} means older ones need another request.
+     */
+    static final class UtxoPage {
+        final List<UTXO> utxos;
+        final boolean hasMore;
+
+        UtxoPage(List<UTXO> utxos, boolean hasMore) {
+            this.utxos = utxos;
+            this.hasMore = hasMore;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.demo.blockchain.api;
 
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.FeeEstimates;
 import com.example.demo.blockchain.model.Transaction;
 import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.util.Futures;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * Interface for blockchain API operations.
@@ -43,6 +49,25 @@ public interface BlockchainAPI {
      */
     String broadcastTransaction(String rawTransaction) throws Exception;
 
+    /**
+     * Broadcasts a signed transaction and reports which addresses it spends from or pays to,
+     * so caching layers can drop stale balances and UTXO sets for them.
+     *
+     * @param rawTransaction    The raw signed transaction hex
+     * @param affectedAddresses Addresses whose balance or UTXOs change with this transaction
+     * @return The transaction ID (txId)
+     */
+    default String broadcastTransaction(String rawTransaction, Collection<String> affectedAddresses) throws Exception {
+        return broadcastTransaction(rawTransaction);
+    }
+
+    /**
+     * Fetches the height of the current chain tip.
+     *
+     * @return The latest block height
+     */
+    long getBlockHeight() throws Exception;
+
     /**
      * Estimates transaction fee.
      *
@@ -52,6 +77,31 @@ public interface BlockchainAPI {
      */
     long estimateFee(int inputs, int outputs) throws Exception;
 
+    /**
+     * Fetches the provider's current mempool fee levels.
+     * Providers without a fee endpoint keep the default, which fails with
+     * {@link UnsupportedOperationException} so routing moves on to the next provider.
+     *
+     * @return Future completing with high, medium and low fee rates in sat/kB
+     */
+    default CompletableFuture<FeeEstimates> getFeeEstimatesAsync() {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("Fee estimates are not available from this provider"));
+    }
+
+    /**
+     * Whether the network knows a transaction, in the mempool or in a block. Used to settle
+     * a broadcast whose outcome is unclear. Providers without a lookup keep the default,
+     * which fails with {@link UnsupportedOperationException}.
+     *
+     * @param txid Transaction id
+     * @return Future completing with false if the provider has never seen the transaction
+     */
+    default CompletableFuture<Boolean> isTransactionKnownAsync(String txid) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("Transaction lookups are not available from this provider"));
+    }
+
     /**
      * Validates if address is valid.
      *
@@ -59,4 +109,97 @@ public interface BlockchainAPI {
      * @return True if valid
      */
     boolean isValidAddress(String address) throws Exception;
+
+    /**
+     * Fetches the balance without blocking the calling thread.
+     * Implementations backed by {@code HttpClientWrapper} should override this;
+     * the default simply runs the synchronous call.
+     *
+     * @param address The Bitcoin address
+     * @return Future completing with the balance in satoshis
+     */
+    default CompletableFuture<Long> getBalanceAsync(String address) {
+        return Futures.of(() -> getBalance(address));
+    }
+
+    /**
+     * Fetches UTXOs without blocking the calling thread.
+     *
+     * @param address The Bitcoin address
+     * @return Future completing with the list of UTXOs
+     */
+    default CompletableFuture<List<UTXO>> getUTXOsAsync(String address) {
+        return Futures.of(() -> getUTXOs(address));
+    }
+
+    /**
+     * Fetches transaction history without blocking the calling thread.
+     *
+     * @param address The Bitcoin address
+     * @return Future completing with the list of transactions
+     */
+    default CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String address) {
+        return Futures.of(() -> getTransactionHistory(address));
+    }
+
+    /**
+     * Fetches UTXOs confirmed above a block height, for incremental index sync.
+     * The default fetches the full set and filters it locally; providers that can
+     * filter server-side override it.
+     *
+     * @param address     The Bitcoin address
+     * @param afterHeight Only outputs confirmed in blocks above this height are returned
+     * @return Future completing with the newer UTXOs
+     */
+    default CompletableFuture<List<UTXO>> getUTXOsAfterAsync(String address, long afterHeight) {
+        return getUTXOsAsync(address).thenApply(utxos -> utxos.stream()
+                .filter(utxo -> utxo.getBlockHeight() < 0 || utxo.getBlockHeight() > afterHeight)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Fetches balances for many addresses at once.
+     * Addresses that fail are reported in {@link BatchResult#getErrors()} instead of failing the batch.
+     *
+     * @param addresses The Bitcoin addresses
+     * @return Balances in satoshis keyed by address
+     */
+    default BatchResult<Long> getBalances(Collection<String> addresses) throws Exception {
+        return Futures.await(getBalancesAsync(addresses));
+    }
+
+    /**
+     * Fetches balances for many addresses without blocking the calling thread.
+     * The default issues one lookup per address; providers with a batch endpoint override it.
+     *
+     * @param addresses The Bitcoin addresses
+     * @return Future completing with balances keyed by address
+     */
+    default CompletableFuture<BatchResult<Long>> getBalancesAsync(Collection<String> addresses) {
+        return BatchResult.collect(addresses, this::getBalanceAsync);
+    }
+
+    /**
+     * Fetches UTXOs for many addresses without blocking the calling thread.
+     * The default issues one lookup per address; providers with a batch endpoint override it.
+     *
+     * @param addresses The Bitcoin addresses
+     * @return Future completing with UTXO lists keyed by address
+     */
+    default CompletableFuture<BatchResult<List<UTXO>>> getUTXOsBatchAsync(Collection<String> addresses) {
+        return BatchResult.collect(addresses, this::getUTXOsAsync);
+    }
+
+    /**
+     * Fetches how many transactions, confirmed or not, have touched each of many addresses,
+     * which tells used addresses from fresh ones.
+     * The default reads each address's history; providers with a batch endpoint override it.
+     *
+     * @param addresses The Bitcoin addresses
+     * @return Future completing with transaction counts keyed by address
+     */
+    default CompletableFuture<BatchResult<Long>> getTransactionCountsAsync(Collection<String> addresses) {
+        return BatchResult.collect(addresses,
+                address -> getTransactionHistoryAsync(address).thenApply(history -> (long) history.size()));
+    }
 }
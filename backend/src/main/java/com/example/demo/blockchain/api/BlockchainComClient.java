@@ -1,15 +1,23 @@
 package com.example.demo.blockchain.api;
 
+import com.example.demo.blockchain.model.BatchResult;
 import com.example.demo.blockchain.model.Transaction;
 import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.util.Futures;
 import com.example.demo.blockchain.util.HttpClientWrapper;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @Component
 public class BlockchainComClient implements BlockchainAPI {
@@ -18,18 +26,111 @@ public class BlockchainComClient implements BlockchainAPI {
     private HttpClientWrapper httpClientWrapper;
 
     private static final String API_URL = "https://blockchain.info";
+    private static final int MULTIADDR_CHUNK_SIZE = 100;
+    private static final int MULTIADDR_PARALLELISM = 4;
+
+    @Value("${blockchaincom.ratelimit.rps:2}")
+    private double rateLimitPerSecond;
+
+    @Value("${blockchaincom.ratelimit.burst:4}")
+    private int rateLimitBurst;
+
+    @PostConstruct
+    public void registerRateLimit() {
+        httpClientWrapper.registerRateLimit(URI.create(API_URL).getHost(), rateLimitPerSecond, rateLimitBurst);
+    }
 
     @Override
     public long getBalance(String address) throws Exception {
+        return Futures.await(getBalanceAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalanceAsync(String address) {
         String url = API_URL + "/q/addressbalance/" + address;
-        String response = httpClientWrapper.get(url);
-        return Long.parseLong(response.trim());
+        return httpClientWrapper.getAsync(url).thenApply(response -> Long.parseLong(response.trim()));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getBalancesAsync(Collection<String> addresses) {
+        return fetchMultiaddr(addresses, "final_balance");
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getTransactionCountsAsync(Collection<String> addresses) {
+        return fetchMultiaddr(addresses, "n_tx");
+    }
+
+    /**
+     * Reads one numeric field per address from /multiaddr, in chunks fetched a few at a time.
+     */
+    private CompletableFuture<BatchResult<Long>> fetchMultiaddr(Collection<String> addresses, String field) {
+        List<String> unique = addresses.stream().distinct().collect(Collectors.toList());
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < unique.size(); i += MULTIADDR_CHUNK_SIZE) {
+            chunks.add(unique.subList(i, Math.min(i + MULTIADDR_CHUNK_SIZE, unique.size())));
+        }
+
+        return Futures.mapBounded(chunks, MULTIADDR_PARALLELISM, chunk -> {
+            // "|" must be percent-encoded or the URL is rejected before it is sent
+            String url = API_URL + "/multiaddr?active=" + String.join("%7C", chunk) + "&n=0";
+            return httpClientWrapper.getAsync(url)
+                    .thenApply(response -> parseMultiaddr(response, chunk, field))
+                    .exceptionally(error -> {
+                        BatchResult<Long> failed = new BatchResult<>();
+                        String message = Futures.unwrap(error).getMessage();
+                        chunk.forEach(address -> failed.addError(address, message));
+                        return failed;
+                    });
+        }).thenApply(results -> {
+            BatchResult<Long> merged = new BatchResult<>();
+            results.forEach(merged::merge);
+            return merged;
+        });
+    }
+
+    private BatchResult<Long> parseMultiaddr(String response, List<String> requested, String field) {
+        JsonObject jsonObject = httpClientWrapper.parseJson(response);
+
+        BatchResult<Long> batch = new BatchResult<>();
+        if (jsonObject.has("addresses")) {
+            JsonArray entries = jsonObject.getAsJsonArray("addresses");
+            for (int i = 0; i < entries.size(); i++) {
+                JsonObject entry = entries.get(i).getAsJsonObject();
+                batch.addResult(entry.get("address").getAsString(), entry.get(field).getAsLong());
+            }
+        }
+        for (String address : requested) {
+            if (!batch.getResults().containsKey(address)) {
+                batch.addError(address, "Address missing from provider response");
+            }
+        }
+        return batch;
     }
 
     @Override
     public List<UTXO> getUTXOs(String address) throws Exception {
+        return Futures.await(getUTXOsAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAsync(String address) {
         String url = API_URL + "/unspent?active=" + address;
-        String response = httpClientWrapper.get(url);
+        return httpClientWrapper.getAsync(url).thenApply(this::parseUTXOs);
+    }
+
+    @Override
+    public List<Transaction> getTransactionHistory(String address) throws Exception {
+        return Futures.await(getTransactionHistoryAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String address) {
+        String url = API_URL + "/address/" + address + "?format=json";
+        return httpClientWrapper.getAsync(url).thenApply(this::parseTransactions);
+    }
+
+    private List<UTXO> parseUTXOs(String response) {
         JsonObject jsonObject = httpClientWrapper.parseJson(response);
 
         List<UTXO> utxos = new ArrayList<>();
@@ -38,7 +139,11 @@ public class BlockchainComClient implements BlockchainAPI {
             for (int i = 0; i < outputs.size(); i++) {
                 JsonObject out = outputs.get(i).getAsJsonObject();
                 UTXO utxo = new UTXO();
-                utxo.setTxid(out.get("tx_hash").getAsString());
+                // "tx_hash" is byte-reversed in this API; prefer the big-endian form used everywhere else
+                String txid = out.has("tx_hash_big_endian")
+                        ? out.get("tx_hash_big_endian").getAsString()
+                        : out.get("tx_hash").getAsString();
+                utxo.setTxid(txid);
                 utxo.setVout(out.get("tx_output_n").getAsInt());
                 utxo.setAmount(out.get("value").getAsLong());
                 utxo.setConfirmations(out.get("confirmations").getAsInt());
@@ -48,10 +153,7 @@ public class BlockchainComClient implements BlockchainAPI {
         return utxos;
     }
 
-    @Override
-    public List<Transaction> getTransactionHistory(String address) throws Exception {
-        String url = API_URL + "/address/" + address + "?format=json";
-        String response = httpClientWrapper.get(url);
+    private List<Transaction> parseTransactions(String response) {
         JsonObject jsonObject = httpClientWrapper.parseJson(response);
 
         List<Transaction> transactions = new ArrayList<>();
@@ -71,6 +173,8 @@ public class BlockchainComClient implements BlockchainAPI {
 
     @Override
     public long estimateFee(int inputs, int outputs) throws Exception {
+        // Blockchain.com publishes no testnet fee levels, so this stays a fixed-rate fallback;
+        // fee decisions use FeeRateOracle instead
         int estimatedSize = (inputs * 250) + (outputs * 50);
         return estimatedSize * 5; // 5 satoshis per byte
     }
@@ -85,6 +189,13 @@ public class BlockchainComClient implements BlockchainAPI {
         return response.replaceAll("\"", "");
     }
 
+    @Override
+    public long getBlockHeight() throws Exception {
+        String url = API_URL + "/q/getblockcount";
+        String response = httpClientWrapper.get(url);
+        return Long.parseLong(response.trim());
+    }
+
     @Override
     public boolean isValidAddress(String address) throws Exception {
         try {
@@ -0,0 +1,245 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.api.AddressRequest.Operation;
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.FeeEstimates;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.util.Futures;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caching decorator for a {@link BlockchainAPI} provider.
+ * Balance, UTXO and history lookups are cached per address in a bounded Caffeine cache
+ * (W-TinyLFU eviction). Entries expire after a TTL, are dropped for the affected addresses
+ * when a transaction is broadcast, and are cleared entirely when the chain tip moves.
+ */
+public class CachingBlockchainAPI implements BlockchainAPI {
+    private static final Logger logger = LoggerFactory.getLogger(CachingBlockchainAPI.class);
+
+    private final BlockchainAPI delegate;
+    private final Cache<AddressRequest, Object> cache;
+
+    // Bumped on every invalidation so responses already in flight are not cached stale
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong lastSeenHeight = new AtomicLong(-1);
+
+    public CachingBlockchainAPI(BlockchainAPI delegate, long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "blockchain.api");
+    }
+
+    @Override
+    public long getBalance(String address) throws Exception {
+        return Futures.await(getBalanceAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalanceAsync(String address) {
+        return cached(new AddressRequest(Operation.BALANCE, address),
+                () -> delegate.getBalanceAsync(address));
+    }
+
+    @Override
+    public List<UTXO> getUTXOs(String address) throws Exception {
+        return Futures.await(getUTXOsAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAsync(String address) {
+        return cached(new AddressRequest(Operation.UTXOS, address),
+                () -> delegate.getUTXOsAsync(address).thenApply(List::copyOf));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAfterAsync(String address, long afterHeight) {
+        // Incremental sync wants fresh data, so this bypasses the cache
+        return delegate.getUTXOsAfterAsync(address, afterHeight);
+    }
+
+    @Override
+    public List<Transaction> getTransactionHistory(String address) throws Exception {
+        return Futures.await(getTransactionHistoryAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String address) {
+        return cached(new AddressRequest(Operation.HISTORY, address),
+                () -> delegate.getTransactionHistoryAsync(address).thenApply(List::copyOf));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getBalancesAsync(Collection<String> addresses) {
+        return cachedBatch(Operation.BALANCE, addresses, delegate::getBalancesAsync, Function.identity());
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<List<UTXO>>> getUTXOsBatchAsync(Collection<String> addresses) {
+        return cachedBatch(Operation.UTXOS, addresses, delegate::getUTXOsBatchAsync, List::copyOf);
+    }
+
+    /**
+     * Not cached: callers use it to find addresses that just became used.
+     */
+    @Override
+    public CompletableFuture<BatchResult<Long>> getTransactionCountsAsync(Collection<String> addresses) {
+        return delegate.getTransactionCountsAsync(addresses);
+    }
+
+    @Override
+    public String broadcastTransaction(String rawTransaction) throws Exception {
+        return delegate.broadcastTransaction(rawTransaction);
+    }
+
+    @Override
+    public String broadcastTransaction(String rawTransaction, Collection<String> affectedAddresses) throws Exception {
+        try {
+            return delegate.broadcastTransaction(rawTransaction, affectedAddresses);
+        } finally {
+            // Even a failed broadcast may have reached the mempool
+            affectedAddresses.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public long estimateFee(int inputs, int outputs) throws Exception {
+        return delegate.estimateFee(inputs, outputs);
+    }
+
+    @Override
+    public CompletableFuture<FeeEstimates> getFeeEstimatesAsync() {
+        // Polled in the background by FeeRateOracle, which keeps its own snapshot
+        return delegate.getFeeEstimatesAsync();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isTransactionKnownAsync(String txid) {
+        return delegate.isTransactionKnownAsync(txid);
+    }
+
+    @Override
+    public boolean isValidAddress(String address) throws Exception {
+        return delegate.isValidAddress(address);
+    }
+
+    @Override
+    public long getBlockHeight() throws Exception {
+        return delegate.getBlockHeight();
+    }
+
+    /**
+     * Drops every cached result for an address.
+     *
+     * @param address The Bitcoin address
+     */
+    public void invalidate(String address) {
+        generation.incrementAndGet();
+        for (Operation operation : Operation.values()) {
+            cache.invalidate(new AddressRequest(operation, address));
+        }
+    }
+
+    /**
+     * Polls the chain tip so the cache is cleared when a new block arrives, in case no
+     * webhook announced it.
+     */
+    @Scheduled(fixedDelayString = "${blockchain.cache.tip-poll-ms:30000}")
+    public void refreshChainTip() {
+        try {
+            observeChainTip(delegate.getBlockHeight());
+        } catch (Exception e) {
+            logger.warn("Could not refresh chain tip: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Clears the whole cache if {@code height} differs from the last tip seen, since any
+     * cached balance or confirmation count may have changed.
+     *
+     * @param height Current chain tip height
+     */
+    public void observeChainTip(long height) {
+        long previous = lastSeenHeight.getAndSet(height);
+        if (previous != -1 && previous != height) {
+            logger.debug("Chain tip moved from {} to {}, clearing blockchain cache", previous, height);
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> cached(AddressRequest key, Supplier<CompletableFuture<T>> loader) {
+        Object hit = cache.getIfPresent(key);
+        if (hit != null) {
+            return CompletableFuture.completedFuture((T) hit);
+        }
+
+        long startGeneration = generation.get();
+        return loader.get().thenApply(value -> {
+            if (generation.get() == startGeneration) {
+                cache.put(key, value);
+            }
+            return value;
+        });
+    }
+
+    /**
+     * Serves cached addresses directly and sends only the misses to the provider as one batch.
+     * Fetched values pass through {@code copy} before they are cached and returned, so lists
+     * are stored immutable exactly as on the single-address path.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<BatchResult<T>> cachedBatch(
+            Operation operation, Collection<String> addresses,
+            Function<Collection<String>, CompletableFuture<BatchResult<T>>> loader,
+            Function<T, T> copy) {
+        BatchResult<T> batch = new BatchResult<>();
+        List<String> misses = new ArrayList<>();
+        for (String address : new LinkedHashSet<>(addresses)) {
+            Object hit = cache.getIfPresent(new AddressRequest(operation, address));
+            if (hit != null) {
+                batch.addResult(address, (T) hit);
+            } else {
+                misses.add(address);
+            }
+        }
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(batch);
+        }
+
+        long startGeneration = generation.get();
+        return loader.apply(misses).thenApply(fetched -> {
+            boolean current = generation.get() == startGeneration;
+            fetched.getResults().forEach((address, value) -> {
+                T stored = copy.apply(value);
+                if (current) {
+                    cache.put(new AddressRequest(operation, address), stored);
+                }
+                batch.addResult(address, stored);
+            });
+            fetched.getErrors().forEach(batch::addError);
+            return batch;
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.api.AddressRequest.Operation;
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.FeeEstimates;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.util.Futures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight decorator for a {@link BlockchainAPI} provider.
+ * Concurrent lookups for the same (operation, address) share one upstream request;
+ * the in-flight entry is removed as soon as it completes, so nothing is cached here.
+ */
+public class CoalescingBlockchainAPI implements BlockchainAPI {
+
+    private final BlockchainAPI delegate;
+    private final ConcurrentMap<AddressRequest, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final Counter savedRequests;
+
+    public CoalescingBlockchainAPI(BlockchainAPI delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.savedRequests = Counter.builder("blockchain.api.coalesced")
+                .description("Upstream requests avoided by joining an identical in-flight request")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long getBalance(String address) throws Exception {
+        return Futures.await(getBalanceAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalanceAsync(String address) {
+        return coalesce(new AddressRequest(Operation.BALANCE, address),
+                () -> delegate.getBalanceAsync(address));
+    }
+
+    @Override
+    public List<UTXO> getUTXOs(String address) throws Exception {
+        return Futures.await(getUTXOsAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAsync(String address) {
+        return coalesce(new AddressRequest(Operation.UTXOS, address),
+                () -> delegate.getUTXOsAsync(address).thenApply(List::copyOf));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAfterAsync(String address, long afterHeight) {
+        return delegate.getUTXOsAfterAsync(address, afterHeight);
+    }
+
+    @Override
+    public List<Transaction> getTransactionHistory(String address) throws Exception {
+        return Futures.await(getTransactionHistoryAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String address) {
+        return coalesce(new AddressRequest(Operation.HISTORY, address),
+                () -> delegate.getTransactionHistoryAsync(address).thenApply(List::copyOf));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getBalancesAsync(Collection<String> addresses) {
+        return delegate.getBalancesAsync(addresses);
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<List<UTXO>>> getUTXOsBatchAsync(Collection<String> addresses) {
+        return delegate.getUTXOsBatchAsync(addresses);
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getTransactionCountsAsync(Collection<String> addresses) {
+        return delegate.getTransactionCountsAsync(addresses);
+    }
+
+    @Override
+    public String broadcastTransaction(String rawTransaction) throws Exception {
+        return delegate.broadcastTransaction(rawTransaction);
+    }
+
+    @Override
+    public String broadcastTransaction(String rawTransaction, Collection<String> affectedAddresses) throws Exception {
+        return delegate.broadcastTransaction(rawTransaction, affectedAddresses);
+    }
+
+    @Override
+    public long estimateFee(int inputs, int outputs) throws Exception {
+        return delegate.estimateFee(inputs, outputs);
+    }
+
+    @Override
+    public CompletableFuture<FeeEstimates> getFeeEstimatesAsync() {
+        return delegate.getFeeEstimatesAsync();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isTransactionKnownAsync(String txid) {
+        return delegate.isTransactionKnownAsync(txid);
+    }
+
+    @Override
+    public boolean isValidAddress(String address) throws Exception {
+        return delegate.isValidAddress(address);
+    }
+
+    @Override
+    public long getBlockHeight() throws Exception {
+        return delegate.getBlockHeight();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> coalesce(AddressRequest key, Supplier<CompletableFuture<T>> loader) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            savedRequests.increment();
+            // copy() so one caller cancelling does not cancel the shared request
+            return existing.copy();
+        }
+
+        CompletableFuture<T> upstream;
+        try {
+            upstream = loader.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+
+        upstream.whenComplete((value, error) -> {
+            inFlight.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(Futures.unwrap(error));
+            } else {
+                created.complete(value);
+            }
+        });
+        return created.copy();
+    }
+}
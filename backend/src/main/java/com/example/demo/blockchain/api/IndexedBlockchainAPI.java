@@ -0,0 +1,167 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.FeeEstimates;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.store.MappedUtxoStore;
+import com.example.demo.blockchain.util.Futures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Serves balance and UTXO lookups straight from the {@link MappedUtxoStore}, without
+ * touching a provider, for addresses the UTXO index watches and synced within
+ * {@code utxo.index.max-staleness-ms}. Other addresses, stale ones, and every other call go
+ * to the delegate, so an address that stopped being watched is never answered from
+ * outputs the store still holds for it.
+ */
+public class IndexedBlockchainAPI implements BlockchainAPI {
+
+    private final BlockchainAPI delegate;
+    private final MappedUtxoStore store;
+    private final Predicate<String> fresh;
+    private final Counter localReads;
+
+    /**
+     * @param fresh Whether an address is watched and recently synced, e.g. {@code UtxoIndexService::isFresh}
+     */
+    public IndexedBlockchainAPI(BlockchainAPI delegate, MappedUtxoStore store, Predicate<String> fresh,
+                                MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.store = store;
+        this.fresh = fresh;
+        this.localReads = Counter.builder("blockchain.api.local")
+                .description("Balance and UTXO lookups answered from the local UTXO store")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long getBalance(String address) throws Exception {
+        return Futures.await(getBalanceAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalanceAsync(String address) {
+        if (servesLocally(address)) {
+            localReads.increment();
+            return CompletableFuture.completedFuture(store.getBalance(address));
+        }
+        return delegate.getBalanceAsync(address);
+    }
+
+    @Override
+    public List<UTXO> getUTXOs(String address) throws Exception {
+        return Futures.await(getUTXOsAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAsync(String address) {
+        if (servesLocally(address)) {
+            localReads.increment();
+            return CompletableFuture.completedFuture(List.copyOf(store.getUtxoSet(address).asList()));
+        }
+        return delegate.getUTXOsAsync(address);
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAfterAsync(String address, long afterHeight) {
+        return delegate.getUTXOsAfterAsync(address, afterHeight);
+    }
+
+    @Override
+    public List<Transaction> getTransactionHistory(String address) throws Exception {
+        return delegate.getTransactionHistory(address);
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String address) {
+        return delegate.getTransactionHistoryAsync(address);
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getBalancesAsync(Collection<String> addresses) {
+        return localBatch(addresses, store::getBalance, delegate::getBalancesAsync);
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<List<UTXO>>> getUTXOsBatchAsync(Collection<String> addresses) {
+        return localBatch(addresses, address -> List.copyOf(store.getUtxoSet(address).asList()),
+                delegate::getUTXOsBatchAsync);
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getTransactionCountsAsync(Collection<String> addresses) {
+        // The store only knows unspent outputs, not whether an address was ever used
+        return delegate.getTransactionCountsAsync(addresses);
+    }
+
+    @Override
+    public String broadcastTransaction(String rawTransaction) throws Exception {
+        return delegate.broadcastTransaction(rawTransaction);
+    }
+
+    @Override
+    public String broadcastTransaction(String rawTransaction, Collection<String> affectedAddresses) throws Exception {
+        return delegate.broadcastTransaction(rawTransaction, affectedAddresses);
+    }
+
+    @Override
+    public long estimateFee(int inputs, int outputs) throws Exception {
+        return delegate.estimateFee(inputs, outputs);
+    }
+
+    @Override
+    public CompletableFuture<FeeEstimates> getFeeEstimatesAsync() {
+        return delegate.getFeeEstimatesAsync();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isTransactionKnownAsync(String txid) {
+        return delegate.isTransactionKnownAsync(txid);
+    }
+
+    @Override
+    public boolean isValidAddress(String address) throws Exception {
+        return delegate.isValidAddress(address);
+    }
+
+    @Override
+    public long getBlockHeight() throws Exception {
+        return delegate.getBlockHeight();
+    }
+
+    private boolean servesLocally(String address) {
+        return fresh.test(address) && store.isTracked(address);
+    }
+
+    /**
+     * Answers fresh addresses locally and sends only the rest to the delegate as one batch.
+     */
+    private <T> CompletableFuture<BatchResult<T>> localBatch(
+            Collection<String> addresses, Function<String, T> local,
+            Function<Collection<String>, CompletableFuture<BatchResult<T>>> loader) {
+        BatchResult<T> batch = new BatchResult<>();
+        List<String> misses = new ArrayList<>();
+        for (String address : new LinkedHashSet<>(addresses)) {
+            if (servesLocally(address)) {
+                localReads.increment();
+                batch.addResult(address, local.apply(address));
+            } else {
+                misses.add(address);
+            }
+        }
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(batch);
+        }
+        return loader.apply(misses).thenApply(batch::merge);
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.FeeEstimates;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.util.Futures;
+import com.example.demo.blockchain.util.HttpStatusException;
+import com.example.demo.blockchain.util.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Routes calls across several {@link BlockchainAPI} providers.
+ * Each provider's latency and error rate are tracked; reads go to the healthiest provider,
+ * fail over to the next one on provider-side errors (timeouts, 429, 5xx), and can be hedged:
+ * if the first provider has not answered within its recent p95 latency, the same read is sent
+ * to the next provider and whichever succeeds first wins.
+ */
+public class RoutingBlockchainAPI implements BlockchainAPI {
+    private static final Logger logger = LoggerFactory.getLogger(RoutingBlockchainAPI.class);
+
+    private final List<Provider> providers = new ArrayList<>();
+    private final boolean hedgingEnabled;
+    private final long minHedgeDelayMs;
+    private final Counter hedgedRequests;
+    private final Counter failovers;
+
+    public RoutingBlockchainAPI(Map<String, BlockchainAPI> providers, boolean hedgingEnabled,
+                                long minHedgeDelayMs, MeterRegistry meterRegistry) {
+        this.hedgingEnabled = hedgingEnabled;
+        this.minHedgeDelayMs = minHedgeDelayMs;
+        providers.forEach((name, api) -> this.providers.add(new Provider(name, api, meterRegistry)));
+        this.hedgedRequests = Counter.builder("blockchain.provider.hedged")
+                .description("Reads sent to a second provider after the first exceeded its p95 latency")
+                .register(meterRegistry);
+        this.failovers = Counter.builder("blockchain.provider.failovers")
+                .description("Calls retried on another provider after a provider-side error")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long getBalance(String address) throws Exception {
+        return Futures.await(getBalanceAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalanceAsync(String address) {
+        return read(api -> api.getBalanceAsync(address));
+    }
+
+    @Override
+    public List<UTXO> getUTXOs(String address) throws Exception {
+        return Futures.await(getUTXOsAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAsync(String address) {
+        return read(api -> api.getUTXOsAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<UTXO>> getUTXOsAfterAsync(String address, long afterHeight) {
+        return read(api -> api.getUTXOsAfterAsync(address, afterHeight));
+    }
+
+    @Override
+    public List<Transaction> getTransactionHistory(String address) throws Exception {
+        return Futures.await(getTransactionHistoryAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String address) {
+        return read(api -> api.getTransactionHistoryAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getBalancesAsync(Collection<String> addresses) {
+        return read(api -> api.getBalancesAsync(addresses));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<List<UTXO>>> getUTXOsBatchAsync(Collection<String> addresses) {
+        return read(api -> api.getUTXOsBatchAsync(addresses));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<Long>> getTransactionCountsAsync(Collection<String> addresses) {
+        return read(api -> api.getTransactionCountsAsync(addresses));
+    }
+
+    @Override
+    public String broadcastTransaction(String rawTransaction) throws Exception {
+        // Writes fail over but are never hedged
+        return Futures.await(failover(ranked(), 0,
+                api -> Futures.of(() -> api.broadcastTransaction(rawTransaction))));
+    }
+
+    @Override
+    public String broadcastTransaction(String rawTransaction, Collection<String> affectedAddresses) throws Exception {
+        return Futures.await(failover(ranked(), 0,
+                api -> Futures.of(() -> api.broadcastTransaction(rawTransaction, affectedAddresses))));
+    }
+
+    @Override
+    public long estimateFee(int inputs, int outputs) throws Exception {
+        return Futures.await(failover(ranked(), 0, api -> Futures.of(() -> api.estimateFee(inputs, outputs))));
+    }
+
+    @Override
+    public CompletableFuture<FeeEstimates> getFeeEstimatesAsync() {
+        return failover(ranked(), 0, BlockchainAPI::getFeeEstimatesAsync);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isTransactionKnownAsync(String txid) {
+        return failover(ranked(), 0, api -> api.isTransactionKnownAsync(txid));
+    }
+
+    @Override
+    public boolean isValidAddress(String address) throws Exception {
+        return Futures.await(failover(ranked(), 0, api -> Futures.of(() -> api.isValidAddress(address))));
+    }
+
+    @Override
+    public long getBlockHeight() throws Exception {
+        return Futures.await(failover(ranked(), 0, api -> Futures.of(api::getBlockHeight)));
+    }
+
+    /**
+     * Providers ordered healthiest first.
+     */
+    private List<Provider> ranked() {
+        List<Provider> ordered = new ArrayList<>(providers);
+        long now = System.nanoTime();
+        ordered.sort(Comparator.comparingDouble(provider -> provider.stats.score(now)));
+        return ordered;
+    }
+
+    private <T> CompletableFuture<T> read(Function<BlockchainAPI, CompletableFuture<T>> call) {
+        List<Provider> ordered = ranked();
+        if (!hedgingEnabled || ordered.size() < 2) {
+            return failover(ordered, 0, call);
+        }
+
+        Provider primary = ordered.get(0);
+        long p95Millis = primary.stats.p95Millis();
+        if (p95Millis < 0) {
+            // Not enough samples yet to know what "slow" means for this provider
+            return failover(ordered, 0, call);
+        }
+        long hedgeDelayMs = Math.max(minHedgeDelayMs, p95Millis);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Claimed either by the hedge timer or by a primary failure that makes hedging pointless
+        AtomicBoolean hedgeClaimed = new AtomicBoolean();
+        // Attempts still running once the hedge has been sent
+        AtomicInteger outstanding = new AtomicInteger(2);
+
+        failover(ordered, 0, call).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (hedgeClaimed.compareAndSet(false, true) || outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(Futures.unwrap(error));
+            }
+        });
+
+        CompletableFuture.delayedExecutor(hedgeDelayMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone() || !hedgeClaimed.compareAndSet(false, true)) {
+                return;
+            }
+            hedgedRequests.increment();
+            logger.debug("Hedging read to {} after {} ms without answer from {}",
+                    ordered.get(1).name, hedgeDelayMs, primary.name);
+            failover(ordered, 1, call).whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else if (outstanding.decrementAndGet() == 0) {
+                    result.completeExceptionally(Futures.unwrap(error));
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Tries providers in order starting at {@code index}, moving on only for provider-side failures.
+     */
+    private <T> CompletableFuture<T> failover(List<Provider> ordered, int index,
+                                              Function<BlockchainAPI, CompletableFuture<T>> call) {
+        Provider provider = ordered.get(index);
+        return provider.call(call).handle((value, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(value);
+            }
+            Throwable cause = Futures.unwrap(error);
+            if (index + 1 >= ordered.size() || !isProviderFault(cause)) {
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+            if (cause instanceof UnsupportedOperationException) {
+                // Not a failure, the provider just has no such endpoint
+                return failover(ordered, index + 1, call);
+            }
+            failovers.increment();
+            logger.warn("Provider {} failed ({}), failing over to {}",
+                    provider.name, cause.getMessage(), ordered.get(index + 1).name);
+            return failover(ordered, index + 1, call);
+        }).thenCompose(Function.identity());
+    }
+
+    private static boolean isProviderFault(Throwable error) {
+        if (error instanceof HttpStatusException) {
+            return ((HttpStatusException) error).isProviderFault();
+        }
+        if (error instanceof RateLimitExceededException) {
+            // Rejected locally before anything was sent
+            return false;
+        }
+        // Timeouts, connection failures and parse errors of truncated bodies
+        return true;
+    }
+
+    private static class Provider {
+        final String name;
+        final BlockchainAPI api;
+        final ProviderStats stats = new ProviderStats();
+        final Timer successTimer;
+        final Timer errorTimer;
+
+        Provider(String name, BlockchainAPI api, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.api = api;
+            this.successTimer = latencyTimer(meterRegistry, name, "success");
+            this.errorTimer = latencyTimer(meterRegistry, name, "error");
+        }
+
+        <T> CompletableFuture<T> call(Function<BlockchainAPI, CompletableFuture<T>> call) {
+            long start = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = call.apply(api);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            return future.whenComplete((value, error) -> {
+                long elapsed = System.nanoTime() - start;
+                Throwable cause = error != null ? Futures.unwrap(error) : null;
+                boolean failed = cause != null && isProviderFault(cause)
+                        && !(cause instanceof UnsupportedOperationException);
+                stats.record(elapsed, failed);
+                (failed ? errorTimer : successTimer).record(elapsed, TimeUnit.NANOSECONDS);
+            });
+        }
+
+        private static Timer latencyTimer(MeterRegistry meterRegistry, String provider, String outcome) {
+            return Timer.builder("blockchain.provider.latency")
+                    .description("Latency of calls to each blockchain provider")
+                    .tag("provider", provider)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Rolling latency and error statistics for one provider.
+     * The error rate decays towards zero while a provider receives no traffic,
+     * so a provider that failed earlier is retried once it has had time to recover.
+     */
+    private static class ProviderStats {
+        private static final int WINDOW = 128;
+        private static final int MIN_SAMPLES_FOR_HEDGING = 20;
+        private static final double ALPHA = 0.2;
+        private static final double ERROR_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(30);
+        private static final double ERROR_PENALTY = 10.0;
+
+        private final long[] recentLatencies = new long[WINDOW];
+        private int recentCount;
+        private int nextSlot;
+        private double ewmaLatencyMs;
+        private double ewmaErrorRate;
+        private long lastSampleNanos = System.nanoTime();
+
+        synchronized void record(long latencyNanos, boolean failed) {
+            double latencyMs = latencyNanos / 1_000_000.0;
+            ewmaLatencyMs = recentCount == 0 ? latencyMs : ALPHA * latencyMs + (1 - ALPHA) * ewmaLatencyMs;
+            ewmaErrorRate = ALPHA * (failed ? 1.0 : 0.0) + (1 - ALPHA) * decayedErrorRate(System.nanoTime());
+            lastSampleNanos = System.nanoTime();
+            recentLatencies[nextSlot] = latencyNanos;
+            nextSlot = (nextSlot + 1) % WINDOW;
+            recentCount = Math.min(recentCount + 1, WINDOW);
+        }
+
+        /**
+         * Lower is healthier: smoothed latency inflated by the current error rate.
+         */
+        synchronized double score(long now) {
+            return Math.max(ewmaLatencyMs, 1.0) * (1 + ERROR_PENALTY * decayedErrorRate(now));
+        }
+
+        /**
+         * Recent 95th percentile latency, or -1 until enough samples have been recorded.
+         */
+        synchronized long p95Millis() {
+            if (recentCount < MIN_SAMPLES_FOR_HEDGING) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(recentLatencies, recentCount);
+            Arrays.sort(sorted);
+            return TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(0.95 * recentCount) - 1]);
+        }
+
+        private double decayedErrorRate(long now) {
+            double idle = Math.max(0, now - lastSampleNanos);
+            return ewmaErrorRate * Math.pow(0.5, idle / ERROR_HALF_LIFE_NANOS);
+        }
+    }
+}
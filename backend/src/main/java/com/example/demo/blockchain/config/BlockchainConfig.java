@@ -0,0 +1,71 @@
+package com.example.demo.blockchain.config;
+
+import com.example.demo.blockchain.api.BlockCypherClient;
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.api.BlockchainComClient;
+import com.example.demo.blockchain.api.CachingBlockchainAPI;
+import com.example.demo.blockchain.api.CoalescingBlockchainAPI;
+import com.example.demo.blockchain.api.IndexedBlockchainAPI;
+import com.example.demo.blockchain.api.RoutingBlockchainAPI;
+import com.example.demo.blockchain.service.UtxoIndexService;
+import com.example.demo.blockchain.store.MappedUtxoStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wires the {@link BlockchainAPI} used by the services.
+ * Provider clients are plain components; {@code providerBlockchainAPI} routes across them
+ * and stacks request coalescing and then caching on top. Blockchain.com only serves mainnet,
+ * so it joins the routing set only when {@code bitcoin.network} is {@code mainnet}. The
+ * primary bean answers addresses the UTXO index has synced recently from the local UTXO
+ * store and passes everything else to that stack.
+ */
+@Configuration
+@EnableScheduling
+public class BlockchainConfig {
+    private static final String MAINNET = "mainnet";
+
+    @Bean
+    @Primary
+    public BlockchainAPI blockchainAPI(@Qualifier("providerBlockchainAPI") BlockchainAPI providerBlockchainAPI,
+                                       MappedUtxoStore utxoStore,
+                                       UtxoIndexService utxoIndexService,
+                                       MeterRegistry meterRegistry) {
+        return new IndexedBlockchainAPI(providerBlockchainAPI, utxoStore, utxoIndexService::isFresh, meterRegistry);
+    }
+
+    /**
+     * The provider stack itself, for callers that must see upstream data, such as the UTXO
+     * index syncing the store.
+     */
+    @Bean
+    public CachingBlockchainAPI providerBlockchainAPI(BlockCypherClient blockCypherClient,
+                                                      BlockchainComClient blockchainComClient,
+                                                      @Value("${bitcoin.network:testnet3}") String network,
+                                                      @Value("${blockchain.routing.hedge.enabled:true}") boolean hedgingEnabled,
+                                                      @Value("${blockchain.routing.hedge.min-delay-ms:50}") long minHedgeDelayMs,
+                                                      @Value("${blockchain.cache.max-size:10000}") long cacheMaxSize,
+                                                      @Value("${blockchain.cache.ttl-seconds:30}") long cacheTtlSeconds,
+                                                      MeterRegistry meterRegistry) {
+        Map<String, BlockchainAPI> providers = new LinkedHashMap<>();
+        providers.put("blockcypher", blockCypherClient);
+        if (MAINNET.equals(network)) {
+            // Reads, broadcasts and the chain height must all come from the configured network
+            providers.put("blockchain.com", blockchainComClient);
+        }
+
+        BlockchainAPI routing = new RoutingBlockchainAPI(providers, hedgingEnabled, minHedgeDelayMs, meterRegistry);
+        BlockchainAPI coalescing = new CoalescingBlockchainAPI(routing, meterRegistry);
+        return new CachingBlockchainAPI(coalescing, cacheMaxSize,
+                Duration.ofSeconds(cacheTtlSeconds), meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.blockchain.config;
+
+import com.example.demo.blockchain.controller.AddressStreamWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Registers the WebSocket address stream. It lives under its own {@code /ws} suffix because
+ * MVC would otherwise claim the handshake for the SSE endpoint at the same path.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final AddressStreamWebSocketHandler addressStreamHandler;
+
+    @Autowired
+    public WebSocketConfig(AddressStreamWebSocketHandler addressStreamHandler) {
+        this.addressStreamHandler = addressStreamHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(addressStreamHandler, "/api/stream/*/ws")
+                .setAllowedOrigins("*");
+    }
+}
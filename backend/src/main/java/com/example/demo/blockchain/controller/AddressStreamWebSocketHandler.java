@@ -0,0 +1,92 @@
+package com.example.demo.blockchain.controller;
+
+import com.example.demo.blockchain.model.AddressEvent;
+import com.example.demo.blockchain.service.AddressWatchService;
+import com.example.demo.blockchain.service.KeyService;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+
+/**
+ * WebSocket variant of {@code /api/stream/{address}}, served at
+ * {@code /api/stream/{address}/ws}. Each event is sent as one JSON text message with the
+ * same fields as the SSE stream, including its {@code type}. Messages from the client are
+ * ignored.
+ */
+@Component
+public class AddressStreamWebSocketHandler extends TextWebSocketHandler {
+    private static final Logger logger = LoggerFactory.getLogger(AddressStreamWebSocketHandler.class);
+
+    private static final String SUBSCRIPTION = "subscription";
+    // A client that cannot keep up within these limits is disconnected
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int BUFFER_SIZE_LIMIT = 512 * 1024;
+
+    private final AddressWatchService watchService;
+    private final KeyService keyService;
+    private final Gson gson = new Gson();
+
+    @Autowired
+    public AddressStreamWebSocketHandler(AddressWatchService watchService, KeyService keyService) {
+        this.watchService = watchService;
+        this.keyService = keyService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String address = addressOf(session.getUri());
+        logger.info("WebSocket /api/stream/{}/ws", address);
+        if (address == null || !keyService.isValidAddress(address)) {
+            session.close(CloseStatus.BAD_DATA.withReason("Invalid Bitcoin address format"));
+            return;
+        }
+
+        WebSocketSession outbound = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT);
+        try {
+            AddressWatchService.Subscription subscription =
+                    watchService.subscribe(address, event -> send(outbound, event));
+            session.getAttributes().put(SUBSCRIPTION, subscription);
+        } catch (IllegalStateException e) {
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getMessage()));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Object subscription = session.getAttributes().remove(SUBSCRIPTION);
+        if (subscription instanceof AddressWatchService.Subscription) {
+            ((AddressWatchService.Subscription) subscription).cancel();
+        }
+    }
+
+    private void send(WebSocketSession session, AddressEvent event) {
+        try {
+            session.sendMessage(new TextMessage(gson.toJson(event)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Extracts {address} from a path ending in {@code /stream/{address}/ws}.
+     */
+    private static String addressOf(URI uri) {
+        if (uri == null || uri.getPath() == null) {
+            return null;
+        }
+        String[] segments = uri.getPath().split("/");
+        int n = segments.length;
+        return n >= 3 && "ws".equals(segments[n - 1]) && "stream".equals(segments[n - 3]) ? segments[n - 2] : null;
+    }
+}
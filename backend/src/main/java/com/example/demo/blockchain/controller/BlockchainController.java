@@ -1,10 +1,20 @@
 package com.example.demo.blockchain.controller;
 
+import com.example.demo.blockchain.model.BatchedPayment;
+import com.example.demo.blockchain.model.OutboxEntry;
 import com.example.demo.blockchain.model.Transaction;
 import com.example.demo.blockchain.model.UTXO;
 import com.example.demo.blockchain.service.FeeCalculator;
+import com.example.demo.blockchain.service.FeeRateOracle;
+import com.example.demo.blockchain.service.FeeRateSnapshot;
 import com.example.demo.blockchain.service.KeyService;
+import com.example.demo.blockchain.service.OutboxBroadcaster;
+import com.example.demo.blockchain.service.PaymentBatcher;
+import com.example.demo.blockchain.service.ScriptType;
 import com.example.demo.blockchain.service.TransactionService;
+import com.example.demo.blockchain.util.Futures;
+import com.example.demo.blockchain.util.HttpStatusException;
+import com.example.demo.blockchain.util.RateLimitExceededException;
 import com.google.gson.JsonObject;
 import org.bitcoinj.core.ECKey;
 import org.bitcoinj.params.TestNet3Params;
@@ -15,9 +25,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for blockchain operations.
@@ -28,42 +41,57 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class BlockchainController {
     private static final Logger logger = LoggerFactory.getLogger(BlockchainController.class);
+    private static final int MAX_BATCH_ADDRESSES = 1000;
 
     private final TransactionService transactionService;
     private final FeeCalculator feeCalculator;
     private final KeyService keyService;
+    private final PaymentBatcher paymentBatcher;
+    private final FeeRateOracle feeRateOracle;
+    private final OutboxBroadcaster outboxBroadcaster;
 
     @Autowired
-    public BlockchainController(TransactionService transactionService, FeeCalculator feeCalculator, KeyService keyService) {
+    public BlockchainController(TransactionService transactionService, FeeCalculator feeCalculator, KeyService keyService,
+                                PaymentBatcher paymentBatcher, FeeRateOracle feeRateOracle,
+                                OutboxBroadcaster outboxBroadcaster) {
         this.transactionService = transactionService;
         this.feeCalculator = feeCalculator;
         this.keyService = keyService;
+        this.paymentBatcher = paymentBatcher;
+        this.feeRateOracle = feeRateOracle;
+        this.outboxBroadcaster = outboxBroadcaster;
     }
 
     /**
      * GET /api/balance/{address}
-     * Fetches the current balance of a Bitcoin address.
+     * Fetches the current balance of a Bitcoin address, split into confirmed funds,
+     * unconfirmed change of our own pending sends, and what a new send can spend.
      *
      * @param address The Bitcoin address
      * @return The balance in satoshis
      */
     @GetMapping("/balance/{address}")
-    public ResponseEntity<?> getBalance(@PathVariable String address) {
+    public CompletableFuture<ResponseEntity<?>> getBalance(@PathVariable String address) {
         logger.info("GET /api/balance/{}", address);
-        try {
-            long balance = transactionService.getBalance(address);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("address", address);
-            response.put("balance", balance);
-            response.put("balanceBTC", balance / 100_000_000.0); // Convert to BTC
-
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Error fetching balance for address: {}", address, e);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(createErrorResponse("Error fetching balance: " + e.getMessage()));
-        }
+        return transactionService.getAddressBalanceAsync(address)
+                .<ResponseEntity<?>>thenApply(breakdown -> {
+                    long balance = breakdown.getTotal();
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("address", address);
+                    response.put("balance", balance);
+                    response.put("balanceBTC", balance / 100_000_000.0); // Convert to BTC
+                    response.put("confirmed", breakdown.getConfirmed());
+                    response.put("unconfirmed", breakdown.getUnconfirmed());
+                    response.put("spendable", breakdown.getSpendable());
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(error -> {
+                    Throwable e = Futures.unwrap(error);
+                    logger.error("Error fetching balance for address: {}", address, e);
+                    return ResponseEntity.status(statusFor(e))
+                            .body(createErrorResponse("Error fetching balance: " + e.getMessage()));
+                });
     }
 
     /**
@@ -74,23 +102,24 @@ public class BlockchainController {
      * @return List of UTXOs
      */
     @GetMapping("/utxos/{address}")
-    public ResponseEntity<?> getUTXOs(@PathVariable String address) {
+    public CompletableFuture<ResponseEntity<?>> getUTXOs(@PathVariable String address) {
         logger.info("GET /api/utxos/{}", address);
-        try {
-            List<UTXO> utxos = transactionService.getUTXOs(address);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("address", address);
-            response.put("utxoCount", utxos.size());
-            response.put("utxos", utxos);
-            response.put("totalValue", utxos.stream().mapToLong(UTXO::getValue).sum());
-
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Error fetching UTXOs for address: {}", address, e);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(createErrorResponse("Error fetching UTXOs: " + e.getMessage()));
-        }
+        return transactionService.getUTXOsAsync(address)
+                .<ResponseEntity<?>>thenApply(utxos -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("address", address);
+                    response.put("utxoCount", utxos.size());
+                    response.put("utxos", utxos);
+                    response.put("totalValue", utxos.stream().mapToLong(UTXO::getValue).sum());
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(error -> {
+                    Throwable e = Futures.unwrap(error);
+                    logger.error("Error fetching UTXOs for address: {}", address, e);
+                    return ResponseEntity.status(statusFor(e))
+                            .body(createErrorResponse("Error fetching UTXOs: " + e.getMessage()));
+                });
     }
 
     /**
@@ -102,61 +131,158 @@ public class BlockchainController {
      * @return List of transactions
      */
     @GetMapping("/transactions/{address}")
-    public ResponseEntity<?> getTransactionHistory(
+    public CompletableFuture<ResponseEntity<?>> getTransactionHistory(
             @PathVariable String address,
             @RequestParam(defaultValue = "10") int limit) {
         logger.info("GET /api/transactions/{} with limit {}", address, limit);
-        try {
-            List<Transaction> transactions = transactionService.getTransactionHistory(address);
-            // Limit results to requested amount
-            if (transactions.size() > limit) {
-                transactions = transactions.subList(0, limit);
-            }
+        return transactionService.getTransactionHistoryAsync(address)
+                .<ResponseEntity<?>>thenApply(transactions -> {
+                    // Limit results to requested amount
+                    if (transactions.size() > limit) {
+                        transactions = transactions.subList(0, limit);
+                    }
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("address", address);
+                    response.put("transactionCount", transactions.size());
+                    response.put("transactions", transactions);
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(error -> {
+                    Throwable e = Futures.unwrap(error);
+                    logger.error("Error fetching transaction history for address: {}", address, e);
+                    return ResponseEntity.status(statusFor(e))
+                            .body(createErrorResponse("Error fetching transaction history: " + e.getMessage()));
+                });
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("address", address);
-            response.put("transactionCount", transactions.size());
-            response.put("transactions", transactions);
+    /**
+     * POST /api/balances
+     * Fetches balances for many addresses in one call.
+     * Request body should contain: addresses (list of Bitcoin addresses)
+     *
+     * @param payload JSON with "addresses" field
+     * @return Balances keyed by address, plus per-address errors
+     */
+    @PostMapping("/balances")
+    public CompletableFuture<ResponseEntity<?>> getBalances(@RequestBody Map<String, List<String>> payload) {
+        List<String> addresses = payload.get("addresses");
+        logger.info("POST /api/balances for {} addresses", addresses != null ? addresses.size() : 0);
+
+        ResponseEntity<?> invalid = validateBatch(addresses);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(invalid);
+        }
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Error fetching transaction history for address: {}", address, e);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(createErrorResponse("Error fetching transaction history: " + e.getMessage()));
+        return transactionService.getBalancesAsync(addresses)
+                .<ResponseEntity<?>>thenApply(batch -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("addressCount", addresses.size());
+                    response.put("balances", batch.getResults());
+                    response.put("errors", batch.getErrors());
+                    response.put("totalBalance", batch.getResults().values().stream().mapToLong(Long::longValue).sum());
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(error -> {
+                    Throwable e = Futures.unwrap(error);
+                    logger.error("Error fetching balances", e);
+                    return ResponseEntity.status(statusFor(e))
+                            .body(createErrorResponse("Error fetching balances: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * POST /api/utxos/batch
+     * Fetches UTXOs for many addresses in one call.
+     * Request body should contain: addresses (list of Bitcoin addresses)
+     *
+     * @param payload JSON with "addresses" field
+     * @return UTXO lists keyed by address, plus per-address errors
+     */
+    @PostMapping("/utxos/batch")
+    public CompletableFuture<ResponseEntity<?>> getUTXOsBatch(@RequestBody Map<String, List<String>> payload) {
+        List<String> addresses = payload.get("addresses");
+        logger.info("POST /api/utxos/batch for {} addresses", addresses != null ? addresses.size() : 0);
+
+        ResponseEntity<?> invalid = validateBatch(addresses);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(invalid);
         }
+
+        return transactionService.getUTXOsBatchAsync(addresses)
+                .<ResponseEntity<?>>thenApply(batch -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("addressCount", addresses.size());
+                    response.put("utxos", batch.getResults());
+                    response.put("errors", batch.getErrors());
+                    response.put("totalValue", batch.getResults().values().stream()
+                            .flatMap(List::stream).mapToLong(UTXO::getValue).sum());
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(error -> {
+                    Throwable e = Futures.unwrap(error);
+                    logger.error("Error fetching UTXOs in batch", e);
+                    return ResponseEntity.status(statusFor(e))
+                            .body(createErrorResponse("Error fetching UTXOs: " + e.getMessage()));
+                });
     }
 
     /**
      * POST /api/fee-estimate
      * Estimates transaction fee based on number of inputs and outputs.
+     * Rates come from the in-memory fee-rate snapshot, so no provider is called.
      *
-     * @param payload JSON with "inputs" and "outputs" fields
+     * @param payload JSON with "inputs" and "outputs" fields, an optional "confirmationTarget" in blocks
+     *                and optional "inputType"/"outputType" script types (P2PKH, P2SH_P2WPKH, P2WPKH, P2TR)
      * @return Estimated fee in satoshis
      */
     @PostMapping("/fee-estimate")
-    public ResponseEntity<?> estimateFee(@RequestBody Map<String, Integer> payload) {
+    public ResponseEntity<?> estimateFee(@RequestBody Map<String, Object> payload) {
         logger.info("POST /api/fee-estimate");
         try {
-            int inputs = payload.getOrDefault("inputs", 1);
-            int outputs = payload.getOrDefault("outputs", 2);
+            int inputs = payload.get("inputs") != null ? ((Number) payload.get("inputs")).intValue() : 1;
+            int outputs = payload.get("outputs") != null ? ((Number) payload.get("outputs")).intValue() : 2;
+            int target = payload.get("confirmationTarget") != null
+                    ? ((Number) payload.get("confirmationTarget")).intValue() : feeRateOracle.getDefaultTarget();
+            ScriptType inputType = payload.get("inputType") != null
+                    ? ScriptType.valueOf((String) payload.get("inputType")) : ScriptType.P2PKH;
+            ScriptType outputType = payload.get("outputType") != null
+                    ? ScriptType.valueOf((String) payload.get("outputType")) : ScriptType.P2PKH;
 
             if (inputs <= 0 || outputs <= 0) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(createErrorResponse("Inputs and outputs must be greater than 0"));
             }
+            if (target <= 0) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(createErrorResponse("Confirmation target must be greater than 0"));
+            }
 
-            long estimatedFee = transactionService.estimateFee(inputs, outputs);
-            int txSize = feeCalculator.calculateTransactionSize(inputs, outputs);
+            FeeRateSnapshot rates = feeRateOracle.getSnapshot();
+            long feeRate = rates.getFeeRate(target);
+            long estimatedFee = feeCalculator.calculateFee(inputType, inputs, outputType, outputs, feeRate);
+            int txSize = feeCalculator.calculateVirtualSize(inputType, inputs, outputType, outputs);
 
             Map<String, Object> response = new HashMap<>();
             response.put("inputs", inputs);
             response.put("outputs", outputs);
+            response.put("inputType", inputType);
+            response.put("outputType", outputType);
+            response.put("confirmationTarget", Math.min(target, FeeRateSnapshot.MAX_TARGET));
             response.put("estimatedSize", txSize);
             response.put("estimatedFee", estimatedFee);
             response.put("estimatedFeeBTC", estimatedFee / 100_000_000.0);
-            response.put("feePerByte", estimatedFee / (double) txSize);
+            response.put("feePerByte", feeRate);
+            response.put("feeRateSource", rates.isFallback() ? "default" : "provider");
+            response.put("feeRateUpdatedAt", Instant.ofEpochMilli(rates.getUpdatedAtMillis()).toString());
 
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Invalid fee estimate request: " + e.getMessage()));
         } catch (Exception e) {
             logger.error("Error estimating fee", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -167,25 +293,60 @@ public class BlockchainController {
     /**
      * POST /api/send
      * Sends Bitcoin from one address to another.
-     * Request body should contain: fromAddress, toAddress, amount, privateKey
+     * Request body should contain: fromAddress, toAddress, amount, privateKey.
+     * The transaction is signed, written to the outbox and answered with 202 Accepted; it is
+     * broadcast in the background and its progress is available from GET /api/send/{id}.
+     * An Idempotency-Key header (or "idempotencyKey" field) makes retries safe: a repeated
+     * key returns the original payment instead of paying twice.
+     * With "batch": true (and payment.batching.enabled) the payment joins the next batched
+     * transaction from fromAddress and the response also carries its outputIndex.
      *
-     * @param payload JSON payload with transaction details
-     * @return Transaction ID on success
+     * @param payload        JSON payload with transaction details
+     * @param idempotencyKey Optional client-chosen key identifying this payment
+     * @return Payment id and transaction ID once queued
      */
     @PostMapping("/send")
-    public ResponseEntity<?> sendBitcoin(@RequestBody Map<String, Object> payload) {
+    public CompletableFuture<ResponseEntity<?>> sendBitcoin(@RequestBody Map<String, Object> payload,
+                                                            @RequestHeader(value = "Idempotency-Key", required = false)
+                                                            String idempotencyKey) {
         logger.info("POST /api/send");
+        if (Boolean.TRUE.equals(payload.get("batch"))) {
+            return sendBatched(payload);
+        }
+        String key = idempotencyKey != null ? idempotencyKey : (String) payload.get("idempotencyKey");
+        return CompletableFuture.completedFuture(queueSend(payload, key));
+    }
+
+    /**
+     * GET /api/send/{id}
+     * Reports the progress of a payment accepted by POST /api/send.
+     *
+     * @param id Payment id from the send response
+     * @return Status (queued, broadcast, confirmed or failed), attempts and confirmations
+     */
+    @GetMapping("/send/{id}")
+    public ResponseEntity<?> getSendStatus(@PathVariable String id) {
+        logger.info("GET /api/send/{}", id);
+        OutboxEntry entry = outboxBroadcaster.get(id);
+        if (entry == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("Unknown payment: " + id));
+        }
+        return ResponseEntity.ok(sendResponse(entry));
+    }
+
+    private ResponseEntity<?> queueSend(Map<String, Object> payload, String idempotencyKey) {
         try {
             String fromAddress = (String) payload.get("fromAddress");
             String toAddress = (String) payload.get("toAddress");
-            long amount = ((Number) payload.get("amount")).longValue();
             String privateKey = (String) payload.get("privateKey");
 
             // Validate inputs
-            if (fromAddress == null || toAddress == null || privateKey == null) {
+            if (fromAddress == null || toAddress == null || privateKey == null || payload.get("amount") == null) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(createErrorResponse("Missing required fields: fromAddress, toAddress, privateKey"));
+                        .body(createErrorResponse("Missing required fields: fromAddress, toAddress, amount, privateKey"));
             }
+            long amount = ((Number) payload.get("amount")).longValue();
 
             if (amount <= 0) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -193,30 +354,152 @@ public class BlockchainController {
             }
 
             logger.info("Initiating transaction from {} to {} for {} satoshis", fromAddress, toAddress, amount);
-            String txId = transactionService.sendBitcoin(fromAddress, toAddress, amount, privateKey);
+            OutboxEntry entry = outboxBroadcaster.submit(idempotencyKey, fromAddress, toAddress, amount, privateKey);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(sendResponse(entry));
+        } catch (IllegalStateException e) {
+            logger.warn("Conflict for send transaction: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(createErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid input for send transaction: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        } catch (RuntimeException e) {
+            logger.error("Runtime error during send transaction", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error sending Bitcoin", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error sending Bitcoin: " + e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> sendResponse(OutboxEntry entry) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", entry.getStatus() != OutboxEntry.Status.FAILED);
+        response.put("id", entry.getId());
+        response.put("txId", entry.getTxId());
+        response.put("fromAddress", entry.getFromAddress());
+        response.put("toAddress", entry.getToAddress());
+        response.put("amount", entry.getAmount());
+        response.put("amountBTC", entry.getAmount() / 100_000_000.0);
+        response.put("fee", entry.getFee());
+        response.put("status", entry.getStatus().name().toLowerCase(Locale.ROOT));
+        response.put("attempts", entry.getAttempts());
+        response.put("confirmations", entry.getConfirmations());
+        response.put("requiredConfirmations", outboxBroadcaster.getRequiredConfirmations());
+        response.put("createdAt", Instant.ofEpochMilli(entry.getCreatedAt()).toString());
+        response.put("updatedAt", Instant.ofEpochMilli(entry.getUpdatedAt()).toString());
+        if (entry.getIdempotencyKey() != null) {
+            response.put("idempotencyKey", entry.getIdempotencyKey());
+        }
+        if (entry.getLastError() != null) {
+            response.put("lastError", entry.getLastError());
+        }
+        return response;
+    }
+
+    private CompletableFuture<ResponseEntity<?>> sendBatched(Map<String, Object> payload) {
+        String fromAddress;
+        String toAddress;
+        long amount;
+        CompletableFuture<BatchedPayment> receipt;
+        try {
+            fromAddress = (String) payload.get("fromAddress");
+            toAddress = (String) payload.get("toAddress");
+            String privateKey = (String) payload.get("privateKey");
+            if (fromAddress == null || toAddress == null || privateKey == null || payload.get("amount") == null) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(createErrorResponse("Missing required fields: fromAddress, toAddress, amount, privateKey")));
+            }
+            if (!(payload.get("amount") instanceof Number)) {
+                throw new IllegalArgumentException("amount must be a number");
+            }
+            amount = ((Number) payload.get("amount")).longValue();
+            receipt = paymentBatcher.submit(fromAddress, toAddress, amount, privateKey);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            logger.warn("Invalid input for batched send: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage())));
+        }
+
+        return receipt.<ResponseEntity<?>>thenApply(payment -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("txId", payment.getTxId());
+                    response.put("outputIndex", payment.getOutputIndex());
+                    response.put("batchSize", payment.getBatchSize());
+                    response.put("fromAddress", fromAddress);
+                    response.put("toAddress", toAddress);
+                    response.put("amount", amount);
+                    response.put("amountBTC", amount / 100_000_000.0);
+                    response.put("status", "broadcast");
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(error -> {
+                    Throwable e = Futures.unwrap(error);
+                    logger.error("Batched send from {} failed", fromAddress, e);
+                    return ResponseEntity.status(statusFor(e))
+                            .body(createErrorResponse("Error sending Bitcoin: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * POST /api/consolidate
+     * Merges the smallest UTXOs of an address into one output.
+     * Request body should contain: address, privateKey, and optionally toAddress (defaults to address),
+     * maxInputs (defaults to 500) and feeRate in sat/byte (defaults to the current rate for a
+     * {@link FeeRateSnapshot#MAX_TARGET}-block target, since consolidations are never urgent)
+     *
+     * @param payload JSON payload with consolidation details
+     * @return Transaction ID, input count, consolidated amount and fee
+     */
+    @PostMapping("/consolidate")
+    public ResponseEntity<?> consolidate(@RequestBody Map<String, Object> payload) {
+        logger.info("POST /api/consolidate");
+        try {
+            String address = (String) payload.get("address");
+            String privateKey = (String) payload.get("privateKey");
+            String toAddress = payload.get("toAddress") != null ? (String) payload.get("toAddress") : address;
+            int maxInputs = payload.get("maxInputs") != null ? ((Number) payload.get("maxInputs")).intValue() : 500;
+            long feeRate = payload.get("feeRate") != null ? ((Number) payload.get("feeRate")).longValue()
+                    : feeRateOracle.getFeeRate(FeeRateSnapshot.MAX_TARGET);
+
+            if (address == null || privateKey == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(createErrorResponse("Missing required fields: address, privateKey"));
+            }
+
+            Transaction tx = transactionService.consolidateUTXOs(address, toAddress, privateKey, maxInputs, feeRate);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("txId", txId);
-            response.put("fromAddress", fromAddress);
+            response.put("txId", tx.getTxId());
+            response.put("fromAddress", address);
             response.put("toAddress", toAddress);
-            response.put("amount", amount);
-            response.put("amountBTC", amount / 100_000_000.0);
-            response.put("status", "broadcast");
+            response.put("inputs", tx.getInputs().size());
+            response.put("amount", tx.getAmount());
+            response.put("fee", tx.getFee());
+            response.put("status", tx.getStatus());
 
             return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            logger.warn("Conflict for consolidation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(createErrorResponse(e.getMessage()));
         } catch (IllegalArgumentException e) {
-            logger.warn("Invalid input for send transaction: {}", e.getMessage());
+            logger.warn("Invalid input for consolidation: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(createErrorResponse(e.getMessage()));
         } catch (RuntimeException e) {
-            logger.error("Runtime error during send transaction", e);
+            logger.error("Runtime error during consolidation", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(createErrorResponse(e.getMessage()));
         } catch (Exception e) {
-            logger.error("Error sending Bitcoin", e);
+            logger.error("Error consolidating UTXOs", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(createErrorResponse("Error sending Bitcoin: " + e.getMessage()));
+                    .body(createErrorResponse("Error consolidating UTXOs: " + e.getMessage()));
         }
     }
 
@@ -327,6 +610,32 @@ public class BlockchainController {
         }
     }
 
+    /**
+     * Maps upstream failures to a response status: provider throttling or outages, and requests
+     * our own rate limit rejected, become 503 so clients can back off; anything else stays a 400.
+     */
+    private HttpStatus statusFor(Throwable error) {
+        if (error instanceof HttpStatusException && ((HttpStatusException) error).isProviderFault()) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        if (error instanceof RateLimitExceededException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    private ResponseEntity<?> validateBatch(List<String> addresses) {
+        if (addresses == null || addresses.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Missing required field: addresses"));
+        }
+        if (addresses.size() > MAX_BATCH_ADDRESSES) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("At most " + MAX_BATCH_ADDRESSES + " addresses per request"));
+        }
+        return null;
+    }
+
     private Map<String, Object> createErrorResponse(String message) {
         Map<String, Object> error = new HashMap<>();
         error.put("success", false);
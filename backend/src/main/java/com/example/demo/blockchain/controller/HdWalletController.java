@@ -0,0 +1,294 @@
+package com.example.demo.blockchain.controller;
+
+import com.example.demo.blockchain.model.DerivedAddress;
+import com.example.demo.blockchain.model.DiscoveryResult;
+import com.example.demo.blockchain.service.AddressDiscoveryService;
+import com.example.demo.blockchain.service.HdAccount;
+import com.example.demo.blockchain.service.KeyService;
+import com.example.demo.blockchain.store.UsedAddressStore;
+import com.example.demo.blockchain.util.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * HD wallet accounts (BIP32 with BIP44/BIP84 paths): one imported extended key stands in
+ * for every deposit address derived from it, instead of a stored private key per address.
+ * Accounts are held in memory by {@link KeyService} and are imported again after a restart.
+ */
+@RestController
+@RequestMapping("/api/hd")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class HdWalletController {
+    private static final Logger logger = LoggerFactory.getLogger(HdWalletController.class);
+    // Upper bound on addresses derived per request
+    private static final int MAX_DERIVED_ADDRESSES = 10_000;
+
+    private final KeyService keyService;
+    private final AddressDiscoveryService discoveryService;
+    private final UsedAddressStore usedAddressStore;
+
+    @Autowired
+    public HdWalletController(KeyService keyService, AddressDiscoveryService discoveryService,
+                              UsedAddressStore usedAddressStore) {
+        this.keyService = keyService;
+        this.discoveryService = discoveryService;
+        this.usedAddressStore = usedAddressStore;
+    }
+
+    /**
+     * POST /api/hd/accounts
+     * Imports an account from a tpub/tprv (BIP44) or vpub/vprv (BIP84) key, either the
+     * master key or the account-level key. Optional fields: {@code purpose} (44 or 84,
+     * overriding the key's version bytes) and {@code account} (for master keys, default 0).
+     *
+     * @param payload JSON with "extendedKey" and the optional fields
+     * @return The account id, path, account xpub and first receive address
+     */
+    @PostMapping("/accounts")
+    public ResponseEntity<?> importAccount(@RequestBody Map<String, Object> payload) {
+        try {
+            Object extendedKey = payload.get("extendedKey");
+            if (!(extendedKey instanceof String) || ((String) extendedKey).isBlank()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(createErrorResponse("Missing required field: extendedKey"));
+            }
+            Integer purpose = intField(payload, "purpose");
+            Integer account = intField(payload, "account");
+
+            HdAccount imported = keyService.importAccount((String) extendedKey, purpose,
+                    account != null ? account : 0);
+            logger.info("Imported HD account {} ({}, watch-only {})", imported.getId(), imported.getPath(),
+                    imported.isWatchOnly());
+            return ResponseEntity.ok(describe(imported));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid input for HD account import: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.warn("HD account import refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/hd/generate
+     * Creates a random master key and imports its account 0. The master key is returned
+     * once and not stored; keep it to import the account again after a restart.
+     *
+     * @param payload Optional JSON with "purpose" (44 or 84, default 84)
+     * @return The account description plus "masterKey"
+     */
+    @PostMapping("/generate")
+    public ResponseEntity<?> generate(@RequestBody(required = false) Map<String, Object> payload) {
+        try {
+            Integer requested = payload != null ? intField(payload, "purpose") : null;
+            int purpose = requested != null ? requested : KeyService.BIP84;
+            String masterKey = keyService.generateMasterKey(purpose);
+            HdAccount account = keyService.importAccount(masterKey, purpose, 0);
+            logger.info("Generated HD account {} ({})", account.getId(), account.getPath());
+
+            Map<String, Object> response = describe(account);
+            response.put("masterKey", masterKey);
+            response.put("message", "Save your master key securely! Every address of the account derives from it.");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid input for HD account generation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.warn("HD account generation refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/hd/accounts
+     * Lists the imported accounts.
+     */
+    @GetMapping("/accounts")
+    public List<Map<String, Object>> listAccounts() {
+        return keyService.getAccounts().stream().map(this::describe).collect(Collectors.toList());
+    }
+
+    /**
+     * GET /api/hd/accounts/{id}/addresses?chain=0&from=0&count=20
+     * Derives a range of addresses. Derived keys are cached, so listing the same range again,
+     * or the next one, does not repeat work already done.
+     *
+     * @param id    Account id
+     * @param chain 0 for receive addresses, 1 for change
+     * @param from  First address index
+     * @param count Number of addresses, at most 10,000
+     * @return The addresses in index order
+     */
+    @GetMapping("/accounts/{id}/addresses")
+    public ResponseEntity<?> deriveAddresses(@PathVariable String id,
+                                             @RequestParam(defaultValue = "0") int chain,
+                                             @RequestParam(defaultValue = "0") int from,
+                                             @RequestParam(defaultValue = "20") int count) {
+        if (count <= 0 || count > MAX_DERIVED_ADDRESSES) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("count must be between 1 and " + MAX_DERIVED_ADDRESSES));
+        }
+        try {
+            List<DerivedAddress> addresses = keyService.deriveAddresses(id, chain, from, count);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("accountId", id);
+            response.put("chain", chain);
+            response.put("from", from);
+            response.put("count", addresses.size());
+            response.put("addresses", addresses);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid input for address derivation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/hd/accounts/{id}/private-key
+     * Private key of one derived address, for {@code /api/send} from it. Not available for
+     * watch-only accounts.
+     *
+     * @param id      Account id
+     * @param payload JSON with "chain" (default 0) and "index"
+     * @return The address and its private key in WIF format
+     */
+    @PostMapping("/accounts/{id}/private-key")
+    public ResponseEntity<?> privateKey(@PathVariable String id, @RequestBody Map<String, Object> payload) {
+        try {
+            Integer index = intField(payload, "index");
+            if (index == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(createErrorResponse("Missing required field: index"));
+            }
+            Integer requestedChain = intField(payload, "chain");
+            int chain = requestedChain != null ? requestedChain : HdAccount.EXTERNAL;
+
+            String wif = keyService.derivePrivateKeyWif(id, chain, index);
+            DerivedAddress derived = keyService.deriveAddress(id, chain, index);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("address", derived.getAddress());
+            response.put("path", derived.getPath());
+            response.put("privateKey", wif);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid input for private key derivation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/hd/accounts/{id}/discover
+     * Finds the used addresses of the account by gap-limit scanning both chains, resuming
+     * one gap limit below the highest addresses found by earlier scans.
+     *
+     * @param id Account id
+     * @return The used addresses, the next unused index of each chain and the scan throughput
+     */
+    @PostMapping("/accounts/{id}/discover")
+    public CompletableFuture<ResponseEntity<?>> discover(@PathVariable String id) {
+        logger.info("POST /api/hd/accounts/{}/discover", id);
+        CompletableFuture<DiscoveryResult> scan;
+        try {
+            scan = discoveryService.discoverAsync(id);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid input for address discovery: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage())));
+        } catch (IllegalStateException e) {
+            logger.warn("Conflict for address discovery: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(createErrorResponse(e.getMessage())));
+        }
+        return scan.<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(error -> {
+                    Throwable e = Futures.unwrap(error);
+                    logger.error("Address discovery of HD account {} failed", id, e);
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(createErrorResponse("Address discovery failed: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * GET /api/hd/accounts/{id}/used
+     * Used addresses recorded by earlier discovery scans, without querying the provider.
+     */
+    @GetMapping("/accounts/{id}/used")
+    public ResponseEntity<?> usedAddresses(@PathVariable String id) {
+        try {
+            keyService.getAccount(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse(e.getMessage()));
+        }
+        List<DerivedAddress> used = usedAddressStore.getUsed(id);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("accountId", id);
+        response.put("count", used.size());
+        response.put("scannedAt", usedAddressStore.getScannedAt(id));
+        response.put("addresses", used);
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> describe(HdAccount account) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("accountId", account.getId());
+        response.put("purpose", account.getPurpose());
+        response.put("path", account.getPath());
+        response.put("scriptType", account.getScriptType().name());
+        response.put("watchOnly", account.isWatchOnly());
+        response.put("xpub", account.getExtendedPublicKey(keyService.getNetworkParameters()));
+        response.put("firstAddress", keyService.deriveAddress(account.getId(), HdAccount.EXTERNAL, 0).getAddress());
+        return response;
+    }
+
+    /**
+     * Optional integer field of a JSON payload.
+     *
+     * @return The value, or null if absent
+     * @throws IllegalArgumentException if the field is present but not a number
+     */
+    private static Integer intField(Map<String, Object> payload, String name) {
+        Object value = payload.get(name);
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        return ((Number) value).intValue();
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("success", false);
+        error.put("error", message);
+        error.put("timestamp", System.currentTimeMillis());
+        return error;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.blockchain.controller;
+
+import com.example.demo.blockchain.model.AddressEvent;
+import com.example.demo.blockchain.service.AddressWatchService;
+import com.example.demo.blockchain.service.KeyService;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-Sent Events stream of address changes, an alternative to polling
+ * {@code /api/balance/{address}} and {@code /api/transactions/{address}}.
+ * Every client of an address shares one {@link AddressWatchService} watcher.
+ * The WebSocket variant is served by {@link AddressStreamWebSocketHandler}.
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class StreamController {
+    private static final Logger logger = LoggerFactory.getLogger(StreamController.class);
+
+    private final AddressWatchService watchService;
+    private final KeyService keyService;
+    private final Gson gson = new Gson();
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+
+    @Value("${stream.sse-timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Autowired
+    public StreamController(AddressWatchService watchService, KeyService keyService) {
+        this.watchService = watchService;
+        this.keyService = keyService;
+    }
+
+    /**
+     * GET /api/stream/{address}
+     * Streams {@code snapshot}, {@code balance}, {@code transaction} and
+     * {@code confirmations} events for an address until the client disconnects or
+     * {@code stream.sse-timeout-ms} passes (EventSource clients reconnect on their own).
+     *
+     * @param address The Bitcoin address
+     * @return The event stream
+     */
+    @GetMapping(path = "/stream/{address}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String address) {
+        logger.info("GET /api/stream/{}", address);
+        if (!keyService.isValidAddress(address)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Bitcoin address format");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        AddressWatchService.Subscription subscription;
+        try {
+            subscription = watchService.subscribe(address, event -> send(emitter, event));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+
+        emitters.add(emitter);
+        Runnable cleanup = () -> {
+            emitters.remove(emitter);
+            subscription.cancel();
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+        return emitter;
+    }
+
+    /**
+     * Sends a comment line to every open stream so idle connections survive proxies and
+     * clients that went away are noticed.
+     */
+    @Scheduled(fixedDelayString = "${stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, AddressEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(event.getType().name().toLowerCase(Locale.ROOT))
+                    .data(gson.toJson(event), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.blockchain.controller;
+
+import com.example.demo.blockchain.model.ChainEvent;
+import com.example.demo.blockchain.service.ChainEventService;
+import com.example.demo.blockchain.service.MockWebhookEmitter;
+import com.example.demo.blockchain.service.WebhookSubscriptionManager;
+import com.example.demo.blockchain.util.Futures;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Receives BlockCypher webhook callbacks (registered by {@link WebhookSubscriptionManager})
+ * and hands them to {@link ChainEventService}. Also exposes the {@link MockWebhookEmitter}
+ * when {@code webhook.mock.enabled} is set.
+ */
+@RestController
+@RequestMapping("/api/webhooks")
+public class WebhookController {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookController.class);
+
+    private final ChainEventService chainEventService;
+    private final WebhookSubscriptionManager subscriptionManager;
+    private final MockWebhookEmitter mockEmitter;
+
+    @Autowired
+    public WebhookController(ChainEventService chainEventService,
+                             WebhookSubscriptionManager subscriptionManager,
+                             MockWebhookEmitter mockEmitter) {
+        this.chainEventService = chainEventService;
+        this.subscriptionManager = subscriptionManager;
+        this.mockEmitter = mockEmitter;
+    }
+
+    /**
+     * POST /api/webhooks/blockcypher
+     * Callback target for BlockCypher hooks. The body is the transaction (or block) JSON;
+     * the event kind comes from the {@code X-EventType} header, or from the payload shape
+     * when the header is missing. Answers quickly, since BlockCypher retries slow or failed
+     * deliveries. Answers 404 unless {@code webhook.enabled} or {@code webhook.mock.enabled}
+     * is set.
+     *
+     * @param secret    Shared secret from the registered callback URL
+     * @param eventType {@code unconfirmed-tx}, {@code confirmed-tx} or {@code new-block}
+     * @param body      Event payload
+     */
+    @PostMapping("/blockcypher")
+    public ResponseEntity<Void> receive(@RequestParam(required = false) String secret,
+                                        @RequestHeader(value = "X-EventType", required = false) String eventType,
+                                        @RequestBody String body) {
+        if (!subscriptionManager.isEnabled() && !mockEmitter.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        if (!subscriptionManager.verifySecret(secret)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid webhook secret");
+        }
+        ChainEvent event;
+        try {
+            event = parse(eventType, JsonParser.parseString(body).getAsJsonObject());
+        } catch (RuntimeException e) {
+            // Gson reports missing or mistyped fields with assorted runtime exceptions
+            logger.warn("Rejecting malformed {} webhook: {}", eventType, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed webhook payload");
+        }
+        chainEventService.handle(event);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * POST /api/webhooks/mock/{event}
+     * Emits a fake BlockCypher callback to {@link #receive}, for testing without a provider.
+     * Body fields (all optional): {@code addresses}, {@code txid}, {@code confirmations},
+     * {@code height}.
+     *
+     * @param event {@code unconfirmed-tx}, {@code confirmed-tx} or {@code new-block}
+     * @param body  Event fields
+     * @return Status the receiver answered with
+     */
+    @PostMapping("/mock/{event}")
+    public CompletableFuture<ResponseEntity<?>> emitMock(@PathVariable String event,
+                                                         @RequestBody(required = false) String body) {
+        if (!mockEmitter.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        JsonObject fields;
+        try {
+            fields = body == null || body.isBlank() ? new JsonObject() : JsonParser.parseString(body).getAsJsonObject();
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed request body");
+        }
+        long height = fields.has("height") ? fields.get("height").getAsLong() : -1;
+
+        CompletableFuture<Integer> sent;
+        if ("new-block".equals(event)) {
+            if (height < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "height is required");
+            }
+            sent = mockEmitter.emitNewBlock(height);
+        } else if ("unconfirmed-tx".equals(event) || "confirmed-tx".equals(event)) {
+            List<String> addresses = new ArrayList<>();
+            if (fields.has("addresses")) {
+                fields.getAsJsonArray("addresses").forEach(address -> addresses.add(address.getAsString()));
+            }
+            int confirmations = fields.has("confirmations") ? fields.get("confirmations").getAsInt()
+                    : "confirmed-tx".equals(event) ? 1 : 0;
+            String txid = fields.has("txid") ? fields.get("txid").getAsString() : null;
+            sent = mockEmitter.emitTransaction(event, txid, addresses, confirmations, height);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown event " + event);
+        }
+
+        return sent.<ResponseEntity<?>>thenApply(status -> ResponseEntity.ok(Map.of("event", event, "receiverStatus", status)))
+                .exceptionally(error -> ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                        .body(Map.of("error", "Mock delivery failed: " + Futures.unwrap(error).getMessage())));
+    }
+
+    private static ChainEvent parse(String eventType, JsonObject payload) {
+        boolean block = "new-block".equals(eventType)
+                || (eventType == null && !payload.has("addresses") && payload.has("height"));
+        if (block) {
+            if (!payload.has("height")) {
+                throw new IllegalArgumentException("Block payload without height");
+            }
+            return ChainEvent.newBlock(payload.get("height").getAsLong(), string(payload.get("hash")));
+        }
+
+        List<String> addresses = new ArrayList<>();
+        if (payload.has("addresses")) {
+            payload.getAsJsonArray("addresses").forEach(address -> addresses.add(address.getAsString()));
+        }
+        int confirmations = payload.has("confirmations") ? payload.get("confirmations").getAsInt() : 0;
+        long blockHeight = payload.has("block_height") ? payload.get("block_height").getAsLong() : -1;
+        boolean confirmed = eventType != null ? !"unconfirmed-tx".equals(eventType) : confirmations > 0;
+        return ChainEvent.transaction(confirmed ? ChainEvent.Type.TX_CONFIRMED : ChainEvent.Type.TX_UNCONFIRMED,
+                string(payload.get("hash")), addresses, confirmations, blockHeight);
+    }
+
+    private static String string(JsonElement element) {
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+}
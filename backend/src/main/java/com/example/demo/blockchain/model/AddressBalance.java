@@ -0,0 +1,73 @@
+package com.example.demo.blockchain.model;
+
+/**
+ * Balance of an address split by confirmation state, in satoshis.
+ * {@code confirmed} excludes outputs our own pending transactions spend; {@code unconfirmed}
+ * is change those transactions pay back to the address; {@code spendable} is what a new
+ * send can use right now: the confirmed part plus the change within the chain-depth limit.
+ */
+public class AddressBalance {
+    private String address;
+    private long confirmed;
+    private long unconfirmed;
+    private long spendable;
+
+    public AddressBalance() {
+    }
+
+    public AddressBalance(String address, long confirmed, long unconfirmed, long spendable) {
+        this.address = address;
+        this.confirmed = confirmed;
+        this.unconfirmed = unconfirmed;
+        this.spendable = spendable;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public long getConfirmed() {
+        return confirmed;
+    }
+
+    public void setConfirmed(long confirmed) {
+        this.confirmed = confirmed;
+    }
+
+    public long getUnconfirmed() {
+        return unconfirmed;
+    }
+
+    public void setUnconfirmed(long unconfirmed) {
+        this.unconfirmed = unconfirmed;
+    }
+
+    public long getSpendable() {
+        return spendable;
+    }
+
+    public void setSpendable(long spendable) {
+        this.spendable = spendable;
+    }
+
+    /**
+     * Confirmed plus unconfirmed funds.
+     */
+    public long getTotal() {
+        return confirmed + unconfirmed;
+    }
+
+    @Override
+    public String toString() {
+        return "AddressBalance{" +
+                "address='" + address + '\'' +
+                ", confirmed=" + confirmed +
+                ", unconfirmed=" + unconfirmed +
+                ", spendable=" + spendable +
+                '}';
+    }
+}
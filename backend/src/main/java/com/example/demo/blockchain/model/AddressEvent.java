@@ -0,0 +1,104 @@
+package com.example.demo.blockchain.model;
+
+/**
+ * A change pushed to subscribers of an address stream.
+ * Only the fields relevant to the event type are set; the others stay null.
+ */
+public class AddressEvent {
+
+    public enum Type {
+        /** Current balance, sent once when a subscription starts */
+        SNAPSHOT,
+        /** The balance changed; {@code delta} is the difference from the previous value */
+        BALANCE,
+        /** A transaction touching the address was seen for the first time */
+        TRANSACTION,
+        /** A known transaction gained confirmations */
+        CONFIRMATIONS
+    }
+
+    private final Type type;
+    private final String address;
+    private final long timestamp;
+    private Long balance;
+    private Long delta;
+    private String txid;
+    private Long amount;
+    private Integer confirmations;
+
+    private AddressEvent(Type type, String address) {
+        this.type = type;
+        this.address = address;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public static AddressEvent snapshot(String address, long balance) {
+        AddressEvent event = new AddressEvent(Type.SNAPSHOT, address);
+        event.balance = balance;
+        return event;
+    }
+
+    public static AddressEvent balance(String address, long balance, long delta) {
+        AddressEvent event = new AddressEvent(Type.BALANCE, address);
+        event.balance = balance;
+        event.delta = delta;
+        return event;
+    }
+
+    public static AddressEvent transaction(String address, String txid, long amount, int confirmations) {
+        AddressEvent event = new AddressEvent(Type.TRANSACTION, address);
+        event.txid = txid;
+        event.amount = amount;
+        event.confirmations = confirmations;
+        return event;
+    }
+
+    public static AddressEvent confirmations(String address, String txid, int confirmations) {
+        AddressEvent event = new AddressEvent(Type.CONFIRMATIONS, address);
+        event.txid = txid;
+        event.confirmations = confirmations;
+        return event;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Long getBalance() {
+        return balance;
+    }
+
+    public Long getDelta() {
+        return delta;
+    }
+
+    public String getTxid() {
+        return txid;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public Integer getConfirmations() {
+        return confirmations;
+    }
+
+    @Override
+    public String toString() {
+        return "AddressEvent{" + type + " " + address
+                + (balance != null ? " balance=" + balance : "")
+                + (delta != null ? " delta=" + delta : "")
+                + (txid != null ? " txid=" + txid : "")
+                + (confirmations != null ? " confirmations=" + confirmations : "")
+                + "}";
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.blockchain.model;
+
+import com.example.demo.blockchain.util.Futures;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Result of a multi-address lookup.
+ * Holds the values that were fetched successfully and an error message for every
+ * address that failed, so one bad address does not fail the whole batch.
+ *
+ * @param <T> The per-address value type
+ */
+public class BatchResult<T> {
+    private final Map<String, T> results = new LinkedHashMap<>();
+    private final Map<String, String> errors = new LinkedHashMap<>();
+
+    public BatchResult() {
+    }
+
+    public Map<String, T> getResults() {
+        return results;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void addResult(String address, T value) {
+        results.put(address, value);
+        errors.remove(address);
+    }
+
+    public void addError(String address, String message) {
+        if (!results.containsKey(address)) {
+            errors.put(address, message);
+        }
+    }
+
+    /**
+     * Copies all results and errors from another batch into this one.
+     *
+     * @param other The batch to merge
+     * @return This batch
+     */
+    public BatchResult<T> merge(BatchResult<T> other) {
+        other.results.forEach(this::addResult);
+        other.errors.forEach(this::addError);
+        return this;
+    }
+
+    /**
+     * Runs one lookup per address and gathers the outcomes into a single batch.
+     *
+     * @param addresses The addresses to look up
+     * @param lookup    Per-address asynchronous lookup
+     * @return Future completing once every lookup has finished
+     */
+    public static <T> CompletableFuture<BatchResult<T>> collect(Collection<String> addresses,
+                                                                Function<String, CompletableFuture<T>> lookup) {
+        BatchResult<T> batch = new BatchResult<>();
+        CompletableFuture<?>[] lookups = addresses.stream()
+                .distinct()
+                .map(address -> lookup.apply(address).handle((value, error) -> {
+                    synchronized (batch) {
+                        if (error != null) {
+                            batch.addError(address, Futures.unwrap(error).getMessage());
+                        } else {
+                            batch.addResult(address, value);
+                        }
+                    }
+                    return null;
+                }))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(lookups).thenApply(done -> batch);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "resultCount=" + results.size() +
+                ", errorCount=" + errors.size() +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.blockchain.model;
+
+/**
+ * Receipt for one payment sent as part of a batched transaction.
+ * POJO class for transferring batch results to callers.
+ */
+public class BatchedPayment {
+    private String txId;
+    private int outputIndex;
+    private int batchSize;
+
+    public BatchedPayment() {
+    }
+
+    public BatchedPayment(String txId, int outputIndex, int batchSize) {
+        this.txId = txId;
+        this.outputIndex = outputIndex;
+        this.batchSize = batchSize;
+    }
+
+    public String getTxId() {
+        return txId;
+    }
+
+    public void setTxId(String txId) {
+        this.txId = txId;
+    }
+
+    public int getOutputIndex() {
+        return outputIndex;
+    }
+
+    public void setOutputIndex(int outputIndex) {
+        this.outputIndex = outputIndex;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchedPayment{" +
+                "txId='" + txId + '\'' +
+                ", outputIndex=" + outputIndex +
+                ", batchSize=" + batchSize +
+                '}';
+    }
+}
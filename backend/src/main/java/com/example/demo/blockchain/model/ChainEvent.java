@@ -0,0 +1,79 @@
+package com.example.demo.blockchain.model;
+
+import java.util.List;
+
+/**
+ * A chain notification pushed by a provider webhook, reduced to what the local caches
+ * and indexes need to react to it.
+ */
+public class ChainEvent {
+
+    public enum Type {
+        /** A transaction touching the listed addresses entered the mempool */
+        TX_UNCONFIRMED,
+        /** A transaction touching the listed addresses was mined */
+        TX_CONFIRMED,
+        /** The chain tip moved to {@code blockHeight} */
+        NEW_BLOCK
+    }
+
+    private final Type type;
+    private final String txid;
+    private final List<String> addresses;
+    private final int confirmations;
+    private final long blockHeight;
+    private final String blockHash;
+
+    private ChainEvent(Type type, String txid, List<String> addresses, int confirmations,
+                       long blockHeight, String blockHash) {
+        this.type = type;
+        this.txid = txid;
+        this.addresses = addresses;
+        this.confirmations = confirmations;
+        this.blockHeight = blockHeight;
+        this.blockHash = blockHash;
+    }
+
+    public static ChainEvent transaction(Type type, String txid, List<String> addresses,
+                                         int confirmations, long blockHeight) {
+        return new ChainEvent(type, txid, List.copyOf(addresses), confirmations, blockHeight, null);
+    }
+
+    public static ChainEvent newBlock(long height, String hash) {
+        return new ChainEvent(Type.NEW_BLOCK, null, List.of(), 0, height, hash);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTxid() {
+        return txid;
+    }
+
+    public List<String> getAddresses() {
+        return addresses;
+    }
+
+    public int getConfirmations() {
+        return confirmations;
+    }
+
+    /** Block of the transaction or the new tip; -1 while unconfirmed */
+    public long getBlockHeight() {
+        return blockHeight;
+    }
+
+    public String getBlockHash() {
+        return blockHash;
+    }
+
+    @Override
+    public String toString() {
+        return "ChainEvent{" + type
+                + (txid != null ? " txid=" + txid : "")
+                + (addresses.isEmpty() ? "" : " addresses=" + addresses)
+                + (blockHeight >= 0 ? " height=" + blockHeight : "")
+                + "}";
+    }
+}
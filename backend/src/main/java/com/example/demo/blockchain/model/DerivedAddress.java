@@ -0,0 +1,81 @@
+package com.example.demo.blockchain.model;
+
+/**
+ * An address derived from an HD account, with the BIP32 path it was derived at.
+ */
+public class DerivedAddress {
+    private String accountId;
+    private String path;
+    private int chain;
+    private int index;
+    private String address;
+    private String publicKey;
+
+    public DerivedAddress() {
+    }
+
+    public DerivedAddress(String accountId, String path, int chain, int index, String address, String publicKey) {
+        this.accountId = accountId;
+        this.path = path;
+        this.chain = chain;
+        this.index = index;
+        this.address = address;
+        this.publicKey = publicKey;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getChain() {
+        return chain;
+    }
+
+    public void setChain(int chain) {
+        this.chain = chain;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getPublicKey() {
+        return publicKey;
+    }
+
+    public void setPublicKey(String publicKey) {
+        this.publicKey = publicKey;
+    }
+
+    @Override
+    public String toString() {
+        return "DerivedAddress{" +
+                "path='" + path + '\'' +
+                ", address='" + address + '\'' +
+                '}';
+    }
+}
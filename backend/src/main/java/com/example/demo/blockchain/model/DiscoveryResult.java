@@ -0,0 +1,114 @@
+package com.example.demo.blockchain.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a gap-limit scan of an HD account: every used address known after the scan,
+ * the next fresh index on each chain, and how fast the scan went.
+ */
+public class DiscoveryResult {
+    private String accountId;
+    private int gapLimit;
+    private int windowSize;
+    private List<DerivedAddress> usedAddresses;
+    private int newlyFound;
+    private int nextReceiveIndex;
+    private int nextChangeIndex;
+    private int addressesScanned;
+    private long elapsedMs;
+    private double addressesPerSecond;
+
+    public DiscoveryResult() {
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public int getGapLimit() {
+        return gapLimit;
+    }
+
+    public void setGapLimit(int gapLimit) {
+        this.gapLimit = gapLimit;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public List<DerivedAddress> getUsedAddresses() {
+        return usedAddresses;
+    }
+
+    public void setUsedAddresses(List<DerivedAddress> usedAddresses) {
+        this.usedAddresses = usedAddresses;
+    }
+
+    public int getNewlyFound() {
+        return newlyFound;
+    }
+
+    public void setNewlyFound(int newlyFound) {
+        this.newlyFound = newlyFound;
+    }
+
+    public int getNextReceiveIndex() {
+        return nextReceiveIndex;
+    }
+
+    public void setNextReceiveIndex(int nextReceiveIndex) {
+        this.nextReceiveIndex = nextReceiveIndex;
+    }
+
+    public int getNextChangeIndex() {
+        return nextChangeIndex;
+    }
+
+    public void setNextChangeIndex(int nextChangeIndex) {
+        this.nextChangeIndex = nextChangeIndex;
+    }
+
+    public int getAddressesScanned() {
+        return addressesScanned;
+    }
+
+    public void setAddressesScanned(int addressesScanned) {
+        this.addressesScanned = addressesScanned;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public double getAddressesPerSecond() {
+        return addressesPerSecond;
+    }
+
+    public void setAddressesPerSecond(double addressesPerSecond) {
+        this.addressesPerSecond = addressesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "DiscoveryResult{" +
+                "accountId='" + accountId + '\'' +
+                ", used=" + (usedAddresses != null ? usedAddresses.size() : 0) +
+                ", newlyFound=" + newlyFound +
+                ", addressesScanned=" + addressesScanned +
+                ", addressesPerSecond=" + addressesPerSecond +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.blockchain.model;
+
+/**
+ * Fee rates published by a provider, in satoshis per kilobyte.
+ * POJO class for transferring mempool fee levels between layers.
+ */
+public class FeeEstimates {
+    private long highFeePerKb;
+    private long mediumFeePerKb;
+    private long lowFeePerKb;
+
+    public FeeEstimates() {
+    }
+
+    public FeeEstimates(long highFeePerKb, long mediumFeePerKb, long lowFeePerKb) {
+        this.highFeePerKb = highFeePerKb;
+        this.mediumFeePerKb = mediumFeePerKb;
+        this.lowFeePerKb = lowFeePerKb;
+    }
+
+    public long getHighFeePerKb() {
+        return highFeePerKb;
+    }
+
+    public void setHighFeePerKb(long highFeePerKb) {
+        this.highFeePerKb = highFeePerKb;
+    }
+
+    public long getMediumFeePerKb() {
+        return mediumFeePerKb;
+    }
+
+    public void setMediumFeePerKb(long mediumFeePerKb) {
+        this.mediumFeePerKb = mediumFeePerKb;
+    }
+
+    public long getLowFeePerKb() {
+        return lowFeePerKb;
+    }
+
+    public void setLowFeePerKb(long lowFeePerKb) {
+        this.lowFeePerKb = lowFeePerKb;
+    }
+
+    @Override
+    public String toString() {
+        return "FeeEstimates{" +
+                "highFeePerKb=" + highFeePerKb +
+                ", mediumFeePerKb=" + mediumFeePerKb +
+                ", lowFeePerKb=" + lowFeePerKb +
+                '}';
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.demo.blockchain.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A payment accepted by {@code /api/send} and held in the transaction outbox until it is
+ * broadcast and confirmed, or given up on. Serialized as-is by Gson, one line per change.
+ */
+public class OutboxEntry {
+
+    public enum Status {
+        /** Signed and persisted, waiting for (another) broadcast attempt */
+        QUEUED,
+        /** Accepted by a provider, waiting for confirmations */
+        BROADCAST,
+        /** Reached the required number of confirmations */
+        CONFIRMED,
+        /** Rejected by the provider or out of attempts; its inputs were released */
+        FAILED;
+
+        public boolean isTerminal() {
+            return this == CONFIRMED || this == FAILED;
+        }
+    }
+
+    private String id;
+    private String idempotencyKey;
+    private String fingerprint;
+    private String fromAddress;
+    private String toAddress;
+    private long amount;
+    private long fee;
+    private String txId;
+    private String rawHex;
+    private List<UTXO> inputs = new ArrayList<>();
+    private List<TxOutput> outputs = new ArrayList<>();
+    private List<String> affectedAddresses = new ArrayList<>();
+    private Status status;
+    private int attempts;
+    private int confirmations;
+    private String lastError;
+    private long createdAt;
+    private long updatedAt;
+    private long nextAttemptAt;
+    private long broadcastAt;
+    private long confirmedAt;
+
+    public OutboxEntry() {
+    }
+
+    /**
+     * Copy for handing out a consistent snapshot; the input and output lists are shared, as they never change.
+     */
+    public OutboxEntry(OutboxEntry other) {
+        this.id = other.id;
+        this.idempotencyKey = other.idempotencyKey;
+        this.fingerprint = other.fingerprint;
+        this.fromAddress = other.fromAddress;
+        this.toAddress = other.toAddress;
+        this.amount = other.amount;
+        this.fee = other.fee;
+        this.txId = other.txId;
+        this.rawHex = other.rawHex;
+        this.inputs = other.inputs;
+        this.outputs = other.outputs;
+        this.affectedAddresses = other.affectedAddresses;
+        this.status = other.status;
+        this.attempts = other.attempts;
+        this.confirmations = other.confirmations;
+        this.lastError = other.lastError;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.nextAttemptAt = other.nextAttemptAt;
+        this.broadcastAt = other.broadcastAt;
+        this.confirmedAt = other.confirmedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    /**
+     * Digest of the request fields, to tell a retry from a different request reusing its key.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getFromAddress() {
+        return fromAddress;
+    }
+
+    public void setFromAddress(String fromAddress) {
+        this.fromAddress = fromAddress;
+    }
+
+    public String getToAddress() {
+        return toAddress;
+    }
+
+    public void setToAddress(String toAddress) {
+        this.toAddress = toAddress;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    public long getFee() {
+        return fee;
+    }
+
+    public void setFee(long fee) {
+        this.fee = fee;
+    }
+
+    public String getTxId() {
+        return txId;
+    }
+
+    public void setTxId(String txId) {
+        this.txId = txId;
+    }
+
+    public String getRawHex() {
+        return rawHex;
+    }
+
+    public void setRawHex(String rawHex) {
+        this.rawHex = rawHex;
+    }
+
+    public List<UTXO> getInputs() {
+        return inputs;
+    }
+
+    public void setInputs(List<UTXO> inputs) {
+        this.inputs = inputs;
+    }
+
+    public List<TxOutput> getOutputs() {
+        return outputs;
+    }
+
+    public void setOutputs(List<TxOutput> outputs) {
+        this.outputs = outputs;
+    }
+
+    public List<String> getAffectedAddresses() {
+        return affectedAddresses;
+    }
+
+    public void setAffectedAddresses(List<String> affectedAddresses) {
+        this.affectedAddresses = affectedAddresses;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public int getConfirmations() {
+        return confirmations;
+    }
+
+    public void setConfirmations(int confirmations) {
+        this.confirmations = confirmations;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(long nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public long getBroadcastAt() {
+        return broadcastAt;
+    }
+
+    public void setBroadcastAt(long broadcastAt) {
+        this.broadcastAt = broadcastAt;
+    }
+
+    public long getConfirmedAt() {
+        return confirmedAt;
+    }
+
+    public void setConfirmedAt(long confirmedAt) {
+        this.confirmedAt = confirmedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEntry{" + id + " " + status + " txId=" + txId + " attempts=" + attempts
+                + " confirmations=" + confirmations + "}";
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.blockchain.model;
+
+/**
+ * Reference to a transaction output (txid and output index), usable as a hash key.
+ * The txid is held as the four longs of {@link UtxoSet#parseTxid}, so keys built from a
+ * {@link UtxoSet} need no string formatting and compare in a few instructions.
+ */
+public final class Outpoint {
+    private final long w0;
+    private final long w1;
+    private final long w2;
+    private final long w3;
+    private final int vout;
+
+    public Outpoint(long w0, long w1, long w2, long w3, int vout) {
+        this.w0 = w0;
+        this.w1 = w1;
+        this.w2 = w2;
+        this.w3 = w3;
+        this.vout = vout;
+    }
+
+    public static Outpoint of(String txid, int vout) {
+        long[] words = new long[4];
+        UtxoSet.parseTxid(txid, words, 0);
+        return new Outpoint(words[0], words[1], words[2], words[3], vout);
+    }
+
+    public static Outpoint of(UTXO utxo) {
+        return of(utxo.getTxid(), utxo.getVout());
+    }
+
+    public String getTxid() {
+        return UtxoSet.formatTxid(new long[]{w0, w1, w2, w3}, 0);
+    }
+
+    public int getVout() {
+        return vout;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Outpoint)) {
+            return false;
+        }
+        Outpoint that = (Outpoint) other;
+        return vout == that.vout && w0 == that.w0 && w1 == that.w1 && w2 == that.w2 && w3 == that.w3;
+    }
+
+    @Override
+    public int hashCode() {
+        // Txids are hashes already, so one word is well spread
+        return (int) (w3 ^ (w3 >>> 32)) * 31 + vout;
+    }
+
+    @Override
+    public String toString() {
+        return getTxid() + ":" + vout;
+    }
+}
@@ -14,6 +14,7 @@ public class UTXO {
     private int vout;
     private long amount;
     private int confirmations;
+    private long blockHeight = -1;
 
     public UTXO() {
     }
@@ -103,6 +104,17 @@ public class UTXO {
         this.confirmations = confirmations;
     }
 
+    /**
+     * Height of the block that confirmed this output, or -1 if unconfirmed or unknown.
+     */
+    public long getBlockHeight() {
+        return blockHeight;
+    }
+
+    public void setBlockHeight(long blockHeight) {
+        this.blockHeight = blockHeight;
+    }
+
     @Override
     public String toString() {
         return "UTXO{" +
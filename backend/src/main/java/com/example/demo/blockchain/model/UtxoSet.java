@@ -0,0 +1,504 @@
+package com.example.demo.blockchain.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Columnar set of the unspent outputs of one address.
+ * Each txid is held as four longs in a shared arena and the remaining fields live in parallel
+ * primitive arrays, so an entry costs 52 bytes (32 txid, 8 value, 4 each for vout,
+ * confirmations and block height) instead of a {@link UTXO} object with its hex strings. Entries are addressed by index; {@link #sortByValueDescending()} and the range
+ * lookups work on the primitive columns without boxing. {@link #asList()} adapts the set back
+ * to {@link UTXO} objects for callers that need them, such as the REST layer.
+ * Not thread-safe; callers copy before handing a set to another thread.
+ */
+public class UtxoSet {
+    private static final int TXID_LONGS = 4;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String address;
+    private int size;
+    private long[] txids;
+    private int[] vouts;
+    private long[] values;
+    private int[] confirmations;
+    private int[] blockHeights;
+    private boolean sortedByValue;
+
+    public UtxoSet() {
+        this(null, INITIAL_CAPACITY);
+    }
+
+    public UtxoSet(String address, int capacity) {
+        int initial = Math.max(capacity, 1);
+        this.address = address;
+        this.txids = new long[initial * TXID_LONGS];
+        this.vouts = new int[initial];
+        this.values = new long[initial];
+        this.confirmations = new int[initial];
+        this.blockHeights = new int[initial];
+    }
+
+    /**
+     * Builds a set from UTXO objects, which must all belong to the same address.
+     */
+    public static UtxoSet of(String address, Collection<UTXO> utxos) {
+        UtxoSet set = new UtxoSet(address, utxos.size());
+        for (UTXO utxo : utxos) {
+            set.add(utxo);
+        }
+        return set;
+    }
+
+    /**
+     * Builds a set from UTXO objects, taking the address from the first one.
+     */
+    public static UtxoSet of(List<UTXO> utxos) {
+        return of(utxos.isEmpty() ? null : utxos.get(0).getAddress(), utxos);
+    }
+
+    public void add(UTXO utxo) {
+        if (utxo.getAddress() != null && address != null && !address.equals(utxo.getAddress())) {
+            throw new IllegalArgumentException("UTXO of " + utxo.getAddress() + " added to the set of " + address);
+        }
+        if (address == null) {
+            address = utxo.getAddress();
+        }
+        add(utxo.getTxid(), utxo.getVout(), utxo.getAmount(), utxo.getConfirmations(), utxo.getBlockHeight());
+    }
+
+    /**
+     * Appends an output.
+     *
+     * @param txid          Transaction id as 64 hex characters
+     * @param vout          Output index
+     * @param value         Amount in satoshis
+     * @param confirmations Confirmations at the time it was read
+     * @param blockHeight   Confirming block height, or -1 if unconfirmed
+     */
+    public void add(String txid, int vout, long value, int confirmations, long blockHeight) {
+        ensureCapacity(size + 1);
+        parseTxid(txid, txids, size * TXID_LONGS);
+        vouts[size] = vout;
+        values[size] = value;
+        this.confirmations[size] = confirmations;
+        blockHeights[size] = (int) blockHeight;
+        size++;
+        sortedByValue = false;
+    }
+
+    /**
+     * Appends an output whose txid is already in the four-long form of {@link #parseTxid}.
+     */
+    public void add(long[] txid, int txidOffset, int vout, long value, int confirmations, long blockHeight) {
+        ensureCapacity(size + 1);
+        System.arraycopy(txid, txidOffset, txids, size * TXID_LONGS, TXID_LONGS);
+        vouts[size] = vout;
+        values[size] = value;
+        this.confirmations[size] = confirmations;
+        blockHeights[size] = (int) blockHeight;
+        size++;
+        sortedByValue = false;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String getTxid(int index) {
+        return formatTxid(txids, checkIndex(index) * TXID_LONGS);
+    }
+
+    public int getVout(int index) {
+        return vouts[checkIndex(index)];
+    }
+
+    public long getValue(int index) {
+        return values[checkIndex(index)];
+    }
+
+    public int getConfirmations(int index) {
+        return confirmations[checkIndex(index)];
+    }
+
+    public long getBlockHeight(int index) {
+        return blockHeights[checkIndex(index)];
+    }
+
+    /**
+     * Sum of all values in satoshis.
+     */
+    public long totalValue() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    /**
+     * Index of an outpoint, or -1 if it is not in the set. This scans the set; callers
+     * checking many outpoints should hash {@link #outpoints()} once instead.
+     */
+    public int indexOf(String txid, int vout) {
+        long[] key = new long[TXID_LONGS];
+        parseTxid(txid, key, 0);
+        for (int i = 0; i < size; i++) {
+            if (vouts[i] == vout && txidEquals(i, key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(String txid, int vout) {
+        return indexOf(txid, vout) >= 0;
+    }
+
+    /**
+     * Removes the given outpoints in one pass, keeping the order of the remaining entries.
+     *
+     * @return Number of entries removed
+     */
+    public int removeAll(Collection<UTXO> spent) {
+        if (spent.isEmpty() || size == 0) {
+            return 0;
+        }
+        // Leading txid words of the spent outpoints, searched before the full comparison
+        long[][] keys = new long[spent.size()][];
+        int[] keyVouts = new int[spent.size()];
+        long[] prefixes = new long[spent.size()];
+        int k = 0;
+        for (UTXO utxo : spent) {
+            keys[k] = new long[TXID_LONGS];
+            parseTxid(utxo.getTxid(), keys[k], 0);
+            keyVouts[k] = utxo.getVout();
+            prefixes[k] = keys[k][0];
+            k++;
+        }
+        Arrays.sort(prefixes);
+
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            boolean remove = Arrays.binarySearch(prefixes, txids[i * TXID_LONGS]) >= 0
+                    && matchesAny(i, keys, keyVouts);
+            if (!remove) {
+                if (kept != i) {
+                    move(i, kept);
+                }
+                kept++;
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Removes the entries whose index matches {@code remove}, keeping the order of the rest.
+     * The predicate sees each entry at its original index.
+     *
+     * @return Number of entries removed
+     */
+    public int removeIf(IntPredicate remove) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!remove.test(i)) {
+                if (kept != i) {
+                    move(i, kept);
+                }
+                kept++;
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Removes the entries not yet in a block, keeping the order of the rest.
+     *
+     * @return Number of entries removed
+     */
+    public int removeUnconfirmed() {
+        return removeIf(index -> blockHeights[index] < 0 && confirmations[index] == 0);
+    }
+
+    /**
+     * The outpoints of every entry, hashed for repeated lookups.
+     */
+    public Set<Outpoint> outpoints() {
+        Set<Outpoint> outpoints = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            outpoints.add(outpoint(i));
+        }
+        return outpoints;
+    }
+
+    /**
+     * Outpoint of an entry, built from the stored txid words without formatting them.
+     */
+    public Outpoint outpoint(int index) {
+        int offset = checkIndex(index) * TXID_LONGS;
+        return new Outpoint(txids[offset], txids[offset + 1], txids[offset + 2], txids[offset + 3], vouts[index]);
+    }
+
+    /**
+     * Sorts the entries by value, largest first. Ties keep their current order.
+     */
+    public void sortByValueDescending() {
+        if (sortedByValue || size < 2) {
+            sortedByValue = true;
+            return;
+        }
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSortByValue(order, new int[size], 0, size);
+        permute(order);
+        sortedByValue = true;
+    }
+
+    public boolean isSortedByValue() {
+        return sortedByValue;
+    }
+
+    /**
+     * First index whose value is at most {@code value}. Requires {@link #sortByValueDescending()}.
+     * Together with {@link #firstIndexBelow(long)} this bounds a value range:
+     * entries in [min, max] occupy {@code [firstIndexAtMost(max), firstIndexBelow(min))}.
+     */
+    public int firstIndexAtMost(long value) {
+        requireSorted();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] > value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index whose value is below {@code value}. Requires {@link #sortByValueDescending()}.
+     */
+    public int firstIndexBelow(long value) {
+        return value == Long.MIN_VALUE ? size : firstIndexAtMost(value - 1);
+    }
+
+    /**
+     * Independent copy, for sorting or handing to another thread.
+     */
+    public UtxoSet copy() {
+        UtxoSet copy = new UtxoSet(address, size);
+        System.arraycopy(txids, 0, copy.txids, 0, size * TXID_LONGS);
+        System.arraycopy(vouts, 0, copy.vouts, 0, size);
+        System.arraycopy(values, 0, copy.values, 0, size);
+        System.arraycopy(confirmations, 0, copy.confirmations, 0, size);
+        System.arraycopy(blockHeights, 0, copy.blockHeights, 0, size);
+        copy.size = size;
+        copy.sortedByValue = sortedByValue;
+        return copy;
+    }
+
+    /**
+     * Recomputes confirmations of confirmed entries from the chain tip height.
+     */
+    public void updateConfirmations(long tipHeight) {
+        if (tipHeight < 0) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (blockHeights[i] >= 0) {
+                confirmations[i] = (int) (tipHeight - blockHeights[i] + 1);
+            }
+        }
+    }
+
+    /**
+     * Materializes one entry as a {@link UTXO}.
+     */
+    public UTXO toUTXO(int index) {
+        checkIndex(index);
+        UTXO utxo = new UTXO();
+        utxo.setTxid(formatTxid(txids, index * TXID_LONGS));
+        utxo.setVout(vouts[index]);
+        utxo.setAmount(values[index]);
+        utxo.setConfirmations(confirmations[index]);
+        utxo.setBlockHeight(blockHeights[index]);
+        utxo.setAddress(address);
+        return utxo;
+    }
+
+    /**
+     * Materializes the entries at {@code indices[0..count)}.
+     */
+    public List<UTXO> toUTXOs(int[] indices, int count) {
+        List<UTXO> utxos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            utxos.add(toUTXO(indices[i]));
+        }
+        return utxos;
+    }
+
+    /**
+     * Read-only list view that creates a {@link UTXO} per access.
+     */
+    public List<UTXO> asList() {
+        return new AbstractList<>() {
+            @Override
+            public UTXO get(int index) {
+                return toUTXO(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private boolean matchesAny(int index, long[][] keys, int[] keyVouts) {
+        for (int k = 0; k < keys.length; k++) {
+            if (vouts[index] == keyVouts[k] && txidEquals(index, keys[k])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean txidEquals(int index, long[] key) {
+        int offset = index * TXID_LONGS;
+        return txids[offset] == key[0] && txids[offset + 1] == key[1]
+                && txids[offset + 2] == key[2] && txids[offset + 3] == key[3];
+    }
+
+    private void move(int from, int to) {
+        System.arraycopy(txids, from * TXID_LONGS, txids, to * TXID_LONGS, TXID_LONGS);
+        vouts[to] = vouts[from];
+        values[to] = values[from];
+        confirmations[to] = confirmations[from];
+        blockHeights[to] = blockHeights[from];
+    }
+
+    private void mergeSortByValue(int[] order, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSortByValue(order, scratch, from, mid);
+        mergeSortByValue(order, scratch, mid, to);
+        if (values[order[mid - 1]] >= values[order[mid]]) {
+            return;
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && values[scratch[left]] >= values[scratch[right]])) {
+                order[i] = scratch[left++];
+            } else {
+                order[i] = scratch[right++];
+            }
+        }
+    }
+
+    private void permute(int[] order) {
+        long[] sortedTxids = new long[txids.length];
+        int[] sortedVouts = new int[vouts.length];
+        long[] sortedValues = new long[values.length];
+        int[] sortedConfirmations = new int[confirmations.length];
+        int[] sortedHeights = new int[blockHeights.length];
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            System.arraycopy(txids, from * TXID_LONGS, sortedTxids, i * TXID_LONGS, TXID_LONGS);
+            sortedVouts[i] = vouts[from];
+            sortedValues[i] = values[from];
+            sortedConfirmations[i] = confirmations[from];
+            sortedHeights[i] = blockHeights[from];
+        }
+        txids = sortedTxids;
+        vouts = sortedVouts;
+        values = sortedValues;
+        confirmations = sortedConfirmations;
+        blockHeights = sortedHeights;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= values.length) {
+            return;
+        }
+        int capacity = Math.max(needed, values.length + (values.length >> 1));
+        txids = Arrays.copyOf(txids, capacity * TXID_LONGS);
+        vouts = Arrays.copyOf(vouts, capacity);
+        values = Arrays.copyOf(values, capacity);
+        confirmations = Arrays.copyOf(confirmations, capacity);
+        blockHeights = Arrays.copyOf(blockHeights, capacity);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+
+    private void requireSorted() {
+        if (!sortedByValue) {
+            throw new IllegalStateException("UtxoSet must be sorted by value first");
+        }
+    }
+
+    /**
+     * Parses a 64-character hex txid into four big-endian longs at {@code target[offset]}.
+     *
+     * @throws IllegalArgumentException if the txid is not 64 hex characters
+     */
+    public static void parseTxid(String txid, long[] target, int offset) {
+        if (txid == null || txid.length() != TXID_LONGS * 16) {
+            throw new IllegalArgumentException("Invalid txid: " + txid);
+        }
+        for (int word = 0; word < TXID_LONGS; word++) {
+            long value = 0;
+            for (int c = word * 16; c < word * 16 + 16; c++) {
+                int digit = Character.digit(txid.charAt(c), 16);
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Invalid txid: " + txid);
+                }
+                value = (value << 4) | digit;
+            }
+            target[offset + word] = value;
+        }
+    }
+
+    static String formatTxid(long[] source, int offset) {
+        char[] hex = new char[TXID_LONGS * 16];
+        for (int word = 0; word < TXID_LONGS; word++) {
+            long value = source[offset + word];
+            for (int c = 15; c >= 0; c--) {
+                hex[word * 16 + c] = Character.forDigit((int) (value & 0xf), 16);
+                value >>>= 4;
+            }
+        }
+        return new String(hex);
+    }
+}
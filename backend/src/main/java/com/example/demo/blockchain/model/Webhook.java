@@ -0,0 +1,36 @@
+package com.example.demo.blockchain.model;
+
+/**
+ * A provider-side event callback registration.
+ */
+public class Webhook {
+    private final String id;
+    private final String event;
+    private final String address;
+    private final String url;
+
+    public Webhook(String id, String event, String address, String url) {
+        this.id = id;
+        this.event = event;
+        this.address = address;
+        this.url = url;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** {@code unconfirmed-tx}, {@code confirmed-tx}, {@code new-block}, ... */
+    public String getEvent() {
+        return event;
+    }
+
+    /** Watched address, or null for chain-wide events */
+    public String getAddress() {
+        return address;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UtxoSet;
+
+import java.util.Arrays;
+
+/**
+ * Branch-and-bound search for a changeless selection, following Bitcoin Core's SelectCoinsBnB.
+ * Explores inclusion/omission of UTXOs sorted by descending effective value and accepts
+ * any subset whose effective value lands in [target, target + cost of change], keeping
+ * the one with the lowest waste. Returns null when no such subset is found in budget.
+ */
+public class BranchAndBoundSelector implements CoinSelector {
+
+    @Override
+    public String name() {
+        return "bnb";
+    }
+
+    @Override
+    public SelectionResult select(UtxoSet utxos, SelectionParams params) {
+        // Sorted largest first, so the positive effective values form a prefix
+        int n = 0;
+        while (n < utxos.size() && params.effectiveValue(utxos.getValue(n)) > 0) {
+            n++;
+        }
+        long[] values = new long[n];
+        long available = 0;
+        for (int i = 0; i < n; i++) {
+            values[i] = params.effectiveValue(utxos.getValue(i));
+            available += values[i];
+        }
+
+        long target = params.getSelectionTarget();
+        long upperBound = target + params.getCostOfChange();
+        if (available < target) {
+            return null;
+        }
+
+        // Spending inputs now costs more than later, so extra inputs only add waste
+        boolean feeRateHigh = params.getInputFee() > params.getLongTermInputFee();
+        long inputWaste = params.getInputFee() - params.getLongTermInputFee();
+
+        int[] selection = new int[n];
+        int depth = 0;
+        int[] best = null;
+        int bestDepth = 0;
+        long bestWaste = Long.MAX_VALUE;
+        long value = 0;
+        long waste = 0;
+
+        SearchBudget budget = new SearchBudget(params);
+        for (int index = 0; budget.step(); index++) {
+            boolean backtrack = false;
+            if (value + available < target || value > upperBound || (waste > bestWaste && feeRateHigh)) {
+                backtrack = true;
+            } else if (value >= target) {
+                long total = waste + (value - target);
+                if (total <= bestWaste) {
+                    best = Arrays.copyOf(selection, depth);
+                    bestDepth = depth;
+                    bestWaste = total;
+                }
+                backtrack = true;
+            }
+
+            if (backtrack) {
+                if (depth == 0) {
+                    break;
+                }
+                // Return the omitted UTXOs to the lookahead, then try omitting the last included one
+                for (index--; index > selection[depth - 1]; index--) {
+                    available += values[index];
+                }
+                depth--;
+                value -= values[index];
+                waste -= inputWaste;
+            } else {
+                available -= values[index];
+                // Skip a UTXO equal to its omitted predecessor: that branch was already explored
+                if (depth == 0 || index - 1 == selection[depth - 1] || values[index] != values[index - 1]) {
+                    selection[depth++] = index;
+                    value += values[index];
+                    waste += inputWaste;
+                }
+            }
+        }
+
+        return best == null ? null : SelectionResult.of(name(), utxos, best, bestDepth, params);
+    }
+}
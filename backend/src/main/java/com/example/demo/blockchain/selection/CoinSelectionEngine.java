@@ -0,0 +1,157 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import com.example.demo.blockchain.service.FeeCalculator;
+import com.example.demo.blockchain.service.ScriptType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every configured {@link CoinSelector} and keeps the candidate with the lowest waste,
+ * preferring fewer inputs on ties. Greedy largest-first is only consulted when no other
+ * strategy finds a selection within its budget.
+ */
+@Component
+public class CoinSelectionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(CoinSelectionEngine.class);
+
+    private final FeeCalculator feeCalculator;
+    private final MeterRegistry meterRegistry;
+    private final List<CoinSelector> strategies = List.of(
+            new BranchAndBoundSelector(), new KnapsackSelector(), new SingleRandomDrawSelector());
+    private final CoinSelector fallback = new GreedySelector();
+    private final Map<String, DistributionSummary> wasteByStrategy = new ConcurrentHashMap<>();
+    private final long longTermFeeRate;
+    private final int maxIterations;
+    private final long timeBudgetMs;
+
+    @Autowired
+    public CoinSelectionEngine(FeeCalculator feeCalculator, MeterRegistry meterRegistry,
+                               @Value("${coinselection.long-term-fee-rate:2}") long longTermFeeRate,
+                               @Value("${coinselection.max-iterations:100000}") int maxIterations,
+                               @Value("${coinselection.time-budget-ms:2}") long timeBudgetMs) {
+        this.feeCalculator = feeCalculator;
+        this.meterRegistry = meterRegistry;
+        this.longTermFeeRate = longTermFeeRate;
+        this.maxIterations = maxIterations;
+        this.timeBudgetMs = timeBudgetMs;
+    }
+
+    /**
+     * Selects UTXOs paying {@code amount} to {@code recipientOutputs} outputs at {@code feeRate},
+     * sizing every input and output as legacy P2PKH.
+     *
+     * @param utxos            Available UTXOs
+     * @param amount           Total paid to recipients in satoshis
+     * @param recipientOutputs Number of recipient outputs, excluding change
+     * @param feeRate          Fee rate in satoshis per byte
+     * @return The lowest-waste selection, or null if the funds are insufficient
+     */
+    public SelectionResult select(List<UTXO> utxos, long amount, int recipientOutputs, long feeRate) {
+        return select(utxos, amount, ScriptType.P2PKH, Collections.nCopies(recipientOutputs, ScriptType.P2PKH), feeRate);
+    }
+
+    /**
+     * Selects UTXOs paying {@code amount} to outputs of {@code recipientTypes} at {@code feeRate}.
+     * Inputs and the change output are sized as {@code inputType}, since change returns to the
+     * address being spent from.
+     *
+     * @param utxos          Available UTXOs
+     * @param amount         Total paid to recipients in satoshis
+     * @param inputType      Script type of the address being spent from
+     * @param recipientTypes Script type of each recipient output, excluding change
+     * @param feeRate        Fee rate in satoshis per virtual byte
+     * @return The lowest-waste selection, or null if the funds are insufficient
+     */
+    public SelectionResult select(List<UTXO> utxos, long amount, ScriptType inputType,
+                                  List<ScriptType> recipientTypes, long feeRate) {
+        return select(UtxoSet.of(utxos), amount, inputType, recipientTypes, feeRate);
+    }
+
+    /**
+     * Columnar variant of {@link #select(List, long, ScriptType, List, long)}; the strategies
+     * run directly on the set and only the chosen entries become {@link UTXO} objects.
+     * The caller's set is left untouched.
+     */
+    public SelectionResult select(UtxoSet utxos, long amount, ScriptType inputType,
+                                  List<ScriptType> recipientTypes, long feeRate) {
+        List<SelectionResult> candidates = selectCandidates(utxos, amount, inputType, recipientTypes, feeRate);
+        return candidates.stream()
+                .min(Comparator.comparingLong(SelectionResult::getWaste)
+                        .thenComparingInt(result -> result.getSelected().size()))
+                .orElse(null);
+    }
+
+    /**
+     * Runs each strategy and returns every selection found, each carrying its waste.
+     * Falls back to greedy selection when no strategy succeeds.
+     */
+    public List<SelectionResult> selectCandidates(List<UTXO> utxos, long amount, int recipientOutputs, long feeRate) {
+        return selectCandidates(UtxoSet.of(utxos), amount, ScriptType.P2PKH,
+                Collections.nCopies(recipientOutputs, ScriptType.P2PKH), feeRate);
+    }
+
+    /**
+     * Script-type-aware, columnar variant of {@link #selectCandidates(List, long, int, long)}.
+     */
+    public List<SelectionResult> selectCandidates(UtxoSet utxos, long amount, ScriptType inputType,
+                                                  List<ScriptType> recipientTypes, long feeRate) {
+        SelectionParams params = params(amount, inputType, recipientTypes, feeRate);
+        UtxoSet sorted = utxos.isSortedByValue() ? utxos : utxos.copy();
+        sorted.sortByValueDescending();
+
+        List<SelectionResult> candidates = new ArrayList<>(strategies.size());
+        for (CoinSelector strategy : strategies) {
+            addCandidate(candidates, strategy, sorted, params);
+        }
+        if (candidates.isEmpty()) {
+            addCandidate(candidates, fallback, sorted, params);
+        }
+        return candidates;
+    }
+
+    private SelectionParams params(long amount, ScriptType inputType, List<ScriptType> recipientTypes, long feeRate) {
+        return new SelectionParams(
+                amount,
+                feeCalculator.calculateFee(inputType, 0, recipientTypes, feeRate),
+                feeCalculator.calculateFeePerInput(inputType, feeRate),
+                feeCalculator.calculateFeePerInput(inputType, longTermFeeRate),
+                feeCalculator.calculateFeePerOutput(inputType, feeRate),
+                feeCalculator.calculateDustThreshold(inputType, feeRate),
+                maxIterations,
+                TimeUnit.MILLISECONDS.toNanos(timeBudgetMs));
+    }
+
+    private void addCandidate(List<SelectionResult> candidates, CoinSelector strategy,
+                              UtxoSet utxos, SelectionParams params) {
+        long start = System.nanoTime();
+        SelectionResult result = strategy.select(utxos, params);
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        if (result == null) {
+            logger.debug("Coin selection {} found no solution in {} us", strategy.name(), elapsedMicros);
+            return;
+        }
+        logger.debug("Coin selection {} in {} us: {}", strategy.name(), elapsedMicros, result);
+        wasteByStrategy.computeIfAbsent(strategy.name(), name -> DistributionSummary.builder("blockchain.coinselection.waste")
+                        .description("Waste in satoshis of each coin selection candidate")
+                        .baseUnit("satoshis")
+                        .tag("strategy", name)
+                        .register(meterRegistry))
+                .record(Math.max(result.getWaste(), 0));
+        candidates.add(result);
+    }
+}
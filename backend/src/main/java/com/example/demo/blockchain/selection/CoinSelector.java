@@ -0,0 +1,26 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UtxoSet;
+
+/**
+ * Strategy for choosing which UTXOs fund a payment.
+ * Implementations must respect the iteration and time budget in {@link SelectionParams}
+ * and return {@code null} when they cannot find a selection. Candidates arrive sorted
+ * largest first so the sort is paid once per payment rather than once per strategy.
+ */
+public interface CoinSelector {
+
+    /**
+     * Name reported in {@link SelectionResult#getStrategy()} and logs.
+     */
+    String name();
+
+    /**
+     * Selects UTXOs covering the payment target plus fees.
+     *
+     * @param utxos  Candidate UTXOs, sorted by descending value
+     * @param params Target, fee costs and search budget
+     * @return The selection, or null if this strategy found none
+     */
+    SelectionResult select(UtxoSet utxos, SelectionParams params);
+}
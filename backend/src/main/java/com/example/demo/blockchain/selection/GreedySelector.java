@@ -0,0 +1,36 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UtxoSet;
+
+/**
+ * Largest-first selection. Always finds a solution when the funds suffice, so it is the
+ * fallback when the other strategies come back empty.
+ */
+public class GreedySelector implements CoinSelector {
+
+    @Override
+    public String name() {
+        return "greedy";
+    }
+
+    @Override
+    public SelectionResult select(UtxoSet utxos, SelectionParams params) {
+        long target = params.getSelectionTarget();
+        int[] selected = new int[utxos.size()];
+        int count = 0;
+        long value = 0;
+        for (int i = 0; i < utxos.size(); i++) {
+            long effective = params.effectiveValue(utxos.getValue(i));
+            if (effective <= 0) {
+                // Sorted largest first, so every remaining UTXO costs more to spend than it is worth
+                break;
+            }
+            selected[count++] = i;
+            value += effective;
+            if (value >= target) {
+                return SelectionResult.of(name(), utxos, selected, count, params);
+            }
+        }
+        return null;
+    }
+}
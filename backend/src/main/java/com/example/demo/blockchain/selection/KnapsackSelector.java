@@ -0,0 +1,125 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UtxoSet;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stochastic knapsack approximation, modelled on Bitcoin Core's KnapsackSolver.
+ * Looks for the smallest subset of UTXOs below the target that still covers target plus
+ * minimum change, falling back to the single smallest UTXO larger than that amount.
+ */
+public class KnapsackSelector implements CoinSelector {
+    private static final int REPETITIONS = 1000;
+
+    @Override
+    public String name() {
+        return "knapsack";
+    }
+
+    @Override
+    public SelectionResult select(UtxoSet utxos, SelectionParams params) {
+        long exactTarget = params.getSelectionTarget();
+        long target = exactTarget + params.getChangeOutputFee() + params.getMinChange();
+
+        int[] applicable = new int[utxos.size()];
+        int n = 0;
+        int lowestLarger = -1;
+        long lowestLargerValue = Long.MAX_VALUE;
+        long applicableTotal = 0;
+        for (int i = 0; i < utxos.size(); i++) {
+            long value = params.effectiveValue(utxos.getValue(i));
+            if (value <= 0) {
+                continue;
+            }
+            if (value == exactTarget) {
+                return SelectionResult.of(name(), utxos, i, params);
+            }
+            if (value < target) {
+                applicable[n++] = i;
+                applicableTotal += value;
+            } else if (value < lowestLargerValue) {
+                lowestLarger = i;
+                lowestLargerValue = value;
+            }
+        }
+
+        if (applicableTotal == exactTarget || (applicableTotal >= target && n == 1)) {
+            return SelectionResult.of(name(), utxos, applicable, n, params);
+        }
+        if (applicableTotal < target) {
+            return lowestLarger < 0 ? null : SelectionResult.of(name(), utxos, lowestLarger, params);
+        }
+
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = params.effectiveValue(utxos.getValue(applicable[i]));
+        }
+
+        boolean[] best = approximateBestSubset(values, target, params);
+        long bestValue = 0;
+        if (best != null) {
+            for (int i = 0; i < n; i++) {
+                if (best[i]) {
+                    bestValue += values[i];
+                }
+            }
+        }
+
+        // A single larger UTXO beats a subset that overshoots it
+        if (lowestLarger >= 0 && (best == null || lowestLargerValue <= bestValue)) {
+            return SelectionResult.of(name(), utxos, lowestLarger, params);
+        }
+        if (best == null) {
+            return null;
+        }
+        int[] selected = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (best[i]) {
+                selected[count++] = applicable[i];
+            }
+        }
+        return SelectionResult.of(name(), utxos, selected, count, params);
+    }
+
+    private static boolean[] approximateBestSubset(long[] values, long target, SelectionParams params) {
+        int n = values.length;
+        boolean[] best = new boolean[n];
+        boolean found = false;
+        long bestValue = Long.MAX_VALUE;
+        boolean[] included = new boolean[n];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SearchBudget budget = new SearchBudget(params);
+
+        for (int rep = 0; rep < REPETITIONS && bestValue != target; rep++) {
+            Arrays.fill(included, false);
+            long total = 0;
+            boolean reached = false;
+            // First pass picks randomly; the second fills in everything skipped until the target is hit
+            for (int pass = 0; pass < 2 && !reached; pass++) {
+                for (int i = 0; i < n; i++) {
+                    if (!budget.step()) {
+                        return found ? best : null;
+                    }
+                    if (pass == 0 ? random.nextBoolean() : !included[i]) {
+                        total += values[i];
+                        included[i] = true;
+                        if (total >= target) {
+                            reached = true;
+                            if (total < bestValue) {
+                                bestValue = total;
+                                System.arraycopy(included, 0, best, 0, n);
+                                found = true;
+                            }
+                            total -= values[i];
+                            included[i] = false;
+                        }
+                    }
+                }
+            }
+        }
+        return found ? best : null;
+    }
+}
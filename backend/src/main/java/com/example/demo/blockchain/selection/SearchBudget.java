@@ -0,0 +1,42 @@
+package com.example.demo.blockchain.selection;
+
+/**
+ * Iteration and wall-clock budget for one strategy run.
+ * The clock is only read every {@value #CLOCK_CHECK_INTERVAL} steps to keep it off the hot loop.
+ */
+final class SearchBudget {
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    private final int maxIterations;
+    private final long deadlineNanos;
+    private int iterations;
+    private boolean exhausted;
+
+    SearchBudget(SelectionParams params) {
+        this.maxIterations = params.getMaxIterations();
+        this.deadlineNanos = System.nanoTime() + params.getTimeBudgetNanos();
+    }
+
+    /**
+     * Consumes one step, returning false once the budget is spent.
+     */
+    boolean step() {
+        if (exhausted) {
+            return false;
+        }
+        iterations++;
+        if (iterations >= maxIterations
+                || (iterations % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0)) {
+            exhausted = true;
+        }
+        return !exhausted;
+    }
+
+    int getIterations() {
+        return iterations;
+    }
+
+    boolean isExhausted() {
+        return exhausted;
+    }
+}
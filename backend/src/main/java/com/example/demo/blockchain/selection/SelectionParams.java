@@ -0,0 +1,91 @@
+package com.example.demo.blockchain.selection;
+
+/**
+ * Inputs to coin selection, with every fee already converted to satoshis so the
+ * strategies only do integer arithmetic in their inner loops.
+ */
+public class SelectionParams {
+    private final long target;
+    private final long baseFee;
+    private final long inputFee;
+    private final long longTermInputFee;
+    private final long changeOutputFee;
+    private final long minChange;
+    private final int maxIterations;
+    private final long timeBudgetNanos;
+
+    /**
+     * @param target           Total paid to recipients
+     * @param baseFee          Fee for the transaction overhead and recipient outputs
+     * @param inputFee         Fee for one input at the current fee rate
+     * @param longTermInputFee Fee for one input at the expected long-term fee rate
+     * @param changeOutputFee  Fee for adding a change output now
+     * @param minChange        Smallest change worth creating (dust threshold)
+     * @param maxIterations    Search budget per strategy
+     * @param timeBudgetNanos  Wall-clock budget per strategy
+     */
+    public SelectionParams(long target, long baseFee, long inputFee, long longTermInputFee,
+                           long changeOutputFee, long minChange, int maxIterations, long timeBudgetNanos) {
+        this.target = target;
+        this.baseFee = baseFee;
+        this.inputFee = inputFee;
+        this.longTermInputFee = longTermInputFee;
+        this.changeOutputFee = changeOutputFee;
+        this.minChange = minChange;
+        this.maxIterations = maxIterations;
+        this.timeBudgetNanos = timeBudgetNanos;
+    }
+
+    public long getTarget() {
+        return target;
+    }
+
+    public long getBaseFee() {
+        return baseFee;
+    }
+
+    public long getInputFee() {
+        return inputFee;
+    }
+
+    public long getLongTermInputFee() {
+        return longTermInputFee;
+    }
+
+    public long getChangeOutputFee() {
+        return changeOutputFee;
+    }
+
+    public long getMinChange() {
+        return minChange;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public long getTimeBudgetNanos() {
+        return timeBudgetNanos;
+    }
+
+    /**
+     * Total cost of creating a change output now and spending it later.
+     */
+    public long getCostOfChange() {
+        return changeOutputFee + longTermInputFee;
+    }
+
+    /**
+     * Value an input contributes after paying for its own inclusion.
+     */
+    public long effectiveValue(long value) {
+        return value - inputFee;
+    }
+
+    /**
+     * Effective value the inputs must reach for a changeless transaction.
+     */
+    public long getSelectionTarget() {
+        return target + baseFee;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+
+import java.util.List;
+
+/**
+ * Outcome of one coin selection strategy.
+ * Waste follows Bitcoin Core's definition: the extra fee paid for the inputs now compared
+ * with the long-term fee rate, plus either the cost of creating and later spending the
+ * change output or, for changeless results, the excess handed to miners.
+ */
+public class SelectionResult {
+    private final String strategy;
+    private final List<UTXO> selected;
+    private final long inputTotal;
+    private final long fee;
+    private final long change;
+    private final long waste;
+
+    private SelectionResult(String strategy, List<UTXO> selected, long inputTotal, long fee, long change, long waste) {
+        this.strategy = strategy;
+        this.selected = selected;
+        this.inputTotal = inputTotal;
+        this.fee = fee;
+        this.change = change;
+        this.waste = waste;
+    }
+
+    /**
+     * Builds a result for the entries at {@code indices[0..count)}, adding a change output
+     * when the leftover is at least the dust threshold.
+     *
+     * @return The result, or null if the inputs do not cover target plus fee
+     */
+    public static SelectionResult of(String strategy, UtxoSet utxos, int[] indices, int count,
+                                     SelectionParams params) {
+        long inputTotal = 0;
+        for (int i = 0; i < count; i++) {
+            inputTotal += utxos.getValue(indices[i]);
+        }
+        long feeWithoutChange = params.getBaseFee() + count * params.getInputFee();
+        long excess = inputTotal - params.getTarget() - feeWithoutChange;
+        if (excess < 0) {
+            return null;
+        }
+
+        // Only the chosen entries are materialized as UTXO objects
+        List<UTXO> selected = utxos.toUTXOs(indices, count);
+        long inputWaste = count * (params.getInputFee() - params.getLongTermInputFee());
+        long change = excess - params.getChangeOutputFee();
+        if (change >= params.getMinChange()) {
+            long fee = feeWithoutChange + params.getChangeOutputFee();
+            return new SelectionResult(strategy, selected, inputTotal, fee, change,
+                    inputWaste + params.getCostOfChange());
+        }
+        return new SelectionResult(strategy, selected, inputTotal, feeWithoutChange + excess, 0,
+                inputWaste + excess);
+    }
+
+    /**
+     * Single-input variant of {@link #of(String, UtxoSet, int[], int, SelectionParams)}.
+     */
+    public static SelectionResult of(String strategy, UtxoSet utxos, int index, SelectionParams params) {
+        return of(strategy, utxos, new int[]{index}, 1, params);
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public List<UTXO> getSelected() {
+        return selected;
+    }
+
+    public long getInputTotal() {
+        return inputTotal;
+    }
+
+    public long getFee() {
+        return fee;
+    }
+
+    public long getChange() {
+        return change;
+    }
+
+    public boolean hasChange() {
+        return change > 0;
+    }
+
+    public long getWaste() {
+        return waste;
+    }
+
+    @Override
+    public String toString() {
+        return "SelectionResult{" +
+                "strategy='" + strategy + '\'' +
+                ", inputs=" + selected.size() +
+                ", fee=" + fee +
+                ", change=" + change +
+                ", waste=" + waste +
+                '}';
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UtxoSet;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Single random draw: adds UTXOs in random order until the target, a change output and
+ * the minimum change are covered. Always produces change, and its randomness avoids the
+ * UTXO-set fragmentation and privacy leaks of deterministic largest-first selection.
+ */
+public class SingleRandomDrawSelector implements CoinSelector {
+
+    @Override
+    public String name() {
+        return "srd";
+    }
+
+    @Override
+    public SelectionResult select(UtxoSet utxos, SelectionParams params) {
+        int[] pool = new int[utxos.size()];
+        int size = 0;
+        for (int i = 0; i < utxos.size(); i++) {
+            if (params.effectiveValue(utxos.getValue(i)) > 0) {
+                pool[size++] = i;
+            }
+        }
+
+        long target = params.getSelectionTarget() + params.getChangeOutputFee() + params.getMinChange();
+        long value = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SearchBudget budget = new SearchBudget(params);
+        // Draw without replacement: a Fisher-Yates shuffle stopped as soon as the target is met
+        for (int drawn = 0; drawn < size; drawn++) {
+            if (!budget.step()) {
+                return null;
+            }
+            int pick = drawn + random.nextInt(size - drawn);
+            int index = pool[pick];
+            pool[pick] = pool[drawn];
+            pool[drawn] = index;
+            value += params.effectiveValue(utxos.getValue(index));
+            if (value >= target) {
+                return SelectionResult.of(name(), utxos, pool, drawn + 1, params);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.DerivedAddress;
+import com.example.demo.blockchain.model.DiscoveryResult;
+import com.example.demo.blockchain.store.UsedAddressStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the used addresses of an HD account by gap-limit scanning (BIP44): addresses are
+ * derived in windows of {@code hd.discovery.window-size} and their transaction counts are
+ * fetched in one batched provider call per window, until {@code hd.discovery.gap-limit}
+ * consecutive addresses after the last used one have no transactions. The receive and
+ * change chains are scanned concurrently, and within a chain the next window is already
+ * requested while the current one is checked once the chain has shown recent use. Used
+ * addresses are kept in {@link UsedAddressStore}; a later scan of the account starts one
+ * gap below the highest used index of each chain, so addresses used since in that range
+ * are found too.
+ */
+@Service
+public class AddressDiscoveryService {
+    private static final Logger logger = LoggerFactory.getLogger(AddressDiscoveryService.class);
+
+    private final KeyService keyService;
+    private final BlockchainAPI blockchainAPI;
+    private final UsedAddressStore store;
+    private final Counter scannedAddresses;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    @Value("${hd.discovery.gap-limit:20}")
+    private int gapLimit;
+
+    @Value("${hd.discovery.window-size:100}")
+    private int windowSize;
+
+    @Autowired
+    public AddressDiscoveryService(KeyService keyService, BlockchainAPI blockchainAPI,
+                                   UsedAddressStore store, MeterRegistry meterRegistry) {
+        this.keyService = keyService;
+        this.blockchainAPI = blockchainAPI;
+        this.store = store;
+        this.scannedAddresses = Counter.builder("hd.discovery.addresses")
+                .description("Addresses checked for transactions by HD address discovery")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scans an account for used addresses, resuming near the ones already known.
+     *
+     * @param accountId HD account id
+     * @return Future completing with every known used address, the next unused index of each
+     *         chain and the scan throughput; fails with {@link IllegalStateException} if a
+     *         provider lookup fails, in which case nothing is recorded
+     * @throws IllegalArgumentException if the account is unknown
+     * @throws IllegalStateException    if the account is already being scanned
+     */
+    public CompletableFuture<DiscoveryResult> discoverAsync(String accountId) {
+        keyService.getAccount(accountId);
+        if (!running.add(accountId)) {
+            throw new IllegalStateException("Discovery of HD account " + accountId + " is already running");
+        }
+        int gap = Math.max(1, gapLimit);
+        int window = Math.max(windowSize, gap);
+        List<DerivedAddress> known = store.getUsed(accountId);
+        long start = System.nanoTime();
+
+        CompletableFuture<ChainScan> receive;
+        try {
+            receive = startChain(new ChainScan(accountId, HdAccount.EXTERNAL, known), gap, window);
+        } catch (RuntimeException e) {
+            running.remove(accountId);
+            throw e;
+        }
+        CompletableFuture<ChainScan> change;
+        try {
+            change = startChain(new ChainScan(accountId, HdAccount.INTERNAL, known), gap, window);
+        } catch (RuntimeException e) {
+            receive.whenComplete((scan, error) -> running.remove(accountId));
+            throw e;
+        }
+
+        // Waits for both chains even when one fails, so the account is not released mid-scan
+        return CompletableFuture.allOf(receive, change).thenApply(done -> {
+            ChainScan receiveScan = receive.join();
+            ChainScan changeScan = change.join();
+            List<DerivedAddress> found = new ArrayList<>(receiveScan.found);
+            found.addAll(changeScan.found);
+            try {
+                store.record(accountId, found);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to save discovered addresses of " + accountId, e);
+            }
+
+            long elapsedNanos = System.nanoTime() - start;
+            int scanned = receiveScan.scanned + changeScan.scanned;
+            scannedAddresses.increment(scanned);
+
+            DiscoveryResult result = new DiscoveryResult();
+            result.setAccountId(accountId);
+            result.setGapLimit(gap);
+            result.setWindowSize(window);
+            result.setUsedAddresses(store.getUsed(accountId));
+            result.setNewlyFound(found.size());
+            result.setNextReceiveIndex(receiveScan.highestUsed + 1);
+            result.setNextChangeIndex(changeScan.highestUsed + 1);
+            result.setAddressesScanned(scanned);
+            result.setElapsedMs(elapsedNanos / 1_000_000);
+            result.setAddressesPerSecond(elapsedNanos > 0 ? scanned * 1e9 / elapsedNanos : 0);
+            logger.info("Discovered {} new used addresses of {}: scanned {} addresses in {} ms ({} addresses/s)",
+                    found.size(), accountId, scanned, result.getElapsedMs(),
+                    String.format("%.1f", result.getAddressesPerSecond()));
+            return result;
+        }).whenComplete((result, error) -> running.remove(accountId));
+    }
+
+    /**
+     * Scans one chain from the last {@code gap} indexes up to its highest known used one, or
+     * from index 0 if none is known yet.
+     */
+    private CompletableFuture<ChainScan> startChain(ChainScan scan, int gap, int window) {
+        int from = Math.max(0, scan.highestUsed - gap + 1);
+        return scanChain(scan, gap, window, fetch(scan, from, window));
+    }
+
+    /**
+     * Checks one window, then continues with the next until the last {@code gap} addresses
+     * are unused.
+     */
+    private CompletableFuture<ChainScan> scanChain(ChainScan scan, int gap, int window, Window current) {
+        // A chain with use in its last window likely continues, so the next window is derived
+        // and requested while this one is in flight. On an idle chain that lookup would
+        // usually be wasted, as the scan tends to end with this window
+        Window ahead = scan.busy && current.end() >= 0 ? fetch(scan, current.end(), window) : null;
+
+        return current.counts.thenCompose(counts -> {
+            checkComplete(counts, scan);
+            boolean used = false;
+            for (DerivedAddress address : current.derived) {
+                Long txCount = counts.getResults().get(address.getAddress());
+                if (txCount != null && txCount > 0) {
+                    used = true;
+                    if (!scan.known.contains(address.getIndex())) {
+                        scan.found.add(address);
+                    }
+                    scan.highestUsed = Math.max(scan.highestUsed, address.getIndex());
+                }
+            }
+            scan.busy = used;
+            scan.scanned += current.derived.size();
+
+            int next = current.end();
+            if (isFinished(scan, next, gap)) {
+                return CompletableFuture.completedFuture(scan);
+            }
+            return scanChain(scan, gap, window, ahead != null ? ahead : fetch(scan, next, window));
+        });
+    }
+
+    /**
+     * Whether the scan ends before {@code next}: the last {@code gap} addresses are unused, or
+     * {@code next} wrapped negative past the chain's last index (2^31-1).
+     */
+    private static boolean isFinished(ChainScan scan, int next, int gap) {
+        return next < 0 || (long) next - scan.highestUsed - 1 >= gap;
+    }
+
+    /**
+     * Derives a window of addresses and requests their transaction counts.
+     */
+    private Window fetch(ChainScan scan, int from, int window) {
+        int count = (int) Math.min(window, (long) Integer.MAX_VALUE + 1 - from);
+        List<DerivedAddress> derived = keyService.deriveAddresses(scan.accountId, scan.chain, from, count);
+        List<String> addresses = derived.stream().map(DerivedAddress::getAddress).collect(Collectors.toList());
+        return new Window(from, derived, blockchainAPI.getTransactionCountsAsync(addresses));
+    }
+
+    /**
+     * A window with failed lookups cannot tell used from unused, so the scan stops rather
+     * than ending early on a false gap.
+     */
+    private static void checkComplete(BatchResult<Long> counts, ChainScan scan) {
+        if (!counts.getErrors().isEmpty()) {
+            String first = counts.getErrors().values().iterator().next();
+            throw new IllegalStateException("Lookup of " + counts.getErrors().size() + " addresses of "
+                    + scan.accountId + " chain " + scan.chain + " failed: "
+                    + (first != null ? first : "provider unavailable"));
+        }
+    }
+
+    /**
+     * Addresses of one window and their pending transaction counts.
+     */
+    private static class Window {
+        final int from;
+        final List<DerivedAddress> derived;
+        final CompletableFuture<BatchResult<Long>> counts;
+
+        Window(int from, List<DerivedAddress> derived, CompletableFuture<BatchResult<Long>> counts) {
+            this.from = from;
+            this.derived = derived;
+            this.counts = counts;
+        }
+
+        /**
+         * First index after the window; negative once it passes the chain's last index.
+         */
+        int end() {
+            return from + derived.size();
+        }
+    }
+
+    /**
+     * Progress of the scan of one chain. Each window is checked after the previous one, so
+     * the fields are never written concurrently.
+     */
+    private static class ChainScan {
+        final String accountId;
+        final int chain;
+        // Indexes already recorded, found again when the scan revisits them
+        final Set<Integer> known = new HashSet<>();
+        final List<DerivedAddress> found = new ArrayList<>();
+        volatile int highestUsed = -1;
+        volatile boolean busy;
+        volatile int scanned;
+
+        ChainScan(String accountId, int chain, List<DerivedAddress> used) {
+            this.accountId = accountId;
+            this.chain = chain;
+            for (DerivedAddress address : used) {
+                if (address.getChain() == chain) {
+                    known.add(address.getIndex());
+                    highestUsed = Math.max(highestUsed, address.getIndex());
+                }
+            }
+        }
+    }
+}
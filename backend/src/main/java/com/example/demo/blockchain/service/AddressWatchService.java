@@ -0,0 +1,289 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.AddressEvent;
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.util.Futures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Shared background watchers behind the address streams.
+ * However many clients subscribe to an address, a single watcher polls it. Scheduled polls
+ * fetch the balances of every watched address in one batched lookup; recent transactions
+ * are fetched only for addresses whose balance moved or that still have transactions short
+ * of {@code stream.confirmation-depth}. Results are compared with what was last seen, and
+ * only the differences (balance deltas, new txids, confirmation counts) are pushed. A
+ * watcher is dropped with its last subscriber.
+ */
+@Service
+public class AddressWatchService {
+    private static final Logger logger = LoggerFactory.getLogger(AddressWatchService.class);
+
+    private final BlockchainAPI blockchainAPI;
+    private final Map<String, Watcher> watchers = new ConcurrentHashMap<>();
+    private final Counter eventsSent;
+
+    @Value("${stream.confirmation-depth:6}")
+    private int confirmationDepth;
+
+    @Value("${stream.max-addresses:10000}")
+    private int maxAddresses;
+
+    @Autowired
+    public AddressWatchService(BlockchainAPI blockchainAPI, MeterRegistry meterRegistry) {
+        this.blockchainAPI = blockchainAPI;
+        this.eventsSent = Counter.builder("stream.events")
+                .description("Address events delivered to stream subscribers")
+                .register(meterRegistry);
+        Gauge.builder("stream.addresses", watchers, Map::size)
+                .description("Addresses with at least one stream subscriber")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A live subscription; cancelling it more than once is harmless.
+     */
+    public interface Subscription {
+        void cancel();
+    }
+
+    /**
+     * Subscribes to changes of an address. The listener first receives a
+     * {@link AddressEvent.Type#SNAPSHOT} with the current balance, then only changes.
+     * Listeners are called from provider threads and should hand off slow work; one that
+     * throws is unsubscribed.
+     *
+     * @param address  The Bitcoin address
+     * @param listener Receives each event
+     * @return Handle to cancel the subscription
+     * @throws IllegalStateException if {@code stream.max-addresses} are already watched
+     */
+    public Subscription subscribe(String address, Consumer<AddressEvent> listener) {
+        Watcher watcher = watchers.compute(address, (key, existing) -> {
+            if (existing == null && watchers.size() >= maxAddresses) {
+                throw new IllegalStateException("Too many watched addresses");
+            }
+            Watcher current = existing != null ? existing : new Watcher(key);
+            current.listeners.add(listener);
+            return current;
+        });
+
+        AddressEvent snapshot = watcher.snapshot();
+        if (snapshot != null) {
+            deliver(watcher, listener, snapshot);
+        } else {
+            // The first poll sends the snapshot to everyone subscribed by then
+            refresh(address);
+        }
+        return () -> unsubscribe(address, listener);
+    }
+
+    /**
+     * Polls an address now instead of waiting for the next scheduled poll, e.g. after a
+     * provider notification. A refresh requested while one is running is run right after it.
+     *
+     * @param address The Bitcoin address; ignored if nobody is subscribed
+     */
+    public void refresh(String address) {
+        Watcher watcher = watchers.get(address);
+        if (watcher == null || !watcher.startPoll()) {
+            return;
+        }
+        // Something is expected to have changed, so history is fetched alongside the balance
+        finish(watcher, blockchainAPI.getBalanceAsync(address)
+                .thenCombine(blockchainAPI.getTransactionHistoryAsync(address), watcher::diff));
+    }
+
+    /**
+     * Polls every watched address: one batched balance lookup, then history only where
+     * something can have changed. Runs asynchronously, so the scheduler thread is not held.
+     */
+    @Scheduled(fixedDelayString = "${stream.poll-interval-ms:15000}")
+    public void pollAll() {
+        List<Watcher> due = new ArrayList<>();
+        for (Watcher watcher : watchers.values()) {
+            if (watcher.startPoll()) {
+                due.add(watcher);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        List<String> addresses = new ArrayList<>(due.size());
+        due.forEach(watcher -> addresses.add(watcher.address));
+
+        CompletableFuture<BatchResult<Long>> balances = blockchainAPI.getBalancesAsync(addresses);
+        for (Watcher watcher : due) {
+            finish(watcher, balances.thenCompose(batch -> {
+                Long balance = batch.getResults().get(watcher.address);
+                if (balance == null) {
+                    String error = batch.getErrors().get(watcher.address);
+                    return CompletableFuture.failedFuture(
+                            new IllegalStateException(error != null ? error : "Balance missing from batch"));
+                }
+                if (!watcher.needsHistory(balance)) {
+                    return CompletableFuture.completedFuture(List.of());
+                }
+                return blockchainAPI.getTransactionHistoryAsync(watcher.address)
+                        .thenApply(history -> watcher.diff(balance, history));
+            }));
+        }
+    }
+
+    /**
+     * Delivers the events of a poll and runs a refresh requested while it was in flight.
+     */
+    private void finish(Watcher watcher, CompletableFuture<List<AddressEvent>> poll) {
+        poll.whenComplete((events, error) -> {
+            watcher.polling.set(false);
+            if (error != null) {
+                logger.debug("Stream poll failed for {}: {}", watcher.address, Futures.unwrap(error).getMessage());
+            } else {
+                for (AddressEvent event : events) {
+                    for (Consumer<AddressEvent> listener : watcher.listeners) {
+                        deliver(watcher, listener, event);
+                    }
+                }
+            }
+            if (watcher.rerun.getAndSet(false)) {
+                refresh(watcher.address);
+            }
+        });
+    }
+
+    /**
+     * Whether any client is subscribed to an address.
+     */
+    public boolean isWatched(String address) {
+        return watchers.containsKey(address);
+    }
+
+    /**
+     * Addresses with at least one subscriber.
+     */
+    public Set<String> getWatchedAddresses() {
+        return Set.copyOf(watchers.keySet());
+    }
+
+    private void unsubscribe(String address, Consumer<AddressEvent> listener) {
+        watchers.computeIfPresent(address, (key, watcher) -> {
+            watcher.listeners.remove(listener);
+            return watcher.listeners.isEmpty() ? null : watcher;
+        });
+    }
+
+    private void deliver(Watcher watcher, Consumer<AddressEvent> listener, AddressEvent event) {
+        try {
+            listener.accept(event);
+            eventsSent.increment();
+        } catch (RuntimeException e) {
+            logger.debug("Dropping stream subscriber of {}: {}", watcher.address, e.getMessage());
+            unsubscribe(watcher.address, listener);
+        }
+    }
+
+    /**
+     * Last observed state of one address.
+     */
+    private final class Watcher {
+        final String address;
+        final Set<Consumer<AddressEvent>> listeners = new CopyOnWriteArraySet<>();
+        final AtomicBoolean polling = new AtomicBoolean();
+        final AtomicBoolean rerun = new AtomicBoolean();
+        private long balance = -1;
+        // Confirmations last reported per txid, capped at the confirmation depth
+        private Map<String, Integer> confirmations = new HashMap<>();
+
+        Watcher(String address) {
+            this.address = address;
+        }
+
+        /**
+         * Claims the next poll, or asks the running one to be repeated.
+         */
+        boolean startPoll() {
+            if (polling.compareAndSet(false, true)) {
+                return true;
+            }
+            rerun.set(true);
+            return false;
+        }
+
+        /**
+         * Whether a poll that saw {@code newBalance} must fetch history to find all changes:
+         * on the first poll, when the balance moved, or while a transaction is still
+         * short of the confirmation depth.
+         */
+        synchronized boolean needsHistory(long newBalance) {
+            if (balance < 0 || newBalance != balance) {
+                return true;
+            }
+            for (int count : confirmations.values()) {
+                if (count < confirmationDepth) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized AddressEvent snapshot() {
+            return balance < 0 ? null : AddressEvent.snapshot(address, balance);
+        }
+
+        /**
+         * Records a poll and returns the events it produces. On the first poll the current
+         * history is taken as known and only the snapshot is reported.
+         */
+        synchronized List<AddressEvent> diff(long newBalance, List<Transaction> history) {
+            List<AddressEvent> events = new ArrayList<>();
+            boolean first = balance < 0;
+            if (first) {
+                events.add(AddressEvent.snapshot(address, newBalance));
+            } else if (newBalance != balance) {
+                events.add(AddressEvent.balance(address, newBalance, newBalance - balance));
+            }
+            balance = newBalance;
+
+            Map<String, Integer> next = new HashMap<>();
+            for (Transaction tx : history) {
+                String txid = tx.getTxid();
+                if (txid == null) {
+                    continue;
+                }
+                int current = tx.getConfirmations();
+                Integer previous = confirmations.get(txid);
+                if (previous == null) {
+                    if (!first) {
+                        events.add(AddressEvent.transaction(address, txid, tx.getAmount(), current));
+                    }
+                } else if (current != previous && previous < confirmationDepth) {
+                    events.add(AddressEvent.confirmations(address, txid, current));
+                }
+                next.put(txid, Math.min(current, confirmationDepth));
+            }
+            // Only the provider's recent history is kept, so this stays bounded
+            confirmations = next;
+            return events;
+        }
+    }
+}
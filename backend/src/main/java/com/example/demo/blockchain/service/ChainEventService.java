@@ -0,0 +1,134 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.CachingBlockchainAPI;
+import com.example.demo.blockchain.model.ChainEvent;
+import com.example.demo.blockchain.store.MappedUtxoStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies provider push notifications to local state, so changes show up without waiting
+ * for the next poll. Cached provider answers for the affected addresses are dropped at
+ * once; the slower follow-up (a full UTXO index resync and a stream refresh) is queued and
+ * run every {@code webhook.debounce-ms}, so the unconfirmed and confirmed callbacks of one
+ * transaction, or a burst touching the same address, cost a single resync.
+ * A pushed block height is only a hint: the tip is re-read from the providers before it
+ * moves the store or the cache, so a forged or mistaken callback cannot set it.
+ */
+@Service
+public class ChainEventService {
+    private static final Logger logger = LoggerFactory.getLogger(ChainEventService.class);
+
+    private final CachingBlockchainAPI providerCache;
+    private final UtxoIndexService utxoIndexService;
+    private final AddressWatchService addressWatchService;
+    private final MappedUtxoStore store;
+    private final Map<ChainEvent.Type, Counter> received = new EnumMap<>(ChainEvent.Type.class);
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // Highest block height pushed since the last drain, -1 if none
+    private final AtomicLong pushedTip = new AtomicLong(-1);
+
+    @Autowired
+    public ChainEventService(@Qualifier("providerBlockchainAPI") CachingBlockchainAPI providerCache,
+                             UtxoIndexService utxoIndexService,
+                             AddressWatchService addressWatchService,
+                             MappedUtxoStore store,
+                             MeterRegistry meterRegistry) {
+        this.providerCache = providerCache;
+        this.utxoIndexService = utxoIndexService;
+        this.addressWatchService = addressWatchService;
+        this.store = store;
+        for (ChainEvent.Type type : ChainEvent.Type.values()) {
+            received.put(type, Counter.builder("webhook.events")
+                    .description("Chain events received from provider webhooks")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Applies an event. Cheap and non-blocking, so it can run on the request thread that
+     * received the callback.
+     *
+     * @param event The notification
+     */
+    public void handle(ChainEvent event) {
+        logger.debug("Received {}", event);
+        received.get(event.getType()).increment();
+
+        if (event.getType() == ChainEvent.Type.NEW_BLOCK) {
+            pushedTip.accumulateAndGet(event.getBlockHeight(), Math::max);
+            return;
+        }
+
+        for (String address : event.getAddresses()) {
+            if (utxoIndexService.isWatched(address) || addressWatchService.isWatched(address)) {
+                providerCache.invalidate(address);
+                pending.add(address);
+            }
+        }
+    }
+
+    /**
+     * Applies a pushed new block, then resyncs the addresses touched since the last run and
+     * refreshes their streams. The stream refresh comes after the resync, as tracked
+     * balances are read from the store.
+     */
+    @Scheduled(fixedDelayString = "${webhook.debounce-ms:1000}")
+    public void drain() {
+        long pushed = pushedTip.getAndSet(-1);
+        if (pushed >= 0) {
+            applyTip(pushed);
+        }
+        for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+            String address = it.next();
+            // Removed before syncing, so an event arriving meanwhile queues another pass
+            it.remove();
+            try {
+                utxoIndexService.resync(address);
+            } catch (Exception e) {
+                logger.warn("UTXO index resync after webhook failed for {}: {}", address, e.getMessage());
+            }
+            addressWatchService.refresh(address);
+        }
+    }
+
+    /**
+     * Moves the tip to the providers' height after a new-block callback. A pushed height
+     * above it is not trusted; the providers' own tip is applied either way.
+     */
+    private void applyTip(long pushed) {
+        long height;
+        try {
+            height = providerCache.getBlockHeight();
+        } catch (Exception e) {
+            logger.warn("Could not confirm pushed chain tip {}: {}", pushed, e.getMessage());
+            // Try again on the next run
+            pushedTip.accumulateAndGet(pushed, Math::max);
+            return;
+        }
+        if (pushed > height) {
+            logger.warn("Ignoring pushed chain tip {} above the providers' tip {}", pushed, height);
+        }
+        providerCache.observeChainTip(height);
+        if (height > store.getTipHeight()) {
+            store.setTipHeight(height);
+        }
+        // Confirmation counts moved for every watched address
+        addressWatchService.pollAll();
+    }
+}
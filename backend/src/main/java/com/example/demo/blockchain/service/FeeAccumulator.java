@@ -0,0 +1,131 @@
+package com.example.demo.blockchain.service;
+
+/**
+ * Running size and fee of a transaction being assembled one input or output at a time.
+ * Every update is O(1) primitive arithmetic: no logging, boxing or allocation, so it can sit
+ * in selection and consolidation loops over thousands of UTXOs. Inputs of mixed script types
+ * are supported; legacy inputs in a segwit transaction pay for their empty witness.
+ * Not thread-safe; use one instance per transaction and {@link #reset()} to reuse it.
+ */
+public final class FeeAccumulator {
+
+    // Version and locktime, in weight units
+    private static final int BASE_TX_WEIGHT = 8 * 4;
+    // Segwit marker and flag bytes, which are witness data
+    private static final int SEGWIT_HEADER_WEIGHT = 2;
+
+    private int inputs;
+    private int segwitInputs;
+    private int outputs;
+    private int inputsWeight;
+    private int outputsWeight;
+
+    public FeeAccumulator addInput(ScriptType type) {
+        inputs++;
+        inputsWeight += type.getInputWeight();
+        if (type.isSegwit()) {
+            segwitInputs++;
+        }
+        return this;
+    }
+
+    public FeeAccumulator addInputs(ScriptType type, int count) {
+        inputs += count;
+        inputsWeight += count * type.getInputWeight();
+        if (type.isSegwit()) {
+            segwitInputs += count;
+        }
+        return this;
+    }
+
+    /**
+     * Undoes {@link #addInput(ScriptType)}, for callers that try an input and back it out.
+     */
+    public FeeAccumulator removeInput(ScriptType type) {
+        inputs--;
+        inputsWeight -= type.getInputWeight();
+        if (type.isSegwit()) {
+            segwitInputs--;
+        }
+        return this;
+    }
+
+    public FeeAccumulator addOutput(ScriptType type) {
+        outputs++;
+        outputsWeight += type.getOutputWeight();
+        return this;
+    }
+
+    public FeeAccumulator addOutputs(ScriptType type, int count) {
+        outputs += count;
+        outputsWeight += count * type.getOutputWeight();
+        return this;
+    }
+
+    public FeeAccumulator reset() {
+        inputs = 0;
+        segwitInputs = 0;
+        outputs = 0;
+        inputsWeight = 0;
+        outputsWeight = 0;
+        return this;
+    }
+
+    public int getInputCount() {
+        return inputs;
+    }
+
+    public int getOutputCount() {
+        return outputs;
+    }
+
+    /**
+     * Weight of the transaction so far, in weight units.
+     */
+    public int weight() {
+        boolean segwit = segwitInputs > 0;
+        return weight(inputs, inputsWeight, outputs, outputsWeight, segwit, segwit ? inputs - segwitInputs : 0);
+    }
+
+    /**
+     * Virtual size of the transaction so far: weight / 4, rounded up.
+     */
+    public int virtualSize() {
+        return toVirtualSize(weight());
+    }
+
+    /**
+     * Fee for the transaction so far.
+     *
+     * @param feeRate Fee rate in satoshis per virtual byte
+     * @return Fee in satoshis
+     */
+    public long fee(long feeRate) {
+        return virtualSize() * feeRate;
+    }
+
+    /**
+     * Weight of a transaction from its input and output totals, including the varint growth
+     * of large counts and, for segwit transactions, the marker and flag plus one empty witness
+     * byte for each legacy input.
+     */
+    static int weight(int inputs, int inputsWeight, int outputs, int outputsWeight,
+                      boolean segwit, int emptyWitnesses) {
+        int weight = BASE_TX_WEIGHT
+                + (varIntSize(inputs) + varIntSize(outputs)) * 4
+                + inputsWeight
+                + outputsWeight;
+        if (segwit) {
+            weight += SEGWIT_HEADER_WEIGHT + emptyWitnesses;
+        }
+        return weight;
+    }
+
+    static int toVirtualSize(int weight) {
+        return (weight + 3) / 4;
+    }
+
+    private static int varIntSize(int count) {
+        return count < 0xfd ? 1 : count <= 0xffff ? 3 : 5;
+    }
+}
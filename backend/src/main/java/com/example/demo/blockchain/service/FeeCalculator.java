@@ -1,21 +1,20 @@
 package com.example.demo.blockchain.service;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Service for calculating Bitcoin transaction fees.
  * Provides methods to estimate fees based on transaction size and network conditions.
+ * The {@link ScriptType}-aware methods size transactions in weight units, applying the witness
+ * discount; the untyped methods assume legacy P2PKH. All of them are thin wrappers over the
+ * {@link FeeAccumulator} arithmetic and never log or allocate, since coin selection calls
+ * them in its inner loop. Use a {@link FeeAccumulator} directly to grow a transaction
+ * one input at a time.
  */
 @Service
 public class FeeCalculator {
-    private static final Logger logger = LoggerFactory.getLogger(FeeCalculator.class);
-
-    // Typical sizes in bytes for Bitcoin transactions
-    private static final int BASE_TX_SIZE = 10; // Base transaction overhead
-    private static final int INPUT_SIZE = 148;  // Approximate size of one input
-    private static final int OUTPUT_SIZE = 34;  // Approximate size of one output
 
     /**
      * Calculates the estimated fee for a transaction.
@@ -27,13 +26,7 @@ public class FeeCalculator {
      * @return Estimated fee in satoshis
      */
     public long calculateFee(int inputs, int outputs, long feeRate) {
-        logger.debug("Calculating fee for {} inputs, {} outputs with rate {} sat/byte", inputs, outputs, feeRate);
-
-        int transactionSize = calculateTransactionSize(inputs, outputs);
-        long fee = transactionSize * feeRate;
-
-        logger.info("Estimated transaction size: {} bytes, estimated fee: {} satoshis", transactionSize, fee);
-        return fee;
+        return calculateFee(ScriptType.P2PKH, inputs, ScriptType.P2PKH, outputs, feeRate);
     }
 
     /**
@@ -44,11 +37,80 @@ public class FeeCalculator {
      * @return Estimated size in bytes
      */
     public int calculateTransactionSize(int inputs, int outputs) {
-        // Simplified calculation - actual transaction size depends on script types
-        // This assumes legacy P2PKH transactions
-        int size = BASE_TX_SIZE + (inputs * INPUT_SIZE) + (outputs * OUTPUT_SIZE);
-        logger.debug("Calculated transaction size: {} bytes", size);
-        return size;
+        // Assumes legacy P2PKH transactions, where size and virtual size are the same
+        return calculateVirtualSize(ScriptType.P2PKH, inputs, ScriptType.P2PKH, outputs);
+    }
+
+    /**
+     * Calculates the fee for a transaction spending and paying the given script types.
+     *
+     * @param inputType  Script type of every input
+     * @param inputs     Number of inputs
+     * @param outputType Script type of every output
+     * @param outputs    Number of outputs
+     * @param feeRate    Fee rate in satoshis per virtual byte
+     * @return Fee in satoshis
+     */
+    public long calculateFee(ScriptType inputType, int inputs, ScriptType outputType, int outputs, long feeRate) {
+        return calculateVirtualSize(inputType, inputs, outputType, outputs) * feeRate;
+    }
+
+    /**
+     * Calculates the fee for a transaction whose outputs have mixed script types.
+     *
+     * @param inputType   Script type of every input
+     * @param inputs      Number of inputs
+     * @param outputTypes Script type of each output
+     * @param feeRate     Fee rate in satoshis per virtual byte
+     * @return Fee in satoshis
+     */
+    public long calculateFee(ScriptType inputType, int inputs, List<ScriptType> outputTypes, long feeRate) {
+        int outputsWeight = 0;
+        for (int i = 0; i < outputTypes.size(); i++) {
+            outputsWeight += outputTypes.get(i).getOutputWeight();
+        }
+        return FeeAccumulator.toVirtualSize(
+                weight(inputType, inputs, outputTypes.size(), outputsWeight)) * feeRate;
+    }
+
+    /**
+     * Calculates the virtual size of a transaction: its weight divided by four, rounded up.
+     *
+     * @param inputType  Script type of every input
+     * @param inputs     Number of inputs
+     * @param outputType Script type of every output
+     * @param outputs    Number of outputs
+     * @return Virtual size in vbytes
+     */
+    public int calculateVirtualSize(ScriptType inputType, int inputs, ScriptType outputType, int outputs) {
+        return FeeAccumulator.toVirtualSize(calculateWeight(inputType, inputs, outputType, outputs));
+    }
+
+    /**
+     * Calculates the weight of a transaction, including the varint growth of large input
+     * and output counts and the segwit marker when the inputs carry witness data.
+     *
+     * @param inputType  Script type of every input
+     * @param inputs     Number of inputs
+     * @param outputType Script type of every output
+     * @param outputs    Number of outputs
+     * @return Weight in weight units
+     */
+    public int calculateWeight(ScriptType inputType, int inputs, ScriptType outputType, int outputs) {
+        return weight(inputType, inputs, outputs, outputs * outputType.getOutputWeight());
+    }
+
+    /**
+     * Calculates the dust threshold for an output of the given script type.
+     *
+     * @param outputType Script type of the output
+     * @param feeRate    Fee rate in satoshis per virtual byte
+     * @return Minimum output amount in satoshis
+     */
+    public long calculateDustThreshold(ScriptType outputType, long feeRate) {
+        // Bitcoin's dust threshold is typically 546 satoshis, but we use a higher one
+        // to avoid paying more in fees than the output value
+        return Math.max(calculateFeePerOutput(outputType, feeRate) * 3, 546L);
     }
 
     /**
@@ -59,12 +121,7 @@ public class FeeCalculator {
      * @return Minimum change amount in satoshis (dust threshold)
      */
     public long calculateDustThreshold(long feeRate) {
-        // Bitcoin's dust threshold is typically 546 satoshis, but we use a higher one
-        // to avoid paying more in fees than the output value
-        long dustThreshold = (long) (OUTPUT_SIZE * feeRate * 3); // 3x the output fee
-
-        logger.debug("Calculated dust threshold: {} satoshis", dustThreshold);
-        return Math.max(dustThreshold, 546L); // Enforce Bitcoin's minimum
+        return calculateDustThreshold(ScriptType.P2PKH, feeRate);
     }
 
     /**
@@ -75,12 +132,8 @@ public class FeeCalculator {
      * @return Maximum reasonable fee in satoshis (1% of transaction size)
      */
     public long calculateMaxFee(int inputs, int outputs) {
-        int transactionSize = calculateTransactionSize(inputs, outputs);
         // Max fee is 1% of transaction size in satoshis per byte (very conservative)
-        long maxFee = transactionSize * 100;
-
-        logger.debug("Calculated max fee: {} satoshis", maxFee);
-        return maxFee;
+        return calculateTransactionSize(inputs, outputs) * 100L;
     }
 
     /**
@@ -91,9 +144,7 @@ public class FeeCalculator {
      * @return Cost of adding one output
      */
     public long calculateFeePerOutput(long feeRate) {
-        long feePerOutput = OUTPUT_SIZE * feeRate;
-        logger.debug("Fee per output: {} satoshis", feePerOutput);
-        return feePerOutput;
+        return calculateFeePerOutput(ScriptType.P2PKH, feeRate);
     }
 
     /**
@@ -104,8 +155,34 @@ public class FeeCalculator {
      * @return Cost of adding one input
      */
     public long calculateFeePerInput(long feeRate) {
-        long feePerInput = INPUT_SIZE * feeRate;
-        logger.debug("Fee per input: {} satoshis", feePerInput);
-        return feePerInput;
+        return calculateFeePerInput(ScriptType.P2PKH, feeRate);
+    }
+
+    /**
+     * Cost of adding one output of the given script type.
+     *
+     * @param outputType Script type of the output
+     * @param feeRate    Fee rate in satoshis per virtual byte
+     * @return Cost of adding one output in satoshis
+     */
+    public long calculateFeePerOutput(ScriptType outputType, long feeRate) {
+        return (outputType.getOutputWeight() * feeRate + 3) / 4;
+    }
+
+    /**
+     * Cost of spending one input of the given script type, witness discount included.
+     *
+     * @param inputType Script type of the input
+     * @param feeRate   Fee rate in satoshis per virtual byte
+     * @return Cost of adding one input in satoshis
+     */
+    public long calculateFeePerInput(ScriptType inputType, long feeRate) {
+        return (inputType.getInputWeight() * feeRate + 3) / 4;
+    }
+
+    private static int weight(ScriptType inputType, int inputs, int outputs, int outputsWeight) {
+        // Keyed on the type rather than the count, so a zero-input base fee still includes the marker
+        return FeeAccumulator.weight(inputs, inputs * inputType.getInputWeight(), outputs, outputsWeight,
+                inputType.isSegwit(), 0);
     }
 }
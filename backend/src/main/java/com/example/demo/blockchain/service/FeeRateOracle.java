@@ -0,0 +1,126 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.FeeEstimates;
+import com.example.demo.blockchain.util.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Current fee rates by confirmation target.
+ * Provider fee levels are polled in the background, smoothed with an exponential moving
+ * average so one noisy sample does not swing every quote, and published as an immutable
+ * {@link FeeRateSnapshot}. Readers only dereference the current snapshot, so no request
+ * ever waits on a fee lookup. Until the first poll succeeds the configured default rate
+ * is served for every target.
+ */
+@Service
+public class FeeRateOracle {
+    private static final Logger logger = LoggerFactory.getLogger(FeeRateOracle.class);
+
+    private final BlockchainAPI blockchainAPI;
+    private final AtomicReference<FeeRateSnapshot> snapshot = new AtomicReference<>();
+
+    @Value("${fee.oracle.default-rate:5}")
+    private long defaultRate;
+
+    @Value("${fee.oracle.default-target:6}")
+    private int defaultTarget;
+
+    @Value("${fee.oracle.smoothing:0.3}")
+    private double smoothing;
+
+    // Smoothed levels in sat/kB, only touched by apply()
+    private double highPerKb = -1;
+    private double mediumPerKb;
+    private double lowPerKb;
+
+    @Autowired
+    public FeeRateOracle(BlockchainAPI blockchainAPI) {
+        this.blockchainAPI = blockchainAPI;
+    }
+
+    @PostConstruct
+    public void init() {
+        snapshot.set(FeeRateSnapshot.fixed(defaultRate));
+    }
+
+    /**
+     * Fee rate for confirmation within {@code confirmationTarget} blocks.
+     *
+     * @param confirmationTarget Blocks until confirmation
+     * @return Fee rate in satoshis per byte
+     */
+    public long getFeeRate(int confirmationTarget) {
+        return snapshot.get().getFeeRate(confirmationTarget);
+    }
+
+    /**
+     * Fee rate for the default confirmation target ({@code fee.oracle.default-target}).
+     *
+     * @return Fee rate in satoshis per byte
+     */
+    public long getFeeRate() {
+        return getFeeRate(defaultTarget);
+    }
+
+    public int getDefaultTarget() {
+        return defaultTarget;
+    }
+
+    /**
+     * The table currently being served.
+     */
+    public FeeRateSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Polls the providers and publishes a new snapshot when they answer.
+     * The poll runs asynchronously so the shared scheduler thread is never held up.
+     */
+    @Scheduled(fixedDelayString = "${fee.oracle.poll-interval-ms:60000}")
+    public void refresh() {
+        blockchainAPI.getFeeEstimatesAsync().whenComplete((estimates, error) -> {
+            if (error != null) {
+                logger.warn("Fee estimate poll failed, keeping previous rates: {}", Futures.unwrap(error).getMessage());
+            } else {
+                apply(estimates);
+            }
+        });
+    }
+
+    private synchronized void apply(FeeEstimates estimates) {
+        if (highPerKb < 0) {
+            highPerKb = estimates.getHighFeePerKb();
+            mediumPerKb = estimates.getMediumFeePerKb();
+            lowPerKb = estimates.getLowFeePerKb();
+        } else {
+            highPerKb = smooth(highPerKb, estimates.getHighFeePerKb());
+            mediumPerKb = smooth(mediumPerKb, estimates.getMediumFeePerKb());
+            lowPerKb = smooth(lowPerKb, estimates.getLowFeePerKb());
+        }
+
+        FeeRateSnapshot next = FeeRateSnapshot.fromLevels(
+                toSatPerByte(highPerKb), toSatPerByte(mediumPerKb), toSatPerByte(lowPerKb));
+        snapshot.set(next);
+        logger.debug("Fee rates updated: high {} / medium {} / low {} sat/byte",
+                next.getFeeRate(1), next.getFeeRate(FeeRateSnapshot.MEDIUM_MAX_TARGET),
+                next.getFeeRate(FeeRateSnapshot.MAX_TARGET));
+    }
+
+    private double smooth(double previous, long sample) {
+        return smoothing * sample + (1 - smoothing) * previous;
+    }
+
+    private static long toSatPerByte(double satPerKb) {
+        return (long) Math.ceil(satPerKb / 1000.0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.blockchain.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable fee-rate table indexed by confirmation target in blocks.
+ * Published by {@link FeeRateOracle} and read without locking.
+ */
+public final class FeeRateSnapshot {
+
+    /** Longest confirmation target in the table (about one day of blocks) */
+    public static final int MAX_TARGET = 144;
+
+    // BlockCypher's levels: high confirms in 1-2 blocks, medium in 3-6, low in 7 or more
+    static final int HIGH_MAX_TARGET = 2;
+    static final int MEDIUM_MAX_TARGET = 6;
+
+    private final long[] ratesByTarget;
+    private final long updatedAtMillis;
+    private final boolean fallback;
+
+    private FeeRateSnapshot(long[] ratesByTarget, long updatedAtMillis, boolean fallback) {
+        this.ratesByTarget = ratesByTarget;
+        this.updatedAtMillis = updatedAtMillis;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Table with the same rate for every target, served until the first provider poll succeeds.
+     */
+    static FeeRateSnapshot fixed(long satPerByte) {
+        long[] rates = new long[MAX_TARGET + 1];
+        Arrays.fill(rates, Math.max(1, satPerByte));
+        return new FeeRateSnapshot(rates, System.currentTimeMillis(), true);
+    }
+
+    /**
+     * Table built from the three provider levels, made non-increasing so a longer
+     * target is never quoted a higher rate than a shorter one.
+     */
+    static FeeRateSnapshot fromLevels(long highSatPerByte, long mediumSatPerByte, long lowSatPerByte) {
+        long high = Math.max(1, highSatPerByte);
+        long medium = Math.max(1, Math.min(mediumSatPerByte, high));
+        long low = Math.max(1, Math.min(lowSatPerByte, medium));
+
+        long[] rates = new long[MAX_TARGET + 1];
+        for (int target = 1; target <= MAX_TARGET; target++) {
+            rates[target] = target <= HIGH_MAX_TARGET ? high : target <= MEDIUM_MAX_TARGET ? medium : low;
+        }
+        rates[0] = high;
+        return new FeeRateSnapshot(rates, System.currentTimeMillis(), false);
+    }
+
+    /**
+     * Fee rate for confirmation within {@code confirmationTarget} blocks.
+     * Targets outside 1..{@link #MAX_TARGET} are clamped.
+     *
+     * @param confirmationTarget Blocks until confirmation
+     * @return Fee rate in satoshis per byte
+     */
+    public long getFeeRate(int confirmationTarget) {
+        return ratesByTarget[Math.max(1, Math.min(confirmationTarget, MAX_TARGET))];
+    }
+
+    public long getUpdatedAtMillis() {
+        return updatedAtMillis;
+    }
+
+    /**
+     * Whether this is the configured default rather than provider data.
+     */
+    public boolean isFallback() {
+        return fallback;
+    }
+}
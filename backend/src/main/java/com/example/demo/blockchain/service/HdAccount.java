@@ -0,0 +1,83 @@
+package com.example.demo.blockchain.service;
+
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.bitcoinj.script.Script;
+
+/**
+ * An imported BIP32 account: the account-level key (m/purpose'/coin'/account') and its
+ * external (receive) and internal (change) chain keys. The chain keys are derived once at
+ * import, so every address below them is a single non-hardened step. Accounts imported
+ * from an extended public key are watch-only.
+ */
+public final class HdAccount {
+    /** Chain of receive addresses */
+    public static final int EXTERNAL = 0;
+    /** Chain of change addresses */
+    public static final int INTERNAL = 1;
+
+    private final String id;
+    private final int purpose;
+    private final int accountIndex;
+    private final DeterministicKey accountKey;
+    private final DeterministicKey[] chainKeys;
+
+    HdAccount(String id, int purpose, int accountIndex, DeterministicKey accountKey) {
+        this.id = id;
+        this.purpose = purpose;
+        this.accountIndex = accountIndex;
+        this.accountKey = accountKey;
+        this.chainKeys = new DeterministicKey[]{
+                HDKeyDerivation.deriveChildKey(accountKey, new ChildNumber(EXTERNAL, false)),
+                HDKeyDerivation.deriveChildKey(accountKey, new ChildNumber(INTERNAL, false))
+        };
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 44 for legacy P2PKH addresses, 84 for native segwit P2WPKH.
+     */
+    public int getPurpose() {
+        return purpose;
+    }
+
+    public int getAccountIndex() {
+        return accountIndex;
+    }
+
+    public ScriptType getScriptType() {
+        return purpose == KeyService.BIP84 ? ScriptType.P2WPKH : ScriptType.P2PKH;
+    }
+
+    public boolean isWatchOnly() {
+        return !accountKey.hasPrivKey();
+    }
+
+    /**
+     * Path of the account key, e.g. {@code m/84'/1'/0'}.
+     */
+    public String getPath() {
+        return "m/" + purpose + "'/" + KeyService.COIN_TYPE + "'/" + accountIndex + "'";
+    }
+
+    /**
+     * Account-level extended public key, with the version bytes of its address type
+     * (tpub for BIP44, vpub for BIP84 on testnet).
+     */
+    public String getExtendedPublicKey(NetworkParameters network) {
+        return accountKey.serializePubB58(network, bitcoinjScriptType());
+    }
+
+    Script.ScriptType bitcoinjScriptType() {
+        return purpose == KeyService.BIP84 ? Script.ScriptType.P2WPKH : Script.ScriptType.P2PKH;
+    }
+
+    DeterministicKey chainKey(int chain) {
+        return chainKeys[chain];
+    }
+}
@@ -1,14 +1,69 @@
 package com.example.demo.blockchain.service;
 
+import com.example.demo.blockchain.model.DerivedAddress;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.bitcoinj.core.*;
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
 import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.Script;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 @Service
 public class KeyService {
 
     private static final NetworkParameters NETWORK = TestNet3Params.get();
 
+    /** BIP44 purpose: legacy P2PKH addresses */
+    public static final int BIP44 = 44;
+    /** BIP84 purpose: native segwit P2WPKH addresses */
+    public static final int BIP84 = 84;
+    /** SLIP-44 coin type shared by the test networks */
+    public static final int COIN_TYPE = 1;
+
+    private final SecureRandom random = new SecureRandom();
+    // Imported HD accounts by id; keys live in memory only and are re-imported after a restart
+    private final Map<String, HdAccount> accounts = new ConcurrentHashMap<>();
+    // Child keys and their addresses, each one non-hardened step below a cached chain key
+    private final Cache<DerivationPath, DerivedChild> derivedKeys;
+    private final int parallelThreshold;
+    private final int maxAccounts;
+
+    public KeyService() {
+        this(100_000, 32, 1_000, null);
+    }
+
+    @Autowired
+    public KeyService(@Value("${hd.cache.max-keys:100000}") long maxCachedKeys,
+                      @Value("${hd.derive.parallel-threshold:32}") int parallelThreshold,
+                      @Value("${hd.max-accounts:1000}") int maxAccounts,
+                      MeterRegistry meterRegistry) {
+        this.derivedKeys = Caffeine.newBuilder()
+                .maximumSize(maxCachedKeys)
+                .recordStats()
+                .build();
+        this.parallelThreshold = parallelThreshold;
+        this.maxAccounts = maxAccounts;
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, derivedKeys, "hd.keys");
+        }
+    }
+
     /**
      * Get address from private key (WIF format)
      */
@@ -22,6 +77,24 @@ public class KeyService {
         }
     }
 
+    /**
+     * Decode a private key (WIF format) once so it can sign many inputs
+     */
+    public ECKey decodeKey(String privateKeyWIF) {
+        try {
+            return DumpedPrivateKey.fromBase58(NETWORK, privateKeyWIF).getKey();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid private key: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Network the keys and addresses belong to
+     */
+    public NetworkParameters getNetworkParameters() {
+        return NETWORK;
+    }
+
     /**
      * Validate if private key is valid WIF format
      */
@@ -46,6 +119,17 @@ public class KeyService {
         }
     }
 
+    /**
+     * Script type of an address, for sizing the inputs and outputs that use it
+     */
+    public ScriptType scriptTypeOf(String address) {
+        try {
+            return ScriptType.of(Address.fromString(NETWORK, address).getOutputScriptType());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid Bitcoin address format");
+        }
+    }
+
     /**
      * Get public key from private key (hex format)
      */
@@ -85,4 +169,192 @@ public class KeyService {
             return false;
         }
     }
+
+    /**
+     * Imports an HD account from an extended key. A master private key (depth 0) is taken
+     * down to m/purpose'/1'/account'; an account-level key (depth 3) is used as-is.
+     * Importing the same account again returns the existing one, upgraded to signing if the
+     * new key is private.
+     *
+     * @param extendedKey  tpub/tprv (BIP44 by default) or vpub/vprv (BIP84) in Base58
+     * @param purpose      44 or 84, or null to infer it from the key's version bytes
+     * @param accountIndex Account number, used only when importing a master key
+     * @return The imported account
+     * @throws IllegalArgumentException if the key cannot be parsed or is at another depth
+     * @throws IllegalStateException    if {@code hd.max-accounts} accounts are already imported
+     */
+    public HdAccount importAccount(String extendedKey, Integer purpose, int accountIndex) {
+        DeterministicKey key;
+        int header;
+        try {
+            key = DeterministicKey.deserializeB58(extendedKey, NETWORK);
+            header = ByteBuffer.wrap(Base58.decodeChecked(extendedKey), 0, 4).getInt();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid extended key: " + e.getMessage());
+        }
+        boolean segwit = header == NETWORK.getBip32HeaderP2WPKHpub() || header == NETWORK.getBip32HeaderP2WPKHpriv();
+        int resolvedPurpose = purpose != null ? purpose : (segwit ? BIP84 : BIP44);
+        if (resolvedPurpose != BIP44 && resolvedPurpose != BIP84) {
+            throw new IllegalArgumentException("Unsupported purpose " + resolvedPurpose + ", expected 44 or 84");
+        }
+        if (accountIndex < 0) {
+            throw new IllegalArgumentException("Account index must not be negative");
+        }
+
+        DeterministicKey accountKey;
+        int index;
+        if (key.getDepth() == 0) {
+            if (!key.hasPrivKey()) {
+                throw new IllegalArgumentException("A master public key cannot derive the hardened account path; "
+                        + "import the account-level extended public key instead");
+            }
+            DeterministicKey purposeKey = HDKeyDerivation.deriveChildKey(key, new ChildNumber(resolvedPurpose, true));
+            DeterministicKey coinKey = HDKeyDerivation.deriveChildKey(purposeKey, new ChildNumber(COIN_TYPE, true));
+            DeterministicKey derived = HDKeyDerivation.deriveChildKey(coinKey, new ChildNumber(accountIndex, true));
+            // Round-tripped so the master key is not kept reachable from the account
+            // (dropParent() would also reset the depth written into the xpub)
+            accountKey = DeterministicKey.deserializeB58(derived.serializePrivB58(NETWORK), NETWORK);
+            index = accountIndex;
+        } else if (key.getDepth() == 3 && key.getChildNumber().isHardened()) {
+            accountKey = key;
+            index = key.getChildNumber().num();
+        } else {
+            throw new IllegalArgumentException("Expected a master key or an account-level (depth 3) key, got depth "
+                    + key.getDepth());
+        }
+
+        String id = resolvedPurpose + "-" + String.format("%08x", accountKey.getFingerprint());
+        return accounts.compute(id, (accountId, existing) -> {
+            if (existing != null && (!existing.isWatchOnly() || !accountKey.hasPrivKey())) {
+                return existing;
+            }
+            if (existing == null && accounts.size() >= maxAccounts) {
+                throw new IllegalStateException("Too many HD accounts");
+            }
+            if (existing != null) {
+                // Children cached from the watch-only key have no private part
+                derivedKeys.asMap().keySet().removeIf(path -> path.accountId().equals(accountId));
+            }
+            return new HdAccount(accountId, resolvedPurpose, index, accountKey);
+        });
+    }
+
+    /**
+     * Creates a random master private key, serialized with the version bytes of the
+     * purpose's address type. The key is not imported; the caller stores it and imports it.
+     *
+     * @param purpose 44 or 84
+     * @return The master key as tprv (BIP44) or vprv (BIP84)
+     */
+    public String generateMasterKey(int purpose) {
+        if (purpose != BIP44 && purpose != BIP84) {
+            throw new IllegalArgumentException("Unsupported purpose " + purpose + ", expected 44 or 84");
+        }
+        byte[] seed = new byte[32];
+        random.nextBytes(seed);
+        DeterministicKey master = HDKeyDerivation.createMasterPrivateKey(seed);
+        return master.serializePrivB58(NETWORK, purpose == BIP84 ? Script.ScriptType.P2WPKH : Script.ScriptType.P2PKH);
+    }
+
+    /**
+     * An imported HD account.
+     *
+     * @throws IllegalArgumentException if no account has this id
+     */
+    public HdAccount getAccount(String accountId) {
+        HdAccount account = accounts.get(accountId);
+        if (account == null) {
+            throw new IllegalArgumentException("Unknown HD account: " + accountId);
+        }
+        return account;
+    }
+
+    public Collection<HdAccount> getAccounts() {
+        return List.copyOf(accounts.values());
+    }
+
+    /**
+     * Derives one address of an account, from the cache when it was derived before.
+     *
+     * @param accountId Id returned by {@link #importAccount}
+     * @param chain     {@link HdAccount#EXTERNAL} or {@link HdAccount#INTERNAL}
+     * @param index     Address index, 0 to 2^31-1
+     * @return The address with its path and public key
+     */
+    public DerivedAddress deriveAddress(String accountId, int chain, int index) {
+        HdAccount account = getAccount(accountId);
+        checkChain(chain);
+        if (index < 0) {
+            throw new IllegalArgumentException("Address index must not be negative");
+        }
+        return toDerivedAddress(account, chain, index, derive(account, chain, index));
+    }
+
+    /**
+     * Derives a contiguous range of addresses of an account. Ranges of at least
+     * {@code hd.derive.parallel-threshold} addresses are derived on a parallel stream; the
+     * result keeps index order either way.
+     *
+     * @param accountId Id returned by {@link #importAccount}
+     * @param chain     {@link HdAccount#EXTERNAL} or {@link HdAccount#INTERNAL}
+     * @param from      First address index
+     * @param count     Number of addresses
+     * @return The addresses at indexes {@code from} to {@code from + count - 1}
+     */
+    public List<DerivedAddress> deriveAddresses(String accountId, int chain, int from, int count) {
+        HdAccount account = getAccount(accountId);
+        checkChain(chain);
+        if (from < 0 || count < 0 || (long) from + count > (long) Integer.MAX_VALUE + 1) {
+            throw new IllegalArgumentException("Address range must lie between 0 and 2^31-1");
+        }
+        IntStream indexes = IntStream.range(from, from + count);
+        if (count >= parallelThreshold) {
+            indexes = indexes.parallel();
+        }
+        return indexes
+                .mapToObj(index -> toDerivedAddress(account, chain, index, derive(account, chain, index)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Private key of a derived address, for signing a send from it.
+     *
+     * @return The key in WIF format
+     * @throws IllegalArgumentException if the account is watch-only
+     */
+    public String derivePrivateKeyWif(String accountId, int chain, int index) {
+        HdAccount account = getAccount(accountId);
+        if (account.isWatchOnly()) {
+            throw new IllegalArgumentException("HD account " + accountId + " is watch-only");
+        }
+        checkChain(chain);
+        if (index < 0) {
+            throw new IllegalArgumentException("Address index must not be negative");
+        }
+        return derive(account, chain, index).key().getPrivateKeyAsWiF(NETWORK);
+    }
+
+    private DerivedChild derive(HdAccount account, int chain, int index) {
+        return derivedKeys.get(new DerivationPath(account.getId(), chain, index), path -> {
+            DeterministicKey child = HDKeyDerivation.deriveChildKey(account.chainKey(chain), new ChildNumber(index, false));
+            return new DerivedChild(child, Address.fromKey(NETWORK, child, account.bitcoinjScriptType()).toString());
+        });
+    }
+
+    private static DerivedAddress toDerivedAddress(HdAccount account, int chain, int index, DerivedChild child) {
+        return new DerivedAddress(account.getId(), account.getPath() + "/" + chain + "/" + index, chain, index,
+                child.address(), child.key().getPublicKeyAsHex());
+    }
+
+    private static void checkChain(int chain) {
+        if (chain != HdAccount.EXTERNAL && chain != HdAccount.INTERNAL) {
+            throw new IllegalArgumentException("Chain must be 0 (receive) or 1 (change)");
+        }
+    }
+
+    private record DerivationPath(String accountId, int chain, int index) {
+    }
+
+    private record DerivedChild(DeterministicKey key, String address) {
+    }
 }
@@ -0,0 +1,286 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.Outpoint;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import com.example.demo.blockchain.util.Futures;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local view of the transactions we broadcast that have not confirmed yet.
+ * The provider only lists confirmed outputs, so without this view the change of a send
+ * is locked until its block arrives. Here that change is offered to the next send as an
+ * unconfirmed output, as long as the chain of our unconfirmed transactions it would extend
+ * stays below {@code mempool.max-chain-depth} (1 turns chaining off). Outpoints spent by
+ * pending transactions, or by payments queued for broadcast, are tracked too, so the same
+ * change is never offered twice.
+ * Transactions leave the view {@code mempool.confirmed-retention-ms} after the sender's
+ * history shows them confirmed (by then the UTXO index lists their outputs), or after
+ * {@code mempool.expiry-hours} without confirming. The view is kept in memory only; after
+ * a restart change becomes spendable again once it confirms.
+ */
+@Component
+public class LocalMempool {
+    private static final Logger logger = LoggerFactory.getLogger(LocalMempool.class);
+
+    private final BlockchainAPI blockchainAPI;
+    private final Map<String, PendingTx> transactions = new ConcurrentHashMap<>();
+    private final Set<Outpoint> spent = ConcurrentHashMap.newKeySet();
+
+    @Value("${mempool.max-chain-depth:10}")
+    private int maxChainDepth;
+
+    @Value("${mempool.confirmed-retention-ms:60000}")
+    private long confirmedRetentionMs;
+
+    @Value("${mempool.expiry-hours:336}")
+    private long expiryHours;
+
+    @Autowired
+    public LocalMempool(BlockchainAPI blockchainAPI, MeterRegistry meterRegistry) {
+        this.blockchainAPI = blockchainAPI;
+        Gauge.builder("mempool.transactions", transactions, Map::size)
+                .description("Transactions we broadcast that are still in the local mempool view")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds a transaction we just broadcast. Its outputs paying back to the sender become
+     * available as unconfirmed change, and its inputs are marked spent.
+     *
+     * @param txid        Id of the broadcast transaction
+     * @param fromAddress The address that signed it
+     * @param inputs      The UTXOs it spends
+     * @param outputs     Its outputs, in transaction order
+     */
+    public void record(String txid, String fromAddress, Collection<UTXO> inputs, List<TxOutput> outputs) {
+        List<UTXO> change = new ArrayList<>();
+        for (int vout = 0; vout < outputs.size(); vout++) {
+            TxOutput output = outputs.get(vout);
+            if (fromAddress.equals(output.getAddress())) {
+                UTXO utxo = new UTXO();
+                utxo.setTxid(txid);
+                utxo.setVout(vout);
+                utxo.setAmount(output.getValue());
+                utxo.setAddress(fromAddress);
+                utxo.setConfirmations(0);
+                utxo.setBlockHeight(-1);
+                change.add(utxo);
+            }
+        }
+        Set<String> parents = new HashSet<>();
+        for (UTXO input : inputs) {
+            if (transactions.containsKey(input.getTxid())) {
+                parents.add(input.getTxid());
+            }
+        }
+        markSpent(inputs);
+        PendingTx tx = new PendingTx(txid, fromAddress, List.copyOf(change), List.copyOf(parents),
+                inputs.stream().map(Outpoint::of).toList());
+        transactions.put(txid, tx);
+        logger.debug("Mempool view: {} from {} at depth {}, {} change outputs", txid, fromAddress,
+                depth(tx), change.size());
+    }
+
+    /**
+     * Marks outputs as spent by a transaction that is committed to but not broadcast yet.
+     */
+    public void markSpent(Collection<UTXO> inputs) {
+        for (UTXO input : inputs) {
+            spent.add(Outpoint.of(input));
+        }
+    }
+
+    /**
+     * Undoes {@link #markSpent} for the inputs of a transaction that will never be broadcast.
+     */
+    public void releaseSpent(Collection<UTXO> inputs) {
+        for (UTXO input : inputs) {
+            spent.remove(Outpoint.of(input));
+        }
+    }
+
+    /**
+     * Number of our unconfirmed transactions in the longest chain ending at {@code txid},
+     * counting itself; 0 if it is confirmed or not in the view.
+     */
+    public int depth(String txid) {
+        PendingTx tx = transactions.get(txid);
+        return tx == null ? 0 : depth(tx);
+    }
+
+    /**
+     * Removes outputs spent by our pending or queued transactions from a set, in place.
+     *
+     * @return Number of entries removed
+     */
+    public int excludeSpent(UtxoSet utxos) {
+        if (spent.isEmpty()) {
+            return 0;
+        }
+        return utxos.removeIf(i -> spent.contains(utxos.outpoint(i)));
+    }
+
+    /**
+     * Appends the unspent change of our pending transactions to the set of their sender,
+     * skipping change whose transaction is already at the chain-depth limit and outputs the
+     * set already holds.
+     *
+     * @param utxos Spendable outputs of one address
+     * @return Number of change outputs added
+     */
+    public int addSpendableChange(UtxoSet utxos) {
+        int added = 0;
+        for (UTXO change : pendingChange(utxos, true)) {
+            utxos.add(change);
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Unspent change our pending transactions pay to the address of a set and that the set
+     * does not hold yet.
+     *
+     * @param utxos          Outputs of one address already accounted for
+     * @param spendableOnly  Leave out change of transactions at the chain-depth limit
+     * @return The change outputs, unconfirmed
+     */
+    public List<UTXO> pendingChange(UtxoSet utxos, boolean spendableOnly) {
+        List<UTXO> result = new ArrayList<>();
+        String address = utxos.getAddress();
+        if (address == null) {
+            return result;
+        }
+        // Built on first use, as most addresses have no pending change
+        Set<Outpoint> held = null;
+        for (PendingTx tx : transactions.values()) {
+            if (!tx.fromAddress.equals(address) || tx.change.isEmpty()
+                    || (spendableOnly && depth(tx) >= maxChainDepth)) {
+                continue;
+            }
+            if (held == null) {
+                held = utxos.outpoints();
+            }
+            for (UTXO change : tx.change) {
+                Outpoint outpoint = Outpoint.of(change);
+                if (!spent.contains(outpoint) && !held.contains(outpoint)) {
+                    result.add(change);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether a transaction is ours and still in the view.
+     */
+    public boolean contains(String txid) {
+        return transactions.containsKey(txid);
+    }
+
+    public int size() {
+        return transactions.size();
+    }
+
+    /**
+     * Checks the senders' histories for confirmations, one provider lookup per sender, and
+     * drops transactions that confirmed long enough ago or expired.
+     */
+    @Scheduled(fixedDelayString = "${mempool.prune-interval-ms:30000}")
+    public void prune() {
+        long now = System.currentTimeMillis();
+        long expiryMs = expiryHours * 3_600_000L;
+        Map<String, List<PendingTx>> bySender = new LinkedHashMap<>();
+        for (PendingTx tx : transactions.values()) {
+            if (tx.confirmedAt != 0 ? now - tx.confirmedAt >= confirmedRetentionMs : now - tx.seenAt >= expiryMs) {
+                remove(tx);
+            } else if (tx.confirmedAt == 0) {
+                bySender.computeIfAbsent(tx.fromAddress, address -> new ArrayList<>()).add(tx);
+            }
+        }
+        for (Map.Entry<String, List<PendingTx>> sender : bySender.entrySet()) {
+            try {
+                Set<String> confirmed = new HashSet<>();
+                for (Transaction tx : Futures.await(blockchainAPI.getTransactionHistoryAsync(sender.getKey()))) {
+                    if (tx.getTxid() != null && tx.getConfirmations() > 0) {
+                        confirmed.add(tx.getTxid());
+                    }
+                }
+                for (PendingTx tx : sender.getValue()) {
+                    if (confirmed.contains(tx.txid)) {
+                        tx.confirmedAt = now;
+                        logger.debug("Mempool view: {} confirmed", tx.txid);
+                    }
+                }
+            } catch (Exception e) {
+                logger.debug("Mempool confirmation check failed for {}: {}", sender.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void remove(PendingTx tx) {
+        // Change spent by a child stays marked until the child itself leaves
+        if (transactions.remove(tx.txid, tx)) {
+            spent.removeAll(tx.inputs);
+        }
+    }
+
+    private int depth(PendingTx tx) {
+        if (tx.confirmedAt != 0) {
+            return 0;
+        }
+        int depth = 1;
+        for (String parentId : tx.parents) {
+            PendingTx parent = transactions.get(parentId);
+            if (parent != null) {
+                depth = Math.max(depth, 1 + depth(parent));
+                if (depth >= maxChainDepth) {
+                    // Already at the limit; longer chains change nothing
+                    break;
+                }
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * One of our transactions as broadcast.
+     */
+    private static final class PendingTx {
+        final String txid;
+        final String fromAddress;
+        final List<UTXO> change;
+        final List<String> parents;
+        final List<Outpoint> inputs;
+        final long seenAt = System.currentTimeMillis();
+        volatile long confirmedAt;
+
+        PendingTx(String txid, String fromAddress, List<UTXO> change, List<String> parents, List<Outpoint> inputs) {
+            this.txid = txid;
+            this.fromAddress = fromAddress;
+            this.change = change;
+            this.parents = parents;
+            this.inputs = inputs;
+        }
+    }
+}
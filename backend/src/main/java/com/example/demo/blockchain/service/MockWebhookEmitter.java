@@ -0,0 +1,108 @@
+package com.example.demo.blockchain.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for BlockCypher's webhook delivery, for development and offline testing.
+ * Posts payloads shaped like BlockCypher's (same JSON fields, {@code X-EventType} header
+ * and secret query parameter) to our own receiver, so the whole path from callback to
+ * cache invalidation and stream push runs without a public URL or network access.
+ * Disabled unless {@code webhook.mock.enabled} is set.
+ */
+@Service
+public class MockWebhookEmitter {
+    private static final Logger logger = LoggerFactory.getLogger(MockWebhookEmitter.class);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Value("${webhook.mock.enabled:false}")
+    private boolean enabled;
+
+    @Value("${webhook.mock.target-url:http://localhost:${server.port:8080}/api/webhooks/blockcypher}")
+    private String targetUrl;
+
+    @Value("${webhook.secret:}")
+    private String secret;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Emits a transaction event.
+     *
+     * @param event         {@code unconfirmed-tx} or {@code confirmed-tx}
+     * @param txid          Transaction hash, or null for a random one
+     * @param addresses     Addresses the transaction touches
+     * @param confirmations Confirmations to report
+     * @param blockHeight   Block of the transaction, -1 while unconfirmed
+     * @return HTTP status returned by the receiver
+     */
+    public CompletableFuture<Integer> emitTransaction(String event, String txid, List<String> addresses,
+                                                      int confirmations, long blockHeight) {
+        JsonObject tx = new JsonObject();
+        tx.addProperty("hash", txid != null ? txid : randomHash());
+        tx.addProperty("block_height", blockHeight);
+        tx.addProperty("confirmations", confirmations);
+        JsonArray list = new JsonArray();
+        addresses.forEach(list::add);
+        tx.add("addresses", list);
+        return post(event, tx);
+    }
+
+    /**
+     * Emits a {@code new-block} event.
+     *
+     * @param height Height of the new tip
+     * @return HTTP status returned by the receiver
+     */
+    public CompletableFuture<Integer> emitNewBlock(long height) {
+        JsonObject block = new JsonObject();
+        block.addProperty("hash", randomHash());
+        block.addProperty("height", height);
+        return post(WebhookSubscriptionManager.NEW_BLOCK, block);
+    }
+
+    private CompletableFuture<Integer> post(String event, JsonObject payload) {
+        if (!enabled) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Mock webhooks are disabled"));
+        }
+        String url = secret.isEmpty() ? targetUrl
+                : targetUrl + "?secret=" + URLEncoder.encode(secret, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header("X-EventType", event)
+                .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
+                .build();
+        logger.debug("Emitting mock {} webhook: {}", event, payload);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    private static String randomHash() {
+        byte[] hash = new byte[32];
+        ThreadLocalRandom.current().nextBytes(hash);
+        return HexFormat.of().formatHex(hash);
+    }
+}
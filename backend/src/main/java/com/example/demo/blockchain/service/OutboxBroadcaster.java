@@ -0,0 +1,424 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.OutboxEntry;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.store.TransactionOutbox;
+import com.example.demo.blockchain.tx.PreparedTransaction;
+import com.example.demo.blockchain.util.Futures;
+import com.example.demo.blockchain.util.HttpStatusException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous send pipeline behind {@code /api/send}.
+ * A payment is signed on the request thread, written to the {@link TransactionOutbox} and
+ * its inputs marked spent; the caller gets the entry back at once. Workers then broadcast
+ * it, retrying provider and network failures with exponential backoff up to
+ * {@code send.outbox.max-attempts}, and a tracker follows its confirmations up to
+ * {@code bitcoin.confirmations.required}. When the network rejects a payment, or it runs
+ * out of attempts, its txid is looked up first: a payment the network already has counts as
+ * broadcast, one it does not have is marked failed and its inputs are released, and while
+ * no provider can tell, the inputs stay spent and the payment keeps being retried.
+ * Requests carrying an idempotency key are accepted once; retries with the same key get
+ * the original entry back.
+ */
+@Service
+public class OutboxBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxBroadcaster.class);
+
+    private final TransactionService transactionService;
+    private final UtxoIndexService utxoIndex;
+    private final BlockchainAPI blockchainAPI;
+    private final TransactionOutbox outbox;
+    private final LocalMempool mempool;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService workers;
+    // Entries handed to a worker, so a slow attempt is not dispatched twice
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Idempotency keys of requests still being signed
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping;
+
+    @Value("${bitcoin.confirmations.required:1}")
+    private int requiredConfirmations;
+
+    @Value("${send.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${send.outbox.retry-base-delay-ms:2000}")
+    private long retryBaseDelayMs;
+
+    @Value("${send.outbox.retry-max-delay-ms:300000}")
+    private long retryMaxDelayMs;
+
+    @Autowired
+    public OutboxBroadcaster(TransactionService transactionService, UtxoIndexService utxoIndex,
+                             BlockchainAPI blockchainAPI, TransactionOutbox outbox, LocalMempool mempool,
+                             @Value("${send.outbox.workers:2}") int workerThreads,
+                             MeterRegistry meterRegistry) {
+        this.transactionService = transactionService;
+        this.utxoIndex = utxoIndex;
+        this.blockchainAPI = blockchainAPI;
+        this.outbox = outbox;
+        this.mempool = mempool;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "send-outbox-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("send.outbox.pending", outbox, TransactionOutbox::pendingCount)
+                .description("Accepted payments not yet confirmed or failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Re-applies the spends of unfinished entries, in case the process stopped between
+     * writing an entry and updating the UTXO index, and puts broadcast ones back into the
+     * local mempool view so their change stays spendable.
+     */
+    @PostConstruct
+    public void recover() {
+        // Broadcast first, so queued children find their parents in the view
+        for (OutboxEntry.Status status : List.of(OutboxEntry.Status.BROADCAST, OutboxEntry.Status.QUEUED)) {
+            for (OutboxEntry entry : outbox.inStatus(status)) {
+                utxoIndex.markSpent(entry.getFromAddress(), entry.getInputs());
+                if (status == OutboxEntry.Status.BROADCAST && entry.getOutputs() != null) {
+                    mempool.record(entry.getTxId(), entry.getFromAddress(), entry.getInputs(), entry.getOutputs());
+                } else {
+                    mempool.markSpent(entry.getInputs());
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets running attempts record their outcome before the outbox closes. Attempts not
+     * started yet are skipped; their entries stay queued and resume on the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                // Interrupted broadcasts are recorded as retries and looked up on the next start
+                workers.shutdownNow();
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Signs a payment and queues it for broadcast.
+     *
+     * @param idempotencyKey Client-chosen key making retries safe, or null
+     * @param fromAddress    The sender's Bitcoin address
+     * @param toAddress      The recipient's Bitcoin address
+     * @param amount         The amount to send in satoshis
+     * @param privateKeyWif  The sender's private key
+     * @return The outbox entry, new or (for a repeated key) the original one
+     * @throws IllegalStateException if the key belongs to a different payment or to a
+     *                               request still in progress
+     */
+    public OutboxEntry submit(String idempotencyKey, String fromAddress, String toAddress, long amount,
+                              String privateKeyWif) throws Exception {
+        String fingerprint = fingerprint(fromAddress, toAddress, amount);
+        if (idempotencyKey != null) {
+            OutboxEntry existing = replay(idempotencyKey, fingerprint);
+            if (existing != null) {
+                return existing;
+            }
+            if (!pendingKeys.add(idempotencyKey)) {
+                throw new IllegalStateException("A request with this idempotency key is still in progress");
+            }
+        }
+        try {
+            if (idempotencyKey != null) {
+                // The request holding the key may have finished just before we took it
+                OutboxEntry existing = replay(idempotencyKey, fingerprint);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+
+            PreparedTransaction prepared = transactionService.prepareTransfer(fromAddress, toAddress, amount,
+                    privateKeyWif);
+            try {
+                OutboxEntry entry = new OutboxEntry();
+                entry.setId(UUID.randomUUID().toString());
+                entry.setIdempotencyKey(idempotencyKey);
+                entry.setFingerprint(fingerprint);
+                entry.setFromAddress(fromAddress);
+                entry.setToAddress(toAddress);
+                entry.setAmount(amount);
+                entry.setFee(prepared.getFee());
+                entry.setTxId(prepared.getSigned().getTxId());
+                entry.setRawHex(prepared.getSigned().getRawHex());
+                entry.setInputs(prepared.getInputs());
+                entry.setOutputs(prepared.getOutputs());
+                entry.setAffectedAddresses(prepared.getAffectedAddresses());
+                entry.setStatus(OutboxEntry.Status.QUEUED);
+
+                // Durable first: a crash after this point leaves an entry that recover() resumes
+                OutboxEntry saved = outbox.insert(entry);
+                utxoIndex.markSpent(fromAddress, prepared.getInputs());
+                mempool.markSpent(prepared.getInputs());
+                transitioned(OutboxEntry.Status.QUEUED);
+                logger.info("Queued payment {} ({}) from {} to {} for {} satoshis",
+                        saved.getId(), saved.getTxId(), fromAddress, toAddress, amount);
+                dispatch(saved.getId());
+                return saved;
+            } finally {
+                // The spend is in the UTXO index now (or nothing was queued), so the claim can go
+                prepared.releaseInputs();
+            }
+        } finally {
+            if (idempotencyKey != null) {
+                pendingKeys.remove(idempotencyKey);
+            }
+        }
+    }
+
+    /**
+     * Current state of an accepted payment.
+     *
+     * @param id Entry id returned by {@link #submit}
+     * @return The entry, or null if unknown
+     */
+    public OutboxEntry get(String id) {
+        return outbox.get(id);
+    }
+
+    public int getRequiredConfirmations() {
+        return requiredConfirmations;
+    }
+
+    /**
+     * Hands queued entries whose retry time has come to the workers.
+     */
+    @Scheduled(fixedDelayString = "${send.outbox.poll-ms:1000}")
+    public void dispatchDue() {
+        long now = System.currentTimeMillis();
+        for (OutboxEntry entry : outbox.inStatus(OutboxEntry.Status.QUEUED)) {
+            if (entry.getNextAttemptAt() <= now) {
+                dispatch(entry.getId());
+            }
+        }
+    }
+
+    /**
+     * Updates confirmation counts of broadcast entries from their senders' transaction
+     * history, one provider lookup per sender.
+     */
+    @Scheduled(fixedDelayString = "${send.outbox.confirm-poll-ms:30000}")
+    public void trackConfirmations() {
+        Map<String, List<OutboxEntry>> bySender = new LinkedHashMap<>();
+        for (OutboxEntry entry : outbox.inStatus(OutboxEntry.Status.BROADCAST)) {
+            bySender.computeIfAbsent(entry.getFromAddress(), address -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<String, List<OutboxEntry>> sender : bySender.entrySet()) {
+            try {
+                Map<String, Integer> confirmations = new HashMap<>();
+                for (Transaction tx : Futures.await(blockchainAPI.getTransactionHistoryAsync(sender.getKey()))) {
+                    if (tx.getTxid() != null) {
+                        confirmations.put(tx.getTxid(), tx.getConfirmations());
+                    }
+                }
+                for (OutboxEntry entry : sender.getValue()) {
+                    Integer seen = confirmations.get(entry.getTxId());
+                    if (seen != null && seen != entry.getConfirmations()) {
+                        recordConfirmations(entry.getId(), seen);
+                    }
+                }
+            } catch (Exception e) {
+                logger.debug("Confirmation tracking failed for {}: {}", sender.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void recordConfirmations(String id, int confirmations) throws Exception {
+        boolean confirmed = confirmations >= requiredConfirmations;
+        outbox.update(id, entry -> {
+            entry.setConfirmations(confirmations);
+            if (confirmed) {
+                entry.setStatus(OutboxEntry.Status.CONFIRMED);
+                entry.setConfirmedAt(System.currentTimeMillis());
+            }
+        });
+        if (confirmed) {
+            transitioned(OutboxEntry.Status.CONFIRMED);
+            logger.info("Payment {} confirmed with {} confirmations", id, confirmations);
+        }
+    }
+
+    private void dispatch(String id) {
+        if (!inFlight.add(id)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    attempt(id);
+                } finally {
+                    inFlight.remove(id);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Shutting down; the entry stays queued
+            inFlight.remove(id);
+        }
+    }
+
+    private void attempt(String id) {
+        OutboxEntry entry = outbox.get(id);
+        if (stopping || entry == null || entry.getStatus() != OutboxEntry.Status.QUEUED) {
+            return;
+        }
+        int attempts = entry.getAttempts() + 1;
+        try {
+            try {
+                String txId = blockchainAPI.broadcastTransaction(entry.getRawHex(), entry.getAffectedAddresses());
+                markBroadcast(entry, attempts, txId, null);
+            } catch (Exception e) {
+                Throwable cause = Futures.unwrap(e);
+                HttpStatusException rejection = httpStatus(cause);
+                String message = String.valueOf(cause.getMessage());
+                boolean rejected = rejection != null && !rejection.isProviderFault();
+                if (!rejected && attempts < maxAttempts) {
+                    scheduleRetry(id, attempts, retryDelay(attempts), message);
+                    return;
+                }
+                // A rejection may only mean an earlier attempt got through and its answer was lost
+                Boolean known = lookUp(entry.getTxId());
+                if (Boolean.TRUE.equals(known)) {
+                    markBroadcast(entry, attempts, entry.getTxId(), message);
+                } else if (Boolean.FALSE.equals(known)) {
+                    markFailed(entry, attempts, message);
+                } else {
+                    // Outcome unknown: the inputs stay spent and the same transaction is offered again
+                    scheduleRetry(id, attempts, retryMaxDelayMs, message);
+                }
+            }
+        } catch (Exception e) {
+            // Writing the outbox failed; the entry keeps its last durable state and is retried
+            logger.error("Could not record broadcast attempt for payment {}", id, e);
+        }
+    }
+
+    /**
+     * Whether the providers know a transaction, or null if none could tell.
+     */
+    private Boolean lookUp(String txId) {
+        try {
+            return Futures.await(blockchainAPI.isTransactionKnownAsync(txId));
+        } catch (Exception e) {
+            logger.warn("Could not look up transaction {}: {}", txId, Futures.unwrap(e).getMessage());
+            return null;
+        }
+    }
+
+    private long retryDelay(int attempts) {
+        return Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempts - 1, 20));
+    }
+
+    private void scheduleRetry(String id, int attempts, long delay, String message) throws Exception {
+        outbox.update(id, retry -> {
+            retry.setAttempts(attempts);
+            retry.setLastError(message);
+            retry.setNextAttemptAt(System.currentTimeMillis() + delay);
+        });
+        logger.info("Broadcast of payment {} failed (attempt {}), retrying in {} ms: {}", id, attempts, delay, message);
+    }
+
+    /**
+     * Gives up on a payment the network does not have, releasing its inputs.
+     */
+    private void markFailed(OutboxEntry entry, int attempts, String message) throws Exception {
+        outbox.update(entry.getId(), failed -> {
+            failed.setStatus(OutboxEntry.Status.FAILED);
+            failed.setAttempts(attempts);
+            failed.setLastError(message);
+        });
+        utxoIndex.releaseSpent(entry.getFromAddress(), entry.getInputs());
+        mempool.releaseSpent(entry.getInputs());
+        transitioned(OutboxEntry.Status.FAILED);
+        logger.warn("Payment {} failed after {} attempts: {}", entry.getId(), attempts, message);
+    }
+
+    private void markBroadcast(OutboxEntry queued, int attempts, String txId, String note) throws Exception {
+        String id = queued.getId();
+        outbox.update(id, entry -> {
+            entry.setStatus(OutboxEntry.Status.BROADCAST);
+            entry.setAttempts(attempts);
+            entry.setTxId(txId);
+            entry.setBroadcastAt(System.currentTimeMillis());
+            entry.setLastError(note);
+        });
+        // The signed txid, which the change outpoints are built from
+        mempool.record(queued.getTxId(), queued.getFromAddress(), queued.getInputs(), queued.getOutputs());
+        transitioned(OutboxEntry.Status.BROADCAST);
+        logger.info("Payment {} broadcast as {}", id, txId);
+    }
+
+    private OutboxEntry replay(String idempotencyKey, String fingerprint) {
+        OutboxEntry existing = outbox.findByIdempotencyKey(idempotencyKey);
+        if (existing != null && !existing.getFingerprint().equals(fingerprint)) {
+            throw new IllegalStateException("Idempotency key was already used for a different payment");
+        }
+        return existing;
+    }
+
+    private void transitioned(OutboxEntry.Status status) {
+        meterRegistry.counter("send.outbox.transitions", "status", status.name().toLowerCase(Locale.ROOT)).increment();
+    }
+
+    private static HttpStatusException httpStatus(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof HttpStatusException) {
+                return (HttpStatusException) current;
+            }
+        }
+        return null;
+    }
+
+    private static String fingerprint(String fromAddress, String toAddress, long amount) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((fromAddress + "|" + toAddress + "|" + amount).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.model.BatchedPayment;
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.tx.TransactionBuilder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in payment batching. Sends from the same address are held for up to
+ * {@code payment.batching.window-ms} or until {@code payment.batching.max-payments} have
+ * queued, then paid in one multi-output transaction, sharing inputs, change and fee.
+ * Each caller's future completes with the shared txid and the index of its own output.
+ * Window timers only close batches; the blocking sends run on up to
+ * {@code payment.batching.send-threads} sender threads, so a slow send never delays other
+ * batches. Concurrent batches never spend the same UTXOs because sends reserve their inputs.
+ */
+@Service
+public class PaymentBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentBatcher.class);
+
+    private final TransactionService transactionService;
+    private final TransactionBuilder transactionBuilder;
+    private final KeyService keyService;
+    private final FeeCalculator feeCalculator;
+    private final FeeRateOracle feeRateOracle;
+    private final ConcurrentMap<String, PendingBatch> batches = new ConcurrentHashMap<>();
+    // Only closes batches when their window ends; sending blocks on the network and runs on sender
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService sender;
+    private final DistributionSummary batchSizes;
+
+    @Value("${payment.batching.enabled:false}")
+    private boolean enabled;
+
+    @Value("${payment.batching.window-ms:2000}")
+    private long windowMs;
+
+    @Value("${payment.batching.max-payments:100}")
+    private int maxPayments;
+
+    @Autowired
+    public PaymentBatcher(TransactionService transactionService, TransactionBuilder transactionBuilder,
+                          KeyService keyService, FeeCalculator feeCalculator, FeeRateOracle feeRateOracle,
+                          MeterRegistry meterRegistry,
+                          @Value("${payment.batching.send-threads:4}") int sendThreads) {
+        this.transactionService = transactionService;
+        this.transactionBuilder = transactionBuilder;
+        this.keyService = keyService;
+        this.feeCalculator = feeCalculator;
+        this.feeRateOracle = feeRateOracle;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(Math.max(1, sendThreads), runnable -> {
+            Thread thread = new Thread(runnable, "payment-batch-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSizes = DistributionSummary.builder("blockchain.payments.batch.size")
+                .description("Payments per batched transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether batching is switched on with {@code payment.batching.enabled}.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a payment for the next batch from {@code fromAddress}.
+     *
+     * @param fromAddress   The sender's Bitcoin address
+     * @param toAddress     The recipient's Bitcoin address
+     * @param amount        The amount to send in satoshis
+     * @param privateKeyWif The sender's private key, checked against {@code fromAddress} before queuing
+     * @return Future completing once the batch is broadcast
+     * @throws IllegalArgumentException for invalid addresses or keys, amounts below the dust threshold,
+     *                                  or when batching is disabled
+     */
+    public CompletableFuture<BatchedPayment> submit(String fromAddress, String toAddress, long amount,
+                                                    String privateKeyWif) {
+        if (!enabled) {
+            throw new IllegalArgumentException("Payment batching is disabled");
+        }
+        if (!keyService.isValidAddress(fromAddress) || !keyService.isValidAddress(toAddress)) {
+            throw new IllegalArgumentException("Invalid Bitcoin address format");
+        }
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than 0");
+        }
+        // A dust output would make the whole batch fail for every other caller in it
+        long dustThreshold = feeCalculator.calculateDustThreshold(keyService.scriptTypeOf(toAddress),
+                feeRateOracle.getFeeRate());
+        if (amount < dustThreshold) {
+            throw new IllegalArgumentException("Amount must be at least the dust threshold of "
+                    + dustThreshold + " satoshis");
+        }
+        // Every caller proves control of the address; the batch then signs with the first caller's key
+        transactionBuilder.verifyKey(keyService.decodeKey(privateKeyWif), fromAddress);
+
+        PendingPayment payment = new PendingPayment(new TxOutput(toAddress, amount));
+        while (true) {
+            PendingBatch batch = batches.computeIfAbsent(fromAddress, address -> open(address, privateKeyWif));
+            synchronized (batch) {
+                if (batch.closed) {
+                    // Lost a race with a flush; start or join the next batch
+                    continue;
+                }
+                batch.payments.add(payment);
+                if (batch.payments.size() >= maxPayments) {
+                    close(batch);
+                    sender.execute(() -> flush(batch));
+                }
+            }
+            return payment.future;
+        }
+    }
+
+    /**
+     * Broadcasts everything still queued before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (PendingBatch batch : batches.values()) {
+            if (closeIfOpen(batch)) {
+                sender.execute(() -> flush(batch));
+            }
+        }
+        // Every batch is closed, so the pending window timers have nothing left to do
+        scheduler.shutdownNow();
+        try {
+            // A timer that already closed its batch still hands it to the sender
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            sender.shutdown();
+            sender.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PendingBatch open(String fromAddress, String privateKeyWif) {
+        PendingBatch batch = new PendingBatch(fromAddress, privateKeyWif);
+        scheduler.schedule(() -> {
+            if (closeIfOpen(batch)) {
+                sender.execute(() -> flush(batch));
+            }
+        }, windowMs, TimeUnit.MILLISECONDS);
+        return batch;
+    }
+
+    private boolean closeIfOpen(PendingBatch batch) {
+        synchronized (batch) {
+            if (batch.closed) {
+                return false;
+            }
+            close(batch);
+            return true;
+        }
+    }
+
+    private void close(PendingBatch batch) {
+        batch.closed = true;
+        batches.remove(batch.fromAddress, batch);
+    }
+
+    private void flush(PendingBatch batch) {
+        List<PendingPayment> payments = batch.payments;
+        List<TxOutput> outputs = new ArrayList<>(payments.size());
+        payments.forEach(payment -> outputs.add(payment.output));
+        try {
+            String txId = transactionService.sendBatch(batch.fromAddress, outputs, batch.privateKeyWif);
+            batchSizes.record(payments.size());
+            for (int i = 0; i < payments.size(); i++) {
+                payments.get(i).future.complete(new BatchedPayment(txId, i, payments.size()));
+            }
+        } catch (Exception e) {
+            logger.error("Batch of {} payments from {} failed: {}", payments.size(), batch.fromAddress, e.getMessage());
+            payments.forEach(payment -> payment.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Payments waiting to be sent from one address. Closed batches accept no more payments.
+     */
+    private static class PendingBatch {
+        final String fromAddress;
+        final String privateKeyWif;
+        final List<PendingPayment> payments = new ArrayList<>();
+        boolean closed;
+
+        PendingBatch(String fromAddress, String privateKeyWif) {
+            this.fromAddress = fromAddress;
+            this.privateKeyWif = privateKeyWif;
+        }
+    }
+
+    private static class PendingPayment {
+        final TxOutput output;
+        final CompletableFuture<BatchedPayment> future = new CompletableFuture<>();
+
+        PendingPayment(TxOutput output) {
+            this.output = output;
+        }
+    }
+}
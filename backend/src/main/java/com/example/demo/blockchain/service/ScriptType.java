@@ -0,0 +1,73 @@
+package com.example.demo.blockchain.service;
+
+import org.bitcoinj.script.Script;
+
+/**
+ * Output script types the wallet pays to and spends from, with their size in weight units.
+ * Input weights assume a 72-byte DER signature plus sighash flag and a 33-byte compressed key,
+ * the same worst case as the legacy 148-byte P2PKH input; taproot inputs are key-path spends
+ * with a 64-byte Schnorr signature. Witness bytes count once, everything else four times.
+ */
+public enum ScriptType {
+    // outpoint 36 + scriptSig len 1 + scriptSig 107 + sequence 4 = 148 bytes
+    P2PKH(148 * 4, 0, (8 + 1 + 25) * 4),
+    // 41 bytes + 23-byte redeem script push; witness: count 1 + sig 73 + key 34
+    P2SH_P2WPKH(64 * 4, 108, (8 + 1 + 23) * 4),
+    // 41 bytes with an empty scriptSig; witness as above
+    P2WPKH(41 * 4, 108, (8 + 1 + 22) * 4),
+    // 41 bytes; witness: count 1 + signature 65
+    P2TR(41 * 4, 66, (8 + 1 + 34) * 4);
+
+    private final int inputWeight;
+    private final int outputWeight;
+    private final boolean segwit;
+
+    ScriptType(int inputBaseWeight, int inputWitnessSize, int outputWeight) {
+        this.inputWeight = inputBaseWeight + inputWitnessSize;
+        this.outputWeight = outputWeight;
+        this.segwit = inputWitnessSize > 0;
+    }
+
+    /**
+     * Weight units added by spending one output of this type.
+     */
+    public int getInputWeight() {
+        return inputWeight;
+    }
+
+    /**
+     * Weight units added by creating one output of this type.
+     */
+    public int getOutputWeight() {
+        return outputWeight;
+    }
+
+    /**
+     * Whether spending this type carries witness data, which adds the segwit marker and flag.
+     */
+    public boolean isSegwit() {
+        return segwit;
+    }
+
+    /**
+     * Maps a bitcoinj output script type to the closest sized type.
+     * P2SH is assumed to wrap P2WPKH, and P2WSH outputs are sized like P2TR since both
+     * carry a 32-byte witness program.
+     *
+     * @param scriptType The bitcoinj script type
+     * @return The matching type
+     */
+    public static ScriptType of(Script.ScriptType scriptType) {
+        switch (scriptType) {
+            case P2SH:
+                return P2SH_P2WPKH;
+            case P2WPKH:
+                return P2WPKH;
+            case P2WSH:
+            case P2TR:
+                return P2TR;
+            default:
+                return P2PKH;
+        }
+    }
+}
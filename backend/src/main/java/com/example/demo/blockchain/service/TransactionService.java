@@ -1,18 +1,28 @@
 package com.example.demo.blockchain.service;
 
 import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.AddressBalance;
+import com.example.demo.blockchain.model.BatchResult;
 import com.example.demo.blockchain.model.Transaction;
 import com.example.demo.blockchain.model.TxInput;
 import com.example.demo.blockchain.model.TxOutput;
 import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import com.example.demo.blockchain.selection.CoinSelectionEngine;
+import com.example.demo.blockchain.selection.SelectionResult;
+import com.example.demo.blockchain.tx.PreparedTransaction;
+import com.example.demo.blockchain.tx.SignedTransaction;
+import com.example.demo.blockchain.tx.TransactionBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -22,16 +32,33 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionService {
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
+    // Selection rounds before giving up on claiming inputs that concurrent sends keep taking
+    private static final int MAX_RESERVATION_ATTEMPTS = 5;
 
     private final BlockchainAPI blockchainAPI;
     private final FeeCalculator feeCalculator;
     private final KeyService keyService;
+    private final UtxoIndexService utxoIndex;
+    private final CoinSelectionEngine coinSelectionEngine;
+    private final TransactionBuilder transactionBuilder;
+    private final FeeRateOracle feeRateOracle;
+    private final UtxoReservationTable reservations;
+    private final LocalMempool mempool;
 
     @Autowired
-    public TransactionService(BlockchainAPI blockchainAPI, FeeCalculator feeCalculator, KeyService keyService) {
+    public TransactionService(BlockchainAPI blockchainAPI, FeeCalculator feeCalculator, KeyService keyService,
+                              UtxoIndexService utxoIndex, CoinSelectionEngine coinSelectionEngine,
+                              TransactionBuilder transactionBuilder, FeeRateOracle feeRateOracle,
+                              UtxoReservationTable reservations, LocalMempool mempool) {
         this.blockchainAPI = blockchainAPI;
         this.feeCalculator = feeCalculator;
         this.keyService = keyService;
+        this.utxoIndex = utxoIndex;
+        this.coinSelectionEngine = coinSelectionEngine;
+        this.transactionBuilder = transactionBuilder;
+        this.feeRateOracle = feeRateOracle;
+        this.reservations = reservations;
+        this.mempool = mempool;
     }
 
     /**
@@ -45,6 +72,36 @@ public class TransactionService {
      * @return The transaction ID (txId)
      */
     public String sendBitcoin(String fromAddress, String toAddress, long amount, String privateKeyWif) throws Exception {
+        PreparedTransaction prepared = prepareTransfer(fromAddress, toAddress, amount, privateKeyWif);
+
+        try {
+            // Step 7: Broadcast transaction
+            String txId = blockchainAPI.broadcastTransaction(prepared.getSigned().getRawHex(),
+                    prepared.getAffectedAddresses());
+
+            logger.info("Transaction broadcast successfully with ID: {}", txId);
+            utxoIndex.markSpent(fromAddress, prepared.getInputs());
+            mempool.record(prepared.getSigned().getTxId(), fromAddress, prepared.getInputs(), prepared.getOutputs());
+            return txId;
+        } finally {
+            // Spent inputs have left the index by now; after a failure they are free again
+            prepared.releaseInputs();
+        }
+    }
+
+    /**
+     * Selects inputs for a payment and signs the transaction, without broadcasting it.
+     * The inputs are reserved against concurrent sends but not marked spent; the caller does
+     * that once the transaction is committed to, then releases the reservation.
+     *
+     * @param fromAddress    The sender's Bitcoin address
+     * @param toAddress      The recipient's Bitcoin address
+     * @param amount         The amount to send in satoshis
+     * @param privateKeyWif  The sender's private key
+     * @return The signed transaction with the UTXOs it spends
+     */
+    public PreparedTransaction prepareTransfer(String fromAddress, String toAddress, long amount,
+                                               String privateKeyWif) throws Exception {
         logger.info("Starting Bitcoin transfer from {} to {} for {} satoshis", fromAddress, toAddress, amount);
 
         // Validate addresses
@@ -55,49 +112,51 @@ public class TransactionService {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be greater than 0");
         }
+        requireKeyFor(fromAddress, privateKeyWif);
 
-        // Step 1: Set fee rate (5 sat/byte for testnet)
-        long feeRate = 5;
+        // Step 1: Current fee rate for the default confirmation target
+        long feeRate = feeRateOracle.getFeeRate();
         logger.info("Fee rate: {} sat/byte", feeRate);
 
-        // Step 2: Fetch UTXOs for the sender
-        List<UTXO> availableUTXOs = blockchainAPI.getUTXOs(fromAddress);
+        // Step 2: Read the sender's UTXOs from the local index (synced incrementally),
+        // plus unconfirmed change of our own pending sends
+        UtxoSet availableUTXOs = spendableUtxos(fromAddress);
         logger.info("Available UTXOs: {}", availableUTXOs.size());
 
         if (availableUTXOs.isEmpty()) {
             throw new RuntimeException("No UTXOs available at address: " + fromAddress);
         }
 
-        // Step 3: Select UTXOs using coin selection algorithm
-        long estimatedFee = feeCalculator.calculateFee(1, 2, feeRate);
-        CoinSelectionResult coinSelection = selectCoins(availableUTXOs, amount, estimatedFee, feeRate);
+        // Step 3: Select UTXOs, minimising waste across the configured strategies, and reserve them
+        ScriptType inputType = keyService.scriptTypeOf(fromAddress);
+        ScriptType recipientType = keyService.scriptTypeOf(toAddress);
+        ReservedSelection reserved = selectAndReserve(availableUTXOs,
+                utxos -> selectCoins(utxos, amount, inputType, recipientType, feeRate));
 
-        if (coinSelection == null) {
-            throw new RuntimeException("Insufficient funds: need " + (amount + estimatedFee) + 
-                    " satoshis but only have " + getTotalUTXOValue(availableUTXOs));
+        if (reserved == null) {
+            throw new RuntimeException("Insufficient funds: need at least " +
+                    (amount + feeCalculator.calculateFee(inputType, 1, recipientType, 1, feeRate)) +
+                    " satoshis but only have " + availableUTXOs.totalValue() + " not reserved by other sends");
         }
+        SelectionResult coinSelection = reserved.selection;
 
-        logger.info("Selected {} UTXOs for transaction", coinSelection.selectedUTXOs.size());
+        logger.info("Selected {} UTXOs for transaction using {} (waste {} satoshis)",
+                coinSelection.getSelected().size(), coinSelection.getStrategy(), coinSelection.getWaste());
 
         // Step 4: Create transaction inputs and outputs
-        List<TxInput> inputs = createTransactionInputs(coinSelection.selectedUTXOs);
+        List<TxInput> inputs = createTransactionInputs(coinSelection.getSelected());
         List<TxOutput> outputs = new ArrayList<>();
 
         // Output to recipient
         outputs.add(new TxOutput(toAddress, amount));
 
-        // Calculate change
-        long inputTotal = coinSelection.selectedUTXOs.stream().mapToLong(UTXO::getAmount).sum();
-        long actualFee = feeCalculator.calculateFee(inputs.size(), outputs.size() + 1, feeRate);
-        long change = inputTotal - amount - actualFee;
-
-        // Only add change output if it's above dust threshold
-        if (change > feeCalculator.calculateDustThreshold(feeRate)) {
-            outputs.add(new TxOutput(fromAddress, change));
-            logger.info("Adding change output: {} satoshis", change);
+        // Change output only when the selection left more than dust
+        long actualFee = coinSelection.getFee();
+        if (coinSelection.hasChange()) {
+            outputs.add(new TxOutput(fromAddress, coinSelection.getChange()));
+            logger.info("Adding change output: {} satoshis", coinSelection.getChange());
         } else {
-            actualFee = inputTotal - amount;
-            logger.info("Change amount below dust threshold, skipping change output");
+            logger.info("Changeless selection, excess goes to the fee");
         }
 
         // Step 5: Create and populate transaction
@@ -110,19 +169,156 @@ public class TransactionService {
         logger.info("Transaction created - Inputs: {}, Outputs: {}, Fee: {} satoshis",
                 inputs.size(), outputs.size(), actualFee);
 
-        // Step 6: Sign transaction (placeholder - actual signing would use BitcoinJ)
-        String signature = keyService.signMessage(tx.toString(), privateKeyWif);
-        logger.debug("Transaction signed with signature: {}", signature);
+        // Step 6: Sign every input with the sender's key
+        SignedTransaction signed;
+        try {
+            signed = transactionBuilder.buildAndSign(coinSelection.getSelected(), outputs,
+                    keyService.decodeKey(privateKeyWif), fromAddress);
+        } catch (RuntimeException e) {
+            reserved.claim.release();
+            throw e;
+        }
+        logger.debug("Transaction signed: {}", signed);
+
+        return new PreparedTransaction(fromAddress, signed, coinSelection.getSelected(), outputs, actualFee,
+                reserved.claim);
+    }
+
+    /**
+     * Pays several recipients from one address in a single transaction.
+     * Payment outputs keep the order of {@code payments}; change, if any, comes last.
+     *
+     * @param fromAddress   The sender's Bitcoin address
+     * @param payments      Recipient outputs
+     * @param privateKeyWif The sender's private key
+     * @return The transaction ID (txId)
+     */
+    public String sendBatch(String fromAddress, List<TxOutput> payments, String privateKeyWif) throws Exception {
+        long total = payments.stream().mapToLong(TxOutput::getValue).sum();
+        logger.info("Sending batch of {} payments from {} totalling {} satoshis", payments.size(), fromAddress, total);
+
+        requireKeyFor(fromAddress, privateKeyWif);
+        long feeRate = feeRateOracle.getFeeRate();
+        UtxoSet availableUTXOs = spendableUtxos(fromAddress);
+        List<ScriptType> recipientTypes = payments.stream()
+                .map(payment -> keyService.scriptTypeOf(payment.getAddress()))
+                .collect(Collectors.toList());
+        ScriptType inputType = keyService.scriptTypeOf(fromAddress);
+        ReservedSelection reserved = selectAndReserve(availableUTXOs,
+                utxos -> coinSelectionEngine.select(utxos, total, inputType, recipientTypes, feeRate));
+        if (reserved == null) {
+            throw new RuntimeException("Insufficient funds: need more than " + total +
+                    " satoshis but only have " + availableUTXOs.totalValue() + " not reserved by other sends");
+        }
+        SelectionResult selection = reserved.selection;
 
-        // Step 7: Broadcast transaction
-        String rawTransaction = buildRawTransaction(tx);
-        String txId = blockchainAPI.broadcastTransaction(rawTransaction);
+        try {
+            List<TxOutput> outputs = new ArrayList<>(payments);
+            if (selection.hasChange()) {
+                outputs.add(new TxOutput(fromAddress, selection.getChange()));
+            }
+            SignedTransaction signed = transactionBuilder.buildAndSign(selection.getSelected(), outputs,
+                    keyService.decodeKey(privateKeyWif), fromAddress);
+
+            List<String> affected = new ArrayList<>();
+            affected.add(fromAddress);
+            payments.forEach(payment -> affected.add(payment.getAddress()));
+            String txId = blockchainAPI.broadcastTransaction(signed.getRawHex(), affected);
+
+            logger.info("Batch transaction {} broadcast: {} inputs, {} outputs, fee {} satoshis",
+                    txId, selection.getSelected().size(), outputs.size(), selection.getFee());
+            utxoIndex.markSpent(fromAddress, selection.getSelected());
+            mempool.record(signed.getTxId(), fromAddress, selection.getSelected(), outputs);
+            return txId;
+        } finally {
+            reserved.claim.release();
+        }
+    }
 
-        logger.info("Transaction broadcast successfully with ID: {}", txId);
+    /**
+     * Sweeps the smallest UTXOs of an address into a single output.
+     * Large input sets are signed in parallel by the {@link TransactionBuilder}.
+     *
+     * @param fromAddress   Address whose UTXOs are consolidated
+     * @param toAddress     Destination of the merged output (usually {@code fromAddress})
+     * @param privateKeyWif Key controlling {@code fromAddress}
+     * @param maxInputs     Upper bound on the number of inputs spent
+     * @param feeRate       Fee rate in satoshis per byte
+     * @return The broadcast transaction
+     */
+    public Transaction consolidateUTXOs(String fromAddress, String toAddress, String privateKeyWif,
+                                        int maxInputs, long feeRate) throws Exception {
+        if (!keyService.isValidAddress(fromAddress) || !keyService.isValidAddress(toAddress)) {
+            throw new IllegalArgumentException("Invalid Bitcoin address format");
+        }
+        if (maxInputs <= 0) {
+            throw new IllegalArgumentException("maxInputs must be greater than 0");
+        }
+        requireKeyFor(fromAddress, privateKeyWif);
+
+        // Smallest first, skipping outputs that cost more to spend than they add in fee,
+        // including the varint growth once the input count passes 252
+        ScriptType inputType = keyService.scriptTypeOf(fromAddress);
+        ScriptType outputType = keyService.scriptTypeOf(toAddress);
+        // Only confirmed outputs: consolidation is never urgent enough to extend a chain
+        UtxoSet candidates = utxoIndex.getUtxoSet(fromAddress);
+        candidates.removeUnconfirmed();
+        mempool.excludeSpent(candidates);
+        reservations.excludeReserved(candidates);
+        candidates.sortByValueDescending();
+
+        FeeAccumulator size = new FeeAccumulator().addOutput(outputType);
+        int[] chosen = new int[Math.min(maxInputs, candidates.size())];
+        int count = 0;
+        long inputTotal = 0;
+        for (int i = candidates.size() - 1; i >= 0 && count < chosen.length; i--) {
+            long value = candidates.getValue(i);
+            long feeBefore = size.fee(feeRate);
+            if (value <= size.addInput(inputType).fee(feeRate) - feeBefore) {
+                size.removeInput(inputType);
+                continue;
+            }
+            chosen[count++] = i;
+            inputTotal += value;
+        }
+        if (count == 0) {
+            throw new RuntimeException("No UTXOs worth consolidating at address: " + fromAddress);
+        }
+        List<UTXO> selected = candidates.toUTXOs(chosen, count);
+
+        long fee = size.fee(feeRate);
+        long amount = inputTotal - fee;
+        if (amount < feeCalculator.calculateDustThreshold(outputType, feeRate)) {
+            throw new RuntimeException("Consolidated amount " + amount + " satoshis would be below the dust threshold");
+        }
+
+        UtxoReservationTable.Claim claim = reservations.tryClaim(selected);
+        if (claim == null) {
+            throw new IllegalStateException("UTXOs of " + fromAddress + " are being spent by another send, try again");
+        }
+
+        List<TxOutput> outputs = List.of(new TxOutput(toAddress, amount));
+        String txId;
+        try {
+            SignedTransaction signed = transactionBuilder.buildAndSign(selected, outputs,
+                    keyService.decodeKey(privateKeyWif), fromAddress);
+            logger.info("Consolidating {} UTXOs of {} into {} satoshis: {}", selected.size(), fromAddress, amount, signed);
+
+            txId = blockchainAPI.broadcastTransaction(signed.getRawHex(), List.of(fromAddress, toAddress));
+            utxoIndex.markSpent(fromAddress, selected);
+            mempool.record(signed.getTxId(), fromAddress, selected, outputs);
+        } finally {
+            claim.release();
+        }
+
+        Transaction tx = new Transaction();
         tx.setTxId(txId);
+        tx.setInputs(createTransactionInputs(selected));
+        tx.setOutputs(outputs);
+        tx.setAmount(amount);
+        tx.setFee(fee);
         tx.setStatus("broadcast");
-
-        return txId;
+        return tx;
     }
 
     /**
@@ -159,15 +355,117 @@ public class TransactionService {
     }
 
     /**
-     * Estimates the fee for a transaction.
+     * Fetches the balance of an address without blocking the calling thread.
+     *
+     * @param address The Bitcoin address
+     * @return Future completing with the balance in satoshis
+     */
+    public CompletableFuture<Long> getBalanceAsync(String address) {
+        logger.info("Fetching balance for address: {}", address);
+        return blockchainAPI.getBalanceAsync(address);
+    }
+
+    /**
+     * Fetches the balance of an address split into confirmed, unconfirmed and spendable
+     * funds, taking our own pending transactions into account.
+     *
+     * @param address The Bitcoin address
+     * @return Future completing with the balance breakdown
+     */
+    public CompletableFuture<AddressBalance> getAddressBalanceAsync(String address) {
+        logger.info("Fetching balance breakdown for address: {}", address);
+        return blockchainAPI.getUTXOsAsync(address).thenApply(utxos -> {
+            UtxoSet set = UtxoSet.of(address, utxos);
+            mempool.excludeSpent(set);
+            long confirmed = 0;
+            long unconfirmed = 0;
+            for (int i = 0; i < set.size(); i++) {
+                if (set.getConfirmations(i) > 0 || set.getBlockHeight(i) >= 0) {
+                    confirmed += set.getValue(i);
+                } else {
+                    unconfirmed += set.getValue(i);
+                }
+            }
+            for (UTXO change : mempool.pendingChange(set, false)) {
+                unconfirmed += change.getAmount();
+            }
+            // Our change stays spendable once the provider lists it among the unconfirmed outputs
+            UtxoSet settled = set.copy();
+            settled.removeUnconfirmed();
+            long spendableChange = 0;
+            for (UTXO change : mempool.pendingChange(settled, true)) {
+                spendableChange += change.getAmount();
+            }
+            return new AddressBalance(address, confirmed, unconfirmed, confirmed + spendableChange);
+        });
+    }
+
+    /**
+     * Fetches the UTXOs for an address without blocking the calling thread.
+     *
+     * @param address The Bitcoin address
+     * @return Future completing with the list of UTXOs
+     */
+    public CompletableFuture<List<UTXO>> getUTXOsAsync(String address) {
+        logger.info("Fetching UTXOs for address: {}", address);
+        return blockchainAPI.getUTXOsAsync(address);
+    }
+
+    /**
+     * Fetches transaction history for an address without blocking the calling thread.
+     *
+     * @param address The Bitcoin address
+     * @return Future completing with the list of transactions
+     */
+    public CompletableFuture<List<Transaction>> getTransactionHistoryAsync(String address) {
+        logger.info("Fetching transaction history for address: {}", address);
+        return blockchainAPI.getTransactionHistoryAsync(address);
+    }
+
+    /**
+     * Fetches balances for many addresses in batched provider calls.
+     *
+     * @param addresses The Bitcoin addresses
+     * @return Future completing with balances and per-address errors
+     */
+    public CompletableFuture<BatchResult<Long>> getBalancesAsync(Collection<String> addresses) {
+        logger.info("Fetching balances for {} addresses", addresses.size());
+        return blockchainAPI.getBalancesAsync(addresses);
+    }
+
+    /**
+     * Fetches UTXOs for many addresses in batched provider calls.
+     *
+     * @param addresses The Bitcoin addresses
+     * @return Future completing with UTXO lists and per-address errors
+     */
+    public CompletableFuture<BatchResult<List<UTXO>>> getUTXOsBatchAsync(Collection<String> addresses) {
+        logger.info("Fetching UTXOs for {} addresses", addresses.size());
+        return blockchainAPI.getUTXOsBatchAsync(addresses);
+    }
+
+    /**
+     * Estimates the fee for a transaction at the default confirmation target.
      *
      * @param inputs  Number of inputs
      * @param outputs Number of outputs
      * @return Estimated fee in satoshis
      */
-    public long estimateFee(int inputs, int outputs) throws Exception {
-        logger.info("Estimating fee for {} inputs and {} outputs", inputs, outputs);
-        return blockchainAPI.estimateFee(inputs, outputs);
+    public long estimateFee(int inputs, int outputs) {
+        return estimateFee(inputs, outputs, feeRateOracle.getDefaultTarget());
+    }
+
+    /**
+     * Estimates the fee for a transaction from the fee-rate snapshot, without a provider call.
+     *
+     * @param inputs             Number of inputs
+     * @param outputs            Number of outputs
+     * @param confirmationTarget Blocks until confirmation
+     * @return Estimated fee in satoshis
+     */
+    public long estimateFee(int inputs, int outputs, int confirmationTarget) {
+        logger.info("Estimating fee for {} inputs and {} outputs within {} blocks", inputs, outputs, confirmationTarget);
+        return feeCalculator.calculateFee(inputs, outputs, feeRateOracle.getFeeRate(confirmationTarget));
     }
 
     /**
@@ -183,138 +481,148 @@ public class TransactionService {
         if (!keyService.isValidPrivateKey(privateKeyWif)) {
             throw new Exception("Invalid private key");
         }
+        requireKeyFor(fromAddress, privateKeyWif);
 
         // Fetch UTXOs
-        List<UTXO> utxos = blockchainAPI.getUTXOs(fromAddress);
+        UtxoSet utxos = spendableUtxos(fromAddress);
         if (utxos.isEmpty()) {
             throw new Exception("No available UTXOs for address: " + fromAddress);
         }
 
-        // Select coins
-        long totalInput = 0;
-        for (UTXO utxo : utxos) {
-            totalInput += utxo.getAmount();
-            if (totalInput >= amount) {
-                break;
-            }
+        // Select and reserve coins
+        ScriptType inputType = keyService.scriptTypeOf(fromAddress);
+        ScriptType recipientType = keyService.scriptTypeOf(toAddress);
+        ReservedSelection reserved = selectAndReserve(utxos,
+                candidates -> selectCoins(candidates, amount, inputType, recipientType, feeRate));
+        if (reserved == null) {
+            throw new Exception("Insufficient funds. Need more than " + amount + " satoshis, Have: " +
+                    utxos.totalValue());
         }
+        SelectionResult selection = reserved.selection;
 
-        // Calculate fee
-        int inputs = 1;
-        int outputs = 2; // one for recipient, one for change
-        long fee = feeCalculator.calculateFee(inputs, outputs, feeRate);
+        try {
+            List<TxOutput> outputs = new ArrayList<>();
+            outputs.add(new TxOutput(toAddress, amount));
+            if (selection.hasChange()) {
+                outputs.add(new TxOutput(fromAddress, selection.getChange()));
+            }
 
-        // Check if we have enough
-        if (totalInput < amount + fee) {
-            throw new Exception("Insufficient funds. Need: " + (amount + fee) + " satoshis, Have: " + totalInput);
+            // Build and sign
+            SignedTransaction signed = transactionBuilder.buildAndSign(selection.getSelected(), outputs,
+                    keyService.decodeKey(privateKeyWif), fromAddress);
+
+            // Broadcast
+            String txId = blockchainAPI.broadcastTransaction(signed.getRawHex(), List.of(fromAddress, toAddress));
+            utxoIndex.markSpent(fromAddress, selection.getSelected());
+            mempool.record(signed.getTxId(), fromAddress, selection.getSelected(), outputs);
+            return txId;
+        } finally {
+            reserved.claim.release();
         }
-
-        // Calculate change
-        long change = totalInput - amount - fee;
-
-        // Build transaction (simplified)
-        String txHex = buildTransaction(fromAddress, toAddress, amount, change, privateKeyWif);
-
-        // Broadcast
-        return blockchainAPI.broadcastTransaction(txHex);
     }
 
     /**
-     * Build raw transaction
+     * Selects coins for a single-recipient payment with the {@link CoinSelectionEngine}.
+     *
+     * @param utxos        Available UTXOs
+     * @param targetAmount Amount to send
+     * @param feeRate      Current fee rate
+     * @return The lowest-waste selection, or null if insufficient
      */
-    private String buildTransaction(String fromAddress, String toAddress, long amount, 
-                                   long change, String privateKeyWif) {
-        // Simplified transaction building
-        // In production, use bitcoinj's Transaction class
-        return "0100000001..."; // Placeholder
+    public SelectionResult selectCoins(List<UTXO> utxos, long targetAmount, long feeRate) {
+        return coinSelectionEngine.select(utxos, targetAmount, 1, feeRate);
     }
 
     /**
-     * Selects coins using a simple greedy algorithm.
-     * This is a basic implementation - production code should use more sophisticated algorithms.
+     * Selects coins for a single-recipient payment, sizing inputs, change and the
+     * recipient output by their script types.
      *
-     * @param utxos          Available UTXOs
-     * @param targetAmount   Amount to send
-     * @param estimatedFee   Estimated fee
-     * @param feeRate        Current fee rate
-     * @return CoinSelectionResult with selected UTXOs and change, or null if insufficient
+     * @param utxos         Available UTXOs
+     * @param targetAmount  Amount to send
+     * @param inputType     Script type of the address being spent from
+     * @param recipientType Script type of the recipient address
+     * @param feeRate       Current fee rate
+     * @return The lowest-waste selection, or null if insufficient
      */
-    private CoinSelectionResult selectCoins(List<UTXO> utxos, long targetAmount, long estimatedFee, long feeRate) {
-        logger.debug("Selecting coins for amount: {} with estimated fee: {}", targetAmount, estimatedFee);
-
-        // Sort UTXOs by value (largest first)
-        List<UTXO> sorted = utxos.stream()
-                .sorted(Comparator.comparingLong(UTXO::getValue).reversed())
-                .collect(Collectors.toList());
-
-        List<UTXO> selected = new ArrayList<>();
-        long totalSelected = 0;
-        long requiredAmount = targetAmount + estimatedFee;
-
-        // Greedy coin selection
-        for (UTXO utxo : sorted) {
-            selected.add(utxo);
-            totalSelected += utxo.getValue();
-
-            // Recalculate fee with actual number of inputs
-            long actualFee = feeCalculator.calculateFee(selected.size(), 2, feeRate);
-            requiredAmount = targetAmount + actualFee;
+    public SelectionResult selectCoins(UtxoSet utxos, long targetAmount, ScriptType inputType,
+                                       ScriptType recipientType, long feeRate) {
+        return coinSelectionEngine.select(utxos, targetAmount, inputType, List.of(recipientType), feeRate);
+    }
 
-            if (totalSelected >= requiredAmount) {
-                logger.debug("Coin selection successful with {} UTXOs", selected.size());
-                return new CoinSelectionResult(selected, totalSelected - requiredAmount);
+    /**
+     * Runs {@code selector} over the outputs no other send has reserved and claims its pick.
+     * Losing a race for an output only excludes it, and selection runs again.
+     *
+     * @param available Candidate outputs; reserved ones are removed in place
+     * @param selector  Coin selection over the remaining candidates
+     * @return The claimed selection, or null if the outputs are insufficient even counting
+     *         those other sends hold
+     * @throws IllegalStateException if the claim keeps losing to concurrent sends, or only
+     *                               outputs held by other sends would cover the payment
+     */
+    private ReservedSelection selectAndReserve(UtxoSet available, Function<UtxoSet, SelectionResult> selector) {
+        // Taken unconditionally: a claim can land between any emptiness check and the exclusion
+        UtxoSet withReserved = available.copy();
+        int excluded = 0;
+        for (int attempt = 0; attempt < MAX_RESERVATION_ATTEMPTS; attempt++) {
+            excluded += reservations.excludeReserved(available);
+            SelectionResult selection = selector.apply(available);
+            if (selection == null) {
+                // Funds held by sends in progress come back when those sends fail or confirm
+                if (excluded > 0 && selector.apply(withReserved) != null) {
+                    throw new IllegalStateException("UTXOs of " + available.getAddress()
+                            + " are held by other sends in progress, try again");
+                }
+                return null;
+            }
+            UtxoReservationTable.Claim claim = reservations.tryClaim(selection.getSelected());
+            if (claim != null) {
+                return new ReservedSelection(selection, claim);
             }
         }
-
-        logger.warn("Insufficient coins selected: {} < {}", totalSelected, requiredAmount);
-        return null;
+        throw new IllegalStateException("UTXOs of " + available.getAddress()
+                + " are being spent by other sends, try again");
     }
 
     /**
-     * Creates transaction inputs from selected UTXOs.
-     *
-     * @param utxos Selected UTXOs
-     * @return List of transaction inputs
+     * Rejects a key that cannot sign for the sender before the sender's UTXOs are fetched,
+     * since fetching them puts the address under watch by the UTXO index.
      */
-    private List<TxInput> createTransactionInputs(List<UTXO> utxos) {
-        return utxos.stream()
-                .map(utxo -> new TxInput(utxo.getTxHash(), utxo.getOutputIndex(), utxo.getValue()))
-                .collect(Collectors.toList());
+    private void requireKeyFor(String fromAddress, String privateKeyWif) {
+        transactionBuilder.verifyKey(keyService.decodeKey(privateKeyWif), fromAddress);
     }
 
     /**
-     * Builds a raw transaction hex string (simplified).
-     * In production, this would use BitcoinJ's transaction building.
-     *
-     * @param tx The transaction
-     * @return Raw transaction hex
+     * Outputs a new send from an address may use: the index's confirmed outputs minus those
+     * our pending transactions spend, plus their unconfirmed change within the chain-depth limit.
      */
-    private String buildRawTransaction(Transaction tx) {
-        logger.debug("Building raw transaction");
-        // Simplified - actual implementation would use BitcoinJ
-        return "0100000001" + System.nanoTime() + "00000000" + tx.getOutputs().size();
+    private UtxoSet spendableUtxos(String address) throws Exception {
+        UtxoSet utxos = utxoIndex.getUtxoSet(address);
+        mempool.excludeSpent(utxos);
+        utxos.removeUnconfirmed();
+        mempool.addSpendableChange(utxos);
+        return utxos;
     }
 
     /**
-     * Calculates total value of all UTXOs.
+     * Creates transaction inputs from selected UTXOs.
      *
-     * @param utxos List of UTXOs
-     * @return Total value in satoshis
+     * @param utxos Selected UTXOs
+     * @return List of transaction inputs
      */
-    private long getTotalUTXOValue(List<UTXO> utxos) {
-        return utxos.stream().mapToLong(UTXO::getValue).sum();
+    private List<TxInput> createTransactionInputs(List<UTXO> utxos) {
+        return utxos.stream()
+                .map(utxo -> new TxInput(utxo.getTxHash(), utxo.getOutputIndex(), utxo.getValue()))
+                .collect(Collectors.toList());
     }
 
-    /**
-     * Helper class for coin selection results.
-     */
-    private static class CoinSelectionResult {
-        List<UTXO> selectedUTXOs;
-        long changeAmount;
+    private static final class ReservedSelection {
+        final SelectionResult selection;
+        final UtxoReservationTable.Claim claim;
 
-        CoinSelectionResult(List<UTXO> selectedUTXOs, long changeAmount) {
-            this.selectedUTXOs = selectedUTXOs;
-            this.changeAmount = changeAmount;
+        ReservedSelection(SelectionResult selection, UtxoReservationTable.Claim claim) {
+            this.selection = selection;
+            this.claim = claim;
         }
     }
 }
@@ -0,0 +1,397 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import com.example.demo.blockchain.store.MappedUtxoStore;
+import com.example.demo.blockchain.util.Futures;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local UTXO index for watched addresses.
+ * The first lookup of an address downloads its full unspent set; after that only outputs
+ * confirmed above the last synced block height are fetched. Outputs spent by our own
+ * broadcasts are removed immediately, and a periodic full resync catches spends made
+ * elsewhere. The outputs themselves live off-heap in the {@link MappedUtxoStore}; only sync
+ * state is kept here, persisted as one small JSON file per address so restarts resume
+ * incrementally. Syncs always go to the provider stack, never to the store-backed API.
+ * Addresses not used for {@code utxo.index.idle-expiry-ms} stop being watched, and at most
+ * {@code utxo.index.max-addresses} are watched at once; the least recently used idle address
+ * makes room for a new one.
+ */
+@Service
+public class UtxoIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(UtxoIndexService.class);
+
+    // Blocks re-read on every incremental sync to absorb shallow reorgs
+    private static final int REORG_DEPTH = 6;
+
+    private final BlockchainAPI blockchainAPI;
+    private final MappedUtxoStore store;
+    private final Gson gson = new Gson();
+    private final Map<String, AddressIndex> indexes = new ConcurrentHashMap<>();
+
+    @Value("${utxo.index.dir:./data/utxo-index}")
+    private String indexDir;
+
+    @Value("${utxo.index.max-staleness-ms:15000}")
+    private long maxStalenessMs;
+
+    @Value("${utxo.index.full-resync-interval-ms:600000}")
+    private long fullResyncIntervalMs;
+
+    @Value("${utxo.index.idle-expiry-ms:604800000}")
+    private long idleExpiryMs;
+
+    @Value("${utxo.index.max-addresses:10000}")
+    private int maxAddresses;
+
+    @Autowired
+    public UtxoIndexService(@Qualifier("providerBlockchainAPI") BlockchainAPI blockchainAPI, MappedUtxoStore store) {
+        this.blockchainAPI = blockchainAPI;
+        this.store = store;
+    }
+
+    @PostConstruct
+    public void load() {
+        Path dir = Paths.get(indexDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.json")) {
+            for (Path file : files) {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    AddressIndex index = gson.fromJson(reader, AddressIndex.class);
+                    if (index != null && index.address != null) {
+                        if (!store.isTracked(index.address)) {
+                            // The store was reset or predates this address; resync from scratch
+                            index.syncedHeight = -1;
+                        }
+                        if (index.spentByUs == null) {
+                            index.spentByUs = new HashSet<>();
+                        }
+                        if (index.lastAccessMillis == 0) {
+                            // Written before access times were kept
+                            index.lastAccessMillis = System.currentTimeMillis();
+                        }
+                        indexes.put(index.address, index);
+                    }
+                } catch (Exception e) {
+                    logger.warn("Skipping unreadable UTXO index file {}: {}", file, e.getMessage());
+                }
+            }
+            logger.info("Loaded UTXO index for {} watched addresses", indexes.size());
+        } catch (IOException e) {
+            logger.warn("Could not read UTXO index directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the spendable UTXOs of an address from memory, syncing first if the address
+     * is not indexed yet or its data is older than {@code utxo.index.max-staleness-ms}.
+     * The address is watched from then on, unless its first sync fails. Callers must only
+     * ask for addresses they hold the key of, since every address asked for is polled.
+     *
+     * @param address The Bitcoin address
+     * @return Unspent outputs not already spent by one of our broadcasts
+     */
+    public List<UTXO> getUTXOs(String address) throws Exception {
+        return new ArrayList<>(getUtxoSet(address).asList());
+    }
+
+    /**
+     * Columnar variant of {@link #getUTXOs(String)} for coin selection and other bulk work.
+     *
+     * @param address The Bitcoin address
+     * @return A heap copy of the address's unspent outputs with current confirmations
+     */
+    public UtxoSet getUtxoSet(String address) throws Exception {
+        AddressIndex index = indexes.get(address);
+        if (index == null) {
+            if (indexes.size() >= maxAddresses && !evictLeastRecentlyUsed()) {
+                // Every watched address has pending spends; serve this one without watching it
+                logger.warn("UTXO index full ({} addresses), not watching {}", indexes.size(), address);
+                return UtxoSet.of(address, blockchainAPI.getUTXOs(address));
+            }
+            index = indexes.computeIfAbsent(address, AddressIndex::new);
+        }
+        index.lastAccessMillis = System.currentTimeMillis();
+        if (System.currentTimeMillis() - index.lastSyncMillis > maxStalenessMs) {
+            try {
+                sync(index);
+            } catch (Exception e) {
+                if (index.syncedHeight < 0 && index.isIdle()) {
+                    // Never synced: do not keep polling an address we know nothing about
+                    indexes.remove(address, index);
+                }
+                throw e;
+            }
+        }
+        return store.getUtxoSet(address);
+    }
+
+    /**
+     * Removes outputs spent by a transaction we broadcast, without waiting for the provider.
+     *
+     * @param address The address the outputs belong to
+     * @param spent   The UTXOs used as inputs
+     */
+    public void markSpent(String address, Collection<UTXO> spent) {
+        AddressIndex index = indexes.get(address);
+        if (index == null) {
+            store.removeAll(spent);
+            return;
+        }
+        index.lastAccessMillis = System.currentTimeMillis();
+        // Under the index lock so a sync in progress cannot re-add the outputs
+        synchronized (index) {
+            store.removeAll(spent);
+            index.markSpent(spent);
+        }
+        persist(index);
+    }
+
+    /**
+     * Undoes {@link #markSpent} for the inputs of a transaction that will never be
+     * broadcast, so the outputs come back with the next sync of the address.
+     *
+     * @param address  The address the outputs belong to
+     * @param released The UTXOs the abandoned transaction would have spent
+     */
+    public void releaseSpent(String address, Collection<UTXO> released) {
+        AddressIndex index = indexes.get(address);
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            index.release(released);
+            // Removed outputs only return with a full listing
+            index.lastFullSyncMillis = 0;
+            index.lastSyncMillis = 0;
+        }
+        persist(index);
+    }
+
+    /**
+     * Whether an address is tracked by the index.
+     */
+    public boolean isWatched(String address) {
+        return indexes.containsKey(address);
+    }
+
+    /**
+     * Whether a watched address was synced within {@code utxo.index.max-staleness-ms}, so its
+     * stored outputs may be served in place of a provider lookup.
+     */
+    public boolean isFresh(String address) {
+        AddressIndex index = indexes.get(address);
+        return index != null && System.currentTimeMillis() - index.lastSyncMillis <= maxStalenessMs;
+    }
+
+    /**
+     * Addresses tracked by the index.
+     */
+    public Set<String> getWatchedAddresses() {
+        return Set.copyOf(indexes.keySet());
+    }
+
+    /**
+     * Syncs a watched address right away with a full listing, e.g. after a provider
+     * notification that one of its transactions changed. Unwatched addresses are ignored.
+     *
+     * @param address The Bitcoin address
+     */
+    public void resync(String address) throws Exception {
+        AddressIndex index = indexes.get(address);
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            index.lastFullSyncMillis = 0;
+        }
+        sync(index);
+    }
+
+    /**
+     * Keeps every watched address current in the background.
+     */
+    @Scheduled(fixedDelayString = "${utxo.index.sync-interval-ms:30000}")
+    public void syncAll() {
+        long now = System.currentTimeMillis();
+        for (AddressIndex index : indexes.values()) {
+            if (now - index.lastAccessMillis > idleExpiryMs && index.isIdle()) {
+                unwatch(index);
+            }
+        }
+        for (AddressIndex index : indexes.values()) {
+            try {
+                sync(index);
+            } catch (Exception e) {
+                logger.warn("UTXO index sync failed for {}: {}", index.address, e.getMessage());
+            }
+        }
+    }
+
+    private void sync(AddressIndex index) throws Exception {
+        long height = blockchainAPI.getBlockHeight();
+        store.setTipHeight(height);
+
+        synchronized (index) {
+            boolean full = index.syncedHeight < 0
+                    || System.currentTimeMillis() - index.lastFullSyncMillis > fullResyncIntervalMs;
+            if (full) {
+                List<UTXO> utxos = blockchainAPI.getUTXOs(index.address);
+                store.replaceAll(index.address, index.unspent(utxos, true));
+                index.lastFullSyncMillis = System.currentTimeMillis();
+                logger.debug("Full UTXO sync for {}: {} outputs at height {}", index.address, utxos.size(), height);
+            } else {
+                long after = Math.max(0, index.syncedHeight - REORG_DEPTH);
+                List<UTXO> added = Futures.await(blockchainAPI.getUTXOsAfterAsync(index.address, after));
+                store.addAll(index.address, index.unspent(added, false));
+                logger.debug("Incremental UTXO sync for {}: {} outputs above height {}", index.address, added.size(), after);
+            }
+            index.syncedHeight = height;
+            index.lastSyncMillis = System.currentTimeMillis();
+        }
+        persist(index);
+    }
+
+    /**
+     * Stops watching the least recently used address without pending spends.
+     *
+     * @return false if every watched address still has spends of ours in flight
+     */
+    private boolean evictLeastRecentlyUsed() {
+        AddressIndex oldest = null;
+        for (AddressIndex index : indexes.values()) {
+            if (index.isIdle() && (oldest == null || index.lastAccessMillis < oldest.lastAccessMillis)) {
+                oldest = index;
+            }
+        }
+        if (oldest == null) {
+            return false;
+        }
+        unwatch(oldest);
+        return true;
+    }
+
+    private void unwatch(AddressIndex index) {
+        if (!indexes.remove(index.address, index)) {
+            return;
+        }
+        logger.info("No longer watching {} (last used {} ms ago)", index.address,
+                System.currentTimeMillis() - index.lastAccessMillis);
+        // Tombstone the stored outputs so compaction reclaims them
+        store.replaceAll(index.address, List.of());
+        try {
+            Files.deleteIfExists(Paths.get(indexDir).resolve(index.address + ".json"));
+        } catch (IOException e) {
+            logger.warn("Could not delete UTXO index file for {}: {}", index.address, e.getMessage());
+        }
+    }
+
+    private void persist(AddressIndex index) {
+        try {
+            Path dir = Files.createDirectories(Paths.get(indexDir));
+            Path target = dir.resolve(index.address + ".json");
+            Path temp = dir.resolve(index.address + ".json.tmp");
+            synchronized (index) {
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    gson.toJson(index, writer);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not persist UTXO index for {}: {}", index.address, e.getMessage());
+        }
+    }
+
+    private static String outpoint(UTXO utxo) {
+        return utxo.getTxid() + ":" + utxo.getVout();
+    }
+
+    /**
+     * Sync state of one address. Serialized as-is by Gson.
+     */
+    private static class AddressIndex {
+        String address;
+        long syncedHeight = -1;
+        long lastSyncMillis;
+        long lastFullSyncMillis;
+        volatile long lastAccessMillis = System.currentTimeMillis();
+        // Outpoints we spent that the provider may still report as unspent
+        Set<String> spentByUs = new HashSet<>();
+
+        AddressIndex() {
+        }
+
+        AddressIndex(String address) {
+            this.address = address;
+        }
+
+        /**
+         * Filters out outputs we already spent. On a full listing, spends the provider no
+         * longer reports have been seen upstream and are forgotten.
+         */
+        synchronized List<UTXO> unspent(List<UTXO> reported, boolean full) {
+            List<UTXO> unspent = new ArrayList<>(reported.size());
+            Set<String> stillReported = new HashSet<>();
+            for (UTXO utxo : reported) {
+                String key = outpoint(utxo);
+                if (spentByUs.contains(key)) {
+                    stillReported.add(key);
+                } else {
+                    unspent.add(utxo);
+                }
+            }
+            if (full) {
+                spentByUs = stillReported;
+            }
+            return unspent;
+        }
+
+        /**
+         * Whether none of our spends from this address are waiting to be seen upstream.
+         */
+        synchronized boolean isIdle() {
+            return spentByUs.isEmpty();
+        }
+
+        synchronized void markSpent(Collection<UTXO> spent) {
+            for (UTXO utxo : spent) {
+                spentByUs.add(outpoint(utxo));
+            }
+        }
+
+        synchronized void release(Collection<UTXO> released) {
+            for (UTXO utxo : released) {
+                spentByUs.remove(outpoint(utxo));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.model.Outpoint;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived claims on UTXOs between coin selection and the moment the spend is recorded
+ * in the UTXO index, so concurrent sends from one address never pick the same outpoint.
+ * Claims are taken without locks: each outpoint is claimed with a compare-and-set on its
+ * stripe, and a claim that loses any of its outpoints rolls back the ones it already took.
+ * The table is split into {@code utxo.reservation.stripes} independent maps, chosen from
+ * the high bits of the outpoint hash, so hot-wallet sends spread over separate tables.
+ * A claim that is never released (e.g. its thread died mid-send) lapses after
+ * {@code utxo.reservation.ttl-ms} and is swept in the background.
+ */
+@Component
+public class UtxoReservationTable {
+
+    private final ConcurrentHashMap<Outpoint, Claim>[] stripes;
+    private final int stripeShift;
+    private final Counter conflicts;
+
+    @Value("${utxo.reservation.ttl-ms:600000}")
+    private long ttlMs;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public UtxoReservationTable(@Value("${utxo.reservation.stripes:16}") int stripeCount, MeterRegistry meterRegistry) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, 1 << 16)));
+        this.stripes = (ConcurrentHashMap<Outpoint, Claim>[]) new ConcurrentHashMap<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+        this.conflicts = Counter.builder("utxo.reservation.conflicts")
+                .description("Claims that lost an outpoint to a concurrent send")
+                .register(meterRegistry);
+        Gauge.builder("utxo.reservations", this, UtxoReservationTable::size)
+                .description("Outpoints currently reserved by sends in progress")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Outputs held by one send. Releasing is idempotent and only drops entries still owned
+     * by this claim.
+     */
+    public final class Claim {
+        private final List<UTXO> utxos;
+        private final List<Outpoint> outpoints;
+        private final long expiresAt;
+
+        private Claim(List<UTXO> utxos, List<Outpoint> outpoints, long expiresAt) {
+            this.utxos = utxos;
+            this.outpoints = outpoints;
+            this.expiresAt = expiresAt;
+        }
+
+        public List<UTXO> getUtxos() {
+            return utxos;
+        }
+
+        public void release() {
+            for (Outpoint outpoint : outpoints) {
+                stripe(outpoint).remove(outpoint, this);
+            }
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    /**
+     * Claims all of {@code utxos} or none of them.
+     *
+     * @param utxos Outputs picked by coin selection
+     * @return The claim, or null if another send holds at least one of the outputs
+     */
+    public Claim tryClaim(Collection<UTXO> utxos) {
+        List<Outpoint> outpoints = new ArrayList<>(utxos.size());
+        for (UTXO utxo : utxos) {
+            outpoints.add(Outpoint.of(utxo));
+        }
+        long now = System.currentTimeMillis();
+        Claim claim = new Claim(List.copyOf(utxos), outpoints, now + ttlMs);
+        for (int i = 0; i < outpoints.size(); i++) {
+            Outpoint outpoint = outpoints.get(i);
+            ConcurrentHashMap<Outpoint, Claim> stripe = stripe(outpoint);
+            Claim holder = stripe.putIfAbsent(outpoint, claim);
+            if (holder != null && holder != claim && !(holder.isExpired(now) && stripe.replace(outpoint, holder, claim))) {
+                for (int j = 0; j < i; j++) {
+                    stripe(outpoints.get(j)).remove(outpoints.get(j), claim);
+                }
+                conflicts.increment();
+                return null;
+            }
+        }
+        return claim;
+    }
+
+    public boolean isReserved(Outpoint outpoint) {
+        Claim holder = stripe(outpoint).get(outpoint);
+        return holder != null && !holder.isExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Drops the outputs other sends have reserved from a candidate set before selection.
+     *
+     * @param utxos Candidate outputs, modified in place
+     * @return Number of outputs removed
+     */
+    public int excludeReserved(UtxoSet utxos) {
+        if (size() == 0) {
+            return 0;
+        }
+        return utxos.removeIf(index -> isReserved(utxos.outpoint(index)));
+    }
+
+    /**
+     * Reserved outpoints, including lapsed claims not swept yet.
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<Outpoint, Claim> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes lapsed claims.
+     */
+    @Scheduled(fixedDelayString = "${utxo.reservation.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        long now = System.currentTimeMillis();
+        for (ConcurrentHashMap<Outpoint, Claim> stripe : stripes) {
+            stripe.values().removeIf(claim -> claim.isExpired(now));
+        }
+    }
+
+    private ConcurrentHashMap<Outpoint, Claim> stripe(Outpoint outpoint) {
+        // High bits of a multiplicative mix, leaving the low bits for the map's own buckets
+        return stripes.length == 1 ? stripes[0] : stripes[(outpoint.hashCode() * 0x9E3779B9) >>> stripeShift];
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockCypherClient;
+import com.example.demo.blockchain.model.Webhook;
+import com.example.demo.blockchain.util.Futures;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps BlockCypher webhooks registered for what the application watches: one
+ * {@code new-block} hook, plus {@code unconfirmed-tx} and {@code confirmed-tx} hooks for
+ * every address in the UTXO index or with a stream subscriber. Hooks pointing at our
+ * callback URL are picked up again after a restart instead of being registered twice,
+ * and hooks for addresses nobody watches any more are deleted.
+ * Registration is rate-limited like any other BlockCypher call, so each reconcile run
+ * handles at most {@code webhook.max-changes-per-run} hooks and the rest follow later.
+ */
+@Service
+public class WebhookSubscriptionManager {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookSubscriptionManager.class);
+
+    static final String NEW_BLOCK = "new-block";
+    static final String UNCONFIRMED_TX = "unconfirmed-tx";
+    static final String CONFIRMED_TX = "confirmed-tx";
+
+    private final BlockCypherClient blockCypherClient;
+    private final UtxoIndexService utxoIndexService;
+    private final AddressWatchService addressWatchService;
+    // Hook id by "event|address" ("new-block|" for the block hook)
+    private final Map<String, String> hooks = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Value("${webhook.enabled:false}")
+    private boolean enabled;
+
+    @Value("${webhook.callback-url:}")
+    private String callbackUrl;
+
+    @Value("${webhook.secret:}")
+    private String secret;
+
+    @Value("${webhook.max-changes-per-run:50}")
+    private int maxChangesPerRun;
+
+    @Autowired
+    public WebhookSubscriptionManager(BlockCypherClient blockCypherClient,
+                                      UtxoIndexService utxoIndexService,
+                                      AddressWatchService addressWatchService,
+                                      MeterRegistry meterRegistry) {
+        this.blockCypherClient = blockCypherClient;
+        this.utxoIndexService = utxoIndexService;
+        this.addressWatchService = addressWatchService;
+        Gauge.builder("webhook.subscriptions", hooks, Map::size)
+                .description("Webhooks registered with the provider")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refuses to start with webhooks on and no secret, which would let anyone post events.
+     */
+    @PostConstruct
+    public void checkConfiguration() {
+        if (enabled && secret.isEmpty()) {
+            throw new IllegalStateException("webhook.secret must be set when webhook.enabled is true");
+        }
+    }
+
+    /**
+     * Whether provider webhooks are switched on with {@code webhook.enabled}.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether a callback carries the configured secret. Without a configured secret, which
+     * is only allowed while provider webhooks are off (e.g. for the mock emitter), every
+     * callback is accepted. Compared in constant time.
+     *
+     * @param presented Secret from the callback URL, may be null
+     */
+    public boolean verifySecret(String presented) {
+        if (secret.isEmpty()) {
+            return true;
+        }
+        return presented != null && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Registers missing hooks and deletes stale ones. Does nothing unless
+     * {@code webhook.enabled} is set and a callback URL is configured.
+     */
+    @Scheduled(fixedDelayString = "${webhook.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled || callbackUrl.isEmpty()) {
+            return;
+        }
+        String url = callbackUrlWithSecret();
+        try {
+            if (!loaded) {
+                for (Webhook hook : Futures.await(blockCypherClient.listWebhooksAsync())) {
+                    if (url.equals(hook.getUrl())) {
+                        hooks.put(key(hook.getEvent(), hook.getAddress()), hook.getId());
+                    }
+                }
+                loaded = true;
+                logger.info("Found {} existing webhooks for {}", hooks.size(), callbackUrl);
+            }
+
+            Set<String> wanted = new HashSet<>();
+            wanted.add(key(NEW_BLOCK, null));
+            Set<String> addresses = new HashSet<>(utxoIndexService.getWatchedAddresses());
+            addresses.addAll(addressWatchService.getWatchedAddresses());
+            for (String address : addresses) {
+                wanted.add(key(UNCONFIRMED_TX, address));
+                wanted.add(key(CONFIRMED_TX, address));
+            }
+
+            int budget = maxChangesPerRun;
+            for (String key : wanted) {
+                if (budget == 0) {
+                    break;
+                }
+                if (!hooks.containsKey(key)) {
+                    budget--;
+                    int split = key.indexOf('|');
+                    String event = key.substring(0, split);
+                    String address = split + 1 < key.length() ? key.substring(split + 1) : null;
+                    Webhook hook = Futures.await(blockCypherClient.registerWebhookAsync(event, address, url));
+                    hooks.put(key, hook.getId());
+                }
+            }
+            for (Map.Entry<String, String> hook : hooks.entrySet()) {
+                if (budget == 0) {
+                    break;
+                }
+                if (!wanted.contains(hook.getKey())) {
+                    budget--;
+                    Futures.await(blockCypherClient.deleteWebhookAsync(hook.getValue()));
+                    hooks.remove(hook.getKey());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Webhook reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    private String callbackUrlWithSecret() {
+        if (secret.isEmpty()) {
+            return callbackUrl;
+        }
+        return callbackUrl + (callbackUrl.contains("?") ? "&" : "?")
+                + "secret=" + URLEncoder.encode(secret, StandardCharsets.UTF_8);
+    }
+
+    private static String key(String event, String address) {
+        return event + "|" + (address != null ? address : "");
+    }
+}
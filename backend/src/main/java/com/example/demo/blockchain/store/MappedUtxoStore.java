@@ -0,0 +1,859 @@
+package com.example.demo.blockchain.store;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Off-heap store for the unspent outputs of every indexed address, kept in memory-mapped files
+ * so millions of outputs cost the JVM heap almost nothing.
+ * <p>
+ * {@code utxos.dat} holds fixed 72-byte records in append order. Each record links to the
+ * previous record of the same address, so one address's outputs are walked without a scan.
+ * {@code utxos.idx} is an open-addressing hash table keyed by outpoint, with linear probing
+ * and 8-byte slots holding a record number and the key hash. {@code addresses.dat} assigns
+ * each address a small id. Only per-address chain heads, balances and counts live on the heap.
+ * <p>
+ * An append writes the whole record, with a CRC of its immutable fields, before it bumps the
+ * committed record count. Records whose CRC does not match on open are dropped. A spend flips
+ * the record's status byte to a tombstone. The hash index is flagged dirty while writes are
+ * pending and is rebuilt from the data file on open unless {@link #flush()} marked it clean.
+ * Once tombstones reach {@code utxo.store.compact-ratio} of the records, the live records are
+ * copied to a new file that atomically replaces the old one.
+ */
+@Component
+public class MappedUtxoStore {
+    private static final Logger logger = LoggerFactory.getLogger(MappedUtxoStore.class);
+
+    private static final String DATA_FILE = "utxos.dat";
+    private static final String INDEX_FILE = "utxos.idx";
+    private static final String ADDRESS_FILE = "addresses.dat";
+
+    private static final int DATA_MAGIC = 0x55545853;  // "UTXS"
+    private static final int INDEX_MAGIC = 0x55545849; // "UTXI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    // Data file header
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_COUNT = 16;
+    private static final int H_TOMBSTONES = 24;
+    private static final int H_EPOCH = 32;
+    private static final int H_TIP = 40;
+
+    // Record layout; the CRC covers the immutable fields from R_TXID up to R_PREV
+    private static final int RECORD_SIZE = 72;
+    private static final int R_STATUS = 0;
+    private static final int R_CRC = 4;
+    private static final int R_TXID = 8;
+    private static final int R_VALUE = 40;
+    private static final int R_VOUT = 48;
+    private static final int R_ADDRESS = 52;
+    private static final int R_PREV = 56;
+    private static final int R_HEIGHT = 60;
+    private static final int R_EPOCH = 64;
+    private static final byte LIVE = 1;
+    private static final byte TOMBSTONE = 2;
+
+    // Index file header; each slot is (record + 1, or 0 empty / -1 deleted) followed by the key hash
+    private static final int I_MAGIC = 0;
+    private static final int I_VERSION = 4;
+    private static final int I_SLOTS = 8;
+    private static final int I_CLEAN = 12;
+    private static final int I_COUNT = 16;
+    private static final int I_USED = 20;
+    private static final int SLOT_SIZE = 8;
+    private static final int SLOT_EMPTY = 0;
+    private static final int SLOT_DELETED = -1;
+    private static final double MAX_INDEX_LOAD = 0.6;
+
+    private static final int MIN_RECORDS = 1024;
+    private static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+    private static final int MIN_SLOTS = 2048;
+    private static final int MAX_SLOTS = 1 << 27;
+
+    private final Path dir;
+    private final boolean fsync;
+    private final double compactRatio;
+    private final long compactMinTombstones;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> addressIds = new HashMap<>();
+    private final List<String> addresses = new ArrayList<>();
+    private int[] heads = new int[0];
+    private long[] balances = new long[0];
+    private int[] counts = new int[0];
+
+    private MappedByteBuffer data;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+    private int tombstones;
+    private int slots;
+    private int usedSlots;
+    private boolean indexClean;
+    private long tipHeight = -1;
+
+    // Only touched under the write lock
+    private final long[] scratch = new long[4];
+    private final CRC32C crc = new CRC32C();
+
+    @Autowired
+    public MappedUtxoStore(@Value("${utxo.store.dir:./data/utxo-store}") String storeDir,
+                           @Value("${utxo.store.fsync:true}") boolean fsync,
+                           @Value("${utxo.store.compact-ratio:0.3}") double compactRatio,
+                           @Value("${utxo.store.compact-min-tombstones:10000}") long compactMinTombstones,
+                           MeterRegistry meterRegistry) {
+        this.dir = Paths.get(storeDir);
+        this.fsync = fsync;
+        this.compactRatio = compactRatio;
+        this.compactMinTombstones = compactMinTombstones;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            Files.createDirectories(dir);
+            loadAddresses();
+            mapData();
+            boolean indexValid = mapIndex();
+            int dropped = scanRecords();
+            if (!indexValid || dropped > 0) {
+                logger.info("Rebuilding UTXO store index from {} records", count);
+                rebuildIndex();
+            }
+            markClean();
+            logger.info("Opened UTXO store with {} outputs for {} addresses in {} ms",
+                    count - tombstones, addresses.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Gauge.builder("utxo.store.records", this, MappedUtxoStore::size)
+                .description("Unspent outputs held in the memory-mapped UTXO store")
+                .tag("state", "live")
+                .register(meterRegistry);
+        Gauge.builder("utxo.store.records", this, MappedUtxoStore::getTombstones)
+                .description("Spent records awaiting compaction in the memory-mapped UTXO store")
+                .tag("state", "tombstone")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Whether the store holds the outputs of an address, i.e. it has been fully synced once.
+     */
+    public boolean isTracked(String address) {
+        lock.readLock().lock();
+        try {
+            return addressIds.containsKey(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sum of the unspent outputs of a tracked address, read from memory in constant time.
+     *
+     * @param address The Bitcoin address
+     * @return The balance in satoshis
+     * @throws IllegalArgumentException if the address is not tracked
+     */
+    public long getBalance(String address) {
+        lock.readLock().lock();
+        try {
+            return balances[requireId(address)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of unspent outputs of a tracked address.
+     *
+     * @throws IllegalArgumentException if the address is not tracked
+     */
+    public int getUtxoCount(String address) {
+        lock.readLock().lock();
+        try {
+            return counts[requireId(address)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the unspent outputs of an address onto the heap, oldest first, with confirmations
+     * computed from the last {@link #setTipHeight recorded} chain tip.
+     *
+     * @param address The Bitcoin address
+     * @return The outputs, empty if the address is not tracked
+     */
+    public UtxoSet getUtxoSet(String address) {
+        lock.readLock().lock();
+        try {
+            Integer id = addressIds.get(address);
+            if (id == null) {
+                return new UtxoSet(address, 0);
+            }
+            int[] records = new int[counts[id]];
+            int found = 0;
+            for (int record = heads[id]; record >= 0 && found < records.length; record = data.getInt(offset(record) + R_PREV)) {
+                if (data.get(offset(record) + R_STATUS) == LIVE) {
+                    records[found++] = record;
+                }
+            }
+
+            UtxoSet utxos = new UtxoSet(address, found);
+            long[] txid = new long[4];
+            for (int i = found - 1; i >= 0; i--) {
+                int offset = offset(records[i]);
+                readTxid(offset, txid);
+                utxos.add(txid, 0, data.getInt(offset + R_VOUT), data.getLong(offset + R_VALUE),
+                        0, data.getInt(offset + R_HEIGHT));
+            }
+            utxos.updateConfirmations(tipHeight);
+            return utxos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether an outpoint is held as unspent.
+     */
+    public boolean contains(String txid, int vout) {
+        long[] key = new long[4];
+        UtxoSet.parseTxid(txid, key, 0);
+        lock.readLock().lock();
+        try {
+            return findSlot(key, vout, hash(key, vout)) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Makes the stored outputs of an address match a full provider listing: outputs already
+     * stored are kept, new ones appended and the rest tombstoned. Tracks the address from now on.
+     *
+     * @param address The Bitcoin address
+     * @param utxos   Every unspent output of the address
+     */
+    public void replaceAll(String address, Collection<UTXO> utxos) {
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            int id = addressId(address);
+            long epoch = data.getLong(H_EPOCH) + 1;
+            data.putLong(H_EPOCH, epoch);
+
+            for (UTXO utxo : utxos) {
+                UtxoSet.parseTxid(utxo.getTxid(), scratch, 0);
+                int hash = hash(scratch, utxo.getVout());
+                int slot = findSlot(scratch, utxo.getVout(), hash);
+                if (slot >= 0) {
+                    int offset = offset(index.getInt(slot) - 1);
+                    data.putInt(offset + R_HEIGHT, (int) utxo.getBlockHeight());
+                    data.putLong(offset + R_EPOCH, epoch);
+                } else {
+                    append(id, scratch, utxo.getVout(), utxo.getAmount(), utxo.getBlockHeight(), epoch, hash);
+                }
+            }
+
+            // Anything not stamped with this epoch is no longer reported as unspent
+            for (int record = heads[id]; record >= 0; record = data.getInt(offset(record) + R_PREV)) {
+                int offset = offset(record);
+                if (data.get(offset + R_STATUS) == LIVE && data.getLong(offset + R_EPOCH) != epoch) {
+                    readTxid(offset, scratch);
+                    int vout = data.getInt(offset + R_VOUT);
+                    tombstone(record, findSlot(scratch, vout, hash(scratch, vout)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends outputs of an address that are not stored yet.
+     *
+     * @param address The Bitcoin address
+     * @param utxos   Newly seen outputs
+     * @return How many were added
+     */
+    public int addAll(String address, Collection<UTXO> utxos) {
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            int id = addressId(address);
+            long epoch = data.getLong(H_EPOCH);
+            int added = 0;
+            for (UTXO utxo : utxos) {
+                UtxoSet.parseTxid(utxo.getTxid(), scratch, 0);
+                int hash = hash(scratch, utxo.getVout());
+                if (findSlot(scratch, utxo.getVout(), hash) < 0) {
+                    append(id, scratch, utxo.getVout(), utxo.getAmount(), utxo.getBlockHeight(), epoch, hash);
+                    added++;
+                }
+            }
+            return added;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tombstones spent outputs.
+     *
+     * @param spent The outputs spent
+     * @return How many were stored and are now removed
+     */
+    public int removeAll(Collection<UTXO> spent) {
+        lock.writeLock().lock();
+        try {
+            beginWrite();
+            int removed = 0;
+            for (UTXO utxo : spent) {
+                UtxoSet.parseTxid(utxo.getTxid(), scratch, 0);
+                int slot = findSlot(scratch, utxo.getVout(), hash(scratch, utxo.getVout()));
+                if (slot >= 0) {
+                    tombstone(index.getInt(slot) - 1, slot);
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Chain tip height used to compute confirmations of stored outputs.
+     */
+    public long getTipHeight() {
+        lock.readLock().lock();
+        try {
+            return tipHeight;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void setTipHeight(long height) {
+        lock.writeLock().lock();
+        try {
+            tipHeight = height;
+            data.putLong(H_TIP, height);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of unspent outputs across all addresses.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count - tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTombstones() {
+        lock.readLock().lock();
+        try {
+            return tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces pending writes to disk (when {@code utxo.store.fsync} is set) and marks the hash
+     * index clean, so the next open can use it without a rebuild. Writes in between are
+     * group-committed by this call instead of each paying for a sync.
+     */
+    @Scheduled(fixedDelayString = "${utxo.store.flush-interval-ms:1000}")
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            if (data != null && !indexClean) {
+                markClean();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the data file once tombstones make up {@code utxo.store.compact-ratio} of it
+     * and number at least {@code utxo.store.compact-min-tombstones}.
+     */
+    @Scheduled(fixedDelayString = "${utxo.store.compact-interval-ms:60000}")
+    public void compactIfNeeded() {
+        lock.writeLock().lock();
+        try {
+            if (data != null && tombstones >= compactMinTombstones && tombstones >= count * compactRatio) {
+                compact();
+            }
+        } catch (IOException e) {
+            logger.warn("UTXO store compaction failed: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the data file with only its live records and rebuilds the hash index.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            int live = count - tombstones;
+            int newCapacity = Math.max(MIN_RECORDS, Math.min(MAX_RECORDS, live + live / 2));
+            Path target = dir.resolve(DATA_FILE);
+            Path temp = dir.resolve(DATA_FILE + ".compact");
+            Files.deleteIfExists(temp);
+            MappedByteBuffer next = map(temp, recordsSize(newCapacity));
+            writeDataHeader(next, data.getLong(H_EPOCH));
+            next.putLong(H_TIP, tipHeight);
+
+            int[] newHeads = new int[heads.length];
+            Arrays.fill(newHeads, -1);
+            int written = 0;
+            for (int record = 0; record < count; record++) {
+                int offset = offset(record);
+                if (data.get(offset + R_STATUS) != LIVE) {
+                    continue;
+                }
+                int copy = offset(written);
+                next.put(copy, data, offset, RECORD_SIZE);
+                int id = data.getInt(offset + R_ADDRESS);
+                next.putInt(copy + R_PREV, newHeads[id]);
+                newHeads[id] = written++;
+            }
+            next.putLong(H_COUNT, written);
+            next.force();
+
+            // Record numbers change, so the index must not be trusted if we crash after the swap
+            beginWrite();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            int removed = tombstones;
+            data = next;
+            capacity = newCapacity;
+            count = written;
+            tombstones = 0;
+            heads = newHeads;
+            rebuildIndex();
+            logger.info("Compacted UTXO store: dropped {} spent records, {} live, in {} ms",
+                    removed, written, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(int id, long[] txid, int vout, long value, long blockHeight, long epoch, int hash)
+            throws IOException {
+        ensureCapacity(count + 1);
+        if (usedSlots + 1 > slots * MAX_INDEX_LOAD) {
+            rebuildIndex();
+        }
+
+        int record = count;
+        int offset = offset(record);
+        for (int word = 0; word < 4; word++) {
+            data.putLong(offset + R_TXID + word * 8, txid[word]);
+        }
+        data.putLong(offset + R_VALUE, value);
+        data.putInt(offset + R_VOUT, vout);
+        data.putInt(offset + R_ADDRESS, id);
+        data.putInt(offset + R_PREV, heads[id]);
+        data.putInt(offset + R_HEIGHT, (int) blockHeight);
+        data.putLong(offset + R_EPOCH, epoch);
+        data.putInt(offset + R_CRC, checksum(offset));
+        data.put(offset + R_STATUS, LIVE);
+        // Commit point: the record only exists once the count covers it
+        count++;
+        data.putLong(H_COUNT, count);
+
+        heads[id] = record;
+        balances[id] += value;
+        counts[id]++;
+        insertSlot(record, hash);
+    }
+
+    private void tombstone(int record, int slot) {
+        int offset = offset(record);
+        data.put(offset + R_STATUS, TOMBSTONE);
+        tombstones++;
+        data.putLong(H_TOMBSTONES, tombstones);
+        if (slot >= 0) {
+            index.putInt(slot, SLOT_DELETED);
+        }
+        int id = data.getInt(offset + R_ADDRESS);
+        balances[id] -= data.getLong(offset + R_VALUE);
+        counts[id]--;
+    }
+
+    /**
+     * Returns the byte position of the slot holding the outpoint, or -1.
+     */
+    private int findSlot(long[] txid, int vout, int hash) {
+        int mask = slots - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int position = HEADER_SIZE + i * SLOT_SIZE;
+            int entry = index.getInt(position);
+            if (entry == SLOT_EMPTY) {
+                return -1;
+            }
+            if (entry != SLOT_DELETED && index.getInt(position + 4) == hash && matches(entry - 1, txid, vout)) {
+                return position;
+            }
+        }
+    }
+
+    private void insertSlot(int record, int hash) {
+        int mask = slots - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int position = HEADER_SIZE + i * SLOT_SIZE;
+            int entry = index.getInt(position);
+            if (entry == SLOT_EMPTY || entry == SLOT_DELETED) {
+                if (entry == SLOT_EMPTY) {
+                    usedSlots++;
+                }
+                index.putInt(position + 4, hash);
+                index.putInt(position, record + 1);
+                return;
+            }
+        }
+    }
+
+    private boolean matches(int record, long[] txid, int vout) {
+        int offset = offset(record);
+        return data.getInt(offset + R_VOUT) == vout
+                && data.getLong(offset + R_TXID) == txid[0]
+                && data.getLong(offset + R_TXID + 8) == txid[1]
+                && data.getLong(offset + R_TXID + 16) == txid[2]
+                && data.getLong(offset + R_TXID + 24) == txid[3];
+    }
+
+    private void readTxid(int offset, long[] target) {
+        for (int word = 0; word < 4; word++) {
+            target[word] = data.getLong(offset + R_TXID + word * 8);
+        }
+    }
+
+    private static int hash(long[] txid, int vout) {
+        // Txids are already uniformly distributed; this only folds them and the vout together
+        long h = (txid[0] ^ txid[1] ^ txid[2] ^ txid[3]) + vout * 0x9E3779B97F4A7C15L;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int checksum(int offset) {
+        crc.reset();
+        crc.update(data.slice(offset + R_TXID, R_PREV - R_TXID));
+        return (int) crc.getValue();
+    }
+
+    private static int offset(int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private static long recordsSize(int records) {
+        return HEADER_SIZE + (long) records * RECORD_SIZE;
+    }
+
+    private void ensureCapacity(int needed) throws IOException {
+        if (needed <= capacity) {
+            return;
+        }
+        if (needed > MAX_RECORDS) {
+            throw new IllegalStateException("UTXO store is full at " + MAX_RECORDS + " records");
+        }
+        int grown = (int) Math.min(MAX_RECORDS, Math.max(needed, (long) capacity * 2));
+        data = map(dir.resolve(DATA_FILE), recordsSize(grown));
+        capacity = grown;
+    }
+
+    private void beginWrite() {
+        if (indexClean) {
+            index.putInt(I_CLEAN, 0);
+            if (fsync) {
+                index.force(0, HEADER_SIZE);
+            }
+            indexClean = false;
+        }
+    }
+
+    private void markClean() {
+        index.putInt(I_COUNT, count);
+        index.putInt(I_USED, usedSlots);
+        if (fsync) {
+            data.force();
+            index.force();
+        }
+        index.putInt(I_CLEAN, 1);
+        if (fsync) {
+            index.force(0, HEADER_SIZE);
+        }
+        indexClean = true;
+    }
+
+    private int addressId(String address) throws IOException {
+        Integer existing = addressIds.get(address);
+        if (existing != null) {
+            return existing;
+        }
+        try (FileChannel channel = FileChannel.open(dir.resolve(ADDRESS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap((address + "\n").getBytes(StandardCharsets.UTF_8)));
+            if (fsync) {
+                channel.force(false);
+            }
+        }
+        int id = addresses.size();
+        addresses.add(address);
+        addressIds.put(address, id);
+        growAddressArrays(id + 1);
+        heads[id] = -1;
+        return id;
+    }
+
+    private int requireId(String address) {
+        Integer id = addressIds.get(address);
+        if (id == null) {
+            throw new IllegalArgumentException("Address not tracked by the UTXO store: " + address);
+        }
+        return id;
+    }
+
+    private void growAddressArrays(int needed) {
+        if (needed <= heads.length) {
+            return;
+        }
+        int grown = Math.max(needed, heads.length * 2);
+        int previous = heads.length;
+        heads = Arrays.copyOf(heads, grown);
+        Arrays.fill(heads, previous, grown, -1);
+        balances = Arrays.copyOf(balances, grown);
+        counts = Arrays.copyOf(counts, grown);
+    }
+
+    private void loadAddresses() throws IOException {
+        Path path = dir.resolve(ADDRESS_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        if (end < bytes.length) {
+            // A torn final line from a crash mid-append; drop it so later appends start clean
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+            }
+        }
+        for (String address : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            if (!address.isEmpty()) {
+                addressIds.put(address, addresses.size());
+                addresses.add(address);
+            }
+        }
+        growAddressArrays(addresses.size());
+    }
+
+    private void mapData() throws IOException {
+        Path path = dir.resolve(DATA_FILE);
+        if (Files.exists(path) && Files.size(path) >= recordsSize(1)) {
+            long size = Files.size(path);
+            MappedByteBuffer existing = map(path, size);
+            int records = (int) Math.min(MAX_RECORDS, (size - HEADER_SIZE) / RECORD_SIZE);
+            long committed = existing.getLong(H_COUNT);
+            if (existing.getInt(H_MAGIC) == DATA_MAGIC && existing.getInt(H_VERSION) == VERSION
+                    && existing.getInt(H_RECORD_SIZE) == RECORD_SIZE && committed >= 0 && committed <= records) {
+                data = existing;
+                capacity = records;
+                count = (int) committed;
+                tipHeight = existing.getLong(H_TIP);
+                return;
+            }
+            // Outputs are re-fetched from the provider, so an unreadable file is set aside, not fatal
+            Path aside = dir.resolve(DATA_FILE + ".corrupt");
+            logger.warn("UTXO store file {} is not readable, moving it to {}", path, aside);
+            Files.move(path, aside, StandardCopyOption.REPLACE_EXISTING);
+        }
+        data = map(path, recordsSize(MIN_RECORDS));
+        writeDataHeader(data, 0);
+        capacity = MIN_RECORDS;
+        count = 0;
+        tipHeight = -1;
+    }
+
+    private static void writeDataHeader(MappedByteBuffer buffer, long epoch) {
+        buffer.putInt(H_MAGIC, DATA_MAGIC);
+        buffer.putInt(H_VERSION, VERSION);
+        buffer.putInt(H_RECORD_SIZE, RECORD_SIZE);
+        buffer.putLong(H_COUNT, 0);
+        buffer.putLong(H_TOMBSTONES, 0);
+        buffer.putLong(H_EPOCH, epoch);
+        buffer.putLong(H_TIP, -1);
+    }
+
+    /**
+     * Maps the hash index and reports whether it can be trusted as-is.
+     */
+    private boolean mapIndex() throws IOException {
+        Path path = dir.resolve(INDEX_FILE);
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE + (long) MIN_SLOTS * SLOT_SIZE) {
+            return false;
+        }
+        MappedByteBuffer existing = map(path, Files.size(path));
+        int existingSlots = existing.getInt(I_SLOTS);
+        boolean valid = existing.getInt(I_MAGIC) == INDEX_MAGIC
+                && existing.getInt(I_VERSION) == VERSION
+                && Integer.bitCount(existingSlots) == 1
+                && Files.size(path) == HEADER_SIZE + (long) existingSlots * SLOT_SIZE
+                && existing.getInt(I_CLEAN) == 1
+                && existing.getInt(I_COUNT) == count;
+        if (valid) {
+            index = existing;
+            slots = existingSlots;
+            usedSlots = existing.getInt(I_USED);
+            indexClean = true;
+        }
+        return valid;
+    }
+
+    /**
+     * Verifies every committed record, drops torn ones, relinks each address's chain through
+     * its live records and recomputes balances. Returns the number of records dropped.
+     */
+    private int scanRecords() {
+        Arrays.fill(heads, -1);
+        Arrays.fill(balances, 0);
+        Arrays.fill(counts, 0);
+        tombstones = 0;
+        int dropped = 0;
+        for (int record = 0; record < count; record++) {
+            int offset = offset(record);
+            if (data.get(offset + R_STATUS) == LIVE) {
+                int id = data.getInt(offset + R_ADDRESS);
+                if (id < 0 || id >= addresses.size() || data.getInt(offset + R_CRC) != checksum(offset)) {
+                    data.put(offset + R_STATUS, TOMBSTONE);
+                    dropped++;
+                }
+            }
+            if (data.get(offset + R_STATUS) != LIVE) {
+                tombstones++;
+                continue;
+            }
+            int id = data.getInt(offset + R_ADDRESS);
+            if (data.getInt(offset + R_PREV) != heads[id]) {
+                data.putInt(offset + R_PREV, heads[id]);
+            }
+            heads[id] = record;
+            balances[id] += data.getLong(offset + R_VALUE);
+            counts[id]++;
+        }
+        data.putLong(H_TOMBSTONES, tombstones);
+        if (dropped > 0) {
+            logger.warn("Dropped {} incomplete UTXO store records", dropped);
+        }
+        return dropped;
+    }
+
+    /**
+     * Builds a fresh hash index over the live records, sized for a load of at most about a third,
+     * and swaps it in. The new index is left dirty; {@link #markClean()} publishes it.
+     */
+    private void rebuildIndex() throws IOException {
+        int live = count - tombstones;
+        long wanted = Math.max(MIN_SLOTS, (long) live * 3);
+        if (wanted > MAX_SLOTS) {
+            throw new IllegalStateException("UTXO store index cannot hold " + live + " outputs");
+        }
+        int newSlots = Integer.highestOneBit((int) wanted - 1) << 1;
+
+        Path target = dir.resolve(INDEX_FILE);
+        Path temp = dir.resolve(INDEX_FILE + ".tmp");
+        Files.deleteIfExists(temp);
+        MappedByteBuffer next = map(temp, HEADER_SIZE + (long) newSlots * SLOT_SIZE);
+        next.putInt(I_MAGIC, INDEX_MAGIC);
+        next.putInt(I_VERSION, VERSION);
+        next.putInt(I_SLOTS, newSlots);
+        next.putInt(I_CLEAN, 0);
+
+        index = next;
+        slots = newSlots;
+        usedSlots = 0;
+        indexClean = false;
+        // Not scratch: append() may be holding the key being inserted there
+        long[] txid = new long[4];
+        for (int record = 0; record < count; record++) {
+            int offset = offset(record);
+            if (data.get(offset + R_STATUS) == LIVE) {
+                readTxid(offset, txid);
+                insertSlot(record, hash(txid, data.getInt(offset + R_VOUT)));
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
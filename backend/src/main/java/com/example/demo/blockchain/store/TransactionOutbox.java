@@ -0,0 +1,246 @@
+package com.example.demo.blockchain.store;
+
+import com.example.demo.blockchain.model.OutboxEntry;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Durable, append-only log of the payments accepted by {@code /api/send}.
+ * Every change to an entry appends its full new state as one JSON line (forced to disk
+ * when {@code send.outbox.fsync} is set) before it becomes visible, so an accepted payment
+ * survives a crash; on startup the last line per entry wins. The log is rewritten without
+ * superseded lines when it grows well past the live entries, dropping confirmed and failed
+ * entries older than {@code send.outbox.retention-hours}.
+ * Callers only ever see copies; all changes go through {@link #insert} and {@link #update}.
+ */
+@Component
+public class TransactionOutbox {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionOutbox.class);
+
+    private static final String LOG_FILE = "outbox.log";
+    // Superseded lines tolerated on top of the live entries before the log is rewritten
+    private static final int COMPACT_SLACK = 1000;
+
+    private final Path dir;
+    private final boolean fsync;
+    private final long retentionMillis;
+    private final Gson gson = new Gson();
+
+    // All guarded by this
+    private final Map<String, OutboxEntry> entries = new LinkedHashMap<>();
+    private final Map<String, String> idsByKey = new HashMap<>();
+    private FileChannel channel;
+    private long lines;
+
+    @Autowired
+    public TransactionOutbox(@Value("${send.outbox.dir:./data/outbox}") String outboxDir,
+                             @Value("${send.outbox.fsync:true}") boolean fsync,
+                             @Value("${send.outbox.retention-hours:168}") long retentionHours) {
+        this.dir = Paths.get(outboxDir);
+        this.fsync = fsync;
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(dir);
+        Path path = dir.resolve(LOG_FILE);
+        if (Files.exists(path)) {
+            byte[] bytes = Files.readAllBytes(path);
+            int end = bytes.length;
+            while (end > 0 && bytes[end - 1] != '\n') {
+                end--;
+            }
+            // A torn final line from a crash mid-append is ignored; the rewrite below drops it
+            for (String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n")) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    OutboxEntry entry = gson.fromJson(line, OutboxEntry.class);
+                    if (entry != null && entry.getId() != null) {
+                        remember(entry);
+                    }
+                } catch (JsonParseException e) {
+                    logger.warn("Skipping unreadable outbox line: {}", e.getMessage());
+                }
+            }
+        }
+        rewrite();
+        logger.info("Transaction outbox opened with {} entries", entries.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Persists a new entry.
+     *
+     * @param entry Entry with a unique id
+     * @return A copy of the stored entry
+     */
+    public synchronized OutboxEntry insert(OutboxEntry entry) throws IOException {
+        if (entries.containsKey(entry.getId())) {
+            throw new IllegalArgumentException("Duplicate outbox entry " + entry.getId());
+        }
+        OutboxEntry stored = new OutboxEntry(entry);
+        long now = System.currentTimeMillis();
+        stored.setCreatedAt(now);
+        stored.setUpdatedAt(now);
+        write(stored);
+        remember(stored);
+        compactIfNeeded();
+        return new OutboxEntry(stored);
+    }
+
+    /**
+     * Applies a change to an entry and persists it. The change runs on a copy, so the entry
+     * is left as it was if writing fails.
+     *
+     * @param id     Entry id
+     * @param change Mutation to apply
+     * @return A copy of the updated entry, or null if there is no such entry
+     */
+    public synchronized OutboxEntry update(String id, Consumer<OutboxEntry> change) throws IOException {
+        OutboxEntry current = entries.get(id);
+        if (current == null) {
+            return null;
+        }
+        OutboxEntry next = new OutboxEntry(current);
+        change.accept(next);
+        next.setUpdatedAt(System.currentTimeMillis());
+        write(next);
+        remember(next);
+        compactIfNeeded();
+        return new OutboxEntry(next);
+    }
+
+    public synchronized OutboxEntry get(String id) {
+        OutboxEntry entry = entries.get(id);
+        return entry != null ? new OutboxEntry(entry) : null;
+    }
+
+    public synchronized OutboxEntry findByIdempotencyKey(String idempotencyKey) {
+        String id = idsByKey.get(idempotencyKey);
+        return id != null ? get(id) : null;
+    }
+
+    /**
+     * Entries currently in a status, oldest first.
+     */
+    public synchronized List<OutboxEntry> inStatus(OutboxEntry.Status status) {
+        List<OutboxEntry> matching = new ArrayList<>();
+        for (OutboxEntry entry : entries.values()) {
+            if (entry.getStatus() == status) {
+                matching.add(new OutboxEntry(entry));
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Entries not yet confirmed or failed.
+     */
+    public synchronized int pendingCount() {
+        int pending = 0;
+        for (OutboxEntry entry : entries.values()) {
+            if (!entry.getStatus().isTerminal()) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    private void remember(OutboxEntry entry) {
+        entries.put(entry.getId(), entry);
+        if (entry.getIdempotencyKey() != null) {
+            idsByKey.put(entry.getIdempotencyKey(), entry.getId());
+        }
+    }
+
+    private void write(OutboxEntry entry) throws IOException {
+        if (channel == null) {
+            throw new IOException("outbox closed");
+        }
+        ByteBuffer line = ByteBuffer.wrap((gson.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        lines++;
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (lines > 2L * entries.size() + COMPACT_SLACK) {
+            rewrite();
+        }
+    }
+
+    /**
+     * Replaces the log with one line per retained entry, then reopens it for appending.
+     */
+    private void rewrite() throws IOException {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (Iterator<OutboxEntry> it = entries.values().iterator(); it.hasNext(); ) {
+            OutboxEntry entry = it.next();
+            if (entry.getStatus().isTerminal() && entry.getUpdatedAt() < cutoff) {
+                it.remove();
+                if (entry.getIdempotencyKey() != null) {
+                    idsByKey.remove(entry.getIdempotencyKey());
+                }
+            }
+        }
+
+        Path target = dir.resolve(LOG_FILE);
+        Path temp = dir.resolve(LOG_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (OutboxEntry entry : entries.values()) {
+                ByteBuffer line = ByteBuffer.wrap((gson.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+                while (line.hasRemaining()) {
+                    out.write(line);
+                }
+            }
+            out.force(true);
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        lines = entries.size();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.blockchain.store;
+
+import com.example.demo.blockchain.model.DerivedAddress;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Used addresses found by address discovery, one JSON file per HD account, so a later scan
+ * starts after the highest used index instead of from 0. Files are replaced atomically;
+ * a missing or unreadable file means the account has not been scanned.
+ */
+@Component
+public class UsedAddressStore {
+    private static final Logger logger = LoggerFactory.getLogger(UsedAddressStore.class);
+
+    private final Path dir;
+    private final Gson gson = new Gson();
+    private final Map<String, AccountFile> accounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UsedAddressStore(@Value("${hd.discovery.dir:./data/hd-discovery}") String discoveryDir) {
+        this.dir = Paths.get(discoveryDir);
+    }
+
+    /**
+     * Used addresses recorded for an account, ordered by chain and index.
+     */
+    public List<DerivedAddress> getUsed(String accountId) {
+        return List.copyOf(load(accountId).used);
+    }
+
+    /**
+     * When the account was last scanned, or 0 if never.
+     */
+    public long getScannedAt(String accountId) {
+        return load(accountId).scannedAt;
+    }
+
+    /**
+     * Adds newly found used addresses to an account and writes its file.
+     *
+     * @param accountId HD account id
+     * @param found     Addresses seen with at least one transaction
+     * @throws IOException if the file cannot be written; the previous file stays intact
+     */
+    public void record(String accountId, Collection<DerivedAddress> found) throws IOException {
+        AccountFile file = load(accountId);
+        synchronized (file) {
+            List<DerivedAddress> merged = new ArrayList<>(file.used);
+            Set<Long> known = new HashSet<>();
+            file.used.forEach(used -> known.add(position(used)));
+            for (DerivedAddress address : found) {
+                if (known.add(position(address))) {
+                    merged.add(address);
+                }
+            }
+            merged.sort(Comparator.comparingInt(DerivedAddress::getChain).thenComparingInt(DerivedAddress::getIndex));
+
+            AccountFile next = new AccountFile();
+            next.accountId = accountId;
+            next.used = merged;
+            next.scannedAt = System.currentTimeMillis();
+            write(next);
+            file.used = merged;
+            file.scannedAt = next.scannedAt;
+        }
+    }
+
+    private static long position(DerivedAddress address) {
+        return ((long) address.getChain() << 32) | address.getIndex();
+    }
+
+    private AccountFile load(String accountId) {
+        return accounts.computeIfAbsent(accountId, id -> {
+            Path path = dir.resolve(id + ".json");
+            if (Files.exists(path)) {
+                try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    AccountFile file = gson.fromJson(reader, AccountFile.class);
+                    if (file != null && file.used != null) {
+                        return file;
+                    }
+                } catch (Exception e) {
+                    logger.warn("Ignoring unreadable discovery state {}: {}", path, e.getMessage());
+                }
+            }
+            AccountFile empty = new AccountFile();
+            empty.accountId = id;
+            return empty;
+        });
+    }
+
+    private void write(AccountFile file) throws IOException {
+        Files.createDirectories(dir);
+        Path target = dir.resolve(file.accountId + ".json");
+        Path temp = dir.resolve(file.accountId + ".json.tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            gson.toJson(file, writer);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Discovery state of one account. Serialized as-is by Gson.
+     */
+    private static class AccountFile {
+        String accountId;
+        // Replaced, never modified, so readers need no lock
+        volatile List<DerivedAddress> used = new ArrayList<>();
+        volatile long scannedAt;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.blockchain.tx;
+
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.service.UtxoReservationTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A signed payment that has not been broadcast yet, with the UTXOs it spends.
+ * The inputs stay reserved until {@link #releaseInputs()}, which the caller invokes once
+ * the spend is recorded in the UTXO index or the payment is abandoned.
+ */
+public class PreparedTransaction {
+    private final String fromAddress;
+    private final SignedTransaction signed;
+    private final List<UTXO> inputs;
+    private final List<TxOutput> outputs;
+    private final long fee;
+    private final UtxoReservationTable.Claim claim;
+
+    public PreparedTransaction(String fromAddress, SignedTransaction signed, List<UTXO> inputs,
+                               List<TxOutput> outputs, long fee, UtxoReservationTable.Claim claim) {
+        this.fromAddress = fromAddress;
+        this.signed = signed;
+        this.inputs = List.copyOf(inputs);
+        this.outputs = List.copyOf(outputs);
+        this.fee = fee;
+        this.claim = claim;
+    }
+
+    public String getFromAddress() {
+        return fromAddress;
+    }
+
+    public SignedTransaction getSigned() {
+        return signed;
+    }
+
+    /**
+     * UTXOs spent by the transaction.
+     */
+    public List<UTXO> getInputs() {
+        return inputs;
+    }
+
+    public List<TxOutput> getOutputs() {
+        return outputs;
+    }
+
+    public long getFee() {
+        return fee;
+    }
+
+    /**
+     * Sender and recipients, whose cached provider data the broadcast makes stale.
+     */
+    public List<String> getAffectedAddresses() {
+        List<String> affected = new ArrayList<>();
+        affected.add(fromAddress);
+        for (TxOutput output : outputs) {
+            if (!affected.contains(output.getAddress())) {
+                affected.add(output.getAddress());
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Gives up the reservation on the inputs. Safe to call more than once.
+     */
+    public void releaseInputs() {
+        claim.release();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.blockchain.tx;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SIGHASH_ALL digests for every input of one unsigned transaction, with the parts shared
+ * across inputs computed once.
+ * BIP143 (P2WPKH) digests start from a SHA-256 midstate over version, hashPrevouts and
+ * hashSequence, and reuse hashOutputs. Legacy (P2PKH) digests reuse pre-serialized input,
+ * output and locktime blocks instead of copying the transaction per input as bitcoinj does.
+ * Instances are immutable after construction and safe to use from several threads.
+ */
+final class SighashCache {
+    private static final int SIGHASH_ALL = 1;
+    // Outpoint (36) + empty script (1) + sequence (4)
+    private static final int EMPTY_INPUT_SIZE = 41;
+    private static final int OUTPOINT_SIZE = 36;
+    private static final int SEQUENCE_OFFSET = OUTPOINT_SIZE + 1;
+
+    // Length-prefixed, as it appears in every digest
+    private final byte[] scriptCode;
+    private final int inputCount;
+    // Every input with an empty script, in transaction order
+    private final byte[] emptyInputs;
+
+    // BIP143
+    private final MessageDigest witnessMidstate;
+    private final byte[] hashOutputs;
+    private final byte[] lockTimeAndType;
+
+    // Legacy header, and the outputs + locktime + sighash type that end every legacy preimage
+    private final byte[] legacyHeader;
+    private final byte[] legacyTail;
+
+    /**
+     * @param tx         Transaction whose inputs and outputs are final
+     * @param scriptCode Script code of the key spending every input (its P2PKH script)
+     * @param witness    Whether inputs are P2WPKH (BIP143) rather than legacy P2PKH
+     */
+    SighashCache(Transaction tx, byte[] scriptCode, boolean witness) {
+        this.inputCount = tx.getInputs().size();
+
+        TxWriter writer = new TxWriter(inputCount * EMPTY_INPUT_SIZE + 64);
+        writer.writeBytes(scriptCode);
+        this.scriptCode = writer.toByteArray();
+
+        writer.reset();
+        for (int i = 0; i < inputCount; i++) {
+            TransactionInput input = tx.getInput(i);
+            writer.write(input.getOutpoint().getHash().getReversedBytes());
+            writer.writeUint32(input.getOutpoint().getIndex());
+            writer.writeByte(0);
+            writer.writeUint32(input.getSequenceNumber());
+        }
+        this.emptyInputs = writer.toByteArray();
+
+        writer.reset();
+        writer.writeVarInt(tx.getOutputs().size());
+        for (TransactionOutput output : tx.getOutputs()) {
+            writer.writeInt64(output.getValue().value);
+            writer.writeBytes(output.getScriptBytes());
+        }
+        int outputsEnd = writer.size();
+        writer.writeUint32(tx.getLockTime());
+        writer.writeUint32(SIGHASH_ALL);
+        this.legacyTail = writer.toByteArray();
+
+        if (witness) {
+            // Outputs without their count, as BIP143 hashes them
+            int countSize = varIntSize(tx.getOutputs().size());
+            this.hashOutputs = doubleSha256(legacyTail, countSize, outputsEnd - countSize);
+            this.lockTimeAndType = new byte[8];
+            System.arraycopy(legacyTail, outputsEnd, lockTimeAndType, 0, 8);
+
+            MessageDigest prevouts = sha256();
+            MessageDigest sequenceDigest = sha256();
+            for (int i = 0; i < inputCount; i++) {
+                prevouts.update(emptyInputs, i * EMPTY_INPUT_SIZE, OUTPOINT_SIZE);
+                sequenceDigest.update(emptyInputs, i * EMPTY_INPUT_SIZE + SEQUENCE_OFFSET, 4);
+            }
+            writer.reset();
+            writer.writeUint32(tx.getVersion());
+            this.witnessMidstate = sha256();
+            witnessMidstate.update(writer.array(), 0, writer.size());
+            witnessMidstate.update(sha256().digest(prevouts.digest()));
+            witnessMidstate.update(sha256().digest(sequenceDigest.digest()));
+            this.legacyHeader = null;
+        } else {
+            this.hashOutputs = null;
+            this.lockTimeAndType = null;
+            this.witnessMidstate = null;
+            writer.reset();
+            writer.writeUint32(tx.getVersion());
+            writer.writeVarInt(inputCount);
+            this.legacyHeader = writer.toByteArray();
+        }
+    }
+
+    int inputCount() {
+        return inputCount;
+    }
+
+    /**
+     * BIP143 digest for input {@code index} spending {@code value} satoshis.
+     */
+    Sha256Hash witnessHash(int index, long value) {
+        int start = index * EMPTY_INPUT_SIZE;
+        MessageDigest digest = cloneDigest(witnessMidstate);
+        digest.update(emptyInputs, start, OUTPOINT_SIZE);
+        digest.update(scriptCode);
+        for (int shift = 0; shift < 64; shift += 8) {
+            digest.update((byte) (value >>> shift));
+        }
+        digest.update(emptyInputs, start + SEQUENCE_OFFSET, 4);
+        digest.update(hashOutputs);
+        digest.update(lockTimeAndType);
+        return Sha256Hash.wrap(sha256().digest(digest.digest()));
+    }
+
+    /**
+     * Legacy digest for input {@code index}: every other input's script blanked,
+     * this input's script replaced with the script code.
+     */
+    Sha256Hash legacyHash(int index) {
+        MessageDigest digest = sha256();
+        int start = index * EMPTY_INPUT_SIZE;
+        digest.update(legacyHeader);
+        digest.update(emptyInputs, 0, start + OUTPOINT_SIZE);
+        digest.update(scriptCode);
+        digest.update(emptyInputs, start + SEQUENCE_OFFSET, 4);
+        int next = start + EMPTY_INPUT_SIZE;
+        digest.update(emptyInputs, next, emptyInputs.length - next);
+        digest.update(legacyTail);
+        return Sha256Hash.wrap(sha256().digest(digest.digest()));
+    }
+
+    static int varIntSize(long value) {
+        return value < 0xfd ? 1 : value <= 0xffff ? 3 : value <= 0xffffffffL ? 5 : 9;
+    }
+
+    static byte[] doubleSha256(byte[] bytes, int offset, int length) {
+        MessageDigest digest = sha256();
+        digest.update(bytes, offset, length);
+        return sha256().digest(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest cloneDigest(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 provider does not support midstate cloning", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.blockchain.tx;
+
+/**
+ * A fully signed transaction ready for broadcast.
+ */
+public class SignedTransaction {
+    private final String txId;
+    private final String rawHex;
+    private final int size;
+    private final int vsize;
+
+    public SignedTransaction(String txId, String rawHex, int size, int vsize) {
+        this.txId = txId;
+        this.rawHex = rawHex;
+        this.size = size;
+        this.vsize = vsize;
+    }
+
+    /**
+     * Transaction id (display byte order).
+     */
+    public String getTxId() {
+        return txId;
+    }
+
+    /**
+     * Network serialization, including witness data when present.
+     */
+    public String getRawHex() {
+        return rawHex;
+    }
+
+    /**
+     * Serialized size in bytes.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Virtual size in vbytes (weight / 4, rounded up).
+     */
+    public int getVsize() {
+        return vsize;
+    }
+
+    @Override
+    public String toString() {
+        return "SignedTransaction{" +
+                "txId='" + txId + '\'' +
+                ", size=" + size +
+                ", vsize=" + vsize +
+                '}';
+    }
+}
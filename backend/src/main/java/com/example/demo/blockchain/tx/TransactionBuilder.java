@@ -0,0 +1,294 @@
+package com.example.demo.blockchain.tx;
+
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.service.KeyService;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.core.TransactionWitness;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.crypto.TransactionSignature;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assembles, signs and serializes bitcoinj transactions spending UTXOs of a single key.
+ * Supports P2PKH and P2WPKH inputs. Sighashes come from a {@link SighashCache}, so each
+ * input costs one digest over its own data rather than a copy of the whole transaction,
+ * and the wire bytes are written into a per-thread buffer that is reused across calls.
+ * Transactions with many inputs (consolidations) are hashed and signed on a fork-join pool;
+ * RFC6979 nonces make the result byte-identical to signing sequentially.
+ */
+@Component
+public class TransactionBuilder {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBuilder.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    // Inputs per fork-join leaf; one ECDSA signature is far more work than task overhead
+    private static final int INPUTS_PER_TASK = 8;
+
+    private final NetworkParameters params;
+    private final ThreadLocal<TxWriter> buffers = ThreadLocal.withInitial(() -> new TxWriter(INITIAL_BUFFER_SIZE));
+    private final int parallelThreshold;
+    private final ForkJoinPool signingPool;
+
+    @Autowired
+    public TransactionBuilder(KeyService keyService,
+                              @Value("${tx.signing.parallel-threshold:32}") int parallelThreshold,
+                              @Value("${tx.signing.parallelism:0}") int parallelism) {
+        this.params = keyService.getNetworkParameters();
+        this.parallelThreshold = parallelThreshold;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.signingPool = new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("tx-signer-" + threadCount.incrementAndGet());
+                    return thread;
+                },
+                null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        signingPool.shutdown();
+    }
+
+    /**
+     * Builds and signs a transaction spending {@code utxos} of {@code fromAddress}.
+     *
+     * @param utxos       Inputs, all paying to {@code fromAddress}
+     * @param outputs     Outputs in order, change included
+     * @param key         Key controlling {@code fromAddress}
+     * @param fromAddress P2PKH or P2WPKH address of the inputs
+     * @return The signed transaction
+     * @throws IllegalArgumentException if the address type is unsupported or the key does not match
+     */
+    public SignedTransaction buildAndSign(List<UTXO> utxos, List<TxOutput> outputs, ECKey key, String fromAddress) {
+        Script.ScriptType scriptType = verifyKey(key, fromAddress);
+        Transaction tx = assemble(utxos, outputs);
+        sign(tx, key, scriptType);
+        SignedTransaction signed = serialize(tx);
+        logger.debug("Built {} with {} inputs and {} outputs", signed, utxos.size(), outputs.size());
+        return signed;
+    }
+
+    /**
+     * Checks that {@code key} controls {@code address}.
+     *
+     * @return The address's script type
+     * @throws IllegalArgumentException if the address type is unsupported or the key does not match
+     */
+    public Script.ScriptType verifyKey(ECKey key, String address) {
+        Script.ScriptType scriptType = scriptTypeOf(address);
+        if (!Address.fromKey(params, key, scriptType).toString().equals(address)) {
+            throw new IllegalArgumentException("Private key does not control address " + address);
+        }
+        return scriptType;
+    }
+
+    /**
+     * Script type of an address we can sign for.
+     *
+     * @throws IllegalArgumentException for anything other than P2PKH or P2WPKH
+     */
+    public Script.ScriptType scriptTypeOf(String address) {
+        Script.ScriptType scriptType = Address.fromString(params, address).getOutputScriptType();
+        if (scriptType != Script.ScriptType.P2PKH && scriptType != Script.ScriptType.P2WPKH) {
+            throw new IllegalArgumentException("Unsupported input address type " + scriptType + ": " + address);
+        }
+        return scriptType;
+    }
+
+    /**
+     * Creates an unsigned transaction with the given inputs and outputs.
+     */
+    public Transaction assemble(List<UTXO> utxos, List<TxOutput> outputs) {
+        Transaction tx = new Transaction(params);
+        for (UTXO utxo : utxos) {
+            TransactionOutPoint outPoint = new TransactionOutPoint(params, utxo.getVout(), Sha256Hash.wrap(utxo.getTxid()));
+            tx.addInput(new TransactionInput(params, tx, new byte[0], outPoint, Coin.valueOf(utxo.getAmount())));
+        }
+        for (TxOutput output : outputs) {
+            tx.addOutput(Coin.valueOf(output.getValue()), Address.fromString(params, output.getAddress()));
+        }
+        return tx;
+    }
+
+    /**
+     * Signs every input of {@code tx} with SIGHASH_ALL using one key, in parallel once the
+     * input count reaches {@code tx.signing.parallel-threshold}.
+     * Inputs must carry their values (as set by {@link #assemble}).
+     */
+    public void sign(Transaction tx, ECKey key, Script.ScriptType scriptType) {
+        if (tx.getInputs().size() >= parallelThreshold) {
+            signParallel(tx, key, scriptType);
+        } else {
+            signSequential(tx, key, scriptType);
+        }
+    }
+
+    /**
+     * Signs every input on the calling thread.
+     */
+    public void signSequential(Transaction tx, ECKey key, Script.ScriptType scriptType) {
+        boolean witness = scriptType == Script.ScriptType.P2WPKH;
+        SignatureTask task = new SignatureTask(tx, key, witness);
+        task.signRange(0, task.signatures.length);
+        applySignatures(tx, task.signatures, key, witness);
+    }
+
+    /**
+     * Computes sighashes and signatures for disjoint input ranges on the signing pool,
+     * then attaches the scripts or witnesses on the calling thread.
+     */
+    public void signParallel(Transaction tx, ECKey key, Script.ScriptType scriptType) {
+        boolean witness = scriptType == Script.ScriptType.P2WPKH;
+        SignatureTask task = new SignatureTask(tx, key, witness);
+        signingPool.invoke(task);
+        applySignatures(tx, task.signatures, key, witness);
+    }
+
+    private static void applySignatures(Transaction tx, TransactionSignature[] signatures, ECKey key, boolean witness) {
+        // bitcoinj inputs are not thread-safe, so scripts are attached sequentially
+        List<TransactionInput> inputs = tx.getInputs();
+        for (int i = 0; i < signatures.length; i++) {
+            if (witness) {
+                inputs.get(i).setWitness(TransactionWitness.redeemP2WPKH(signatures[i], key));
+            } else {
+                inputs.get(i).setScriptSig(ScriptBuilder.createInputScript(signatures[i], key));
+            }
+        }
+    }
+
+    /**
+     * Serializes a signed transaction into this thread's reusable buffer.
+     * The txid is hashed from the non-witness ranges of the same bytes.
+     */
+    public SignedTransaction serialize(Transaction tx) {
+        TxWriter writer = buffers.get();
+        writer.reset();
+        boolean segwit = tx.hasWitnesses();
+
+        writer.writeUint32(tx.getVersion());
+        if (segwit) {
+            writer.writeByte(0);
+            writer.writeByte(1);
+        }
+        int inputsStart = writer.size();
+        writer.writeVarInt(tx.getInputs().size());
+        for (TransactionInput input : tx.getInputs()) {
+            writer.write(input.getOutpoint().getHash().getReversedBytes());
+            writer.writeUint32(input.getOutpoint().getIndex());
+            writer.writeBytes(input.getScriptBytes());
+            writer.writeUint32(input.getSequenceNumber());
+        }
+        writer.writeVarInt(tx.getOutputs().size());
+        for (TransactionOutput output : tx.getOutputs()) {
+            writer.writeInt64(output.getValue().value);
+            writer.writeBytes(output.getScriptBytes());
+        }
+        int witnessStart = writer.size();
+        if (segwit) {
+            for (TransactionInput input : tx.getInputs()) {
+                TransactionWitness witness = input.getWitness();
+                writer.writeVarInt(witness.getPushCount());
+                for (int i = 0; i < witness.getPushCount(); i++) {
+                    writer.writeBytes(witness.getPush(i));
+                }
+            }
+        }
+        int lockTimeStart = writer.size();
+        writer.writeUint32(tx.getLockTime());
+        int size = writer.size();
+
+        byte[] bytes = writer.array();
+        MessageDigest digest = SighashCache.sha256();
+        digest.update(bytes, 0, 4);
+        digest.update(bytes, inputsStart, witnessStart - inputsStart);
+        digest.update(bytes, lockTimeStart, 4);
+        byte[] txId = SighashCache.sha256().digest(digest.digest());
+
+        int strippedSize = size - (segwit ? 2 + lockTimeStart - witnessStart : 0);
+        int weight = strippedSize * 3 + size;
+        return new SignedTransaction(Sha256Hash.wrapReversed(txId).toString(),
+                Utils.HEX.encode(bytes, 0, size), size, (weight + 3) / 4);
+    }
+
+    /**
+     * Signs a range of inputs, splitting it in half until a range is small enough to sign directly.
+     * Every subtask writes only its own slots of the shared signatures array.
+     */
+    private static class SignatureTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final SighashCache sighashes;
+        final long[] values;
+        final ECKey key;
+        final boolean witness;
+        final TransactionSignature[] signatures;
+        final int from;
+        final int to;
+
+        SignatureTask(Transaction tx, ECKey key, boolean witness) {
+            // For P2WPKH the BIP143 script code is the key's P2PKH script as well
+            this.sighashes = new SighashCache(tx, ScriptBuilder.createP2PKHOutputScript(key).getProgram(), witness);
+            this.values = new long[tx.getInputs().size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = tx.getInput(i).getValue().value;
+            }
+            this.key = key;
+            this.witness = witness;
+            this.signatures = new TransactionSignature[values.length];
+            this.from = 0;
+            this.to = values.length;
+        }
+
+        private SignatureTask(SignatureTask parent, int from, int to) {
+            this.sighashes = parent.sighashes;
+            this.values = parent.values;
+            this.key = parent.key;
+            this.witness = parent.witness;
+            this.signatures = parent.signatures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= INPUTS_PER_TASK) {
+                signRange(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SignatureTask(this, from, middle), new SignatureTask(this, middle, to));
+        }
+
+        void signRange(int start, int end) {
+            for (int i = start; i < end; i++) {
+                Sha256Hash hash = witness ? sighashes.witnessHash(i, values[i]) : sighashes.legacyHash(i);
+                signatures[i] = new TransactionSignature(key.sign(hash), Transaction.SigHash.ALL, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.blockchain.tx;
+
+import java.util.Arrays;
+
+/**
+ * Growable little-endian byte buffer for Bitcoin wire serialization.
+ * Meant to be reset and reused, so steady-state serialization does not allocate.
+ */
+final class TxWriter {
+    private byte[] buffer;
+    private int size;
+
+    TxWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Backing array; only the first {@link #size()} bytes are valid.
+     */
+    byte[] array() {
+        return buffer;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    void writeUint32(long value) {
+        ensure(4);
+        buffer[size++] = (byte) value;
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 24);
+    }
+
+    void writeInt64(long value) {
+        ensure(8);
+        for (int shift = 0; shift < 64; shift += 8) {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    void writeVarInt(long value) {
+        if (value < 0xfd) {
+            writeByte((int) value);
+        } else if (value <= 0xffff) {
+            writeByte(0xfd);
+            writeByte((int) value);
+            writeByte((int) (value >>> 8));
+        } else if (value <= 0xffffffffL) {
+            writeByte(0xfe);
+            writeUint32(value);
+        } else {
+            writeByte(0xff);
+            writeInt64(value);
+        }
+    }
+
+    void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    void write(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    /**
+     * Writes a length-prefixed byte string.
+     */
+    void writeBytes(byte[] bytes) {
+        writeVarInt(bytes.length);
+        write(bytes);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
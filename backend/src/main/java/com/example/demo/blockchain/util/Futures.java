@@ -0,0 +1,96 @@
+package com.example.demo.blockchain.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Helpers for bridging the asynchronous provider API back to the
+ * checked-exception style used by the synchronous {@code BlockchainAPI} methods.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for the future and rethrows its failure as the original exception.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Strips the CompletionException/ExecutionException wrappers added by CompletableFuture.
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * Runs a throwing supplier and captures its outcome in a completed future.
+     */
+    public static <T> CompletableFuture<T> of(ThrowingSupplier<T> supplier) {
+        try {
+            return CompletableFuture.completedFuture(supplier.get());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Applies an asynchronous function to every item while keeping at most
+     * {@code parallelism} calls outstanding. Results keep the order of {@code items}.
+     */
+    public static <I, R> CompletableFuture<List<R>> mapBounded(List<I> items, int parallelism,
+                                                              Function<I, CompletableFuture<R>> function) {
+        int size = items.size();
+        List<R> results = new ArrayList<>(Collections.nCopies(size, null));
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(Math.max(parallelism, 1), size)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = runLane(items, results, next, function);
+        }
+        return CompletableFuture.allOf(lanes).thenApply(done -> results);
+    }
+
+    private static <I, R> CompletableFuture<Void> runLane(List<I> items, List<R> results, AtomicInteger next,
+                                                          Function<I, CompletableFuture<R>> function) {
+        int index = next.getAndIncrement();
+        if (index >= items.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return function.apply(items.get(index)).thenCompose(result -> {
+            synchronized (results) {
+                results.set(index, result);
+            }
+            return runLane(items, results, next, function);
+        });
+    }
+
+    /**
+     * Supplier that may throw a checked exception, matching the {@code BlockchainAPI} signatures.
+     */
+    @FunctionalInterface
+    public interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+}
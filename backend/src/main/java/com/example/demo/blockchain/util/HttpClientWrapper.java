@@ -2,60 +2,499 @@ package com.example.demo.blockchain.util;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
+/**
+ * Shared HTTP engine for all blockchain providers.
+ * Requests run asynchronously on a dedicated executor (virtual threads when the runtime
+ * supports them), prefer HTTP/2 so calls to the same provider share one connection, and are
+ * limited per host so a slow provider cannot absorb every worker.
+ * Providers may register a token-bucket rate limit, applied per host and API token; throttled,
+ * timed-out and 5xx requests are retried with jittered exponential backoff (honouring
+ * Retry-After) within a global retry budget.
+ */
 @Component
 public class HttpClientWrapper {
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientWrapper.class);
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration requestTimeout;
+    private final int maxConcurrentPerHost;
+    private final Map<String, HostLimiter> hostLimiters = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucketRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Counter retryBudgetExhausted;
+
+    @Value("${http.retry.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${http.retry.base-delay-ms:200}")
+    private long retryBaseDelayMs;
+
+    @Value("${http.retry.max-delay-ms:5000}")
+    private long retryMaxDelayMs;
+
+    @Value("${http.retry.budget-ratio:0.1}")
+    private double retryBudgetRatio;
+
+    @Value("${http.retry.budget-min-per-second:5}")
+    private double retryBudgetMinPerSecond;
+
+    @Value("${http.ratelimit.max-wait-ms:5000}")
+    private long rateLimitMaxWaitMs;
+
+    private RetryBudget retryBudget;
+
+    @Autowired
+    public HttpClientWrapper(@Value("${http.client.executor:virtual}") String executorType,
+                             @Value("${http.client.threads:32}") int threads,
+                             @Value("${http.client.connect-timeout-ms:5000}") long connectTimeoutMs,
+                             @Value("${http.client.request-timeout-ms:15000}") long requestTimeoutMs,
+                             @Value("${http.client.max-concurrent-per-host:16}") int maxConcurrentPerHost,
+                             MeterRegistry meterRegistry) {
+        this.executor = createExecutor(executorType, threads);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.meterRegistry = meterRegistry;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blockchain-http-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("blockchain.http.inflight", inFlight, AtomicInteger::get)
+                .description("Upstream HTTP requests currently in flight")
+                .register(meterRegistry);
+        this.retryBudgetExhausted = Counter.builder("blockchain.http.retry.budget.exhausted")
+                .description("Retries skipped because the global retry budget was spent")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.retryBudget = new RetryBudget(retryBudgetRatio, retryBudgetMinPerSecond);
+    }
+
+    /**
+     * Rate-limits requests to a host. Each distinct API token used against the host
+     * gets its own bucket with these settings.
+     *
+     * @param host              Host name, e.g. api.blockcypher.com
+     * @param permitsPerSecond  Sustained request rate
+     * @param burst             Requests allowed back to back
+     */
+    public void registerRateLimit(String host, double permitsPerSecond, int burst) {
+        rateLimits.put(host, new RateLimit(permitsPerSecond, burst));
+        logger.info("Rate limit for {}: {} req/s, burst {}", host, permitsPerSecond, burst);
+    }
 
     /**
      * Make GET request
      */
     public String get(String url) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(new URI(url))
+        return Futures.await(getAsync(url));
+    }
+
+    /**
+     * Make POST request
+     */
+    public String post(String url, String jsonBody) throws Exception {
+        return Futures.await(postAsync(url, jsonBody));
+    }
+
+    /**
+     * Make GET request without blocking the caller.
+     * The returned future fails with the same "HTTP Error" exception as {@link #get(String)}.
+     */
+    public CompletableFuture<String> getAsync(String url) {
+        return sendAsync(url, () -> HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
                 .GET()
                 .header("Content-Type", "application/json")
-                .build();
+                .build(), false, true);
+    }
+
+    /**
+     * Make GET request and hand the response body to {@code parser} as a character stream,
+     * so large payloads can be consumed token by token instead of buffered into a String.
+     * The parser runs on the HTTP executor, never on the caller's thread.
+     */
+    public <T> CompletableFuture<T> getStreamAsync(String url, BodyParser<T> parser) {
+        return exchange(url, () -> HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .GET()
+                .header("Content-Type", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofInputStream(), response -> {
+            try (InputStream body = response.body();
+                 Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+                if (response.statusCode() != 200) {
+                    throw new HttpStatusException(response.statusCode(),
+                            new String(body.readAllBytes(), StandardCharsets.UTF_8), retryAfterMillis(response));
+                }
+                return parser.parse(reader);
+            }
+        }, true);
+    }
+
+    /**
+     * Make POST request without blocking the caller.
+     */
+    public CompletableFuture<String> postAsync(String url, String jsonBody) {
+        return sendAsync(url, () -> HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .header("Content-Type", "application/json")
+                .build(), true, false);
+    }
+
+    /**
+     * Make DELETE request without blocking the caller. Both 200 and 204 count as success.
+     */
+    public CompletableFuture<Void> deleteAsync(String url) {
+        return exchange(url, () -> HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .DELETE()
+                .build(), HttpResponse.BodyHandlers.ofString(), response -> {
+            int status = response.statusCode();
+            if (status != 200 && status != 204) {
+                throw new HttpStatusException(status, response.body(), retryAfterMillis(response));
+            }
+            return null;
+        }, true);
+    }
+
+    /**
+     * Parse JSON response
+     */
+    public JsonObject parseJson(String jsonString) {
+        return JsonParser.parseString(jsonString).getAsJsonObject();
+    }
+
+    /**
+     * Executor backing the HTTP client, exposed so providers can run their own
+     * continuations off the servlet thread.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        executor.shutdown();
+    }
+
+    private CompletableFuture<String> sendAsync(String url, Supplier<HttpRequest> requestFactory,
+                                                boolean allowCreated, boolean idempotent) {
+        return exchange(url, requestFactory, HttpResponse.BodyHandlers.ofString(), response -> {
+            int status = response.statusCode();
+            if (status != 200 && !(allowCreated && status == 201)) {
+                throw new HttpStatusException(status, response.body(), retryAfterMillis(response));
+            }
+            return response.body();
+        }, idempotent);
+    }
+
+    /**
+     * Sends the request under the rate limit and per-host limit, retrying retryable failures.
+     * {@code handler} runs before the host permit is released, so streamed bodies count as
+     * in flight until fully read.
+     */
+    private <B, T> CompletableFuture<T> exchange(String url, Supplier<HttpRequest> requestFactory,
+                                                 HttpResponse.BodyHandler<B> bodyHandler,
+                                                 ResponseHandler<B, T> handler, boolean idempotent) {
+        HttpRequest request;
+        try {
+            request = requestFactory.get();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new Exception("Invalid URL: " + url, e));
+        }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<T> result = new CompletableFuture<>();
+        retryBudget.deposit();
+        attempt(request, bodyHandler, handler, idempotent, 0, result);
+        return result;
+    }
 
-        if (response.statusCode() != 200) {
-            throw new Exception("HTTP Error: " + response.statusCode() + " - " + response.body());
+    private <B, T> void attempt(HttpRequest request, HttpResponse.BodyHandler<B> bodyHandler,
+                                ResponseHandler<B, T> handler, boolean idempotent,
+                                int attemptNumber, CompletableFuture<T> result) {
+        String host = request.uri().getHost();
+        long waitNanos = reserveRateLimit(request.uri());
+        if (waitNanos < 0) {
+            meterRegistry.counter("blockchain.http.throttled", "host", host, "outcome", "rejected").increment();
+            result.completeExceptionally(new RateLimitExceededException(host));
+            return;
+        }
+        if (waitNanos > 0) {
+            meterRegistry.counter("blockchain.http.throttled", "host", host, "outcome", "delayed").increment();
+            scheduler.schedule(() -> send(request, bodyHandler, handler, idempotent, attemptNumber, result),
+                    waitNanos, TimeUnit.NANOSECONDS);
+        } else {
+            send(request, bodyHandler, handler, idempotent, attemptNumber, result);
         }
+    }
+
+    private <B, T> void send(HttpRequest request, HttpResponse.BodyHandler<B> bodyHandler,
+                             ResponseHandler<B, T> handler, boolean idempotent,
+                             int attemptNumber, CompletableFuture<T> result) {
+        String host = request.uri().getHost();
+        HostLimiter limiter = hostLimiters.computeIfAbsent(host, h -> new HostLimiter(maxConcurrentPerHost));
+
+        limiter.submit(() -> {
+            inFlight.incrementAndGet();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            httpClient.sendAsync(request, bodyHandler)
+                    .whenComplete((response, error) -> {
+                        T value = null;
+                        Throwable failure = null;
+                        try {
+                            if (error != null) {
+                                logger.debug("HTTP request to {} failed: {}", host, error.getMessage());
+                                failure = Futures.unwrap(error);
+                            } else {
+                                value = handler.handle(response);
+                            }
+                        } catch (Exception e) {
+                            failure = e;
+                        } finally {
+                            inFlight.decrementAndGet();
+                            limiter.release();
+                            String outcome = error != null ? "error" : String.valueOf(response.statusCode());
+                            sample.stop(meterRegistry.timer("blockchain.http.requests", "host", host, "status", outcome));
+                        }
 
-        return response.body();
+                        if (failure == null) {
+                            result.complete(value);
+                            return;
+                        }
+                        long delayMs = retryDelayMillis(failure, idempotent, attemptNumber);
+                        if (delayMs < 0) {
+                            result.completeExceptionally(failure);
+                            return;
+                        }
+                        meterRegistry.counter("blockchain.http.retries", "host", host).increment();
+                        logger.debug("Retrying request to {} in {} ms (attempt {}): {}",
+                                host, delayMs, attemptNumber + 1, failure.getMessage());
+                        scheduler.schedule(() -> attempt(request, bodyHandler, handler, idempotent,
+                                attemptNumber + 1, result), delayMs, TimeUnit.MILLISECONDS);
+                    });
+        });
     }
 
     /**
-     * Make POST request
+     * Decides whether a failed attempt is retried.
+     *
+     * @return Delay before the next attempt in milliseconds, or -1 to give up
      */
-    public String post(String url, String jsonBody) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(new URI(url))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .header("Content-Type", "application/json")
-                .build();
+    private long retryDelayMillis(Throwable failure, boolean idempotent, int attemptNumber) {
+        if (attemptNumber >= maxRetries) {
+            return -1;
+        }
+
+        long retryAfterMs = -1;
+        if (failure instanceof HttpStatusException) {
+            HttpStatusException statusError = (HttpStatusException) failure;
+            // A 429 means the request was refused outright, so even a POST is safe to resend
+            if (!statusError.isRetryable() || (!idempotent && statusError.getStatusCode() != 429)) {
+                return -1;
+            }
+            retryAfterMs = statusError.getRetryAfterMillis();
+            if (retryAfterMs > retryMaxDelayMs) {
+                return -1;
+            }
+        } else if (!(failure instanceof IOException) || !idempotent) {
+            // Timeouts and connection failures are IOExceptions; anything else is not transient
+            return -1;
+        }
+
+        if (!retryBudget.tryWithdraw()) {
+            retryBudgetExhausted.increment();
+            return -1;
+        }
+        if (retryAfterMs >= 0) {
+            return retryAfterMs;
+        }
+        // Full jitter: uniform in [0, min(max, base * 2^attempt)]
+        long ceiling = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attemptNumber, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Takes a rate-limit token for the request's host and API token.
+     *
+     * @return Nanoseconds to wait, or -1 if the wait would exceed {@code http.ratelimit.max-wait-ms}
+     */
+    private long reserveRateLimit(URI uri) {
+        RateLimit limit = rateLimits.get(uri.getHost());
+        if (limit == null) {
+            return 0;
+        }
+        String key = uri.getHost() + "|" + tokenOf(uri);
+        return rateLimiters.computeIfAbsent(key,
+                k -> new TokenBucketRateLimiter(limit.permitsPerSecond, limit.burst))
+                .tryReserve(TimeUnit.MILLISECONDS.toNanos(rateLimitMaxWaitMs));
+    }
+
+    private static String tokenOf(URI uri) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return "";
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("token=")) {
+                return parameter.substring("token=".length());
+            }
+        }
+        return "";
+    }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    private static long retryAfterMillis(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After").map(value -> {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+            } catch (NumberFormatException notSeconds) {
+                try {
+                    ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return Math.max(0, Duration.between(ZonedDateTime.now(), at).toMillis());
+                } catch (DateTimeParseException notDate) {
+                    return -1L;
+                }
+            }
+        }).orElse(-1L);
+    }
 
-        if (response.statusCode() != 200 && response.statusCode() != 201) {
-            throw new Exception("HTTP Error: " + response.statusCode() + " - " + response.body());
+    private static ExecutorService createExecutor(String executorType, int threads) {
+        if ("virtual".equalsIgnoreCase(executorType)) {
+            try {
+                // Resolved reflectively so the module still runs on Java 17 runtimes
+                return (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.info("Virtual threads not available on this JVM, using a pool of {} platform threads", threads);
+            }
         }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "blockchain-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Consumes a streamed response body.
+     */
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(Reader body) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler<B, T> {
+        T handle(HttpResponse<B> response) throws Exception;
+    }
+
+    private static class RateLimit {
+        final double permitsPerSecond;
+        final int burst;
 
-        return response.body();
+        RateLimit(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
     }
 
     /**
-     * Parse JSON response
+     * Non-blocking per-host concurrency limit. Requests over the limit are queued and
+     * started as earlier requests to the same host complete.
      */
-    public JsonObject parseJson(String jsonString) {
-        return JsonParser.parseString(jsonString).getAsJsonObject();
+    private static class HostLimiter {
+        private final AtomicInteger permits;
+        private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+        HostLimiter(int maxConcurrent) {
+            this.permits = new AtomicInteger(maxConcurrent);
+        }
+
+        void submit(Runnable task) {
+            waiting.add(task);
+            drain();
+        }
+
+        void release() {
+            permits.incrementAndGet();
+            drain();
+        }
+
+        private void drain() {
+            while (!waiting.isEmpty()) {
+                int available = permits.get();
+                if (available <= 0) {
+                    return;
+                }
+                if (!permits.compareAndSet(available, available - 1)) {
+                    continue;
+                }
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.incrementAndGet();
+                    continue;
+                }
+                next.run();
+            }
+        }
     }
 }
@@ -0,0 +1,48 @@
+package com.example.demo.blockchain.util;
+
+/**
+ * Thrown when an upstream provider answers with an unexpected HTTP status.
+ * Keeps the "HTTP Error: status - body" message format callers already log.
+ */
+public class HttpStatusException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    public HttpStatusException(int statusCode, String body) {
+        this(statusCode, body, -1);
+    }
+
+    public HttpStatusException(int statusCode, String body, long retryAfterMillis) {
+        super("HTTP Error: " + statusCode + " - " + body);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Delay requested by the provider's Retry-After header, or -1 if none was sent.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Whether retrying the same request later can succeed.
+     */
+    public boolean isRetryable() {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Whether the status points at the provider (throttling or server error)
+     * rather than at the request itself.
+     */
+    public boolean isProviderFault() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.blockchain.util;
+
+/**
+ * Thrown when a request is rejected by our own rate limit for a provider host because it
+ * would have to wait longer than {@code http.ratelimit.max-wait-ms}. Nothing was sent, so
+ * it says nothing about the provider's health; callers answer 503 so clients back off.
+ */
+public class RateLimitExceededException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+
+    public RateLimitExceededException(String host) {
+        super("Rate limit for " + host + " exceeded, request rejected");
+        this.host = host;
+    }
+
+    public String getHost() {
+        return host;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.blockchain.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps retries to a fraction of regular traffic so retries cannot multiply load during
+ * an outage. Every request deposits {@code retryRatio} of a token, a small floor of
+ * {@code minRetriesPerSecond} accrues over time, and every retry withdraws one token.
+ */
+public class RetryBudget {
+    private final double retryRatio;
+    private final double minRetriesPerSecond;
+    private final double maxBalance;
+
+    private double balance;
+    private long lastRefillNanos = System.nanoTime();
+
+    public RetryBudget(double retryRatio, double minRetriesPerSecond) {
+        this.retryRatio = retryRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        // Allow at most ten seconds' worth of the floor to accumulate
+        this.maxBalance = Math.max(minRetriesPerSecond * 10, 1);
+        this.balance = maxBalance;
+    }
+
+    /**
+     * Records a first attempt, earning retry credit.
+     */
+    public synchronized void deposit() {
+        refill();
+        balance = Math.min(maxBalance, balance + retryRatio);
+    }
+
+    /**
+     * Spends one retry if the budget allows it.
+     *
+     * @return True if the retry may proceed
+     */
+    public synchronized boolean tryWithdraw() {
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double seconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        lastRefillNanos = now;
+        balance = Math.min(maxBalance, balance + seconds * minRetriesPerSecond);
+    }
+}
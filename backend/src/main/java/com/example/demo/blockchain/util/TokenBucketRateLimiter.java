@@ -0,0 +1,56 @@
+package com.example.demo.blockchain.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that hands out reservations instead of blocking.
+ * Each call to {@link #reserve()} takes one token and returns how long the caller
+ * must wait before using it, allowing up to {@code burst} requests back to back.
+ * {@link #tryReserve(long)} does the same but takes nothing when the wait is too long.
+ */
+public class TokenBucketRateLimiter {
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+
+    // Time at which the next token becomes free if no burst capacity were left
+    private long nextFreeNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be greater than 0");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstToleranceNanos = intervalNanos * Math.max(burst - 1, 0);
+        // Start with a full bucket
+        this.nextFreeNanos = System.nanoTime() - burstToleranceNanos;
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return Nanoseconds to wait before the request may be sent (0 if it may go now)
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        long start = Math.max(nextFreeNanos, now - burstToleranceNanos);
+        nextFreeNanos = start + intervalNanos;
+        return Math.max(0, start - now);
+    }
+
+    /**
+     * Takes one token unless the caller would have to wait longer than {@code maxWaitNanos},
+     * in which case nothing is taken and the schedule is left as it was.
+     *
+     * @return Nanoseconds to wait before the request may be sent, or -1 if no token was taken
+     */
+    public synchronized long tryReserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        long start = Math.max(nextFreeNanos, now - burstToleranceNanos);
+        long wait = Math.max(0, start - now);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        nextFreeNanos = start + intervalNanos;
+        return wait;
+    }
+}
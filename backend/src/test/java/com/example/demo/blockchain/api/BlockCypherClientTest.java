@@ -0,0 +1,83 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.util.HttpClientWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BlockCypherClientTest {
+
+    private HttpClientWrapper http;
+    private BlockCypherClient client;
+
+    @BeforeEach
+    void setUp() {
+        http = mock(HttpClientWrapper.class);
+        client = new BlockCypherClient();
+        ReflectionTestUtils.setField(client, "httpClientWrapper", http);
+        ReflectionTestUtils.setField(client, "apiUrl", "https://api.blockcypher.com/v1/btc/test3");
+        ReflectionTestUtils.setField(client, "apiToken", "");
+        ReflectionTestUtils.setField(client, "defaultFeeRate", 5L);
+        ReflectionTestUtils.setField(client, "pageLimit", 2);
+    }
+
+    @Test
+    void estimateFeeUsesDefaultRateBeforeFirstPollWithoutARequest() throws Exception {
+        // 1 input + 2 outputs = 350 bytes at 5 sat/byte
+        assertEquals(1_750, client.estimateFee(1, 2));
+        verifyNoInteractions(http);
+    }
+
+    @Test
+    void estimateFeeUsesLatestPolledMediumLevel() throws Exception {
+        when(http.parseJson(anyString())).thenCallRealMethod();
+        when(http.getAsync(anyString())).thenReturn(CompletableFuture.completedFuture(
+                "{\"high_fee_per_kb\":30000,\"medium_fee_per_kb\":20000,\"low_fee_per_kb\":10000}"));
+        client.getFeeEstimatesAsync().get();
+
+        assertEquals(7_000, client.estimateFee(1, 2));
+    }
+
+    @Test
+    void utxoListingIsReadPageByPage() throws Exception {
+        List<String> urls = new ArrayList<>();
+        when(http.getStreamAsync(anyString(), any())).thenAnswer(invocation -> {
+            String url = invocation.getArgument(0);
+            urls.add(url);
+            String body = url.contains("before=")
+                    // The second page repeats the output of block 101 that the first page ended on
+                    ? "{\"txrefs\":[" + txref(3, 101) + "," + txref(4, 100) + "]}"
+                    : "{\"hasMore\":true,\"unconfirmed_txrefs\":[" + txref(1, -1) + "],"
+                    + "\"txrefs\":[" + txref(2, 102) + "," + txref(3, 101) + "]}";
+            HttpClientWrapper.BodyParser<?> parser = invocation.getArgument(1);
+            return CompletableFuture.completedFuture(parser.parse(new StringReader(body)));
+        });
+
+        List<UTXO> utxos = client.getUTXOsAsync("mzA").get();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), utxos.stream().map(UTXO::getAmount).collect(Collectors.toList()));
+        assertEquals(2, urls.size());
+        assertTrue(urls.get(0).contains("limit=2"));
+        assertTrue(urls.get(1).contains("before=102"));
+    }
+
+    private static String txref(int n, long height) {
+        return "{\"tx_hash\":\"" + String.format("%064x", n) + "\",\"tx_input_n\":-1,\"tx_output_n\":0,"
+                + "\"value\":" + n + ",\"block_height\":" + height + ",\"confirmations\":" + (height < 0 ? 0 : 1) + "}";
+    }
+}
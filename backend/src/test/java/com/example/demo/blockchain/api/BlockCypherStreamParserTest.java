@@ -0,0 +1,134 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.Transaction;
+import com.example.demo.blockchain.model.UTXO;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockCypherStreamParserTest {
+
+    @Test
+    void readsTxrefAmountFromValue() throws Exception {
+        List<UTXO> utxos = BlockCypherStreamParser.readUTXOs(new StringReader(
+                "{\"address\":\"mzA\",\"balance\":70000,\"txrefs\":["
+                        + "{\"tx_hash\":\"aa\",\"tx_output_n\":1,\"value\":50000,\"confirmations\":3},"
+                        + "{\"tx_hash\":\"bb\",\"tx_output_n\":0,\"value\":20000,\"confirmations\":0}]}"));
+
+        assertEquals(2, utxos.size());
+        assertEquals(50000, utxos.get(0).getAmount());
+        assertEquals(1, utxos.get(0).getVout());
+        assertEquals(20000, utxos.get(1).getAmount());
+    }
+
+    @Test
+    void readsTxrefAmountFromOutputValue() throws Exception {
+        List<UTXO> utxos = BlockCypherStreamParser.readUTXOs(new StringReader(
+                "{\"address\":\"mzA\",\"txrefs\":[{\"tx_hash\":\"aa\",\"tx_output_n\":0,\"output_value\":1234}]}"));
+
+        assertEquals(1234, utxos.get(0).getAmount());
+    }
+
+    @Test
+    void readsTransactionCounts() throws Exception {
+        BatchResult<Long> counts = BlockCypherStreamParser.readTxCountBatch(new StringReader(
+                "[{\"address\":\"mzA\",\"balance\":0,\"final_n_tx\":3,\"txrefs\":[{\"tx_hash\":\"aa\"}]},"
+                        + "{\"address\":\"mzB\",\"final_n_tx\":0},"
+                        + "{\"error\":\"Rate limited\"}]"),
+                List.of("mzA", "mzB", "mzC", "mzD"));
+
+        assertEquals(3L, counts.getResults().get("mzA"));
+        assertEquals(0L, counts.getResults().get("mzB"));
+        // Entries without an address are matched to the request by position
+        assertEquals("Rate limited", counts.getErrors().get("mzC"));
+        assertTrue(counts.getErrors().containsKey("mzD"));
+    }
+
+    @Test
+    void missingTransactionCountIsAnError() throws Exception {
+        BatchResult<Long> counts = BlockCypherStreamParser.readTxCountBatch(new StringReader(
+                "[{\"address\":\"mzA\",\"balance\":0},{\"address\":\"mzB\",\"final_n_tx\":0}]"),
+                List.of("mzA", "mzB"));
+
+        assertTrue(counts.getErrors().containsKey("mzA"));
+        assertEquals(0L, counts.getResults().get("mzB"));
+    }
+
+    @Test
+    void readsTransactionCountOfSingleAddress() throws Exception {
+        BatchResult<Long> counts = BlockCypherStreamParser.readTxCountBatch(new StringReader(
+                "{\"address\":\"mzA\",\"final_n_tx\":12}"), List.of("mzA"));
+
+        assertEquals(12L, counts.getResults().get("mzA"));
+        assertTrue(counts.getErrors().isEmpty());
+    }
+
+    @Test
+    void readsHistoryFromAddressTxrefs() throws Exception {
+        // Shape of a plain /addrs/{address} response: txrefs per input and output, no "txs"
+        List<Transaction> history = BlockCypherStreamParser.readTransactions(new StringReader("{"
+                + "\"address\":\"mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn\",\"total_received\":4433416,"
+                + "\"total_sent\":0,\"balance\":4433416,\"unconfirmed_balance\":5000,\"final_balance\":4438416,"
+                + "\"n_tx\":3,\"unconfirmed_n_tx\":1,\"final_n_tx\":4,"
+                + "\"unconfirmed_txrefs\":[{\"address\":\"mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn\","
+                + "\"tx_hash\":\"cc\",\"tx_input_n\":-1,\"tx_output_n\":1,\"value\":5000,\"spent\":false,"
+                + "\"received\":\"2014-05-22T04:00:00Z\",\"confirmations\":0,\"double_spend\":false,"
+                + "\"preference\":\"high\"}],"
+                + "\"txrefs\":["
+                + "{\"tx_hash\":\"bb\",\"block_height\":302013,\"tx_input_n\":-1,\"tx_output_n\":0,"
+                + "\"value\":20213,\"ref_balance\":4433416,\"spent\":false,\"confirmations\":21,"
+                + "\"confirmed\":\"2014-05-22T03:46:25Z\",\"double_spend\":false},"
+                + "{\"tx_hash\":\"aa\",\"block_height\":302000,\"tx_input_n\":0,\"tx_output_n\":-1,"
+                + "\"value\":100000,\"ref_balance\":4413203,\"confirmations\":34,"
+                + "\"confirmed\":\"2014-05-22T01:00:00Z\",\"double_spend\":false},"
+                + "{\"tx_hash\":\"aa\",\"block_height\":302000,\"tx_input_n\":-1,\"tx_output_n\":1,"
+                + "\"value\":60000,\"ref_balance\":4513203,\"spent\":false,\"confirmations\":34,"
+                + "\"confirmed\":\"2014-05-22T01:00:00Z\",\"double_spend\":false}],"
+                + "\"tx_url\":\"https://api.blockcypher.com/v1/btc/test3/txs/\"}"));
+
+        assertEquals(3, history.size());
+        assertEquals("cc", history.get(0).getTxid());
+        assertEquals(5000, history.get(0).getAmount());
+        assertEquals(0, history.get(0).getConfirmations());
+        assertEquals(20213, history.get(1).getAmount());
+        assertEquals(21, history.get(1).getConfirmations());
+        // Spent 100,000 and got 60,000 back as change
+        assertEquals("aa", history.get(2).getTxid());
+        assertEquals(-40000, history.get(2).getAmount());
+        assertEquals(34, history.get(2).getConfirmations());
+    }
+
+    @Test
+    void readsUnconfirmedOutputsAndMorePagesFlag() throws Exception {
+        BlockCypherStreamParser.UtxoPage page = BlockCypherStreamParser.readUTXOPage(new StringReader(
+                "{\"address\":\"mzA\",\"hasMore\":true,"
+                        + "\"unconfirmed_txrefs\":["
+                        + "{\"tx_hash\":\"cc\",\"tx_input_n\":-1,\"tx_output_n\":1,\"value\":5000,\"confirmations\":0},"
+                        + "{\"tx_hash\":\"dd\",\"tx_input_n\":0,\"tx_output_n\":-1,\"value\":7000,\"confirmations\":0}],"
+                        + "\"txrefs\":[{\"tx_hash\":\"aa\",\"block_height\":302000,\"tx_input_n\":-1,"
+                        + "\"tx_output_n\":0,\"value\":60000,\"confirmations\":34}]}"));
+
+        assertTrue(page.hasMore);
+        // The input ref spends from the address and is not an output
+        assertEquals(2, page.utxos.size());
+        assertEquals("cc", page.utxos.get(0).getTxid());
+        assertEquals(-1, page.utxos.get(0).getBlockHeight());
+        assertEquals(302000, page.utxos.get(1).getBlockHeight());
+    }
+
+    @Test
+    void truncatedBatchEntryIsLeftForPaging() throws Exception {
+        BatchResult<List<UTXO>> batch = BlockCypherStreamParser.readUTXOBatch(new StringReader(
+                "[{\"address\":\"mzA\",\"hasMore\":true,\"txrefs\":[{\"tx_hash\":\"aa\",\"tx_output_n\":0}]},"
+                        + "{\"address\":\"mzB\",\"txrefs\":[{\"tx_hash\":\"bb\",\"tx_output_n\":0}]}]"),
+                List.of("mzA", "mzB"));
+
+        assertEquals(BlockCypherStreamParser.TRUNCATED, batch.getErrors().get("mzA"));
+        assertEquals(1, batch.getResults().get("mzB").size());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.util.HttpClientWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlockchainComClientTest {
+
+    private HttpClientWrapper http;
+    private BlockchainComClient client;
+
+    @BeforeEach
+    void setUp() {
+        http = mock(HttpClientWrapper.class);
+        when(http.parseJson(anyString())).thenCallRealMethod();
+        client = new BlockchainComClient();
+        ReflectionTestUtils.setField(client, "httpClientWrapper", http);
+    }
+
+    @Test
+    void multiaddrUrlIsValidAndBalancesAreMatchedByAddress() throws Exception {
+        when(http.getAsync(anyString())).thenReturn(CompletableFuture.completedFuture(
+                "{\"addresses\":[{\"address\":\"a\",\"final_balance\":7,\"n_tx\":2}]}"));
+
+        BatchResult<Long> batch = client.getBalancesAsync(List.of("a", "b")).get();
+
+        ArgumentCaptor<String> url = ArgumentCaptor.forClass(String.class);
+        verify(http).getAsync(url.capture());
+        assertFalse(url.getValue().contains("|"));
+        assertEquals("active=a%7Cb&n=0", URI.create(url.getValue()).getRawQuery());
+        assertEquals(7L, batch.getResults().get("a"));
+        assertTrue(batch.getErrors().containsKey("b"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.UTXO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingBlockchainAPITest {
+
+    @Test
+    void batchUtxoListsAreCachedImmutable() throws Exception {
+        BlockchainAPI provider = mock(BlockchainAPI.class);
+        List<UTXO> fetched = new ArrayList<>(List.of(new UTXO()));
+        BatchResult<List<UTXO>> response = new BatchResult<>();
+        response.addResult("a", fetched);
+        when(provider.getUTXOsBatchAsync(any())).thenReturn(CompletableFuture.completedFuture(response));
+        CachingBlockchainAPI api = new CachingBlockchainAPI(provider, 100, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+
+        List<UTXO> first = api.getUTXOsBatchAsync(List.of("a")).get().getResults().get("a");
+        fetched.clear();
+        List<UTXO> cached = api.getUTXOsBatchAsync(List.of("a")).get().getResults().get("a");
+
+        verify(provider, times(1)).getUTXOsBatchAsync(any());
+        assertEquals(1, cached.size());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(new UTXO()));
+        assertThrows(UnsupportedOperationException.class, () -> cached.clear());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.store.MappedUtxoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndexedBlockchainAPITest {
+
+    @TempDir
+    Path dir;
+
+    private BlockchainAPI provider;
+    private MappedUtxoStore store;
+    private IndexedBlockchainAPI api;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = mock(BlockchainAPI.class);
+        store = new MappedUtxoStore(dir.toString(), false, 0.3, 10_000, new SimpleMeterRegistry());
+        store.open();
+        store.replaceAll("fresh", List.of(utxo(1, 5_000)));
+        store.replaceAll("stale", List.of(utxo(2, 6_000)));
+        api = new IndexedBlockchainAPI(provider, store, Set.of("fresh")::contains, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void freshAddressIsServedFromTheStore() throws Exception {
+        assertEquals(5_000, api.getBalance("fresh"));
+        verify(provider, never()).getBalanceAsync("fresh");
+    }
+
+    @Test
+    void staleOrUnwatchedAddressGoesToTheProvider() throws Exception {
+        when(provider.getBalanceAsync("stale")).thenReturn(CompletableFuture.completedFuture(7_000L));
+
+        assertEquals(7_000, api.getBalance("stale"));
+    }
+
+    @Test
+    void batchSendsOnlyStaleAddressesToTheProvider() throws Exception {
+        BatchResult<Long> upstream = new BatchResult<>();
+        upstream.addResult("stale", 7_000L);
+        when(provider.getBalancesAsync(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> requested = invocation.getArgument(0);
+            assertEquals(List.of("stale"), List.copyOf(requested));
+            return CompletableFuture.completedFuture(upstream);
+        });
+
+        BatchResult<Long> batch = api.getBalancesAsync(List.of("fresh", "stale")).get();
+
+        assertEquals(5_000L, batch.getResults().get("fresh"));
+        assertEquals(7_000L, batch.getResults().get("stale"));
+    }
+
+    private static UTXO utxo(int n, long value) {
+        UTXO utxo = new UTXO();
+        utxo.setTxid(String.format("%064x", n));
+        utxo.setVout(0);
+        utxo.setAmount(value);
+        utxo.setBlockHeight(100);
+        return utxo;
+    }
+}
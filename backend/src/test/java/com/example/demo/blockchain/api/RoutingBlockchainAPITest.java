@@ -0,0 +1,45 @@
+package com.example.demo.blockchain.api;
+
+import com.example.demo.blockchain.util.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RoutingBlockchainAPITest {
+
+    @Test
+    void failsOverOnProviderFaults() throws Exception {
+        BlockchainAPI first = mock(BlockchainAPI.class);
+        BlockchainAPI second = mock(BlockchainAPI.class);
+        when(first.getBlockHeight()).thenThrow(new IOException("timeout"));
+        when(second.getBlockHeight()).thenReturn(100L);
+
+        assertEquals(100L, routing(first, second).getBlockHeight());
+    }
+
+    @Test
+    void localRateLimitRejectionIsNotAProviderFault() throws Exception {
+        BlockchainAPI first = mock(BlockchainAPI.class);
+        BlockchainAPI second = mock(BlockchainAPI.class);
+        when(first.getBlockHeight()).thenThrow(new RateLimitExceededException("api.example"));
+
+        assertThrows(RateLimitExceededException.class, routing(first, second)::getBlockHeight);
+        verifyNoInteractions(second);
+    }
+
+    private static RoutingBlockchainAPI routing(BlockchainAPI first, BlockchainAPI second) {
+        Map<String, BlockchainAPI> providers = new LinkedHashMap<>();
+        providers.put("first", first);
+        providers.put("second", second);
+        return new RoutingBlockchainAPI(providers, false, 50, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.blockchain.config;
+
+import com.example.demo.blockchain.api.BlockCypherClient;
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.api.BlockchainComClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BlockchainConfigTest {
+
+    private BlockCypherClient blockCypher;
+    private BlockchainComClient blockchainCom;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blockCypher = mock(BlockCypherClient.class);
+        blockchainCom = mock(BlockchainComClient.class);
+        when(blockCypher.getBlockHeight()).thenThrow(new IOException("connection refused"));
+        when(blockchainCom.getBlockHeight()).thenReturn(840_000L);
+    }
+
+    @Test
+    void testnetNeverFailsOverToMainnetProvider() {
+        BlockchainAPI api = providerStack("testnet3");
+
+        assertThrows(IOException.class, api::getBlockHeight);
+        verifyNoInteractions(blockchainCom);
+    }
+
+    @Test
+    void mainnetFailsOverToBlockchainCom() throws Exception {
+        BlockchainAPI api = providerStack("mainnet");
+
+        assertEquals(840_000L, api.getBlockHeight());
+    }
+
+    private BlockchainAPI providerStack(String network) {
+        return new BlockchainConfig().providerBlockchainAPI(blockCypher, blockchainCom, network,
+                false, 50, 100, 30, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.blockchain.controller;
+
+import com.example.demo.blockchain.service.FeeCalculator;
+import com.example.demo.blockchain.service.FeeRateOracle;
+import com.example.demo.blockchain.service.KeyService;
+import com.example.demo.blockchain.service.OutboxBroadcaster;
+import com.example.demo.blockchain.service.PaymentBatcher;
+import com.example.demo.blockchain.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlockchainControllerTest {
+    private static final String FROM = "mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn";
+    private static final String TO = "n3GNqMveyvaPvUbH469vDRadqpJMPc84JA";
+
+    private final PaymentBatcher paymentBatcher = mock(PaymentBatcher.class);
+    private final BlockchainController controller = new BlockchainController(mock(TransactionService.class),
+            new FeeCalculator(), mock(KeyService.class), paymentBatcher, mock(FeeRateOracle.class),
+            mock(OutboxBroadcaster.class));
+
+    @Test
+    void batchedSendWithNonNumericAmountIsABadRequest() {
+        ResponseEntity<?> response = controller.sendBitcoin(Map.of("batch", true, "fromAddress", FROM,
+                "toAddress", TO, "amount", "1000", "privateKey", "key"), null).join();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("amount must be a number", ((Map<?, ?>) response.getBody()).get("error"));
+        verify(paymentBatcher, never()).submit(anyString(), anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    void batchedSendRejectedByTheBatcherIsABadRequest() {
+        when(paymentBatcher.submit(FROM, TO, 100, "key"))
+                .thenThrow(new IllegalArgumentException("Amount must be at least the dust threshold of 546 satoshis"));
+
+        ResponseEntity<?> response = controller.sendBitcoin(Map.of("batch", true, "fromAddress", FROM,
+                "toAddress", TO, "amount", 100, "privateKey", "key"), null).join();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Amount must be at least the dust threshold of 546 satoshis",
+                ((Map<?, ?>) response.getBody()).get("error"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.blockchain.controller;
+
+import com.example.demo.blockchain.service.AddressDiscoveryService;
+import com.example.demo.blockchain.service.KeyService;
+import com.example.demo.blockchain.store.UsedAddressStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HdWalletControllerTest {
+    private final KeyService keyService = mock(KeyService.class);
+    private final AddressDiscoveryService discoveryService = mock(AddressDiscoveryService.class);
+    private final HdWalletController controller =
+            new HdWalletController(keyService, discoveryService, mock(UsedAddressStore.class));
+
+    @Test
+    void nonNumericFieldsAreBadRequests() {
+        assertBadRequest(controller.importAccount(Map.of("extendedKey", "tpub", "purpose", "84")),
+                "purpose must be a number");
+        assertBadRequest(controller.importAccount(Map.of("extendedKey", "tpub", "account", true)),
+                "account must be a number");
+        assertBadRequest(controller.generate(Map.of("purpose", "x")), "purpose must be a number");
+        assertBadRequest(controller.privateKey("acct", Map.of("index", "7")), "index must be a number");
+        assertBadRequest(controller.privateKey("acct", Map.of("index", 7, "chain", "1")), "chain must be a number");
+        verify(keyService, never()).importAccount(anyString(), any(), anyInt());
+        verify(keyService, never()).derivePrivateKeyWif(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void keyServiceRejectionsUseTheErrorShape() {
+        when(keyService.importAccount("bogus", null, 0)).thenThrow(new IllegalArgumentException("Invalid extended key"));
+        when(keyService.importAccount("tpub", null, 0)).thenThrow(new IllegalStateException("Too many HD accounts"));
+
+        assertBadRequest(controller.importAccount(Map.of("extendedKey", "bogus")), "Invalid extended key");
+        ResponseEntity<?> full = controller.importAccount(Map.of("extendedKey", "tpub"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, full.getStatusCode());
+        assertEquals("Too many HD accounts", ((Map<?, ?>) full.getBody()).get("error"));
+    }
+
+    @Test
+    void discoveryAlreadyRunningIsAConflict() {
+        when(discoveryService.discoverAsync("acct")).thenThrow(new IllegalStateException("Discovery already running"));
+
+        ResponseEntity<?> response = controller.discover("acct").join();
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("Discovery already running", ((Map<?, ?>) response.getBody()).get("error"));
+    }
+
+    private static void assertBadRequest(ResponseEntity<?> response, String error) {
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(error, ((Map<?, ?>) response.getBody()).get("error"));
+    }
+}
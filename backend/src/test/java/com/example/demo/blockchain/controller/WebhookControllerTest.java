@@ -0,0 +1,43 @@
+package com.example.demo.blockchain.controller;
+
+import com.example.demo.blockchain.service.ChainEventService;
+import com.example.demo.blockchain.service.MockWebhookEmitter;
+import com.example.demo.blockchain.service.WebhookSubscriptionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookControllerTest {
+    private final ChainEventService chainEventService = mock(ChainEventService.class);
+    private final WebhookSubscriptionManager subscriptionManager = mock(WebhookSubscriptionManager.class);
+    private final MockWebhookEmitter mockEmitter = mock(MockWebhookEmitter.class);
+    private final WebhookController controller = new WebhookController(chainEventService, subscriptionManager, mockEmitter);
+
+    @Test
+    void receiverIsNotFoundWhileWebhooksAreOff() {
+        when(subscriptionManager.verifySecret(any())).thenReturn(true);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> controller.receive(null, "new-block", "{\"height\": 100}"));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        verify(chainEventService, never()).handle(any());
+    }
+
+    @Test
+    void receiverAcceptsEventsOnceEnabled() {
+        when(subscriptionManager.isEnabled()).thenReturn(true);
+        when(subscriptionManager.verifySecret("s3cret")).thenReturn(true);
+
+        assertEquals(HttpStatus.OK, controller.receive("s3cret", "new-block", "{\"height\": 100}").getStatusCode());
+        verify(chainEventService).handle(any());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.blockchain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtxoSetTest {
+    private static final String TXID_A = "0a".repeat(32);
+    private static final String TXID_B = "0b".repeat(32);
+
+    @Test
+    void hashedOutpointsMatchContains() {
+        UtxoSet set = new UtxoSet("a", 4);
+        set.add(TXID_A, 0, 1_000, 1, 100);
+        set.add(TXID_A, 1, 2_000, 1, 100);
+        set.add(TXID_B, 0, 3_000, 0, 0);
+
+        Set<Outpoint> outpoints = set.outpoints();
+
+        assertEquals(3, outpoints.size());
+        assertTrue(outpoints.contains(Outpoint.of(utxo(TXID_A, 1))));
+        assertTrue(set.contains(TXID_A, 1));
+        assertFalse(outpoints.contains(Outpoint.of(utxo(TXID_B, 1))));
+        assertFalse(set.contains(TXID_B, 1));
+    }
+
+    private static UTXO utxo(String txid, int vout) {
+        UTXO utxo = new UTXO();
+        utxo.setTxid(txid);
+        utxo.setVout(vout);
+        return utxo;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UtxoSet;
+import com.example.demo.blockchain.service.FeeCalculator;
+import com.example.demo.blockchain.service.ScriptType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoinSelectionEngineTest {
+    private static final long FEE_RATE = 5;
+    private static final long AMOUNT = 100_000;
+
+    private final FeeCalculator feeCalculator = new FeeCalculator();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CoinSelectionEngine engine = new CoinSelectionEngine(feeCalculator, registry, 2, 100_000, 50);
+
+    @Test
+    void picksTheLowestWasteCandidate() {
+        long baseFee = feeCalculator.calculateFee(ScriptType.P2WPKH, 0, List.of(ScriptType.P2WPKH), FEE_RATE);
+        long inputFee = feeCalculator.calculateFeePerInput(ScriptType.P2WPKH, FEE_RATE);
+        // Two outputs that pay amount and fee exactly, among larger ones that would need change
+        UtxoSet utxos = CoinSelectorTest.sorted(5_000_000, 900_000, 400_000,
+                60_000 + inputFee, AMOUNT + baseFee - 60_000 + inputFee);
+
+        List<SelectionResult> candidates = engine.selectCandidates(utxos, AMOUNT, ScriptType.P2WPKH,
+                List.of(ScriptType.P2WPKH), FEE_RATE);
+        SelectionResult result = engine.select(utxos, AMOUNT, ScriptType.P2WPKH, List.of(ScriptType.P2WPKH), FEE_RATE);
+
+        assertTrue(candidates.size() > 1);
+        long lowest = candidates.stream().mapToLong(SelectionResult::getWaste).min().orElseThrow();
+        assertEquals(lowest, result.getWaste());
+        assertEquals("bnb", result.getStrategy());
+        assertFalse(result.hasChange());
+        assertEquals(AMOUNT + result.getFee(), result.getInputTotal());
+        assertEquals(candidates.size(), registry.find("blockchain.coinselection.waste").summaries().size());
+    }
+
+    @Test
+    void insufficientFundsReturnNull() {
+        UtxoSet utxos = CoinSelectorTest.sorted(60_000, 40_000);
+
+        assertNull(engine.select(utxos, AMOUNT, ScriptType.P2WPKH, List.of(ScriptType.P2WPKH), FEE_RATE));
+        assertTrue(engine.selectCandidates(utxos, AMOUNT, ScriptType.P2WPKH,
+                List.of(ScriptType.P2WPKH), FEE_RATE).isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.blockchain.selection;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoinSelectorTest {
+    // Paying 1,000 with a base fee of 100, 10 per input now (5 long-term), 30 for a change
+    // output and 50 as the smallest change: the inputs' effective values must reach 1,100
+    private static final SelectionParams PARAMS = new SelectionParams(1_000, 100, 10, 5, 30, 50, 100_000, 1_000_000_000L);
+
+    @Test
+    void branchAndBoundFindsExactChangelessMatch() {
+        SelectionResult result = new BranchAndBoundSelector().select(sorted(5_000, 2_000, 610, 510), PARAMS);
+
+        assertEquals(List.of(610L, 510L), values(result));
+        assertFalse(result.hasChange());
+        assertEquals(120, result.getFee());
+        // Two inputs at 10 - 5 each, nothing handed to miners
+        assertEquals(10, result.getWaste());
+    }
+
+    @Test
+    void branchAndBoundSkipsSubsetsOverTheCostOfChange() {
+        // 2,000 overshoots 1,100 by more than the 35 a change output costs
+        assertNull(new BranchAndBoundSelector().select(sorted(2_000, 300), PARAMS));
+    }
+
+    @Test
+    void insufficientFundsReturnNull() {
+        UtxoSet utxos = sorted(600, 500);
+        assertNull(new BranchAndBoundSelector().select(utxos, PARAMS));
+        assertNull(new KnapsackSelector().select(utxos, PARAMS));
+        assertNull(new SingleRandomDrawSelector().select(utxos, PARAMS));
+        assertNull(new GreedySelector().select(utxos, PARAMS));
+    }
+
+    @Test
+    void knapsackFallsBackToLowestLargerUtxo() {
+        // Everything below 1,180 (target, change output and minimum change) adds up to 500
+        SelectionResult result = new KnapsackSelector().select(sorted(5_010, 3_010, 310, 210), PARAMS);
+
+        assertEquals(List.of(3_010L), values(result));
+        assertTrue(result.hasChange());
+        assertEquals(3_010 - 1_000 - 140, result.getChange());
+    }
+
+    @Test
+    void singleRandomDrawAlwaysLeavesChange() {
+        for (int i = 0; i < 20; i++) {
+            SelectionResult result = new SingleRandomDrawSelector().select(sorted(700, 600, 500, 400), PARAMS);
+            assertTrue(result.getChange() >= PARAMS.getMinChange());
+        }
+    }
+
+    @Test
+    void changeIsAddedOnlyFromTheDustThreshold() {
+        // One input: 110 fee without change, 140 with; 1,190 leaves exactly the 50 minimum
+        SelectionResult withChange = SelectionResult.of("test", sorted(1_190), 0, PARAMS);
+        assertEquals(50, withChange.getChange());
+        assertEquals(140, withChange.getFee());
+        assertEquals(5 + PARAMS.getCostOfChange(), withChange.getWaste());
+
+        // One satoshi less and the 79 left over goes to the fee instead
+        SelectionResult withoutChange = SelectionResult.of("test", sorted(1_189), 0, PARAMS);
+        assertFalse(withoutChange.hasChange());
+        assertEquals(189, withoutChange.getFee());
+        assertEquals(5 + 79, withoutChange.getWaste());
+        assertEquals(1_189, withoutChange.getFee() + PARAMS.getTarget());
+
+        assertNull(SelectionResult.of("test", sorted(1_109), 0, PARAMS));
+    }
+
+    static UtxoSet sorted(long... values) {
+        List<UTXO> utxos = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            UTXO utxo = new UTXO();
+            utxo.setTxid(String.format("%064x", i + 1));
+            utxo.setVout(0);
+            utxo.setAmount(values[i]);
+            utxo.setConfirmations(6);
+            utxos.add(utxo);
+        }
+        UtxoSet set = UtxoSet.of(utxos);
+        set.sortByValueDescending();
+        return set;
+    }
+
+    static List<Long> values(SelectionResult result) {
+        return result.getSelected().stream().map(UTXO::getAmount).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.DerivedAddress;
+import com.example.demo.blockchain.model.DiscoveryResult;
+import com.example.demo.blockchain.store.UsedAddressStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AddressDiscoveryServiceTest {
+    private static final String ACCOUNT = "84-test";
+
+    @TempDir
+    Path dir;
+
+    private final BlockchainAPI blockchainAPI = mock(BlockchainAPI.class);
+    private final KeyService keyService = mock(KeyService.class);
+    // Addresses with transactions; anything else has none
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+    // Addresses of every window requested, in request order
+    private final List<List<String>> lookups = new ArrayList<>();
+    private UsedAddressStore store;
+    private AddressDiscoveryService service;
+
+    @BeforeEach
+    void setUp() {
+        when(keyService.deriveAddresses(eq(ACCOUNT), anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int chain = invocation.getArgument(1);
+            int from = invocation.getArgument(2);
+            int count = invocation.getArgument(3);
+            List<DerivedAddress> derived = new ArrayList<>();
+            for (int index = from; index < from + count; index++) {
+                derived.add(new DerivedAddress(ACCOUNT, "m/84'/1'/0'/" + chain + "/" + index, chain, index,
+                        address(chain, index), "02"));
+            }
+            return derived;
+        });
+        when(blockchainAPI.getTransactionCountsAsync(anyList())).thenAnswer(invocation -> {
+            List<String> addresses = invocation.getArgument(0);
+            synchronized (lookups) {
+                lookups.add(addresses);
+            }
+            return CompletableFuture.completedFuture(counts(addresses));
+        });
+
+        store = new UsedAddressStore(dir.toString());
+        service = new AddressDiscoveryService(keyService, blockchainAPI, store, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "gapLimit", 5);
+        ReflectionTestUtils.setField(service, "windowSize", 5);
+    }
+
+    @Test
+    void chainEndsAfterGapLimitUnusedAddresses() {
+        used.addAll(List.of(address(0, 0), address(0, 5), address(0, 11), address(1, 2)));
+        // Nine unused addresses after index 11, so index 21 lies beyond the gap
+        used.add(address(0, 21));
+
+        DiscoveryResult result = service.discoverAsync(ACCOUNT).join();
+
+        assertEquals(List.of(0, 5, 11), indexes(result.getUsedAddresses(), 0));
+        assertEquals(List.of(2), indexes(result.getUsedAddresses(), 1));
+        assertEquals(12, result.getNextReceiveIndex());
+        assertEquals(3, result.getNextChangeIndex());
+        assertEquals(4, result.getNewlyFound());
+        // Receive checks 0-19 (the last five after index 11 are unused), change checks 0-9;
+        // a window requested ahead but not needed is neither counted nor recorded
+        assertEquals(30, result.getAddressesScanned());
+    }
+
+    @Test
+    void unusedChainStopsAfterOneGap() {
+        DiscoveryResult result = service.discoverAsync(ACCOUNT).join();
+
+        assertEquals(0, result.getNewlyFound());
+        assertEquals(0, result.getNextReceiveIndex());
+        // One window per chain, and nothing requested ahead on a chain without use
+        assertEquals(2, lookups.size());
+        assertEquals(10, result.getAddressesScanned());
+    }
+
+    @Test
+    void rescanFindsAddressesUsedBelowTheHighestKnownIndex() {
+        used.addAll(List.of(address(0, 3), address(0, 8)));
+        service.discoverAsync(ACCOUNT).join();
+
+        // Index 6 was unused during the first scan and received a payment afterwards
+        used.add(address(0, 6));
+        lookups.clear();
+        DiscoveryResult result = service.discoverAsync(ACCOUNT).join();
+
+        assertEquals(1, result.getNewlyFound());
+        assertEquals(List.of(3, 6, 8), indexes(store.getUsed(ACCOUNT), 0));
+        assertEquals(9, result.getNextReceiveIndex());
+        // The rescan starts one gap below index 8 instead of at index 0 or after index 8
+        assertEquals(address(0, 4), lookups.stream()
+                .filter(addresses -> addresses.get(0).startsWith("r"))
+                .findFirst().orElseThrow().get(0));
+    }
+
+    @Test
+    void failedLookupRecordsNothing() {
+        used.add(address(0, 1));
+        when(blockchainAPI.getTransactionCountsAsync(anyList())).thenAnswer(invocation -> {
+            List<String> addresses = invocation.getArgument(0);
+            if (addresses.get(0).startsWith("c")) {
+                BatchResult<Long> batch = new BatchResult<>();
+                addresses.forEach(address -> batch.addError(address, "Rate limited"));
+                return CompletableFuture.completedFuture(batch);
+            }
+            return CompletableFuture.completedFuture(counts(addresses));
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, () -> service.discoverAsync(ACCOUNT).join());
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertTrue(store.getUsed(ACCOUNT).isEmpty());
+    }
+
+    @Test
+    void accountStaysBusyUntilBothChainsFinish() {
+        CompletableFuture<BatchResult<Long>> receiveWindow = new CompletableFuture<>();
+        when(blockchainAPI.getTransactionCountsAsync(anyList())).thenAnswer(invocation -> {
+            List<String> addresses = invocation.getArgument(0);
+            if (addresses.get(0).startsWith("c")) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Rate limited"));
+            }
+            return receiveWindow;
+        });
+
+        CompletableFuture<DiscoveryResult> scan = service.discoverAsync(ACCOUNT);
+        // The change chain has failed, but the receive chain is still scanning
+        assertFalse(scan.isDone());
+        assertThrows(IllegalStateException.class, () -> service.discoverAsync(ACCOUNT));
+
+        receiveWindow.complete(counts(List.of(address(0, 0), address(0, 1), address(0, 2),
+                address(0, 3), address(0, 4))));
+        assertThrows(CompletionException.class, scan::join);
+        doAnswer(invocation -> CompletableFuture.completedFuture(counts(invocation.getArgument(0))))
+                .when(blockchainAPI).getTransactionCountsAsync(anyList());
+        assertEquals(0, service.discoverAsync(ACCOUNT).join().getNewlyFound());
+    }
+
+    @Test
+    void accountStaysBusyWhenTheChangeChainCannotStart() {
+        CompletableFuture<BatchResult<Long>> receiveWindow = new CompletableFuture<>();
+        when(blockchainAPI.getTransactionCountsAsync(anyList())).thenReturn(receiveWindow);
+        doThrow(new IllegalArgumentException("Unknown chain"))
+                .when(keyService).deriveAddresses(eq(ACCOUNT), eq(HdAccount.INTERNAL), anyInt(), anyInt());
+
+        assertThrows(IllegalArgumentException.class, () -> service.discoverAsync(ACCOUNT));
+        // The receive chain was already scanning when the change chain failed to start
+        assertThrows(IllegalStateException.class, () -> service.discoverAsync(ACCOUNT));
+
+        receiveWindow.complete(new BatchResult<>());
+        assertThrows(IllegalArgumentException.class, () -> service.discoverAsync(ACCOUNT));
+    }
+
+    @Test
+    void nextWindowIsRequestedWhileABusyWindowIsInFlight() {
+        Map<String, CompletableFuture<BatchResult<Long>>> pending = new ConcurrentHashMap<>();
+        when(blockchainAPI.getTransactionCountsAsync(anyList())).thenAnswer(invocation -> {
+            List<String> addresses = invocation.getArgument(0);
+            if (addresses.get(0).startsWith("c")) {
+                return CompletableFuture.completedFuture(counts(addresses));
+            }
+            CompletableFuture<BatchResult<Long>> future = new CompletableFuture<>();
+            pending.put(addresses.get(0), future);
+            return future;
+        });
+        used.addAll(List.of(address(0, 4), address(0, 9)));
+
+        CompletableFuture<DiscoveryResult> scan = service.discoverAsync(ACCOUNT);
+        assertEquals(Set.of(address(0, 0)), pending.keySet());
+
+        complete(pending, 0);
+        // Window 0-4 had use, so 10-14 is requested as soon as 5-9 is
+        assertEquals(Set.of(address(0, 0), address(0, 5), address(0, 10)), pending.keySet());
+
+        complete(pending, 5);
+        // Window 5-9 had use too, so 15-19 is requested before 10-14 is back
+        assertEquals(4, pending.size());
+        complete(pending, 10);
+        // 10-14 completes the gap after index 9; the scan does not wait for 15-19
+        DiscoveryResult result = scan.join();
+        // Receive 0-14 and change 0-4
+        assertEquals(20, result.getAddressesScanned());
+        assertEquals(10, result.getNextReceiveIndex());
+        assertEquals(List.of(4, 9), indexes(result.getUsedAddresses(), 0));
+    }
+
+    private void complete(Map<String, CompletableFuture<BatchResult<Long>>> pending, int from) {
+        List<String> addresses = new ArrayList<>();
+        for (int index = from; index < from + 5; index++) {
+            addresses.add(address(0, index));
+        }
+        pending.get(address(0, from)).complete(counts(addresses));
+    }
+
+    private BatchResult<Long> counts(List<String> addresses) {
+        BatchResult<Long> batch = new BatchResult<>();
+        for (String address : addresses) {
+            batch.addResult(address, used.contains(address) ? 1L : 0L);
+        }
+        return batch;
+    }
+
+    private static List<Integer> indexes(List<DerivedAddress> addresses, int chain) {
+        return addresses.stream()
+                .filter(address -> address.getChain() == chain)
+                .map(DerivedAddress::getIndex)
+                .collect(Collectors.toList());
+    }
+
+    private static String address(int chain, int index) {
+        return (chain == HdAccount.EXTERNAL ? "r" : "c") + index;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.AddressEvent;
+import com.example.demo.blockchain.model.BatchResult;
+import com.example.demo.blockchain.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AddressWatchServiceTest {
+    private BlockchainAPI api;
+    private AddressWatchService service;
+    private final List<AddressEvent> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        api = mock(BlockchainAPI.class);
+        service = new AddressWatchService(api, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "confirmationDepth", 6);
+        ReflectionTestUtils.setField(service, "maxAddresses", 100);
+
+        when(api.getBalanceAsync(anyString())).thenReturn(CompletableFuture.completedFuture(1_000L));
+        when(api.getTransactionHistoryAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(transaction("t1", 10))));
+        service.subscribe("a", events::add);
+        service.subscribe("b", events::add);
+        events.clear();
+        clearInvocations(api);
+    }
+
+    @Test
+    void unchangedAddressesCostOneBatchedLookup() {
+        when(api.getBalancesAsync(anyCollection())).thenReturn(CompletableFuture.completedFuture(balances(1_000L, 1_000L)));
+
+        service.pollAll();
+
+        verify(api, times(1)).getBalancesAsync(anyCollection());
+        verify(api, never()).getBalanceAsync(anyString());
+        verify(api, never()).getTransactionHistoryAsync(anyString());
+        assertEquals(List.of(), events);
+    }
+
+    @Test
+    void historyIsFetchedOnlyWhereTheBalanceMoved() {
+        when(api.getBalancesAsync(anyCollection())).thenReturn(CompletableFuture.completedFuture(balances(1_000L, 1_500L)));
+        when(api.getTransactionHistoryAsync("b")).thenReturn(CompletableFuture.completedFuture(
+                List.of(transaction("t1", 10), transaction("t2", 0))));
+
+        service.pollAll();
+
+        verify(api, never()).getTransactionHistoryAsync("a");
+        verify(api).getTransactionHistoryAsync("b");
+        assertEquals(2, events.size());
+        assertEquals(AddressEvent.Type.BALANCE, events.get(0).getType());
+        assertEquals(500L, events.get(0).getDelta());
+        assertEquals("t2", events.get(1).getTxid());
+    }
+
+    private static BatchResult<Long> balances(long a, long b) {
+        BatchResult<Long> batch = new BatchResult<>();
+        batch.addResult("a", a);
+        batch.addResult("b", b);
+        return batch;
+    }
+
+    private static Transaction transaction(String txid, int confirmations) {
+        Transaction tx = new Transaction();
+        tx.setTxid(txid);
+        tx.setConfirmations(confirmations);
+        return tx;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.CachingBlockchainAPI;
+import com.example.demo.blockchain.model.ChainEvent;
+import com.example.demo.blockchain.store.MappedUtxoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChainEventServiceTest {
+    private CachingBlockchainAPI providerCache;
+    private AddressWatchService addressWatchService;
+    private MappedUtxoStore store;
+    private ChainEventService service;
+
+    @BeforeEach
+    void setUp() {
+        providerCache = mock(CachingBlockchainAPI.class);
+        addressWatchService = mock(AddressWatchService.class);
+        store = mock(MappedUtxoStore.class);
+        when(store.getTipHeight()).thenReturn(100L);
+        service = new ChainEventService(providerCache, mock(UtxoIndexService.class), addressWatchService, store,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void pushedTipIsNotAppliedBeforeItIsConfirmed() {
+        service.handle(ChainEvent.newBlock(101, null));
+
+        verify(store, never()).setTipHeight(anyLong());
+        verify(providerCache, never()).observeChainTip(anyLong());
+    }
+
+    @Test
+    void forgedTipAboveTheProvidersIsIgnored() throws Exception {
+        when(providerCache.getBlockHeight()).thenReturn(101L);
+
+        service.handle(ChainEvent.newBlock(999_999_999L, null));
+        service.drain();
+
+        verify(store).setTipHeight(101L);
+        verify(store, never()).setTipHeight(999_999_999L);
+        verify(providerCache).observeChainTip(101L);
+    }
+
+    @Test
+    void unconfirmedTipIsRetriedOnTheNextRun() throws Exception {
+        when(providerCache.getBlockHeight()).thenThrow(new IOException("timeout")).thenReturn(101L);
+        service.handle(ChainEvent.newBlock(101, null));
+
+        service.drain();
+        verify(store, never()).setTipHeight(anyLong());
+
+        service.drain();
+        verify(store).setTipHeight(101L);
+        verify(addressWatchService, times(1)).pollAll();
+    }
+}
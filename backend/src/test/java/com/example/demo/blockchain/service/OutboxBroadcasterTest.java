@@ -0,0 +1,205 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.OutboxEntry;
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.store.TransactionOutbox;
+import com.example.demo.blockchain.tx.PreparedTransaction;
+import com.example.demo.blockchain.tx.SignedTransaction;
+import com.example.demo.blockchain.util.HttpStatusException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxBroadcasterTest {
+    private static final String FROM = "mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn";
+    private static final String TO = "n3GNqMveyvaPvUbH469vDRadqpJMPc84JA";
+    private static final String TXID = "aa".repeat(32);
+
+    @TempDir
+    Path dir;
+
+    private TransactionService transactionService;
+    private UtxoIndexService utxoIndex;
+    private BlockchainAPI blockchainAPI;
+    private LocalMempool mempool;
+    private TransactionOutbox outbox;
+    private OutboxBroadcaster broadcaster;
+    private final UtxoReservationTable reservations = new UtxoReservationTable(4, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transactionService = mock(TransactionService.class);
+        utxoIndex = mock(UtxoIndexService.class);
+        blockchainAPI = mock(BlockchainAPI.class);
+        mempool = mock(LocalMempool.class);
+        outbox = new TransactionOutbox(dir.toString(), false, 168);
+        outbox.open();
+        broadcaster = newBroadcaster();
+        when(transactionService.prepareTransfer(anyString(), anyString(), anyLong(), anyString()))
+                .thenAnswer(invocation -> prepared());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        broadcaster.shutdown();
+        outbox.close();
+    }
+
+    @Test
+    void repeatedIdempotencyKeyReturnsTheOriginalEntry() throws Exception {
+        rejectBroadcasts(new IOException("timeout"));
+
+        OutboxEntry first = broadcaster.submit("key-1", FROM, TO, 5_000, "wif");
+        OutboxEntry again = broadcaster.submit("key-1", FROM, TO, 5_000, "wif");
+
+        assertEquals(first.getId(), again.getId());
+        verify(transactionService, times(1)).prepareTransfer(anyString(), anyString(), anyLong(), anyString());
+        assertThrows(IllegalStateException.class, () -> broadcaster.submit("key-1", FROM, TO, 6_000, "wif"));
+    }
+
+    @Test
+    void idempotencyKeySurvivesARestart() throws Exception {
+        rejectBroadcasts(new IOException("timeout"));
+        OutboxEntry first = broadcaster.submit("key-1", FROM, TO, 5_000, "wif");
+        broadcaster.shutdown();
+        outbox.close();
+
+        outbox = new TransactionOutbox(dir.toString(), false, 168);
+        outbox.open();
+        broadcaster = newBroadcaster();
+        broadcaster.recover();
+
+        assertEquals(first.getId(), broadcaster.submit("key-1", FROM, TO, 5_000, "wif").getId());
+        verify(transactionService, times(1)).prepareTransfer(anyString(), anyString(), anyLong(), anyString());
+        // The queued payment's inputs are spent again after the restart
+        verify(utxoIndex, times(2)).markSpent(eq(FROM), anyCollection());
+    }
+
+    @Test
+    void rejectedTransactionTheNetworkAlreadyHasCountsAsBroadcast() throws Exception {
+        rejectBroadcasts(new HttpStatusException(400, "Transaction already exists"));
+        when(blockchainAPI.isTransactionKnownAsync(TXID)).thenReturn(CompletableFuture.completedFuture(true));
+
+        OutboxEntry entry = awaitAttempt(broadcaster.submit(null, FROM, TO, 5_000, "wif"));
+
+        assertEquals(OutboxEntry.Status.BROADCAST, entry.getStatus());
+        assertEquals(TXID, entry.getTxId());
+        verify(utxoIndex, never()).releaseSpent(anyString(), anyCollection());
+    }
+
+    @Test
+    void rejectedTransactionTheNetworkDoesNotHaveFailsAndReleasesInputs() throws Exception {
+        rejectBroadcasts(new HttpStatusException(400, "Transaction already exists"));
+        when(blockchainAPI.isTransactionKnownAsync(TXID)).thenReturn(CompletableFuture.completedFuture(false));
+
+        OutboxEntry entry = awaitAttempt(broadcaster.submit(null, FROM, TO, 5_000, "wif"));
+
+        assertEquals(OutboxEntry.Status.FAILED, entry.getStatus());
+        verify(utxoIndex).releaseSpent(FROM, entry.getInputs());
+        verify(mempool).releaseSpent(entry.getInputs());
+    }
+
+    @Test
+    void unknownOutcomeKeepsInputsSpentAndRetries() throws Exception {
+        rejectBroadcasts(new HttpStatusException(400, "Invalid transaction"));
+        when(blockchainAPI.isTransactionKnownAsync(TXID))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("connection refused")));
+
+        OutboxEntry entry = awaitAttempt(broadcaster.submit(null, FROM, TO, 5_000, "wif"));
+
+        assertEquals(OutboxEntry.Status.QUEUED, entry.getStatus());
+        assertTrue(entry.getNextAttemptAt() > System.currentTimeMillis());
+        verify(utxoIndex, never()).releaseSpent(anyString(), anyCollection());
+        verify(mempool, never()).releaseSpent(anyList());
+    }
+
+    @Test
+    void shutdownWaitsForTheRunningAttemptToBeRecorded() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(blockchainAPI.broadcastTransaction(anyString(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return TXID;
+        });
+        OutboxEntry submitted = broadcaster.submit(null, FROM, TO, 5_000, "wif");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread stopper = new Thread(broadcaster::shutdown);
+        stopper.start();
+        stopper.join(100);
+        assertTrue(stopper.isAlive());
+
+        release.countDown();
+        stopper.join(5_000);
+        assertFalse(stopper.isAlive());
+        // Recorded before the outbox closes, not lost to a write on a closed file
+        assertEquals(OutboxEntry.Status.BROADCAST, outbox.get(submitted.getId()).getStatus());
+    }
+
+    private OutboxBroadcaster newBroadcaster() {
+        OutboxBroadcaster created = new OutboxBroadcaster(transactionService, utxoIndex, blockchainAPI, outbox, mempool,
+                1, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(created, "requiredConfirmations", 1);
+        ReflectionTestUtils.setField(created, "maxAttempts", 8);
+        ReflectionTestUtils.setField(created, "retryBaseDelayMs", 60_000L);
+        ReflectionTestUtils.setField(created, "retryMaxDelayMs", 300_000L);
+        return created;
+    }
+
+    private void rejectBroadcasts(Exception error) throws Exception {
+        when(blockchainAPI.broadcastTransaction(anyString(), any())).thenThrow(error);
+    }
+
+    /**
+     * Waits for the first broadcast attempt of an entry to be recorded.
+     */
+    private OutboxEntry awaitAttempt(OutboxEntry submitted) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            OutboxEntry entry = outbox.get(submitted.getId());
+            if (entry.getAttempts() > 0) {
+                return entry;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("No broadcast attempt recorded for " + submitted.getId());
+    }
+
+    private PreparedTransaction prepared() {
+        UTXO input = new UTXO();
+        input.setTxid("bb".repeat(32));
+        input.setVout(0);
+        input.setAmount(10_000);
+        List<UTXO> inputs = List.of(input);
+        return new PreparedTransaction(FROM, new SignedTransaction(TXID, "00", 1, 1), inputs,
+                List.of(new TxOutput(TO, 5_000), new TxOutput(FROM, 4_000)), 1_000, reservations.tryClaim(inputs));
+    }
+}
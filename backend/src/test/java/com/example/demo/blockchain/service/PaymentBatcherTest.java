@@ -0,0 +1,96 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.model.BatchedPayment;
+import com.example.demo.blockchain.tx.TransactionBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.params.TestNet3Params;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PaymentBatcherTest {
+    private final KeyService keyService = new KeyService();
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final TransactionBuilder transactionBuilder = new TransactionBuilder(keyService, 32, 1);
+    private final CountDownLatch slowSendReleased = new CountDownLatch(1);
+    private PaymentBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        FeeRateOracle feeRateOracle = mock(FeeRateOracle.class);
+        when(feeRateOracle.getFeeRate()).thenReturn(10L);
+        batcher = new PaymentBatcher(transactionService, transactionBuilder, keyService, new FeeCalculator(),
+                feeRateOracle, new SimpleMeterRegistry(), 2);
+        ReflectionTestUtils.setField(batcher, "enabled", true);
+        ReflectionTestUtils.setField(batcher, "windowMs", 20L);
+        ReflectionTestUtils.setField(batcher, "maxPayments", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowSendReleased.countDown();
+        batcher.shutdown();
+        transactionBuilder.shutdown();
+    }
+
+    @Test
+    void slowBatchDoesNotHoldUpOtherBatches() throws Exception {
+        ECKey slowKey = new ECKey();
+        ECKey fastKey = new ECKey();
+        String slowAddress = address(slowKey);
+        String fastAddress = address(fastKey);
+        String recipient = address(new ECKey());
+        when(transactionService.sendBatch(eq(slowAddress), anyList(), anyString())).thenAnswer(invocation -> {
+            slowSendReleased.await();
+            return "slow";
+        });
+        when(transactionService.sendBatch(eq(fastAddress), anyList(), anyString())).thenReturn("fast");
+
+        CompletableFuture<BatchedPayment> slow = batcher.submit(slowAddress, recipient, 10_000, wif(slowKey));
+        Thread.sleep(50);
+        CompletableFuture<BatchedPayment> fast = batcher.submit(fastAddress, recipient, 10_000, wif(fastKey));
+
+        assertEquals("fast", fast.get(5, TimeUnit.SECONDS).getTxId());
+        assertFalse(slow.isDone());
+        slowSendReleased.countDown();
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS).getTxId());
+    }
+
+    @Test
+    void dustPaymentIsRejectedBeforeJoiningABatch() {
+        ECKey key = new ECKey();
+        String recipient = address(new ECKey());
+        long dust = new FeeCalculator().calculateDustThreshold(ScriptType.P2PKH, 10);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> batcher.submit(address(key), recipient, dust - 1, wif(key)));
+        assertTrue(e.getMessage().contains("dust"));
+        verifyNoInteractions(transactionService);
+    }
+
+    private static String address(ECKey key) {
+        return LegacyAddress.fromKey(TestNet3Params.get(), key).toString();
+    }
+
+    private static String wif(ECKey key) {
+        return key.getPrivateKeyAsWiF(TestNet3Params.get());
+    }
+}
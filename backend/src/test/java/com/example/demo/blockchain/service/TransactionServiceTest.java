@@ -0,0 +1,104 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import com.example.demo.blockchain.selection.CoinSelectionEngine;
+import com.example.demo.blockchain.tx.TransactionBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionServiceTest {
+    private static final String FROM = "mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn";
+    private static final String TO = "n3GNqMveyvaPvUbH469vDRadqpJMPc84JA";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UtxoReservationTable reservations = new UtxoReservationTable(4, registry);
+    private final List<UTXO> utxos = new ArrayList<>(List.of(UtxoReservationTableTest.utxo(5), UtxoReservationTableTest.utxo(10)));
+    private TransactionService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = newService(reservations);
+    }
+
+    @Test
+    void paymentOnlyReservedOutputsCoverIsRetryable() {
+        reservations.tryClaim(List.of(utxos.get(1)));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> service.prepareTransfer(FROM, TO, 70_000, "key"));
+        assertTrue(e.getMessage().contains("try again"));
+    }
+
+    @Test
+    void claimLandingAfterTheTableLooksEmptyIsRetryable() throws Exception {
+        UtxoReservationTable racing = new UtxoReservationTable(4, registry) {
+            private boolean claimed;
+
+            @Override
+            public int size() {
+                if (!claimed) {
+                    // Another send claims the large output right after this read saw no claims
+                    claimed = true;
+                    tryClaim(List.of(utxos.get(1)));
+                    return 0;
+                }
+                return super.size();
+            }
+        };
+        TransactionService racingService = newService(racing);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> racingService.prepareTransfer(FROM, TO, 70_000, "key"));
+        assertTrue(e.getMessage().contains("try again"));
+    }
+
+    @Test
+    void paymentBeyondTheBalanceIsInsufficientEvenWithReservations() {
+        reservations.tryClaim(List.of(utxos.get(1)));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.prepareTransfer(FROM, TO, 200_000, "key"));
+        assertFalse(e instanceof IllegalStateException);
+        assertTrue(e.getMessage().startsWith("Insufficient funds"));
+    }
+
+    @Test
+    void unconfirmedOutputsOfOthersAreNotSpent() {
+        UTXO incoming = UtxoReservationTableTest.utxo(20);
+        incoming.setConfirmations(0);
+        utxos.add(incoming);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.prepareTransfer(FROM, TO, 200_000, "key"));
+        assertTrue(e.getMessage().startsWith("Insufficient funds"));
+    }
+
+    private TransactionService newService(UtxoReservationTable reservations) throws Exception {
+        ReflectionTestUtils.setField(reservations, "ttlMs", 600_000L);
+        FeeCalculator feeCalculator = new FeeCalculator();
+        KeyService keyService = mock(KeyService.class);
+        when(keyService.isValidAddress(anyString())).thenReturn(true);
+        when(keyService.scriptTypeOf(anyString())).thenReturn(ScriptType.P2PKH);
+        UtxoIndexService utxoIndex = mock(UtxoIndexService.class);
+        when(utxoIndex.getUtxoSet(FROM)).thenAnswer(invocation -> UtxoSet.of(FROM, utxos));
+        FeeRateOracle feeRateOracle = mock(FeeRateOracle.class);
+        when(feeRateOracle.getFeeRate()).thenReturn(1L);
+
+        return new TransactionService(null, feeCalculator, keyService, utxoIndex,
+                new CoinSelectionEngine(feeCalculator, registry, 2, 100_000, 2), mock(TransactionBuilder.class),
+                feeRateOracle, reservations, mock(LocalMempool.class));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockchainAPI;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.store.MappedUtxoStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UtxoIndexServiceTest {
+    private static final String TXID = "ab".repeat(32);
+
+    @TempDir
+    Path dir;
+
+    private BlockchainAPI provider;
+    private MappedUtxoStore store;
+    private UtxoIndexService index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = mock(BlockchainAPI.class);
+        store = new MappedUtxoStore(dir.resolve("store").toString(), false, 0.3, 10_000, new SimpleMeterRegistry());
+        store.open();
+        index = new UtxoIndexService(provider, store);
+        ReflectionTestUtils.setField(index, "indexDir", dir.resolve("index").toString());
+        ReflectionTestUtils.setField(index, "maxStalenessMs", 15_000L);
+        ReflectionTestUtils.setField(index, "fullResyncIntervalMs", 600_000L);
+        ReflectionTestUtils.setField(index, "idleExpiryMs", 604_800_000L);
+        ReflectionTestUtils.setField(index, "maxAddresses", 10_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void failedFirstSyncDoesNotWatchTheAddress() throws Exception {
+        when(provider.getBlockHeight()).thenThrow(new IOException("connection refused"));
+
+        assertThrows(IOException.class, () -> index.getUtxoSet("a"));
+        assertFalse(index.isWatched("a"));
+    }
+
+    @Test
+    void syncedAddressIsWatchedUntilIdle() throws Exception {
+        when(provider.getBlockHeight()).thenReturn(100L);
+        when(provider.getUTXOs(anyString())).thenReturn(List.of(utxo(0, 5_000)));
+
+        assertEquals(5_000, index.getUtxoSet("a").totalValue());
+        assertTrue(index.isWatched("a"));
+
+        ReflectionTestUtils.setField(index, "idleExpiryMs", -1L);
+        index.syncAll();
+        assertFalse(index.isWatched("a"));
+    }
+
+    @Test
+    void pendingSpendsKeepAnIdleAddressWatched() throws Exception {
+        when(provider.getBlockHeight()).thenReturn(100L);
+        when(provider.getUTXOs(anyString())).thenReturn(List.of(utxo(0, 5_000)));
+        index.getUtxoSet("a");
+        index.markSpent("a", List.of(utxo(0, 5_000)));
+        when(provider.getUTXOsAfterAsync(anyString(), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        ReflectionTestUtils.setField(index, "idleExpiryMs", -1L);
+        index.syncAll();
+        assertTrue(index.isWatched("a"));
+    }
+
+    @Test
+    void fullIndexEvictsTheLeastRecentlyUsedAddress() throws Exception {
+        ReflectionTestUtils.setField(index, "maxAddresses", 2);
+        when(provider.getBlockHeight()).thenReturn(100L);
+        when(provider.getUTXOs(anyString())).thenReturn(List.of());
+
+        index.getUtxoSet("a");
+        Thread.sleep(5);
+        index.getUtxoSet("b");
+        Thread.sleep(5);
+        index.getUtxoSet("c");
+
+        assertEquals(2, index.getWatchedAddresses().size());
+        assertFalse(index.isWatched("a"));
+        assertTrue(index.isWatched("c"));
+    }
+
+    private static UTXO utxo(int vout, long value) {
+        UTXO utxo = new UTXO();
+        utxo.setTxid(TXID);
+        utxo.setVout(vout);
+        utxo.setAmount(value);
+        utxo.setBlockHeight(90);
+        return utxo;
+    }
+}
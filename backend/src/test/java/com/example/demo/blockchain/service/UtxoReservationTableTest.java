@@ -0,0 +1,98 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.model.Outpoint;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.model.UtxoSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtxoReservationTableTest {
+    private static final String ADDRESS = "mipcBbFg9gMiCh81Kj8tqqdgoZub1ZJRfn";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UtxoReservationTable table = new UtxoReservationTable(4, registry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(table, "ttlMs", 600_000L);
+    }
+
+    @Test
+    void claimsAllOrNothing() {
+        UTXO a = utxo(1), b = utxo(2), c = utxo(3);
+        UtxoReservationTable.Claim first = table.tryClaim(List.of(a, b));
+        assertNotNull(first);
+
+        assertNull(table.tryClaim(List.of(c, b)));
+        // The losing claim gave back the output it took before the conflict
+        assertFalse(table.isReserved(Outpoint.of(c)));
+        assertEquals(2, table.size());
+        assertEquals(1.0, registry.get("utxo.reservation.conflicts").counter().count());
+
+        first.release();
+        assertEquals(0, table.size());
+        assertNotNull(table.tryClaim(List.of(c, b)));
+    }
+
+    @Test
+    void releaseOnlyDropsItsOwnEntries() {
+        UTXO a = utxo(1);
+        ReflectionTestUtils.setField(table, "ttlMs", -1L);
+        UtxoReservationTable.Claim lapsed = table.tryClaim(List.of(a));
+        ReflectionTestUtils.setField(table, "ttlMs", 600_000L);
+
+        // A lapsed claim is taken over, and releasing it late leaves the new holder alone
+        UtxoReservationTable.Claim current = table.tryClaim(List.of(a));
+        assertNotNull(current);
+        lapsed.release();
+        lapsed.release();
+        assertTrue(table.isReserved(Outpoint.of(a)));
+
+        current.release();
+        assertFalse(table.isReserved(Outpoint.of(a)));
+    }
+
+    @Test
+    void excludesReservedOutputsFromCandidates() {
+        UTXO a = utxo(1), b = utxo(2), c = utxo(3);
+        table.tryClaim(List.of(b));
+
+        UtxoSet candidates = UtxoSet.of(ADDRESS, List.of(a, b, c));
+        assertEquals(1, table.excludeReserved(candidates));
+        assertEquals(2, candidates.size());
+        assertFalse(candidates.contains(b.getTxHash(), b.getOutputIndex()));
+    }
+
+    @Test
+    void sweepsLapsedClaims() {
+        ReflectionTestUtils.setField(table, "ttlMs", -1L);
+        table.tryClaim(List.of(utxo(1), utxo(2)));
+        ReflectionTestUtils.setField(table, "ttlMs", 600_000L);
+        table.tryClaim(List.of(utxo(3)));
+        assertFalse(table.isReserved(Outpoint.of(utxo(1))));
+        assertEquals(3, table.size());
+
+        table.sweepExpired();
+        assertEquals(1, table.size());
+        assertTrue(table.isReserved(Outpoint.of(utxo(3))));
+    }
+
+    static UTXO utxo(int n) {
+        UTXO utxo = new UTXO();
+        utxo.setTxid(String.format("%064x", n));
+        utxo.setVout(n % 3);
+        utxo.setAmount(10_000L * n);
+        utxo.setConfirmations(6);
+        return utxo;
+    }
+}
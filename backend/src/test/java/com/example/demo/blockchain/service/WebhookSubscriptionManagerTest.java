@@ -0,0 +1,43 @@
+package com.example.demo.blockchain.service;
+
+import com.example.demo.blockchain.api.BlockCypherClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class WebhookSubscriptionManagerTest {
+    private WebhookSubscriptionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new WebhookSubscriptionManager(mock(BlockCypherClient.class), mock(UtxoIndexService.class),
+                mock(AddressWatchService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(manager, "callbackUrl", "https://example.org/api/webhooks/blockcypher");
+    }
+
+    @Test
+    void refusesToStartEnabledWithoutSecret() {
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "secret", "");
+
+        assertThrows(IllegalStateException.class, manager::checkConfiguration);
+    }
+
+    @Test
+    void enabledWithSecretOnlyAcceptsThatSecret() {
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "secret", "s3cret");
+
+        assertDoesNotThrow(manager::checkConfiguration);
+        assertTrue(manager.verifySecret("s3cret"));
+        assertFalse(manager.verifySecret("guess"));
+        assertFalse(manager.verifySecret(null));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.blockchain.store;
+
+import com.example.demo.blockchain.model.UTXO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedUtxoStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compactionDropsSpentRecordsAndKeepsEverythingElse() throws Exception {
+        MappedUtxoStore store = open();
+        List<UTXO> utxos = utxos(10);
+        store.replaceAll("a", utxos);
+        store.setTipHeight(120);
+        store.removeAll(utxos.subList(0, 6));
+        assertEquals(6, store.getTombstones());
+
+        store.compact();
+
+        assertEquals(0, store.getTombstones());
+        assertEquals(4, store.getUtxoCount("a"));
+        assertEquals(7_000 + 8_000 + 9_000 + 10_000, store.getBalance("a"));
+        assertTrue(store.contains(utxos.get(9).getTxid(), 9));
+        assertFalse(store.contains(utxos.get(0).getTxid(), 0));
+        assertEquals(120, store.getTipHeight());
+        // Confirmations are derived from the tip, so a lost tip would zero them
+        assertEquals(120 - 100 + 1, store.getUtxoSet("a").asList().get(0).getConfirmations());
+        store.close();
+    }
+
+    @Test
+    void compactedStoreReopensWithItsTip() throws Exception {
+        MappedUtxoStore store = open();
+        List<UTXO> utxos = utxos(4);
+        store.replaceAll("a", utxos);
+        store.setTipHeight(150);
+        store.removeAll(utxos.subList(0, 2));
+        store.compact();
+        store.close();
+
+        MappedUtxoStore reopened = open();
+        assertEquals(150, reopened.getTipHeight());
+        assertEquals(2, reopened.getUtxoCount("a"));
+        assertEquals(3_000 + 4_000, reopened.getBalance("a"));
+        reopened.close();
+    }
+
+    private MappedUtxoStore open() throws Exception {
+        MappedUtxoStore store = new MappedUtxoStore(dir.toString(), false, 0.3, 1, new SimpleMeterRegistry());
+        store.open();
+        return store;
+    }
+
+    private static List<UTXO> utxos(int count) {
+        List<UTXO> utxos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UTXO utxo = new UTXO();
+            utxo.setTxid(String.format("%064x", i + 1));
+            utxo.setVout(i);
+            utxo.setAmount(1_000L * (i + 1));
+            utxo.setBlockHeight(100);
+            utxos.add(utxo);
+        }
+        return utxos;
+    }
+}
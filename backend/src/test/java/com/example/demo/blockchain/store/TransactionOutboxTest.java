@@ -0,0 +1,34 @@
+package com.example.demo.blockchain.store;
+
+import com.example.demo.blockchain.model.OutboxEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionOutboxTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void updateAfterCloseFailsAndLeavesTheEntryAsItWas() throws Exception {
+        TransactionOutbox outbox = new TransactionOutbox(dir.toString(), false, 168);
+        outbox.open();
+        OutboxEntry entry = new OutboxEntry();
+        entry.setId("entry-1");
+        entry.setStatus(OutboxEntry.Status.QUEUED);
+        outbox.insert(entry);
+        outbox.close();
+
+        IOException error = assertThrows(IOException.class,
+                () -> outbox.update("entry-1", e -> e.setStatus(OutboxEntry.Status.BROADCAST)));
+
+        assertEquals("outbox closed", error.getMessage());
+        assertEquals(OutboxEntry.Status.QUEUED, outbox.get("entry-1").getStatus());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.blockchain.tx;
+
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.service.KeyService;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SighashCacheTest {
+    // BIP143 "Native P2WPKH" example: the second input spends a P2WPKH output of 6 BTC
+    private static final String BIP143_UNSIGNED_TX = "0100000002fff7f7881a8099afa6940d42d1e7f6362bec38171ea3edf"
+            + "433541db4e4ad969f0000000000eeffffffef51e1b804cc89d182d279655c3aa89e815b1b309fe287d9b2b55d57b9"
+            + "0ec68a0100000000ffffffff02202cb206000000001976a9148280b37df378db99f66f85c95a783a76ac7a6d5988ac"
+            + "9093510d000000001976a9143bde42dbee7e4dbe6a21b2d50ce2f0167faa815988ac11000000";
+    private static final String BIP143_SCRIPT_CODE = "76a9141d0f172a0ecb48aee1be1f2687d2963ae33f71a188ac";
+    private static final String BIP143_SIGHASH = "c37af31116d1b27caf68aae9e3ac82f1477929014d5b917657d0eb49478cb670";
+
+    private final TransactionBuilder builder = new TransactionBuilder(new KeyService(), 32, 2);
+    private final ECKey key = ECKey.fromPrivate(Sha256Hash.hash("sighash-test".getBytes()));
+
+    @Test
+    void witnessHashMatchesBip143Vector() {
+        Transaction tx = new Transaction(TestNet3Params.get(), Utils.HEX.decode(BIP143_UNSIGNED_TX));
+        SighashCache cache = new SighashCache(tx, Utils.HEX.decode(BIP143_SCRIPT_CODE), true);
+
+        assertEquals(BIP143_SIGHASH, cache.witnessHash(1, 600_000_000L).toString());
+    }
+
+    @Test
+    void witnessHashesMatchBitcoinj() {
+        Transaction tx = builder.assemble(utxos(5), outputs(Script.ScriptType.P2WPKH));
+        byte[] scriptCode = ScriptBuilder.createP2PKHOutputScript(key).getProgram();
+        SighashCache cache = new SighashCache(tx, scriptCode, true);
+
+        for (int i = 0; i < tx.getInputs().size(); i++) {
+            Coin value = tx.getInput(i).getValue();
+            assertEquals(tx.hashForWitnessSignature(i, scriptCode, value, Transaction.SigHash.ALL, false),
+                    cache.witnessHash(i, value.value), "input " + i);
+        }
+    }
+
+    @Test
+    void legacyHashesMatchBitcoinj() {
+        Transaction tx = builder.assemble(utxos(5), outputs(Script.ScriptType.P2PKH));
+        byte[] scriptCode = ScriptBuilder.createP2PKHOutputScript(key).getProgram();
+        SighashCache cache = new SighashCache(tx, scriptCode, false);
+
+        for (int i = 0; i < tx.getInputs().size(); i++) {
+            assertEquals(tx.hashForSignature(i, scriptCode, Transaction.SigHash.ALL, false),
+                    cache.legacyHash(i), "input " + i);
+        }
+    }
+
+    private static List<UTXO> utxos(int count) {
+        List<UTXO> utxos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UTXO utxo = new UTXO();
+            utxo.setTxid(Sha256Hash.of(new byte[]{(byte) i}).toString());
+            utxo.setVout(i);
+            utxo.setAmount(10_000L * (i + 1));
+            utxos.add(utxo);
+        }
+        return utxos;
+    }
+
+    private List<TxOutput> outputs(Script.ScriptType scriptType) {
+        String to = Address.fromKey(TestNet3Params.get(), new ECKey(), scriptType).toString();
+        String change = Address.fromKey(TestNet3Params.get(), key, scriptType).toString();
+        return List.of(new TxOutput(to, 25_000), new TxOutput(change, 4_321));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.blockchain.tx;
+
+import com.example.demo.blockchain.model.TxOutput;
+import com.example.demo.blockchain.model.UTXO;
+import com.example.demo.blockchain.service.KeyService;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionBuilderTest {
+    private final TransactionBuilder builder = new TransactionBuilder(new KeyService(), 32, 2);
+    private final ECKey key = ECKey.fromPrivate(Sha256Hash.hash("builder-test".getBytes()));
+
+    @AfterEach
+    void tearDown() {
+        builder.shutdown();
+    }
+
+    @Test
+    void signedP2pkhInputsVerify() {
+        assertInputsVerify(Script.ScriptType.P2PKH);
+    }
+
+    @Test
+    void signedP2wpkhInputsVerify() {
+        assertInputsVerify(Script.ScriptType.P2WPKH);
+    }
+
+    @Test
+    void parallelSigningMatchesSequentialSigning() {
+        for (Script.ScriptType scriptType : List.of(Script.ScriptType.P2PKH, Script.ScriptType.P2WPKH)) {
+            String from = address(key, scriptType);
+            List<UTXO> utxos = utxos(100);
+            List<TxOutput> outputs = outputs(from);
+
+            Transaction sequential = builder.assemble(utxos, outputs);
+            builder.signSequential(sequential, key, scriptType);
+            Transaction parallel = builder.assemble(utxos, outputs);
+            builder.signParallel(parallel, key, scriptType);
+
+            assertEquals(builder.serialize(sequential).getRawHex(), builder.serialize(parallel).getRawHex(),
+                    scriptType.toString());
+        }
+    }
+
+    private void assertInputsVerify(Script.ScriptType scriptType) {
+        String from = address(key, scriptType);
+        SignedTransaction signed = builder.buildAndSign(utxos(4), outputs(from), key, from);
+
+        Transaction tx = new Transaction(TestNet3Params.get(), Utils.HEX.decode(signed.getRawHex()));
+        assertEquals(tx.getTxId().toString(), signed.getTxId());
+        Script scriptPubKey = ScriptBuilder.createOutputScript(Address.fromString(TestNet3Params.get(), from));
+        for (int i = 0; i < tx.getInputs().size(); i++) {
+            TransactionInput input = tx.getInput(i);
+            // Throws ScriptException if the signature does not commit to the right sighash
+            input.getScriptSig().correctlySpends(tx, i, input.getWitness(),
+                    Coin.valueOf(10_000L * (i + 1)), scriptPubKey, Script.ALL_VERIFY_FLAGS);
+        }
+    }
+
+    private static List<UTXO> utxos(int count) {
+        List<UTXO> utxos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UTXO utxo = new UTXO();
+            utxo.setTxid(Sha256Hash.of(new byte[]{(byte) i}).toString());
+            utxo.setVout(i);
+            utxo.setAmount(10_000L * (i + 1));
+            utxos.add(utxo);
+        }
+        return utxos;
+    }
+
+    private static List<TxOutput> outputs(String change) {
+        return List.of(new TxOutput(address(new ECKey(), Script.ScriptType.P2WPKH), 25_000),
+                new TxOutput(change, 4_321));
+    }
+
+    private static String address(ECKey key, Script.ScriptType scriptType) {
+        return Address.fromKey(TestNet3Params.get(), key, scriptType).toString();
+    }
+}
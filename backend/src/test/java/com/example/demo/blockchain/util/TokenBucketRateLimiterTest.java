@@ -0,0 +1,34 @@
+package com.example.demo.blockchain.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void burstIsServedWithoutWaiting() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 3);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertTrue(limiter.reserve() > 0);
+    }
+
+    @Test
+    void rejectedReservationsDoNotPushTheScheduleBack() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1);
+        assertEquals(0, limiter.tryReserve(0));
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(-1, limiter.tryReserve(0));
+        }
+
+        long wait = limiter.tryReserve(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(wait >= 0 && wait <= TimeUnit.SECONDS.toNanos(1), "wait was " + wait);
+    }
+}